@@ -0,0 +1,66 @@
+package org.openjproxy.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjproxy.grpc.server.CircuitBreaker;
+import org.openjproxy.grpc.server.SlotManager;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the admission checks every statement goes through on the server, with several request threads
+ * executing the same statement: the circuit breaker check and success report, and taking and returning a fast
+ * slot of the slow query segregation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class AdmissionContentionBenchmark {
+
+    private static final String SQL_HASH = "5f2b8c1d9e0a7364";
+
+    private CircuitBreaker circuitBreaker;
+    private SlotManager slotManager;
+
+    @Setup
+    public void setup() {
+        circuitBreaker = new CircuitBreaker(60000, 3);
+        slotManager = new SlotManager(20, 20, 10000);
+    }
+
+    @Benchmark
+    public void circuitBreaker() throws SQLException {
+        circuitBreaker.preCheck(SQL_HASH);
+        circuitBreaker.onSuccess(SQL_HASH);
+    }
+
+    @Benchmark
+    public boolean fastSlot() throws InterruptedException {
+        boolean acquired = slotManager.acquireFastSlot(1000);
+        if (acquired) {
+            slotManager.releaseFastSlot();
+        }
+        return acquired;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AdmissionContentionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
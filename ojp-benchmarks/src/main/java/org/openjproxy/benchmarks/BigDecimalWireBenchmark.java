@@ -0,0 +1,70 @@
+package org.openjproxy.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjproxy.grpc.BigDecimalWire;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing and reading one BigDecimal in the BigDecimalWire format, used for every decimal parameter
+ * and result set cell.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BigDecimalWireBenchmark {
+
+    @Param({"money", "wide"})
+    private String shape;
+
+    private BigDecimal value;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        value = "money".equals(shape)
+                ? new BigDecimal("1234.56")
+                : new BigDecimal("-98765432109876543210987654321.0123456789012345678901234567");
+        encoded = write();
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        BigDecimalWire.writeBigDecimal(out, value);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public BigDecimal read() throws IOException {
+        return BigDecimalWire.readBigDecimal(new DataInputStream(new ByteArrayInputStream(encoded)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BigDecimalWireBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,50 @@
+package org.openjproxy.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjproxy.grpc.server.utils.MethodReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the method lookup callResource does for every resource call, on the interface with the most
+ * methods it is called on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MethodReflectionBenchmark {
+
+    private final List<Object> fetchSize = List.of(100);
+    private final List<Object> noParams = List.of();
+
+    @Benchmark
+    public Method setFetchSize() {
+        return MethodReflectionUtils.findMethodByName(PreparedStatement.class, "setFetchSize", fetchSize);
+    }
+
+    @Benchmark
+    public Method getMoreResults() {
+        return MethodReflectionUtils.findMethodByName(PreparedStatement.class, "getMoreResults", noParams);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MethodReflectionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
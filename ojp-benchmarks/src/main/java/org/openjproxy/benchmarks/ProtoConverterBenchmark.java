@@ -0,0 +1,75 @@
+package org.openjproxy.benchmarks;
+
+import com.openjproxy.grpc.ParameterValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjproxy.grpc.ProtoConverter;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the conversion of one parameter or cell value to and from its ParameterValue, done for every
+ * statement parameter and every result set cell that crosses the wire.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtoConverterBenchmark {
+
+    @Param({"int", "long", "string", "decimal", "bytes"})
+    private String type;
+
+    private Object value;
+    private ParameterValue encoded;
+
+    @Setup
+    public void setup() {
+        switch (type) {
+            case "int":
+                value = 42;
+                break;
+            case "long":
+                value = 9_007_199_254_740_993L;
+                break;
+            case "string":
+                value = "customer-0042@example.com";
+                break;
+            case "decimal":
+                value = new BigDecimal("12345.6789");
+                break;
+            default:
+                value = new byte[64];
+        }
+        encoded = ProtoConverter.toParameterValue(value);
+    }
+
+    @Benchmark
+    public ParameterValue toParameterValue() {
+        return ProtoConverter.toParameterValue(value);
+    }
+
+    @Benchmark
+    public Object fromParameterValue() {
+        return ProtoConverter.fromParameterValue(encoded);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ProtoConverterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
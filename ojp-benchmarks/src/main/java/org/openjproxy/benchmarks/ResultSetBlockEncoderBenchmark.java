@@ -0,0 +1,99 @@
+package org.openjproxy.benchmarks;
+
+import com.openjproxy.grpc.OpResult;
+import com.openjproxy.grpc.SessionInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjproxy.grpc.server.resultset.ResultSetBlockEncoder;
+import org.openjproxy.grpc.server.resultset.ResultSetWrapper;
+
+import javax.sql.rowset.RowSetMetaDataImpl;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding the rows of a result set into the block sent to the client, the way the server reads a
+ * result set: one encoder per result set, a row appended per cursor step and the block wrapped into an OpResult.
+ * Rows come from an in-memory result set over prebuilt values, so the score includes no driver or database work.
+ * The decimal column goes through the generic value conversion, the other columns through the direct writers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultSetBlockEncoderBenchmark {
+
+    private static final String[] LABELS = {"ID", "NAME", "EMAIL", "BALANCE", "ACTIVE", "VERSION"};
+    // BIT rather than BOOLEAN, RowSetMetaDataImpl only reports java.lang.Boolean as the class of a BIT column
+    private static final int[] TYPES = {Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.DECIMAL, Types.BIT,
+            Types.BIGINT};
+
+    @Param({"1", "100"})
+    private int rows;
+
+    private final SessionInfo session = SessionInfo.newBuilder()
+            .setConnHash("benchmark")
+            .setClientUUID("benchmark-client")
+            .setSessionUUID("benchmark-session")
+            .build();
+    private Object[][] values;
+    private RowSetMetaDataImpl metaData;
+    private ResultSet resultSet;
+    private int cursor;
+
+    @Setup
+    public void setup() throws SQLException {
+        metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(LABELS.length);
+        for (int i = 0; i < LABELS.length; i++) {
+            metaData.setColumnName(i + 1, LABELS[i]);
+            metaData.setColumnType(i + 1, TYPES[i]);
+        }
+        values = new Object[rows][];
+        for (int i = 0; i < rows; i++) {
+            values[i] = new Object[]{i, "customer " + i, "customer" + i + "@example.com",
+                    new BigDecimal("1000.25").add(BigDecimal.valueOf(i)), i % 2 == 0, (long) i};
+        }
+        // Only the calls the encoder makes are answered, the typed getters return the stored boxed value
+        resultSet = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "next" -> ++cursor < values.length;
+                    case "wasNull" -> false;
+                    case "getObject", "getInt", "getLong", "getString", "getBoolean" ->
+                            values[cursor][(Integer) args[0] - 1];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Benchmark
+    public OpResult encodeBlock() throws SQLException {
+        cursor = -1;
+        ResultSetBlockEncoder encoder = new ResultSetBlockEncoder(metaData, (rs, i) -> rs.getObject(i + 1));
+        while (resultSet.next()) {
+            encoder.addRow(resultSet);
+        }
+        return ResultSetWrapper.wrapBlock(session, encoder.finishBlock("benchmark-result-set"), "");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ResultSetBlockEncoderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
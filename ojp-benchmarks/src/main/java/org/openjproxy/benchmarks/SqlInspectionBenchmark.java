@@ -0,0 +1,67 @@
+package org.openjproxy.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjproxy.grpc.server.SqlStatementXXHash;
+import org.openjproxy.grpc.server.sql.SqlSessionAffinityDetector;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the SQL inspection the server does for every statement it receives: the statement hash keying the
+ * circuit breaker and the performance monitor, and the session affinity check. The same statement is sent
+ * repeatedly, as an application does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlInspectionBenchmark {
+
+    @Param({"short", "long"})
+    private String shape;
+
+    private String sql;
+
+    @Setup
+    public void setup() {
+        if ("short".equals(shape)) {
+            sql = "SELECT id, name FROM users WHERE id = ?";
+        } else {
+            sql = "SELECT o.id, o.status, o.created_at, c.name, c.email, SUM(l.amount) AS total\n"
+                    + "  FROM orders o\n  JOIN customers c ON c.id = o.customer_id\n"
+                    + "  JOIN order_lines l ON l.order_id = o.id\n"
+                    + " WHERE o.status IN (?, ?, ?) AND o.created_at > ?\n"
+                    + " GROUP BY o.id, o.status, o.created_at, c.name, c.email\n"
+                    + " ORDER BY o.created_at DESC";
+        }
+    }
+
+    @Benchmark
+    public String hashSqlQuery() {
+        return SqlStatementXXHash.hashSqlQuery(sql);
+    }
+
+    @Benchmark
+    public boolean requiresSessionAffinity() {
+        return SqlSessionAffinityDetector.requiresSessionAffinity(sql);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SqlInspectionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
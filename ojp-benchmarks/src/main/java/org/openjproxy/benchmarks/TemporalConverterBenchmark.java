@@ -0,0 +1,73 @@
+package org.openjproxy.benchmarks;
+
+import com.google.type.Date;
+import com.openjproxy.grpc.TimestampWithZone;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjproxy.grpc.TemporalConverter;
+
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the conversion of timestamps and dates to and from their proto messages, done for every temporal
+ * parameter and result set cell.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemporalConverterBenchmark {
+
+    private final ZoneId zoneId = ZoneId.of("Europe/Lisbon");
+    private Timestamp timestamp;
+    private TimestampWithZone timestampWithZone;
+    private java.sql.Date date;
+    private Date protoDate;
+
+    @Setup
+    public void setup() {
+        timestamp = Timestamp.valueOf("2024-03-31 01:30:15.123456789");
+        timestampWithZone = TemporalConverter.toTimestampWithZone(timestamp, zoneId);
+        date = java.sql.Date.valueOf("2024-03-31");
+        protoDate = TemporalConverter.toProtoDate(date);
+    }
+
+    @Benchmark
+    public TimestampWithZone toTimestampWithZone() {
+        return TemporalConverter.toTimestampWithZone(timestamp, zoneId);
+    }
+
+    @Benchmark
+    public Timestamp fromTimestampWithZone() {
+        return TemporalConverter.fromTimestampWithZone(timestampWithZone);
+    }
+
+    @Benchmark
+    public Date toProtoDate() {
+        return TemporalConverter.toProtoDate(date);
+    }
+
+    @Benchmark
+    public java.sql.Date fromProtoDate() {
+        return TemporalConverter.fromProtoDate(protoDate);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TemporalConverterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
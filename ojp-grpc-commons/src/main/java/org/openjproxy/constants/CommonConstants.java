@@ -23,6 +23,12 @@ public class CommonConstants {
     public static final int DEFAULT_PORT_NUMBER = 1059;
     public static final String OJP_REGEX_PATTERN = "ojp\\[([^\\]]+)\\]";
     public static final String OJP_CLOB_PREFIX = "OJP_CLOB_PREFIX:";
+    // BLOBs larger than the server's inline threshold are sent as this prefix followed by the UUID to read them with
+    public static final String OJP_BLOB_PREFIX = "OJP_BLOB_PREFIX:";
+    // gRPC trailer in which servers report their connection pool utilization, in percent
+    public static final String SERVER_UTILIZATION_TRAILER = "ojp-server-utilization";
+    // gRPC trailer in which servers report the demand on a datasource pool: nodeId;connHash;demand
+    public static final String POOL_DEMAND_TRAILER = "ojp-pool-demand";
 
     // Configuration property keys
     public static final String DATASOURCE_NAME_PROPERTY = "ojp.datasource.name";
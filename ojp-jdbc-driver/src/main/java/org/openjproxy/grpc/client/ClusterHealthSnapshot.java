@@ -0,0 +1,73 @@
+package org.openjproxy.grpc.client;
+
+/**
+ * Immutable view of the cluster health as seen by a {@link MultinodeConnectionManager}.
+ *
+ * The epoch starts at 1 and increases each time a server changes health, the bitmap has bit {@code i} set when
+ * the i-th configured server is healthy. Both are sent with every request so the server can detect an unchanged
+ * cluster with an integer comparison and only look at the health string when the epoch advances.
+ * Clusters with more than {@link #MAX_BITMAP_SERVERS} servers cannot be represented as a bitmap, their snapshots
+ * have epoch 0 which tells the server to fall back to comparing the health string.
+ */
+public final class ClusterHealthSnapshot {
+
+    /**
+     * Largest cluster that can be expressed as a health bitmap.
+     */
+    public static final int MAX_BITMAP_SERVERS = Long.SIZE;
+
+    private final long epoch;
+    private final long bitmap;
+    private final String clusterHealth;
+    private final ServerEndpoint[] healthyServers;
+
+    ClusterHealthSnapshot(long epoch, long bitmap, String clusterHealth, ServerEndpoint[] healthyServers) {
+        this.epoch = epoch;
+        this.bitmap = bitmap;
+        this.clusterHealth = clusterHealth;
+        this.healthyServers = healthyServers;
+    }
+
+    /**
+     * Gets the health epoch, 0 when the cluster is too large to be tracked by epoch.
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Gets the health bitmap, bit i set when the i-th server is healthy.
+     */
+    public long getBitmap() {
+        return bitmap;
+    }
+
+    /**
+     * Gets the cluster health string.
+     * Format: "host1:port1(UP);host2:port2(DOWN);host3:port3(UP)"
+     */
+    public String getClusterHealth() {
+        return clusterHealth;
+    }
+
+    /**
+     * Gets the servers that were healthy when the snapshot was taken, in configuration order.
+     * The array is shared by every caller and must not be modified.
+     */
+    ServerEndpoint[] getHealthyServers() {
+        return healthyServers;
+    }
+
+    /**
+     * Number of healthy servers.
+     */
+    public int getHealthyServerCount() {
+        return healthyServers.length;
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterHealthSnapshot{epoch=" + epoch + ", bitmap=" + Long.toBinaryString(bitmap)
+                + ", clusterHealth='" + clusterHealth + "'}";
+    }
+}
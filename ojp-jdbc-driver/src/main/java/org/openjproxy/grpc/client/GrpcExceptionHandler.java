@@ -20,6 +20,9 @@ public class GrpcExceptionHandler {
      */
     public static StatusRuntimeException handle(StatusRuntimeException sre) throws SQLException {
         Metadata metadata = Status.trailersFromThrowable(sre);
+        if (metadata == null) {
+            return sre;
+        }
         SqlErrorResponse errorResponse = metadata.get(ProtoUtils.keyForProto(SqlErrorResponse.getDefaultInstance()));
         if (errorResponse == null) {
             return sre;
@@ -12,6 +12,16 @@ import java.util.Properties;
  */
 public class HealthCheckConfig {
     
+    /**
+     * Strategy used to pick a server when load-aware selection is enabled.
+     */
+    public enum SelectionStrategy {
+        /** Server with the fewest tracked sessions, round-robin on ties. */
+        LEAST_SESSIONS,
+        /** Best of two random servers, weighted by latency, in-flight calls and server-reported utilization. */
+        POWER_OF_TWO_CHOICES
+    }
+    
     private static final Logger log = LoggerFactory.getLogger(HealthCheckConfig.class);
     
     // Default values
@@ -22,6 +32,7 @@ public class HealthCheckConfig {
     private static final double DEFAULT_IDLE_REBALANCE_FRACTION = 1.0;
     private static final int DEFAULT_MAX_CLOSE_PER_RECOVERY = 100;
     private static final boolean DEFAULT_LOAD_AWARE_SELECTION_ENABLED = true;
+    private static final SelectionStrategy DEFAULT_SELECTION_STRATEGY = SelectionStrategy.LEAST_SESSIONS;
     
     // Property keys
     private static final String PROP_HEALTH_CHECK_INTERVAL = "ojp.health.check.interval";
@@ -31,6 +42,7 @@ public class HealthCheckConfig {
     private static final String PROP_REDISTRIBUTION_IDLE_FRACTION = "ojp.redistribution.idleRebalanceFraction";
     private static final String PROP_REDISTRIBUTION_MAX_CLOSE = "ojp.redistribution.maxClosePerRecovery";
     private static final String PROP_LOAD_AWARE_SELECTION = "ojp.loadaware.selection.enabled";
+    private static final String PROP_SELECTION_STRATEGY = "ojp.loadaware.selection.strategy";
     
     private final long healthCheckIntervalMs;
     private final long healthCheckThresholdMs;
@@ -39,11 +51,13 @@ public class HealthCheckConfig {
     private final double idleRebalanceFraction;
     private final int maxClosePerRecovery;
     private final boolean loadAwareSelectionEnabled;
+    private final SelectionStrategy selectionStrategy;
     
     private HealthCheckConfig(long healthCheckIntervalMs, long healthCheckThresholdMs,
                             int healthCheckTimeoutMs,
                             boolean redistributionEnabled, double idleRebalanceFraction,
-                            int maxClosePerRecovery, boolean loadAwareSelectionEnabled) {
+                            int maxClosePerRecovery, boolean loadAwareSelectionEnabled,
+                            SelectionStrategy selectionStrategy) {
         this.healthCheckIntervalMs = healthCheckIntervalMs;
         this.healthCheckThresholdMs = healthCheckThresholdMs;
         this.healthCheckTimeoutMs = healthCheckTimeoutMs;
@@ -51,6 +65,7 @@ public class HealthCheckConfig {
         this.idleRebalanceFraction = idleRebalanceFraction;
         this.maxClosePerRecovery = maxClosePerRecovery;
         this.loadAwareSelectionEnabled = loadAwareSelectionEnabled;
+        this.selectionStrategy = selectionStrategy;
     }
     
     /**
@@ -72,11 +87,12 @@ public class HealthCheckConfig {
         double idleFraction = getDoubleProperty(props, PROP_REDISTRIBUTION_IDLE_FRACTION, DEFAULT_IDLE_REBALANCE_FRACTION);
         int maxClose = getIntProperty(props, PROP_REDISTRIBUTION_MAX_CLOSE, DEFAULT_MAX_CLOSE_PER_RECOVERY);
         boolean loadAware = getBooleanProperty(props, PROP_LOAD_AWARE_SELECTION, DEFAULT_LOAD_AWARE_SELECTION_ENABLED);
+        SelectionStrategy strategy = getStrategyProperty(props, PROP_SELECTION_STRATEGY, DEFAULT_SELECTION_STRATEGY);
         
-        log.info("Health check configuration loaded: interval={}ms, threshold={}ms, timeout={}ms, enabled={}, idleFraction={}, maxClose={}, loadAwareSelection={}", 
-                interval, threshold, timeout, enabled, idleFraction, maxClose, loadAware);
+        log.info("Health check configuration loaded: interval={}ms, threshold={}ms, timeout={}ms, enabled={}, idleFraction={}, maxClose={}, loadAwareSelection={}, strategy={}", 
+                interval, threshold, timeout, enabled, idleFraction, maxClose, loadAware, strategy);
         
-        return new HealthCheckConfig(interval, threshold, timeout, enabled, idleFraction, maxClose, loadAware);
+        return new HealthCheckConfig(interval, threshold, timeout, enabled, idleFraction, maxClose, loadAware, strategy);
     }
     
     /**
@@ -92,7 +108,8 @@ public class HealthCheckConfig {
             DEFAULT_REDISTRIBUTION_ENABLED,
             DEFAULT_IDLE_REBALANCE_FRACTION,
             DEFAULT_MAX_CLOSE_PER_RECOVERY,
-            DEFAULT_LOAD_AWARE_SELECTION_ENABLED
+            DEFAULT_LOAD_AWARE_SELECTION_ENABLED,
+            DEFAULT_SELECTION_STRATEGY
         );
     }
     
@@ -158,6 +175,23 @@ public class HealthCheckConfig {
         }
     }
     
+    private static SelectionStrategy getStrategyProperty(Properties props, String key, SelectionStrategy defaultValue) {
+        String value = props.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        switch (value.trim().toLowerCase()) {
+            case "least-sessions":
+                return SelectionStrategy.LEAST_SESSIONS;
+            case "p2c":
+            case "power-of-two-choices":
+                return SelectionStrategy.POWER_OF_TWO_CHOICES;
+            default:
+                log.warn("Invalid value for {}: {} (expected least-sessions or p2c), using default: {}", key, value, defaultValue);
+                return defaultValue;
+        }
+    }
+    
     public long getHealthCheckIntervalMs() {
         return healthCheckIntervalMs;
     }
@@ -186,6 +220,10 @@ public class HealthCheckConfig {
         return loadAwareSelectionEnabled;
     }
     
+    public SelectionStrategy getSelectionStrategy() {
+        return selectionStrategy;
+    }
+    
     @Override
     public String toString() {
         return "HealthCheckConfig{" +
@@ -196,6 +234,7 @@ public class HealthCheckConfig {
                 ", idleFraction=" + idleRebalanceFraction +
                 ", maxClose=" + maxClosePerRecovery +
                 ", loadAwareSelection=" + loadAwareSelectionEnabled +
+                ", strategy=" + selectionStrategy +
                 '}';
     }
 }
@@ -4,6 +4,8 @@ import com.openjproxy.grpc.ConnectionDetails;
 import com.openjproxy.grpc.PropertyEntry;
 import com.openjproxy.grpc.SessionInfo;
 import com.openjproxy.grpc.StatementServiceGrpc;
+import io.grpc.Channel;
+import io.grpc.ClientInterceptors;
 import io.grpc.ManagedChannel;
 import io.grpc.StatusRuntimeException;
 import org.openjproxy.constants.CommonConstants;
@@ -62,6 +64,8 @@ public class MultinodeConnectionManager {
     private final ConnectionRedistributor connectionRedistributor;
     private XAConnectionRedistributor xaConnectionRedistributor;
     private final ScheduledExecutorService healthCheckScheduler;
+    private volatile ClusterHealthSnapshot clusterHealthSnapshot;
+    private final ServerSelector serverSelector;
     
     public MultinodeConnectionManager(List<ServerEndpoint> serverEndpoints) {
         this(serverEndpoints, CommonConstants.DEFAULT_MULTINODE_RETRY_ATTEMPTS, 
@@ -101,6 +105,7 @@ public class MultinodeConnectionManager {
         this.sessionTracker = new SessionTracker();
         this.healthCheckValidator = new HealthCheckValidator(this.healthCheckConfig, this);
         this.connectionRedistributor = new ConnectionRedistributor(this.connectionTracker, this.healthCheckConfig);
+        this.serverSelector = createServerSelector(this.healthCheckConfig);
         
         // Initialize channels and stubs for all servers
         initializeConnections();
@@ -155,11 +160,14 @@ public class MultinodeConnectionManager {
         synchronized (endpoint) {
             String target = DNS_PREFIX + endpoint.getHost() + ":" + endpoint.getPort();
             ManagedChannel channel = GrpcChannelFactory.createChannel(target);
+            // Feeds the endpoint's load statistics used by load-aware server selection
+            Channel interceptedChannel = ClientInterceptors.intercept(channel,
+                    new ServerLoadInterceptor(endpoint.getLoad()));
             
             StatementServiceGrpc.StatementServiceBlockingStub blockingStub = 
-                    StatementServiceGrpc.newBlockingStub(channel);
+                    StatementServiceGrpc.newBlockingStub(interceptedChannel);
             StatementServiceGrpc.StatementServiceStub asyncStub = 
-                    StatementServiceGrpc.newStub(channel);
+                    StatementServiceGrpc.newStub(interceptedChannel);
             
             ChannelAndStub newChannelAndStub = new ChannelAndStub(channel, blockingStub, asyncStub);
             
@@ -690,32 +698,40 @@ public class MultinodeConnectionManager {
     }
     
     private ServerEndpoint selectHealthyServer() {
-        List<ServerEndpoint> healthyServers = serverEndpoints.stream()
-                .filter(ServerEndpoint::isHealthy)
-                .collect(Collectors.toList());
+        // Healthy servers are precomputed and only rebuilt on health transitions
+        ServerEndpoint[] healthyServers = getClusterHealthSnapshot().getHealthyServers();
         
         // Only attempt recovery if NO servers are healthy (last resort)
         // Time-based health checks via tryTriggerHealthCheck() handle recovery for normal cases
-        if (healthyServers.isEmpty()) {
+        if (healthyServers.length == 0) {
             log.warn("No healthy servers available, attempting recovery as last resort");
             attemptServerRecovery();
             
             // Re-check healthy servers after recovery attempt
-            healthyServers = serverEndpoints.stream()
-                    .filter(ServerEndpoint::isHealthy)
-                    .collect(Collectors.toList());
+            healthyServers = getClusterHealthSnapshot().getHealthyServers();
         }
         
-        if (healthyServers.isEmpty()) {
+        if (healthyServers.length == 0) {
             log.error("No healthy servers available after recovery attempt");
             return null;
         }
         
-        // Choose selection strategy based on configuration
-        if (healthCheckConfig.isLoadAwareSelectionEnabled()) {
-            return selectByLeastConnections(healthyServers);
-        } else {
-            return selectByRoundRobin(healthyServers);
+        return serverSelector.select(healthyServers);
+    }
+    
+    /**
+     * Creates the server selection strategy for the configuration.
+     */
+    private ServerSelector createServerSelector(HealthCheckConfig config) {
+        if (!config.isLoadAwareSelectionEnabled()) {
+            return this::selectByRoundRobin;
+        }
+        switch (config.getSelectionStrategy()) {
+            case POWER_OF_TWO_CHOICES:
+                return new PowerOfTwoChoicesSelector();
+            case LEAST_SESSIONS:
+            default:
+                return this::selectByLeastConnections;
         }
     }
     
@@ -727,46 +743,30 @@ public class MultinodeConnectionManager {
      * Uses SessionTracker for accurate session counts across both XA and non-XA connections.
      * When all servers have equal session counts, falls back to round-robin selection.
      * 
-     * @param healthyServers List of healthy servers to choose from
+     * @param healthyServers Healthy servers to choose from
      * @return The server with the lowest session count
      */
-    private ServerEndpoint selectByLeastConnections(List<ServerEndpoint> healthyServers) {
-        if (healthyServers.isEmpty()) {
-            return null;
-        }
-        
-        // Get current session counts per server from SessionTracker
-        Map<ServerEndpoint, Integer> sessionCounts = sessionTracker.getSessionCounts();
-        
-        // Check if all servers have the same count
+    private ServerEndpoint selectByLeastConnections(ServerEndpoint[] healthyServers) {
+        ServerEndpoint selected = healthyServers[0];
+        int selectedCount = sessionTracker.getSessionCount(selected);
         boolean allEqual = true;
-        Integer firstCount = null;
-        for (ServerEndpoint server : healthyServers) {
-            int count = sessionCounts.getOrDefault(server, 0);
-            if (firstCount == null) {
-                firstCount = count;
-            } else if (firstCount != count) {
+        for (int i = 1; i < healthyServers.length; i++) {
+            int count = sessionTracker.getSessionCount(healthyServers[i]);
+            if (count != selectedCount) {
                 allEqual = false;
-                break;
+            }
+            if (count < selectedCount) {
+                selected = healthyServers[i];
+                selectedCount = count;
             }
         }
         
         // If all counts are equal, use true round-robin instead of load-aware
         if (allEqual) {
-            log.debug("All servers have equal session load ({}), using round-robin selection", firstCount);
+            log.debug("All servers have equal session load ({}), using round-robin selection", selectedCount);
             return selectByRoundRobin(healthyServers);
         }
         
-        // Find server with minimum sessions
-        ServerEndpoint selected = healthyServers.stream()
-                .min((s1, s2) -> {
-                    int count1 = sessionCounts.getOrDefault(s1, 0);
-                    int count2 = sessionCounts.getOrDefault(s2, 0);
-                    return Integer.compare(count1, count2);
-                })
-                .orElse(healthyServers.get(0));
-        
-        int selectedCount = sessionCounts.getOrDefault(selected, 0);
         log.debug("Selected server {} with {} active sessions (load-aware)", 
                 selected.getAddress(), selectedCount);
         
@@ -778,16 +778,12 @@ public class MultinodeConnectionManager {
      * This is the legacy selection method that cycles through servers
      * without considering their current load.
      * 
-     * @param healthyServers List of healthy servers to choose from
+     * @param healthyServers Healthy servers to choose from
      * @return The next server in round-robin order
      */
-    private ServerEndpoint selectByRoundRobin(List<ServerEndpoint> healthyServers) {
-        if (healthyServers.isEmpty()) {
-            return null;
-        }
-        
-        int index = Math.abs(roundRobinCounter.getAndIncrement()) % healthyServers.size();
-        ServerEndpoint selected = healthyServers.get(index);
+    private ServerEndpoint selectByRoundRobin(ServerEndpoint[] healthyServers) {
+        int index = Math.abs(roundRobinCounter.getAndIncrement() % healthyServers.length);
+        ServerEndpoint selected = healthyServers[index];
         
         log.debug("Selected server {} for request (round-robin)", selected.getAddress());
         return selected;
@@ -1034,10 +1030,79 @@ public class MultinodeConnectionManager {
     /**
      * Generates the cluster health status string.
      * Format: "host1:port1(UP);host2:port2(DOWN);host3:port3(UP)"
-     * 
+     *
      * @return Cluster health status string
      */
     public String generateClusterHealth() {
+        return getClusterHealthSnapshot().getClusterHealth();
+    }
+
+    /**
+     * Gets the current cluster health snapshot. The snapshot is cached and only rebuilt, with a new epoch,
+     * when a server changed health since the previous call, so the per request cost is one pass over the
+     * endpoints' health flags.
+     *
+     * @return Current cluster health snapshot
+     */
+    public ClusterHealthSnapshot getClusterHealthSnapshot() {
+        if (serverEndpoints.size() > ClusterHealthSnapshot.MAX_BITMAP_SERVERS) {
+            ServerEndpoint[] healthyServers = serverEndpoints.stream()
+                    .filter(ServerEndpoint::isHealthy)
+                    .toArray(ServerEndpoint[]::new);
+            return new ClusterHealthSnapshot(0, 0, buildClusterHealth(), healthyServers);
+        }
+        long bitmap = computeHealthBitmap();
+        ClusterHealthSnapshot current = clusterHealthSnapshot;
+        if (current != null && current.getBitmap() == bitmap) {
+            return current;
+        }
+        synchronized (this) {
+            current = clusterHealthSnapshot;
+            if (current == null || current.getBitmap() != bitmap) {
+                long epoch = current == null ? 1 : current.getEpoch() + 1;
+                current = new ClusterHealthSnapshot(epoch, bitmap, buildClusterHealth(bitmap),
+                        healthyServers(bitmap));
+                clusterHealthSnapshot = current;
+                log.debug("Cluster health epoch {}: {}", epoch, current.getClusterHealth());
+            }
+            return current;
+        }
+    }
+
+    private long computeHealthBitmap() {
+        long bitmap = 0;
+        for (int i = 0; i < serverEndpoints.size(); i++) {
+            if (serverEndpoints.get(i).isHealthy()) {
+                bitmap |= 1L << i;
+            }
+        }
+        return bitmap;
+    }
+
+    private ServerEndpoint[] healthyServers(long bitmap) {
+        ServerEndpoint[] healthyServers = new ServerEndpoint[Long.bitCount(bitmap)];
+        int index = 0;
+        for (int i = 0; i < serverEndpoints.size(); i++) {
+            if ((bitmap & (1L << i)) != 0) {
+                healthyServers[index++] = serverEndpoints.get(i);
+            }
+        }
+        return healthyServers;
+    }
+
+    private String buildClusterHealth(long bitmap) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < serverEndpoints.size(); i++) {
+            if (i > 0) {
+                sb.append(';');
+            }
+            sb.append(serverEndpoints.get(i).getAddress())
+                    .append((bitmap & (1L << i)) != 0 ? "(UP)" : "(DOWN)");
+        }
+        return sb.toString();
+    }
+
+    private String buildClusterHealth() {
         return serverEndpoints.stream()
                 .map(endpoint -> endpoint.getAddress() + "(" + (endpoint.isHealthy() ? "UP" : "DOWN") + ")")
                 .collect(Collectors.joining(";"));
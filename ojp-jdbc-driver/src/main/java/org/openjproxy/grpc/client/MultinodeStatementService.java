@@ -1,5 +1,7 @@
 package org.openjproxy.grpc.client;
 
+import com.openjproxy.grpc.CallResourceBatchRequest;
+import com.openjproxy.grpc.CallResourceBatchResponse;
 import com.openjproxy.grpc.CallResourceRequest;
 import com.openjproxy.grpc.CallResourceResponse;
 import com.openjproxy.grpc.ConnectionDetails;
@@ -19,6 +21,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Multinode implementation of StatementService that provides:
@@ -33,7 +36,10 @@ public class MultinodeStatementService implements StatementService {
     
     private static final Logger log = LoggerFactory.getLogger(MultinodeStatementService.class);
     
+    private static final long POOL_DEMAND_RELAY_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(2);
+    
     private final MultinodeConnectionManager connectionManager;
+    private final Map<String, Long> nextPoolDemandRelayNanos = new ConcurrentHashMap<>();
     private final Map<ServerEndpoint, StatementServiceGrpcClient> clientMap;
     private final String originalUrl;
     
@@ -141,27 +147,75 @@ public class MultinodeStatementService implements StatementService {
     
     /**
      * Enhances SessionInfo with current cluster health status.
-     * Creates a new SessionInfo with the clusterHealth field populated based on
-     * the current health status of all servers in the cluster.
+     * Creates a new SessionInfo with the clusterHealth, epoch and bitmap fields populated based on
+     * the current health status of all servers in the cluster. The health snapshot is cached by the
+     * connection manager, and the SessionInfo is returned as is when it already carries the current epoch.
      * 
      * @param sessionInfo The original session info
-     * @return A new SessionInfo with cluster health populated
+     * @return A SessionInfo with cluster health populated
      */
     private SessionInfo withClusterHealth(SessionInfo sessionInfo) {
         if (sessionInfo == null) {
             return null;
         }
         
-        String clusterHealth = connectionManager.generateClusterHealth();
+        ClusterHealthSnapshot health = connectionManager.getClusterHealthSnapshot();
+        String poolDemand = poolDemandToRelay(sessionInfo.getConnHash(), health);
+        if (health.getEpoch() != 0 && sessionInfo.getClusterHealthEpoch() == health.getEpoch()
+                && sessionInfo.getClusterHealthBitmap() == health.getBitmap()
+                && sessionInfo.getClusterHealth().equals(health.getClusterHealth())
+                && sessionInfo.getClusterPoolDemand().equals(poolDemand)) {
+            return sessionInfo;
+        }
         
-        log.info("[XA-REBALANCE-DEBUG] withClusterHealth called: connHash={}, isXA={}, original clusterHealth={}, new clusterHealth={}", 
-                sessionInfo.getConnHash(), sessionInfo.getIsXA(), sessionInfo.getClusterHealth(), clusterHealth);
+        if (log.isDebugEnabled()) {
+            log.debug("[XA-REBALANCE-DEBUG] withClusterHealth: connHash={}, isXA={}, epoch {} -> {}, clusterHealth={}",
+                    sessionInfo.getConnHash(), sessionInfo.getIsXA(), sessionInfo.getClusterHealthEpoch(),
+                    health.getEpoch(), health.getClusterHealth());
+        }
         
-        SessionInfo enhanced = SessionInfo.newBuilder(sessionInfo)
-                .setClusterHealth(clusterHealth)
+        return SessionInfo.newBuilder(sessionInfo)
+                .setClusterHealth(health.getClusterHealth())
+                .setClusterHealthEpoch(health.getEpoch())
+                .setClusterHealthBitmap(health.getBitmap())
+                .setClusterPoolDemand(poolDemand)
                 .build();
+    }
+    
+    /**
+     * Builds the pool demand of all healthy servers for a datasource, to be relayed to the server receiving
+     * the request so it can size its share of the pool budget. Relayed at most once per interval per datasource
+     * and only when every healthy server reported its demand recently, which is only the case when the servers
+     * have pool budget sharing enabled.
+     * 
+     * @param connHash Connection hash of the datasource
+     * @param health Current cluster health
+     * @return Pool demand as "nodeId1:demand1;nodeId2:demand2;...", empty when nothing is to be relayed
+     */
+    String poolDemandToRelay(String connHash, ClusterHealthSnapshot health) {
+        if (connHash.isEmpty() || health.getHealthyServerCount() <= 1) {
+            return "";
+        }
+        long now = System.nanoTime();
+        Long nextRelay = nextPoolDemandRelayNanos.get(connHash);
+        if (nextRelay != null && now - nextRelay < 0) {
+            return "";
+        }
+        nextPoolDemandRelayNanos.put(connHash, now + POOL_DEMAND_RELAY_INTERVAL_NANOS);
         
-        return enhanced;
+        StringBuilder relay = new StringBuilder();
+        for (ServerEndpoint server : health.getHealthyServers()) {
+            ServerLoad.PoolDemand demand = server.getLoad().getPoolDemand(connHash, now);
+            if (demand == null) {
+                // Shares computed without the demand of every server could exceed the global budget
+                return "";
+            }
+            if (relay.length() > 0) {
+                relay.append(';');
+            }
+            relay.append(demand.getNodeId()).append(':').append(demand.getDemand());
+        }
+        return relay.toString();
     }
     
     /**
@@ -614,6 +668,17 @@ public class MultinodeStatementService implements StatementService {
             client.callResource(enhancedRequest)
         );
     }
+
+    @Override
+    public CallResourceBatchResponse callResourceBatch(CallResourceBatchRequest request) throws SQLException {
+        SessionInfo enhancedSessionInfo = withClusterHealth(request.getSession());
+        CallResourceBatchRequest enhancedRequest = CallResourceBatchRequest.newBuilder(request)
+                .setSession(enhancedSessionInfo)
+                .build();
+        return executeWithSessionStickiness(enhancedSessionInfo, client ->
+            client.callResourceBatch(enhancedRequest)
+        );
+    }
     
     // XA Transaction Operations
     @Override
@@ -0,0 +1,49 @@
+package org.openjproxy.grpc.client;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Power of two choices selection: samples two distinct healthy servers at random and picks the one with the
+ * lower {@link ServerLoad#cost(long)}.
+ *
+ * Comparing two random candidates instead of always taking the global minimum keeps many clients from piling
+ * onto the same server between two load updates, while still steering away from slow or saturated servers.
+ */
+public class PowerOfTwoChoicesSelector implements ServerSelector {
+
+    private final Random random;
+    private final LongSupplier clock;
+
+    public PowerOfTwoChoicesSelector() {
+        this(null, System::nanoTime);
+    }
+
+    /**
+     * @param random Random generator, null to use {@link ThreadLocalRandom}
+     * @param clock Source of {@link System#nanoTime()} values
+     */
+    PowerOfTwoChoicesSelector(Random random, LongSupplier clock) {
+        this.random = random;
+        this.clock = clock;
+    }
+
+    @Override
+    public ServerEndpoint select(ServerEndpoint[] healthyServers) {
+        int size = healthyServers.length;
+        if (size == 1) {
+            return healthyServers[0];
+        }
+        Random rnd = random != null ? random : ThreadLocalRandom.current();
+        int first = rnd.nextInt(size);
+        int second = rnd.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        long now = clock.getAsLong();
+        ServerEndpoint a = healthyServers[first];
+        ServerEndpoint b = healthyServers[second];
+        return a.getLoad().cost(now) <= b.getLoad().cost(now) ? a : b;
+    }
+}
@@ -12,6 +12,7 @@ public class ServerEndpoint {
     private final String dataSourceName;
     private volatile boolean healthy = true;
     private volatile long lastFailureTime = 0;
+    private final ServerLoad load = new ServerLoad();
 
     public ServerEndpoint(String host, int port) {
         this(host, port, "default");
@@ -50,6 +51,13 @@ public class ServerEndpoint {
         this.healthy = healthy;
     }
 
+    /**
+     * Gets the load this client observes on the server, used by load-aware server selection.
+     */
+    public ServerLoad getLoad() {
+        return load;
+    }
+
     public long getLastFailureTime() {
         return lastFailureTime;
     }
@@ -0,0 +1,174 @@
+package org.openjproxy.grpc.client;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load observed by this client for one server: calls in flight, an EWMA of call round trip times and the
+ * connection pool utilization the server reports back on each response. Failed calls count as slow ones.
+ *
+ * Latency and utilization decay towards zero while no new samples arrive, so a server that was slow or busy
+ * at some point is tried again after a while instead of being avoided forever.
+ *
+ * Updates are lock free and may occasionally lose a sample under contention, which is fine for a load signal.
+ *
+ * Servers with pool budget sharing enabled also report the demand on the pool of each datasource, which the
+ * client relays to all servers.
+ */
+public class ServerLoad {
+
+    private static final double RTT_EWMA_WEIGHT = 0.3;
+    private static final long DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+    // Added to the latency so idle servers without samples still compare on in-flight calls and utilization
+    private static final double RTT_FLOOR_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    // Latency sample recorded for a failed call, so a failing server is avoided until the penalty decays
+    static final long FAILURE_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // Pool demand older than this is not relayed, the server may have been idle or restarted since
+    private static final long POOL_DEMAND_MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double rttNanos;
+    private volatile long rttUpdatedNanos;
+    private volatile int utilizationPercent;
+    private volatile long utilizationUpdatedNanos;
+    private final Map<String, PoolDemand> poolDemandByConnHash = new ConcurrentHashMap<>();
+
+    /**
+     * Call when a call to the server starts.
+     */
+    public void onCallStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Call when a call to the server completes successfully with a measured round trip time.
+     *
+     * @param rttNanos Round trip time of the call
+     * @param nowNanos Current {@link System#nanoTime()}
+     */
+    public void onCallCompleted(long rttNanos, long nowNanos) {
+        inFlight.decrementAndGet();
+        addRttSample(rttNanos, nowNanos);
+    }
+
+    /**
+     * Call when a call to the server completes without a latency worth recording, for example a stream that
+     * stays open for as long as its caller keeps reading or a call cancelled by this client.
+     */
+    public void onCallCompleted() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Call when a call to the server fails. The failure counts as a {@link #FAILURE_PENALTY_NANOS} latency
+     * sample, so the server becomes more expensive than its peers that answer.
+     *
+     * @param nowNanos Current {@link System#nanoTime()}
+     */
+    public void onCallFailed(long nowNanos) {
+        inFlight.decrementAndGet();
+        addRttSample(FAILURE_PENALTY_NANOS, nowNanos);
+    }
+
+    private void addRttSample(long rttNanos, long nowNanos) {
+        double current = decayed(this.rttNanos, rttUpdatedNanos, nowNanos);
+        this.rttNanos = current == 0 ? rttNanos : current + RTT_EWMA_WEIGHT * (rttNanos - current);
+        this.rttUpdatedNanos = nowNanos;
+    }
+
+    /**
+     * Records the connection pool utilization reported by the server.
+     *
+     * @param percent Utilization in percent, above 100 when requests are waiting for connections
+     * @param nowNanos Current {@link System#nanoTime()}
+     */
+    public void onUtilizationReported(int percent, long nowNanos) {
+        this.utilizationPercent = Math.max(0, percent);
+        this.utilizationUpdatedNanos = nowNanos;
+    }
+
+    /**
+     * Records the demand on the pool of a datasource reported by the server.
+     *
+     * @param connHash Connection hash of the datasource
+     * @param nodeId Identifier of the server in the pool demand exchange
+     * @param demand Connections in use plus threads waiting for one
+     * @param nowNanos Current {@link System#nanoTime()}
+     */
+    public void onPoolDemandReported(String connHash, String nodeId, int demand, long nowNanos) {
+        poolDemandByConnHash.put(connHash, new PoolDemand(nodeId, Math.max(0, demand), nowNanos));
+    }
+
+    /**
+     * Gets the last pool demand the server reported for a datasource, if recent enough to be relayed.
+     *
+     * @param connHash Connection hash of the datasource
+     * @param nowNanos Current {@link System#nanoTime()}
+     * @return The pool demand, null when none was reported recently
+     */
+    public PoolDemand getPoolDemand(String connHash, long nowNanos) {
+        PoolDemand demand = poolDemandByConnHash.get(connHash);
+        if (demand == null || nowNanos - demand.reportedNanos > POOL_DEMAND_MAX_AGE_NANOS) {
+            return null;
+        }
+        return demand;
+    }
+
+    /**
+     * Expected cost of sending one more call to the server, lower is better.
+     * The latency is scaled by the calls already queued on the server and by its pool utilization.
+     *
+     * @param nowNanos Current {@link System#nanoTime()}
+     * @return Cost of the server
+     */
+    public double cost(long nowNanos) {
+        double rtt = decayed(rttNanos, rttUpdatedNanos, nowNanos) + RTT_FLOOR_NANOS;
+        double utilization = decayed(utilizationPercent, utilizationUpdatedNanos, nowNanos) / 100.0;
+        return rtt * (inFlight.get() + 1) * (1 + utilization);
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public double getRttMillis(long nowNanos) {
+        return decayed(rttNanos, rttUpdatedNanos, nowNanos) / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public int getUtilizationPercent() {
+        return utilizationPercent;
+    }
+
+    private static double decayed(double value, long updatedNanos, long nowNanos) {
+        if (value == 0) {
+            return 0;
+        }
+        long elapsed = nowNanos - updatedNanos;
+        return elapsed <= 0 ? value : value * Math.exp(-(double) elapsed / DECAY_NANOS);
+    }
+
+    /**
+     * Demand on a datasource pool reported by a server.
+     */
+    public static final class PoolDemand {
+        private final String nodeId;
+        private final int demand;
+        private final long reportedNanos;
+
+        PoolDemand(String nodeId, int demand, long reportedNanos) {
+            this.nodeId = nodeId;
+            this.demand = demand;
+            this.reportedNanos = reportedNanos;
+        }
+
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        public int getDemand() {
+            return demand;
+        }
+    }
+}
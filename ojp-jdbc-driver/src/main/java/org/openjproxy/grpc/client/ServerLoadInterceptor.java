@@ -0,0 +1,127 @@
+package org.openjproxy.grpc.client;
+
+import com.openjproxy.grpc.SqlErrorResponse;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.protobuf.ProtoUtils;
+import org.openjproxy.constants.CommonConstants;
+
+/**
+ * Client interceptor feeding the {@link ServerLoad} of one server: counts calls in flight, measures the time
+ * to the first response of successful calls, penalizes failed ones and reads the pool utilization and pool
+ * demand the server reports in the response trailers.
+ */
+class ServerLoadInterceptor implements ClientInterceptor {
+
+    static final Metadata.Key<String> UTILIZATION_KEY =
+            Metadata.Key.of(CommonConstants.SERVER_UTILIZATION_TRAILER, Metadata.ASCII_STRING_MARSHALLER);
+    static final Metadata.Key<String> POOL_DEMAND_KEY =
+            Metadata.Key.of(CommonConstants.POOL_DEMAND_TRAILER, Metadata.ASCII_STRING_MARSHALLER);
+    private static final Metadata.Key<SqlErrorResponse> SQL_ERROR_KEY =
+            ProtoUtils.keyForProto(SqlErrorResponse.getDefaultInstance());
+
+    private final ServerLoad load;
+
+    ServerLoadInterceptor(ServerLoad load) {
+        this.load = load;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions, Channel next) {
+        // Calls sending a single request are measured by the time to their first response, so a streamed query
+        // counts its execution but not how long the caller takes to read it. Client streaming calls, like
+        // createLob or the session stream, last as long as the client keeps sending and are not measured.
+        boolean measured = method.getType() == MethodDescriptor.MethodType.UNARY
+                || method.getType() == MethodDescriptor.MethodType.SERVER_STREAMING;
+        return new ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT>(next.newCall(method, callOptions)) {
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                long startNanos = System.nanoTime();
+                load.onCallStarted();
+                Listener<RespT> listener = new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(
+                        responseListener) {
+                    // Listener callbacks are serialized, a plain field is enough
+                    private long firstResponseNanos;
+
+                    @Override
+                    public void onMessage(RespT message) {
+                        if (firstResponseNanos == 0) {
+                            firstResponseNanos = System.nanoTime();
+                        }
+                        super.onMessage(message);
+                    }
+
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        long now = System.nanoTime();
+                        onCallClosed(load, status, trailers, measured && firstResponseNanos != 0
+                                ? firstResponseNanos - startNanos : -1, now);
+                        String utilization = trailers.get(UTILIZATION_KEY);
+                        if (utilization != null) {
+                            try {
+                                load.onUtilizationReported(Integer.parseInt(utilization), now);
+                            } catch (NumberFormatException e) {
+                                // Ignore malformed values, the load signal is best effort
+                            }
+                        }
+                        String poolDemand = trailers.get(POOL_DEMAND_KEY);
+                        if (poolDemand != null) {
+                            onPoolDemand(load, poolDemand, now);
+                        }
+                        super.onClose(status, trailers);
+                    }
+                };
+                try {
+                    super.start(listener, headers);
+                } catch (RuntimeException e) {
+                    load.onCallFailed(System.nanoTime());
+                    throw e;
+                }
+            }
+        };
+    }
+
+    /**
+     * Records the outcome of a call: its latency when it succeeded, a penalty when it failed and nothing but
+     * its completion when this client cancelled it, for example by closing a result set before its last block.
+     *
+     * @param rttNanos Time to the first response, negative when the call is not measured
+     */
+    static void onCallClosed(ServerLoad load, Status status, Metadata trailers, long rttNanos, long nowNanos) {
+        if (status.isOk()) {
+            if (rttNanos >= 0) {
+                load.onCallCompleted(rttNanos, nowNanos);
+            } else {
+                load.onCallCompleted();
+            }
+        } else if (status.getCode() == Status.Code.CANCELLED && !trailers.containsKey(SQL_ERROR_KEY)) {
+            // The server reports SQL errors as cancelled calls too, but always with the error in the trailers
+            load.onCallCompleted();
+        } else {
+            load.onCallFailed(nowNanos);
+        }
+    }
+
+    /**
+     * Records pool demand reported as {@code nodeId;connHash;demand}, ignoring malformed values.
+     */
+    static void onPoolDemand(ServerLoad load, String poolDemand, long nowNanos) {
+        String[] parts = poolDemand.split(";");
+        if (parts.length != 3 || parts[0].isEmpty() || parts[1].isEmpty()) {
+            return;
+        }
+        try {
+            load.onPoolDemandReported(parts[1], parts[0], Integer.parseInt(parts[2]), nowNanos);
+        } catch (NumberFormatException e) {
+            // Ignore malformed values, the demand exchange is best effort
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.openjproxy.grpc.client;
+
+/**
+ * Picks the server for a new connection or a call that is not bound to a session.
+ */
+@FunctionalInterface
+public interface ServerSelector {
+
+    /**
+     * Selects one of the healthy servers.
+     *
+     * @param healthyServers Healthy servers, never empty. Shared and must not be modified.
+     * @return The selected server
+     */
+    ServerEndpoint select(ServerEndpoint[] healthyServers);
+}
@@ -0,0 +1,413 @@
+package org.openjproxy.grpc.client;
+
+import com.openjproxy.grpc.CallResourceBatchRequest;
+import com.openjproxy.grpc.CallResourceBatchResponse;
+import com.openjproxy.grpc.CallResourceRequest;
+import com.openjproxy.grpc.CallResourceResponse;
+import com.openjproxy.grpc.ConnectionDetails;
+import com.openjproxy.grpc.LobDataBlock;
+import com.openjproxy.grpc.LobReference;
+import com.openjproxy.grpc.OpResult;
+import com.openjproxy.grpc.ResultSetFetchRequest;
+import com.openjproxy.grpc.SessionInfo;
+import com.openjproxy.grpc.SessionRequestFrame;
+import com.openjproxy.grpc.SessionResponseFrame;
+import com.openjproxy.grpc.SqlErrorResponse;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.openjproxy.grpc.dto.Parameter;
+import org.openjproxy.jdbc.Connection;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+
+import static org.openjproxy.grpc.client.GrpcExceptionHandler.handle;
+
+/**
+ * Statement service of a connection that sends statements, result set fetches, resource calls and transaction
+ * demarcation over one long-lived bidirectional stream instead of one rpc each, when
+ * {@link #SESSION_STREAM_PROPERTY} is enabled. Requests are framed with a correlation id, the session is sent only
+ * when it differs from the last one sent on the stream, and the server runs every request with the session of the
+ * stream. LOBs, XA and session management keep using the unary rpcs.
+ * <p>
+ * A stream that fails fails the requests waiting on it and the next request opens a new one.
+ */
+@Slf4j
+public class SessionStreamStatementService implements StatementService {
+
+    /**
+     * Opens one bidirectional stream per connection for its statements and resource calls. Disabled by default,
+     * only used with a single server, multinode connections keep the unary rpcs to route each request.
+     */
+    public static final String SESSION_STREAM_PROPERTY = "ojp.sessionStream.enabled";
+
+    private static final Metadata.Key<SqlErrorResponse> SQL_ERROR_KEY =
+            ProtoUtils.keyForProto(SqlErrorResponse.getDefaultInstance());
+
+    private final StatementService delegate;
+    private final Function<StreamObserver<SessionResponseFrame>, StreamObserver<SessionRequestFrame>> streamOpener;
+    private Stream stream;
+    private int lastCorrelationId;
+
+    public SessionStreamStatementService(StatementServiceGrpcClient client) {
+        this(client, client::sessionStream);
+    }
+
+    SessionStreamStatementService(StatementService delegate,
+            Function<StreamObserver<SessionResponseFrame>, StreamObserver<SessionRequestFrame>> streamOpener) {
+        this.delegate = delegate;
+        this.streamOpener = streamOpener;
+    }
+
+    /**
+     * Sends a request on the stream, opening it first if there is none, and returns the queue its response frames
+     * are delivered to.
+     */
+    private synchronized BlockingQueue<Object> send(SessionInfo session, SessionRequestFrame.Builder frame)
+            throws SQLException {
+        if (stream == null || stream.failed) {
+            stream = new Stream();
+            stream.requests = streamOpener.apply(stream);
+        }
+        if (!session.equals(stream.session)) {
+            frame.setSession(session);
+            stream.session = session;
+        }
+        int correlationId = ++lastCorrelationId;
+        BlockingQueue<Object> responses = new LinkedBlockingQueue<>();
+        if (!stream.register(correlationId, responses)) {
+            // The stream failed since it was checked, the request gets the stream's error without being sent
+            return responses;
+        }
+        try {
+            stream.requests.onNext(frame.setCorrelationId(correlationId).build());
+        } catch (RuntimeException e) {
+            stream.fail(e);
+            throw new SQLException("Unable to send request on the session stream: " + e.getMessage(), e);
+        }
+        return responses;
+    }
+
+    /**
+     * Takes the next response frame of a request, throwing the error the server or the stream failed it with.
+     */
+    private static SessionResponseFrame take(BlockingQueue<Object> responses) throws SQLException {
+        try {
+            return nextFrame(responses);
+        } catch (StatusRuntimeException e) {
+            throw handle(e);
+        }
+    }
+
+    /**
+     * Takes the next response frame of a request, failing with a StatusRuntimeException like the unary rpc does.
+     */
+    private static SessionResponseFrame nextFrame(BlockingQueue<Object> responses) {
+        Object response;
+        try {
+            response = responses.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Status.CANCELLED.withDescription("Interrupted waiting for a session stream response")
+                    .withCause(e).asRuntimeException();
+        }
+        if (response instanceof StatusRuntimeException) {
+            throw (StatusRuntimeException) response;
+        }
+        if (response instanceof Throwable) {
+            throw Status.fromThrowable((Throwable) response).asRuntimeException();
+        }
+        SessionResponseFrame frame = (SessionResponseFrame) response;
+        if (frame.hasError()) {
+            throw toStatusRuntimeException(frame.getError());
+        }
+        return frame;
+    }
+
+    /**
+     * The exception the unary rpc fails with, so the error is reported the same way whichever transport is used.
+     */
+    private static StatusRuntimeException toStatusRuntimeException(SqlErrorResponse error) {
+        Metadata metadata = new Metadata();
+        metadata.put(SQL_ERROR_KEY, error);
+        return Status.CANCELLED.asRuntimeException(metadata);
+    }
+
+    /**
+     * Sends a request answered by a single frame and waits for it.
+     */
+    private SessionResponseFrame call(SessionInfo session, SessionRequestFrame.Builder frame) throws SQLException {
+        BlockingQueue<Object> responses = send(session, frame);
+        SessionResponseFrame response = take(responses);
+        while (!response.getLast()) {
+            response = take(responses);
+        }
+        return response;
+    }
+
+    @Override
+    public OpResult executeUpdate(SessionInfo sessionInfo, String sql, List<Parameter> params,
+                                  Map<String, Object> properties) throws SQLException {
+        return this.executeUpdate(sessionInfo, sql, params, "", properties);
+    }
+
+    @Override
+    public OpResult executeUpdate(SessionInfo sessionInfo, String sql, List<Parameter> params, String statementUUID,
+                                  Map<String, Object> properties) throws SQLException {
+        return call(sessionInfo, SessionRequestFrame.newBuilder().setExecuteUpdate(
+                StatementServiceGrpcClient.statementRequest(sql, params, statementUUID, properties))).getOpResult();
+    }
+
+    @Override
+    public Iterator<OpResult> executeQuery(SessionInfo sessionInfo, String sql, List<Parameter> params,
+                                           Map<String, Object> properties) throws SQLException {
+        return this.executeQuery(sessionInfo, sql, params, "", properties);
+    }
+
+    @Override
+    public Iterator<OpResult> executeQuery(SessionInfo sessionInfo, String sql, List<Parameter> params,
+                                           String statementUUID, Map<String, Object> properties)
+            throws SQLException {
+        BlockingQueue<Object> responses = send(sessionInfo, SessionRequestFrame.newBuilder().setExecuteQuery(
+                StatementServiceGrpcClient.statementRequest(sql, params, statementUUID, properties)));
+        return new QueryResults(responses, take(responses));
+    }
+
+    @Override
+    public OpResult fetchNextRows(SessionInfo sessionInfo, String resultSetUUID, int size) throws SQLException {
+        return call(sessionInfo, SessionRequestFrame.newBuilder().setFetchNextRows(
+                ResultSetFetchRequest.newBuilder().setResultSetUUID(resultSetUUID).setSize(size))).getOpResult();
+    }
+
+    @Override
+    public CallResourceResponse callResource(CallResourceRequest request) throws SQLException {
+        return call(request.getSession(), SessionRequestFrame.newBuilder()
+                .setCallResource(request.toBuilder().clearSession())).getCallResource();
+    }
+
+    @Override
+    public CallResourceBatchResponse callResourceBatch(CallResourceBatchRequest request) throws SQLException {
+        return call(request.getSession(), SessionRequestFrame.newBuilder()
+                .setCallResourceBatch(request.toBuilder().clearSession())).getCallResourceBatch();
+    }
+
+    @Override
+    public SessionInfo startTransaction(SessionInfo session) throws SQLException {
+        return call(session, SessionRequestFrame.newBuilder().setStartTransaction(true)).getSession();
+    }
+
+    @Override
+    public SessionInfo commitTransaction(SessionInfo session) throws SQLException {
+        return call(session, SessionRequestFrame.newBuilder().setCommitTransaction(true)).getSession();
+    }
+
+    @Override
+    public SessionInfo rollbackTransaction(SessionInfo session) throws SQLException {
+        return call(session, SessionRequestFrame.newBuilder().setRollbackTransaction(true)).getSession();
+    }
+
+    @Override
+    public void terminateSession(SessionInfo session) {
+        delegate.terminateSession(session);
+        synchronized (this) {
+            if (stream != null && !stream.failed) {
+                try {
+                    stream.requests.onCompleted();
+                } catch (RuntimeException e) {
+                    log.debug("Failed to close the session stream: {}", e.getMessage());
+                }
+            }
+            stream = null;
+        }
+    }
+
+    @Override
+    public SessionInfo connect(ConnectionDetails connectionDetails) throws SQLException {
+        return delegate.connect(connectionDetails);
+    }
+
+    @Override
+    public LobReference createLob(Connection connection, Iterator<LobDataBlock> lobDataBlock) throws SQLException {
+        return delegate.createLob(connection, lobDataBlock);
+    }
+
+    @Override
+    public Iterator<LobDataBlock> readLob(LobReference lobReference, long pos, int length) throws SQLException {
+        return delegate.readLob(lobReference, pos, length);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaResponse xaStart(com.openjproxy.grpc.XaStartRequest request) throws SQLException {
+        return delegate.xaStart(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaResponse xaEnd(com.openjproxy.grpc.XaEndRequest request) throws SQLException {
+        return delegate.xaEnd(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaPrepareResponse xaPrepare(com.openjproxy.grpc.XaPrepareRequest request)
+            throws SQLException {
+        return delegate.xaPrepare(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaResponse xaCommit(com.openjproxy.grpc.XaCommitRequest request) throws SQLException {
+        return delegate.xaCommit(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaResponse xaRollback(com.openjproxy.grpc.XaRollbackRequest request)
+            throws SQLException {
+        return delegate.xaRollback(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaRecoverResponse xaRecover(com.openjproxy.grpc.XaRecoverRequest request)
+            throws SQLException {
+        return delegate.xaRecover(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaResponse xaForget(com.openjproxy.grpc.XaForgetRequest request) throws SQLException {
+        return delegate.xaForget(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaSetTransactionTimeoutResponse xaSetTransactionTimeout(
+            com.openjproxy.grpc.XaSetTransactionTimeoutRequest request) throws SQLException {
+        return delegate.xaSetTransactionTimeout(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaGetTransactionTimeoutResponse xaGetTransactionTimeout(
+            com.openjproxy.grpc.XaGetTransactionTimeoutRequest request) throws SQLException {
+        return delegate.xaGetTransactionTimeout(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaIsSameRMResponse xaIsSameRM(com.openjproxy.grpc.XaIsSameRMRequest request)
+            throws SQLException {
+        return delegate.xaIsSameRM(request);
+    }
+
+    /**
+     * One stream and the requests waiting for responses on it. Response frames are delivered on a gRPC thread to
+     * the queue of the request with their correlation id.
+     */
+    private static class Stream implements StreamObserver<SessionResponseFrame> {
+        private final Map<Integer, BlockingQueue<Object>> pending = new ConcurrentHashMap<>();
+        private StreamObserver<SessionRequestFrame> requests;
+        private SessionInfo session;
+        private volatile boolean failed;
+        // Guarded by this, so a request is either registered before the stream fails or gets the failure
+        private Throwable failure;
+
+        /**
+         * Registers a request for the response frames with its correlation id, unless the stream has failed, in
+         * which case the failure is delivered to the request's queue instead.
+         *
+         * @return whether the request was registered and can be sent
+         */
+        private synchronized boolean register(int correlationId, BlockingQueue<Object> responses) {
+            if (failure != null) {
+                responses.add(failure);
+                return false;
+            }
+            pending.put(correlationId, responses);
+            return true;
+        }
+
+        @Override
+        public void onNext(SessionResponseFrame frame) {
+            BlockingQueue<Object> responses = frame.getLast()
+                    ? pending.remove(frame.getCorrelationId())
+                    : pending.get(frame.getCorrelationId());
+            if (responses == null) {
+                log.debug("Dropping session stream response for unknown request {}", frame.getCorrelationId());
+                return;
+            }
+            responses.add(frame);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            fail(t);
+        }
+
+        @Override
+        public void onCompleted() {
+            fail(Status.UNAVAILABLE.withDescription("Session stream closed by the server").asRuntimeException());
+        }
+
+        private void fail(Throwable t) {
+            List<BlockingQueue<Object>> waiting;
+            synchronized (this) {
+                if (failure == null) {
+                    failure = t;
+                }
+                failed = true;
+                waiting = new ArrayList<>(pending.values());
+                pending.clear();
+            }
+            if (!waiting.isEmpty()) {
+                log.warn("Session stream failed with {} requests waiting: {}", waiting.size(), t.getMessage());
+            }
+            waiting.forEach(responses -> responses.add(t));
+        }
+    }
+
+    /**
+     * Result blocks of a query, read from the stream as the result set consumes them.
+     */
+    private static class QueryResults implements Iterator<OpResult> {
+        private final BlockingQueue<Object> responses;
+        private SessionResponseFrame next;
+        private boolean last;
+
+        QueryResults(BlockingQueue<Object> responses, SessionResponseFrame first) {
+            this.responses = responses;
+            this.next = first.hasOpResult() ? first : null;
+            this.last = first.getLast();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !last) {
+                SessionResponseFrame frame;
+                try {
+                    frame = nextFrame(responses);
+                } catch (StatusRuntimeException e) {
+                    last = true;
+                    throw e;
+                }
+                last = frame.getLast();
+                next = frame.hasOpResult() ? frame : null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public OpResult next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            OpResult result = next.getOpResult();
+            next = null;
+            return result;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package org.openjproxy.grpc.client;
 
+import com.openjproxy.grpc.CallResourceBatchRequest;
+import com.openjproxy.grpc.CallResourceBatchResponse;
 import com.openjproxy.grpc.CallResourceRequest;
 import com.openjproxy.grpc.CallResourceResponse;
 import com.openjproxy.grpc.ConnectionDetails;
@@ -56,6 +58,8 @@ public interface StatementService {
 
     CallResourceResponse callResource(CallResourceRequest request) throws SQLException;
 
+    CallResourceBatchResponse callResourceBatch(CallResourceBatchRequest request) throws SQLException;
+
     // XA Transaction Operations
     com.openjproxy.grpc.XaResponse xaStart(com.openjproxy.grpc.XaStartRequest request) throws SQLException;
     
@@ -2,6 +2,8 @@ package org.openjproxy.grpc.client;
 
 import com.google.common.util.concurrent.SettableFuture;
 import com.google.protobuf.ByteString;
+import com.openjproxy.grpc.CallResourceBatchRequest;
+import com.openjproxy.grpc.CallResourceBatchResponse;
 import com.openjproxy.grpc.CallResourceRequest;
 import com.openjproxy.grpc.CallResourceResponse;
 import com.openjproxy.grpc.ConnectionDetails;
@@ -11,6 +13,8 @@ import com.openjproxy.grpc.OpResult;
 import com.openjproxy.grpc.ReadLobRequest;
 import com.openjproxy.grpc.ResultSetFetchRequest;
 import com.openjproxy.grpc.SessionInfo;
+import com.openjproxy.grpc.SessionRequestFrame;
+import com.openjproxy.grpc.SessionResponseFrame;
 import com.openjproxy.grpc.SessionTerminationStatus;
 import com.openjproxy.grpc.StatementRequest;
 import com.openjproxy.grpc.StatementServiceGrpc;
@@ -100,20 +104,8 @@ public class StatementServiceGrpcClient implements StatementService {
                                   Map<String, Object> properties)
             throws SQLException {
         try {
-            StatementRequest.Builder builder = StatementRequest.newBuilder()
-                    .setSession(sessionInfo)
-                    .setStatementUUID(statementUUID != null ? statementUUID : "")
-                    .setSql(sql);
-            
-            if (params != null) {
-                builder.addAllParameters(toProtoList(params));
-            }
-            
-            if (properties != null) {
-                builder.addAllProperties(propertiesToProto(properties));
-            }
-            
-            return this.statemetServiceBlockingStub.executeUpdate(builder.build());
+            return this.statemetServiceBlockingStub.executeUpdate(
+                    statementRequest(sql, params, statementUUID, properties).setSession(sessionInfo).build());
         } catch (StatusRuntimeException e) {
             throw handle(e);
         }
@@ -129,25 +121,39 @@ public class StatementServiceGrpcClient implements StatementService {
     public Iterator<OpResult> executeQuery(SessionInfo sessionInfo, String sql, List<Parameter> params, String statementUUID,
                                            Map<String, Object> properties) throws SQLException {
         try {
-            StatementRequest.Builder builder = StatementRequest.newBuilder()
-                    .setStatementUUID(statementUUID != null ? statementUUID : "")
-                    .setSession(sessionInfo)
-                    .setSql(sql);
-            
-            if (params != null) {
-                builder.addAllParameters(toProtoList(params));
-            }
-            
-            if (properties != null) {
-                builder.addAllProperties(propertiesToProto(properties));
-            }
-            
-            return this.statemetServiceBlockingStub.executeQuery(builder.build());
+            return this.statemetServiceBlockingStub.executeQuery(
+                    statementRequest(sql, params, statementUUID, properties).setSession(sessionInfo).build());
         } catch (StatusRuntimeException e) {
             throw handle(e);
         }
     }
 
+    /**
+     * Statement request without the session, shared with the session stream which sends the session apart.
+     */
+    static StatementRequest.Builder statementRequest(String sql, List<Parameter> params, String statementUUID,
+                                                     Map<String, Object> properties) {
+        StatementRequest.Builder builder = StatementRequest.newBuilder()
+                .setStatementUUID(statementUUID != null ? statementUUID : "")
+                .setSql(sql);
+
+        if (params != null) {
+            builder.addAllParameters(toProtoList(params));
+        }
+
+        if (properties != null) {
+            builder.addAllProperties(propertiesToProto(properties));
+        }
+        return builder;
+    }
+
+    /**
+     * Opens a session stream on the channel of this client, see {@link SessionStreamStatementService}.
+     */
+    StreamObserver<SessionRequestFrame> sessionStream(StreamObserver<SessionResponseFrame> responseObserver) {
+        return this.statemetServiceStub.sessionStream(responseObserver);
+    }
+
     @Override
     public OpResult fetchNextRows(SessionInfo sessionInfo, String resultSetUUID, int size) throws SQLException {
         try {
@@ -488,6 +494,17 @@ public class StatementServiceGrpcClient implements StatementService {
         }
     }
 
+    @Override
+    public CallResourceBatchResponse callResourceBatch(CallResourceBatchRequest request) throws SQLException {
+        try {
+            return this.statemetServiceBlockingStub.callResourceBatch(request);
+        } catch (StatusRuntimeException e) {
+            throw handle(e);
+        } catch (Exception e) {
+            throw new SQLException("Unable to call resources: " + e.getMessage(), e);
+        }
+    }
+
     // XA Transaction Operations
     @Override
     public com.openjproxy.grpc.XaResponse xaStart(com.openjproxy.grpc.XaStartRequest request) throws SQLException {
@@ -0,0 +1,26 @@
+package org.openjproxy.jdbc;
+
+import java.sql.SQLException;
+
+/**
+ * Scope opened by {@link Connection#batchCalls()}. Resource calls without an answer made inside it are sent
+ * together with the next call that needs one, the calls still pending when the scope closes are sent then.
+ */
+public final class CallBatch implements AutoCloseable {
+
+    private final CallBatchingStatementService statementService;
+    private boolean closed;
+
+    CallBatch(CallBatchingStatementService statementService) {
+        this.statementService = statementService;
+        statementService.beginScope();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (!closed) {
+            closed = true;
+            statementService.endScope();
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package org.openjproxy.jdbc;
+
+import com.openjproxy.grpc.CallResourceBatchRequest;
+import com.openjproxy.grpc.CallResourceBatchResponse;
+import com.openjproxy.grpc.CallResourceRequest;
+import com.openjproxy.grpc.CallResourceResponse;
+import com.openjproxy.grpc.CallType;
+import com.openjproxy.grpc.ConnectionDetails;
+import com.openjproxy.grpc.LobDataBlock;
+import com.openjproxy.grpc.LobReference;
+import com.openjproxy.grpc.OpResult;
+import com.openjproxy.grpc.ResourceType;
+import com.openjproxy.grpc.SessionInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.openjproxy.grpc.client.StatementService;
+import org.openjproxy.grpc.dto.Parameter;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statement service of a connection that defers resource calls without an answer, like setters,
+ * {@code clearWarnings} or {@code addBatch}, and sends them in one {@code callResourceBatch} with the next resource
+ * call that needs an answer. Any other request sends the deferred calls first so the server applies everything in
+ * the order the application issued it. Calls are deferred when {@link Connection#CALL_BATCHING_PROPERTY} is enabled
+ * or inside a {@link Connection#batchCalls()} scope.
+ */
+@Slf4j
+class CallBatchingStatementService implements StatementService {
+
+    private final StatementService delegate;
+    private final boolean automatic;
+    private final List<CallResourceRequest> pendingCalls = new ArrayList<>();
+    private int scopes;
+
+    CallBatchingStatementService(StatementService delegate, boolean automatic) {
+        this.delegate = delegate;
+        this.automatic = automatic;
+    }
+
+    synchronized void beginScope() {
+        scopes++;
+    }
+
+    synchronized void endScope() throws SQLException {
+        scopes--;
+        if (scopes == 0 && !automatic) {
+            sendPendingCalls();
+        }
+    }
+
+    synchronized int getPendingCallCount() {
+        return pendingCalls.size();
+    }
+
+    /**
+     * Calls that return nothing on a resource that already exists on the server. Creating the resource or
+     * the session returns its UUID, which later calls need, so those calls are never deferred.
+     */
+    private static boolean isDeferrable(CallResourceRequest request) {
+        CallType callType = request.getTarget().getCallType();
+        if ((callType != CallType.CALL_SET && callType != CallType.CALL_CLEAR && callType != CallType.CALL_ADD)
+                || request.getTarget().hasNextCall()
+                || "Savepoint".equalsIgnoreCase(request.getTarget().getResourceName())) {
+            return false;
+        }
+        return StringUtils.isNotBlank(request.getSession().getSessionUUID())
+                && (request.getResourceType() == ResourceType.RES_CONNECTION
+                || StringUtils.isNotBlank(request.getResourceUUID()));
+    }
+
+    synchronized void sendPendingCalls() throws SQLException {
+        if (pendingCalls.isEmpty()) {
+            return;
+        }
+        List<CallResourceRequest> calls = new ArrayList<>(pendingCalls);
+        pendingCalls.clear();
+        log.debug("Sending {} deferred resource calls", calls.size());
+        delegate.callResourceBatch(CallResourceBatchRequest.newBuilder()
+                .setSession(calls.get(0).getSession())
+                .addAllCalls(calls)
+                .build());
+    }
+
+    @Override
+    public synchronized CallResourceResponse callResource(CallResourceRequest request) throws SQLException {
+        if ((automatic || scopes > 0) && isDeferrable(request)) {
+            pendingCalls.add(request);
+            return CallResourceResponse.newBuilder()
+                    .setSession(request.getSession())
+                    .setResourceUUID(request.getResourceUUID())
+                    .build();
+        }
+        if (pendingCalls.isEmpty()) {
+            return delegate.callResource(request);
+        }
+        List<CallResourceRequest> calls = new ArrayList<>(pendingCalls);
+        calls.add(request);
+        pendingCalls.clear();
+        CallResourceBatchResponse response = delegate.callResourceBatch(CallResourceBatchRequest.newBuilder()
+                .setSession(calls.get(0).getSession())
+                .addAllCalls(calls)
+                .build());
+        return response.getResponses(response.getResponsesCount() - 1);
+    }
+
+    @Override
+    public CallResourceBatchResponse callResourceBatch(CallResourceBatchRequest request) throws SQLException {
+        sendPendingCalls();
+        return delegate.callResourceBatch(request);
+    }
+
+    @Override
+    public SessionInfo connect(ConnectionDetails connectionDetails) throws SQLException {
+        return delegate.connect(connectionDetails);
+    }
+
+    @Override
+    public OpResult executeUpdate(SessionInfo sessionInfo, String sql, List<Parameter> params,
+                                  Map<String, Object> properties) throws SQLException {
+        sendPendingCalls();
+        return delegate.executeUpdate(sessionInfo, sql, params, properties);
+    }
+
+    @Override
+    public OpResult executeUpdate(SessionInfo sessionInfo, String sql, List<Parameter> params, String statementUUID,
+                                  Map<String, Object> properties) throws SQLException {
+        sendPendingCalls();
+        return delegate.executeUpdate(sessionInfo, sql, params, statementUUID, properties);
+    }
+
+    @Override
+    public Iterator<OpResult> executeQuery(SessionInfo sessionInfo, String sql, List<Parameter> params,
+                                           String statementUUID, Map<String, Object> properties) throws SQLException {
+        sendPendingCalls();
+        return delegate.executeQuery(sessionInfo, sql, params, statementUUID, properties);
+    }
+
+    @Override
+    public Iterator<OpResult> executeQuery(SessionInfo sessionInfo, String sql, List<Parameter> params,
+                                           Map<String, Object> properties) throws SQLException {
+        sendPendingCalls();
+        return delegate.executeQuery(sessionInfo, sql, params, properties);
+    }
+
+    @Override
+    public OpResult fetchNextRows(SessionInfo sessionInfo, String resultSetUUID, int size) throws SQLException {
+        sendPendingCalls();
+        return delegate.fetchNextRows(sessionInfo, resultSetUUID, size);
+    }
+
+    @Override
+    public LobReference createLob(Connection connection, Iterator<LobDataBlock> lobDataBlock) throws SQLException {
+        sendPendingCalls();
+        return delegate.createLob(connection, lobDataBlock);
+    }
+
+    @Override
+    public Iterator<LobDataBlock> readLob(LobReference lobReference, long pos, int length) throws SQLException {
+        sendPendingCalls();
+        return delegate.readLob(lobReference, pos, length);
+    }
+
+    @Override
+    public void terminateSession(SessionInfo session) {
+        try {
+            sendPendingCalls();
+        } catch (SQLException e) {
+            log.warn("Deferred resource calls failed before terminating the session: {}", e.getMessage());
+        }
+        delegate.terminateSession(session);
+    }
+
+    @Override
+    public SessionInfo startTransaction(SessionInfo session) throws SQLException {
+        sendPendingCalls();
+        return delegate.startTransaction(session);
+    }
+
+    @Override
+    public SessionInfo commitTransaction(SessionInfo session) throws SQLException {
+        sendPendingCalls();
+        return delegate.commitTransaction(session);
+    }
+
+    @Override
+    public SessionInfo rollbackTransaction(SessionInfo session) throws SQLException {
+        sendPendingCalls();
+        return delegate.rollbackTransaction(session);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaResponse xaStart(com.openjproxy.grpc.XaStartRequest request) throws SQLException {
+        sendPendingCalls();
+        return delegate.xaStart(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaResponse xaEnd(com.openjproxy.grpc.XaEndRequest request) throws SQLException {
+        sendPendingCalls();
+        return delegate.xaEnd(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaPrepareResponse xaPrepare(com.openjproxy.grpc.XaPrepareRequest request)
+            throws SQLException {
+        sendPendingCalls();
+        return delegate.xaPrepare(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaResponse xaCommit(com.openjproxy.grpc.XaCommitRequest request) throws SQLException {
+        sendPendingCalls();
+        return delegate.xaCommit(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaResponse xaRollback(com.openjproxy.grpc.XaRollbackRequest request)
+            throws SQLException {
+        sendPendingCalls();
+        return delegate.xaRollback(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaRecoverResponse xaRecover(com.openjproxy.grpc.XaRecoverRequest request)
+            throws SQLException {
+        sendPendingCalls();
+        return delegate.xaRecover(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaResponse xaForget(com.openjproxy.grpc.XaForgetRequest request) throws SQLException {
+        sendPendingCalls();
+        return delegate.xaForget(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaSetTransactionTimeoutResponse xaSetTransactionTimeout(
+            com.openjproxy.grpc.XaSetTransactionTimeoutRequest request) throws SQLException {
+        sendPendingCalls();
+        return delegate.xaSetTransactionTimeout(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaGetTransactionTimeoutResponse xaGetTransactionTimeout(
+            com.openjproxy.grpc.XaGetTransactionTimeoutRequest request) throws SQLException {
+        sendPendingCalls();
+        return delegate.xaGetTransactionTimeout(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaIsSameRMResponse xaIsSameRM(com.openjproxy.grpc.XaIsSameRMRequest request)
+            throws SQLException {
+        sendPendingCalls();
+        return delegate.xaIsSameRM(request);
+    }
+}
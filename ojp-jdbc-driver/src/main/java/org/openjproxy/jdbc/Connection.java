@@ -36,10 +36,18 @@ import java.util.concurrent.Executor;
 @Slf4j
 public class Connection implements java.sql.Connection {
 
+    /**
+     * Defers resource calls that return nothing, like statement setters or {@code addBatch}, until the next call
+     * that needs an answer, see {@link CallBatchingStatementService}. Disabled by default because an error of a
+     * deferred call is reported by the call it is sent with.
+     */
+    public static final String CALL_BATCHING_PROPERTY = "ojp.callBatching.enabled";
+
     @Getter
     @Setter
     private SessionInfo session;
     private final StatementService statementService;
+    private final CallBatchingStatementService callBatching;
     @Getter
     private final DbName dbName;
     private boolean autoCommit = true;
@@ -50,11 +58,33 @@ public class Connection implements java.sql.Connection {
     private volatile boolean forceInvalid = false;
 
     public Connection(SessionInfo session, StatementService statementService, DbName dbName) {
+        this(session, statementService, dbName, false);
+    }
+
+    public Connection(SessionInfo session, StatementService statementService, DbName dbName, boolean callBatching) {
         this.session = session;
-        this.statementService = statementService;
+        this.callBatching = new CallBatchingStatementService(statementService, callBatching);
+        this.statementService = this.callBatching;
         this.closed = false;
         this.dbName = dbName;
     }
+
+    /**
+     * Opens a scope in which resource calls that return nothing are sent together with the next call that needs
+     * an answer instead of one round trip each, for example:
+     * <pre>{@code
+     * try (CallBatch batch = connection.unwrap(org.openjproxy.jdbc.Connection.class).batchCalls()) {
+     *     statement.setFetchSize(500);
+     *     statement.setQueryTimeout(30);
+     *     statement.clearWarnings();
+     * }
+     * }</pre>
+     * An error of a deferred call is reported by the call it is sent with or by closing the scope.
+     */
+    public CallBatch batchCalls() throws SQLException {
+        checkValid();
+        return new CallBatch(this.callBatching);
+    }
     
     /**
      * Marks this connection as invalid for forced removal from connection pool.
@@ -555,6 +585,9 @@ public class Connection implements java.sql.Connection {
     public <T> T unwrap(Class<T> iface) throws SQLException {
         log.debug("unwrap: {}", iface);
         checkValid();
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
         throw new SQLFeatureNotSupportedException("Cannot unwrap remote proxy object.");
     }
 
@@ -562,7 +595,7 @@ public class Connection implements java.sql.Connection {
     public boolean isWrapperFor(Class<?> iface) throws SQLException {
         log.debug("isWrapperFor: {}", iface);
         checkValid();
-        return false;
+        return iface.isInstance(this);
     }
 
     private CallResourceRequest.Builder newCallBuilder() {
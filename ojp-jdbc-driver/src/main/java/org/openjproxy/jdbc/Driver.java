@@ -10,6 +10,7 @@ import org.openjproxy.grpc.client.MultinodeConnectionManager;
 import org.openjproxy.grpc.client.MultinodeStatementService;
 import org.openjproxy.grpc.client.MultinodeUrlParser;
 import org.openjproxy.grpc.client.ServerEndpoint;
+import org.openjproxy.grpc.client.SessionStreamStatementService;
 import org.openjproxy.grpc.client.StatementService;
 import org.openjproxy.grpc.client.StatementServiceGrpcClient;
 
@@ -116,7 +117,22 @@ public class Driver implements java.sql.Driver {
             throw e;
         }
         log.debug("Returning new Connection with sessionInfo: {}", sessionInfo);
-        return new Connection(sessionInfo, statementService, DatabaseUtils.resolveDbName(cleanUrl));
+        String callBatching = info.getProperty(Connection.CALL_BATCHING_PROPERTY, ojpProperties != null
+                ? ojpProperties.getProperty(Connection.CALL_BATCHING_PROPERTY, "false") : "false");
+        String sessionStream = info.getProperty(SessionStreamStatementService.SESSION_STREAM_PROPERTY,
+                ojpProperties != null ? ojpProperties.getProperty(
+                        SessionStreamStatementService.SESSION_STREAM_PROPERTY, "false") : "false");
+        if (Boolean.parseBoolean(sessionStream)) {
+            if (statementService instanceof StatementServiceGrpcClient) {
+                // One stream per connection, the gRPC client itself is shared by all connections to the server
+                statementService = new SessionStreamStatementService((StatementServiceGrpcClient) statementService);
+            } else {
+                log.warn("{} is only supported with a single server, using unary calls",
+                        SessionStreamStatementService.SESSION_STREAM_PROPERTY);
+            }
+        }
+        return new Connection(sessionInfo, statementService, DatabaseUtils.resolveDbName(cleanUrl),
+                Boolean.parseBoolean(callBatching));
     }
     
 
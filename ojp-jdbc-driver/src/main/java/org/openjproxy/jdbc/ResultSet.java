@@ -2,18 +2,19 @@ package org.openjproxy.jdbc;
 
 import com.openjproxy.grpc.LobReference;
 import com.openjproxy.grpc.LobType;
+import com.openjproxy.grpc.OpQueryResultProto;
 import com.openjproxy.grpc.OpResult;
+import com.openjproxy.grpc.ParameterValue;
 import io.grpc.StatusRuntimeException;
 import lombok.Getter;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.openjproxy.constants.CommonConstants;
-import org.openjproxy.grpc.ProtoConverter;
 import org.openjproxy.grpc.client.StatementService;
-import org.openjproxy.grpc.dto.OpQueryResult;
 import org.openjproxy.jdbc.sqlserver.HydratedBlob;
 
+import javax.sql.rowset.serial.SerialClob;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.Reader;
@@ -48,7 +49,7 @@ public class ResultSet extends RemoteProxyResultSet {
     private final Map<String, Integer> labelsMap;
 
     private Iterator<OpResult> itResults;//Iterator of blocks of data
-    private List<Object[]> currentDataBlock;//Current block of data being processed.
+    private ResultSetBlock currentDataBlock;//Current block of data being processed.
     private AtomicInteger blockIdx = new AtomicInteger(-1);//Current block index
     private AtomicInteger blockCount = new AtomicInteger(1);//Current block count
     private java.sql.ResultSetMetaData resultSetMetadata;
@@ -58,6 +59,8 @@ public class ResultSet extends RemoteProxyResultSet {
     private boolean inRowByRowMode;
 
     private Object lastValueRead;
+    // Stands for a non null value read by a primitive getter without converting it to an object
+    private static final Object PRIMITIVE_VALUE = new Object();
 
     public ResultSet(Iterator<OpResult> itOpResult, StatementService statementService, java.sql.Statement statement) throws SQLException {
         this.itResults = itOpResult;
@@ -66,13 +69,13 @@ public class ResultSet extends RemoteProxyResultSet {
         try {
             this.statement = statement;
             OpResult result = nextWithSessionUpdate(itOpResult.next());
-            OpQueryResult opQueryResult = ProtoConverter.fromProto(result.getQueryResult());
+            OpQueryResultProto queryResult = result.getQueryResult();
             this.inRowByRowMode = CommonConstants.RESULT_SET_ROW_BY_ROW_MODE.equalsIgnoreCase(result.getFlag());
             this.setStatementService(statementService);
-            this.setResultSetUUID(opQueryResult.getResultSetUUID());
-            this.currentDataBlock = opQueryResult.getRows();
+            this.setResultSetUUID(queryResult.getResultSetUUID());
+            this.currentDataBlock = new ResultSetBlock(queryResult);
             this.labelsMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);//During tests CockroachDB returned column names capital, this is so that the search for a column to be case insensitive.
-            List<String> labels = opQueryResult.getLabels();
+            List<String> labels = queryResult.getLabelsList();
             for (int i = 0; i < labels.size(); i++) {
                 labelsMap.put(labels.get(i).toUpperCase(), i);
             }
@@ -113,12 +116,28 @@ public class ResultSet extends RemoteProxyResultSet {
     }
 
     private void setNextOpResult(OpResult result) {
-        OpQueryResult opQueryResult = ProtoConverter.fromProto(result.getQueryResult());
-        this.currentDataBlock = opQueryResult.getRows();
+        this.currentDataBlock = new ResultSetBlock(result.getQueryResult());
         this.blockCount.incrementAndGet();
         this.blockIdx.set(0);
     }
 
+    private Object value(int columnIndex) {
+        return currentDataBlock.get(blockIdx.get(), columnIndex - 1);
+    }
+
+    private ParameterValue rawValue(int columnIndex) {
+        return currentDataBlock.raw(blockIdx.get(), columnIndex - 1);
+    }
+
+    /**
+     * Gets the UUID of a LOB sent by reference, removing the BLOB prefix if present.
+     */
+    private static String lobUUID(Object value) {
+        String uuid = String.valueOf(value);
+        return uuid.startsWith(CommonConstants.OJP_BLOB_PREFIX)
+                ? uuid.substring(CommonConstants.OJP_BLOB_PREFIX.length()) : uuid;
+    }
+
     private OpResult nextWithSessionUpdate(OpResult next) throws SQLException {
         log.debug("nextWithSessionUpdate called");
         ((Connection) this.statement.getConnection()).setSession(next.getSession());
@@ -153,7 +172,7 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getString(columnIndex);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[columnIndex - 1];
+        lastValueRead = value(columnIndex);
         if (lastValueRead == null) {
             return null;
         }
@@ -174,7 +193,12 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getBoolean(columnIndex);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[columnIndex - 1];
+        ParameterValue raw = rawValue(columnIndex);
+        if (raw.getValueCase() == ParameterValue.ValueCase.BOOL_VALUE) {
+            lastValueRead = PRIMITIVE_VALUE;
+            return raw.getBoolValue();
+        }
+        lastValueRead = value(columnIndex);
         if (lastValueRead == null) {
             return false;
         }
@@ -187,7 +211,7 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getByte(columnIndex);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[columnIndex - 1];
+        lastValueRead = value(columnIndex);
         if (lastValueRead == null) {
             return 0;
         } else if (lastValueRead instanceof byte[]) {
@@ -206,7 +230,12 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getShort(columnIndex);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[columnIndex - 1];
+        ParameterValue raw = rawValue(columnIndex);
+        if (raw.getValueCase() == ParameterValue.ValueCase.INT_VALUE) {
+            lastValueRead = PRIMITIVE_VALUE;
+            return (short) raw.getIntValue();
+        }
+        lastValueRead = value(columnIndex);
         if (lastValueRead == null) {
             return 0;
         } else if (lastValueRead instanceof Integer) {
@@ -221,7 +250,12 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getInt(columnIndex);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[columnIndex - 1];
+        ParameterValue raw = rawValue(columnIndex);
+        if (raw.getValueCase() == ParameterValue.ValueCase.INT_VALUE) {
+            lastValueRead = PRIMITIVE_VALUE;
+            return raw.getIntValue();
+        }
+        lastValueRead = value(columnIndex);
         if (lastValueRead == null) {
             return 0;
         }
@@ -256,7 +290,16 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getLong(columnIndex);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[columnIndex - 1];
+        ParameterValue raw = rawValue(columnIndex);
+        if (raw.getValueCase() == ParameterValue.ValueCase.LONG_VALUE) {
+            lastValueRead = PRIMITIVE_VALUE;
+            return raw.getLongValue();
+        }
+        if (raw.getValueCase() == ParameterValue.ValueCase.INT_VALUE) {
+            lastValueRead = PRIMITIVE_VALUE;
+            return raw.getIntValue();
+        }
+        lastValueRead = value(columnIndex);
         if (lastValueRead == null) {
             return 0;
         }
@@ -278,7 +321,12 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getFloat(columnIndex);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[columnIndex - 1];
+        ParameterValue raw = rawValue(columnIndex);
+        if (raw.getValueCase() == ParameterValue.ValueCase.FLOAT_VALUE) {
+            lastValueRead = PRIMITIVE_VALUE;
+            return raw.getFloatValue();
+        }
+        lastValueRead = value(columnIndex);
         if (lastValueRead == null) {
             return 0;
         }
@@ -296,7 +344,12 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getDouble(columnIndex);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[columnIndex - 1];
+        ParameterValue raw = rawValue(columnIndex);
+        if (raw.getValueCase() == ParameterValue.ValueCase.DOUBLE_VALUE) {
+            lastValueRead = PRIMITIVE_VALUE;
+            return raw.getDoubleValue();
+        }
+        lastValueRead = value(columnIndex);
         if (lastValueRead == null) {
             return 0d;
         }
@@ -314,7 +367,7 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getBigDecimal(columnIndex, scale);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[columnIndex - 1];
+        lastValueRead = value(columnIndex);
         if (lastValueRead == null) {
             return null;
         }
@@ -328,7 +381,7 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getBytes(columnIndex);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[columnIndex - 1];
+        lastValueRead = value(columnIndex);
         if (lastValueRead instanceof String) {// Means the server is treating it as a binary stream
             InputStream is = this.getBinaryStream(columnIndex);
             return is.readAllBytes();
@@ -342,7 +395,7 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getDate(columnIndex);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[columnIndex - 1];
+        lastValueRead = value(columnIndex);
         if (lastValueRead == null) {
             return null;
         }
@@ -360,7 +413,7 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getTime(columnIndex);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[columnIndex - 1];
+        lastValueRead = value(columnIndex);
         if (lastValueRead == null) {
             return null;
         }
@@ -373,7 +426,7 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getTimestamp(columnIndex);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[columnIndex - 1];
+        lastValueRead = value(columnIndex);
         if (lastValueRead == null) {
             return null;
         }
@@ -406,14 +459,13 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getBinaryStream(columnIndex);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[columnIndex - 1];
+        lastValueRead = value(columnIndex);
         if (lastValueRead == null) {
             return null;
         } else if (lastValueRead instanceof byte[]) {// Only used by SQL server
             return new ByteArrayInputStream((byte[]) lastValueRead);
         }
-        Object objUUID = lastValueRead;
-        String lobRefUUID = String.valueOf(objUUID);
+        String lobRefUUID = lobUUID(lastValueRead);
         LobReference.Builder lobRefBuilder = LobReference.newBuilder()
                 .setSession(this.getConnection().getSession())
                 .setLobType(LobType.LT_BINARY_STREAM)
@@ -565,7 +617,7 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getBigDecimal(columnLabel, scale);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[this.labelsMap.get(columnLabel.toUpperCase())];
+        lastValueRead = value(this.labelsMap.get(columnLabel.toUpperCase()) + 1);
         if (lastValueRead == null) {
             return null;
         }
@@ -599,7 +651,7 @@ public class ResultSet extends RemoteProxyResultSet {
             return super.getBinaryStream(columnLabel);
         }
         int colIdx = this.labelsMap.get(columnLabel.toUpperCase()) + 1;
-        lastValueRead = currentDataBlock.get(blockIdx.get())[colIdx - 1];
+        lastValueRead = value(colIdx);
         if (lastValueRead == null) {
             return null;
         }
@@ -650,7 +702,19 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getObject(columnIndex);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[columnIndex - 1];
+        lastValueRead = value(columnIndex);
+        // LOBs over the server inline threshold come as locators, they are read here so that getObject returns
+        // the same type, byte[] or String, whatever the size of the LOB
+        if (lastValueRead instanceof String && ((String) lastValueRead).startsWith(CommonConstants.OJP_BLOB_PREFIX)) {
+            Blob blob = this.getBlob(columnIndex);
+            if (blob.length() > Integer.MAX_VALUE) {
+                throw new SQLException("Attempt to read BLOB larger than 2GB via getObject not allowed, use getBlob instead.");
+            }
+            return blob.getBytes(1, (int) blob.length());
+        }
+        if (lastValueRead instanceof String && ((String) lastValueRead).startsWith(CommonConstants.OJP_CLOB_PREFIX)) {
+            return this.getString(columnIndex);
+        }
         return lastValueRead;
     }
 
@@ -689,7 +753,7 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getBigDecimal(columnIndex);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[columnIndex - 1];
+        lastValueRead = value(columnIndex);
         if (lastValueRead == null) {
             return null;
         }
@@ -766,7 +830,8 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getRow();
         }
-        return ((this.blockCount.get() - 1) * CommonConstants.ROWS_PER_RESULT_SET_DATA_BLOCK) + this.blockIdx.get() + 1;
+        // Blocks hold up to ROWS_PER_RESULT_SET_DATA_BLOCK rows, fewer when the server limits their size in bytes
+        return this.currentIdx.get();
     }
 
     @Override
@@ -1344,14 +1409,13 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getBlob(columnIndex);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[columnIndex - 1];
+        lastValueRead = value(columnIndex);
         if (lastValueRead == null) {
             return null;
         } else if (lastValueRead instanceof byte[]) { //Only for SQL server
             return new HydratedBlob((byte[]) lastValueRead);
         }
-        Object objUUID = lastValueRead;
-        String blobRefUUID = String.valueOf(objUUID);
+        String blobRefUUID = lobUUID(lastValueRead);
         LobReference.Builder lobRefBuilder = LobReference.newBuilder()
                 .setSession(((Connection) this.statement.getConnection()).getSession())
                 .setUuid(blobRefUUID);
@@ -1374,14 +1438,15 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getClob(columnIndex);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[columnIndex - 1];
+        lastValueRead = value(columnIndex);
         if (lastValueRead == null) {
             return null;
         }
         String clobRefUUID = (String) lastValueRead;
-        if (clobRefUUID != null && clobRefUUID.startsWith(CommonConstants.OJP_CLOB_PREFIX)) {
-            clobRefUUID = clobRefUUID.replaceAll(CommonConstants.OJP_CLOB_PREFIX, "");
+        if (!clobRefUUID.startsWith(CommonConstants.OJP_CLOB_PREFIX)) {// Small CLOBs are sent inline
+            return new SerialClob(clobRefUUID.toCharArray());
         }
+        clobRefUUID = clobRefUUID.replaceAll(CommonConstants.OJP_CLOB_PREFIX, "");
         return new org.openjproxy.jdbc.Clob((Connection) this.statement.getConnection(),
                 new LobServiceImpl((Connection) this.statement.getConnection(), this.getStatementService()),
                 this.getStatementService(),
@@ -1429,20 +1494,7 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getBlob(columnLabel);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[this.labelsMap.get(columnLabel.toUpperCase())];
-        //For databases where LOBs get invalidated once cursor moves (SQL Server and DB2) must eagerly hydrate LOBs.
-        if (lastValueRead instanceof byte[]){
-            return new HydratedBlob((byte[]) lastValueRead);
-        }
-        String blobRefUUID = (String) lastValueRead;
-        return new org.openjproxy.jdbc.Blob((Connection) this.statement.getConnection(),
-                new LobServiceImpl((Connection) this.statement.getConnection(), this.getStatementService()),
-                this.getStatementService(),
-                LobReference.newBuilder()
-                        .setSession(((Connection) this.statement.getConnection()).getSession())
-                        .setUuid(blobRefUUID)
-                        .build()
-        );
+        return this.getBlob(this.labelsMap.get(columnLabel.toUpperCase()) + 1);
     }
 
     @Override
@@ -1531,7 +1583,7 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getURL(columnIndex);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[columnIndex - 1];
+        lastValueRead = value(columnIndex);
         if (lastValueRead == null) {
             return null;
         }
@@ -1544,7 +1596,7 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getURL(columnLabel);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[this.labelsMap.get(columnLabel.toUpperCase())];
+        lastValueRead = value(this.labelsMap.get(columnLabel.toUpperCase()) + 1);
         if (lastValueRead == null) {
             return null;
         }
@@ -2116,7 +2168,7 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getObject(columnIndex, type);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[columnIndex - 1];
+        lastValueRead = value(columnIndex);
         if (lastValueRead == null) {
             return null;
         }
@@ -2129,7 +2181,7 @@ public class ResultSet extends RemoteProxyResultSet {
         if (this.inProxyMode) {
             return super.getObject(columnLabel, type);
         }
-        lastValueRead = currentDataBlock.get(blockIdx.get())[this.labelsMap.get(columnLabel.toUpperCase())];
+        lastValueRead = value(this.labelsMap.get(columnLabel.toUpperCase()) + 1);
         if (lastValueRead == null) {
             return null;
         }
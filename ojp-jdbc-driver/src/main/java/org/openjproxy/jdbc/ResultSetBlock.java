@@ -0,0 +1,52 @@
+package org.openjproxy.jdbc;
+
+import com.openjproxy.grpc.OpQueryResultProto;
+import com.openjproxy.grpc.ParameterValue;
+import org.openjproxy.grpc.ProtoConverter;
+
+import java.util.Arrays;
+
+/**
+ * Block of result set rows kept as received from the server. A cell is converted to a Java object only when it is
+ * read, and the converted values of the current row are kept so reading the same column twice converts it once.
+ */
+final class ResultSetBlock {
+
+    private static final Object NOT_CONVERTED = new Object();
+
+    private final OpQueryResultProto block;
+    private Object[] rowValues = new Object[0];
+    private int convertedRow = -1;
+
+    ResultSetBlock(OpQueryResultProto block) {
+        this.block = block;
+    }
+
+    int size() {
+        return block.getRowsCount();
+    }
+
+    /**
+     * Cell as sent by the server, for getters that can read primitives without converting to an object.
+     */
+    ParameterValue raw(int row, int column) {
+        return block.getRows(row).getColumns(column);
+    }
+
+    Object get(int row, int column) {
+        if (row != convertedRow) {
+            int columnCount = block.getRows(row).getColumnsCount();
+            if (rowValues.length != columnCount) {
+                rowValues = new Object[columnCount];
+            }
+            Arrays.fill(rowValues, NOT_CONVERTED);
+            convertedRow = row;
+        }
+        Object value = rowValues[column];
+        if (value == NOT_CONVERTED) {
+            value = ProtoConverter.fromParameterValue(raw(row, column));
+            rowValues[column] = value;
+        }
+        return value;
+    }
+}
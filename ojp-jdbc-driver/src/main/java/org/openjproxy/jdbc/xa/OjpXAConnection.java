@@ -36,6 +36,13 @@ import java.util.concurrent.locks.ReentrantLock;
 @Slf4j
 public class OjpXAConnection implements XAConnection, ServerHealthListener {
 
+    /**
+     * Enables XA verb coalescing: xaStart is sent with the first statement of a branch and xaEnd with the
+     * prepare, commit or rollback that follows, see {@link OjpXAResource}. Disabled by default because the
+     * deferred xaStart is not retried on another server and its failure surfaces on the first statement.
+     */
+    public static final String VERB_COALESCING_PROPERTY = "ojp.xa.verbCoalescing.enabled";
+
     private final StatementService statementService;
     private SessionInfo sessionInfo; // Lazily initialized
     private final String url;
@@ -44,6 +51,9 @@ public class OjpXAConnection implements XAConnection, ServerHealthListener {
     private final Properties properties;
     private Connection logicalConnection;
     private OjpXAResource xaResource;
+    // Resource handed out last, kept when xaResource is reset so its deferred verbs reach statements
+    private volatile OjpXAResource coalescingResource;
+    private final boolean verbCoalescingEnabled;
     private boolean closed = false;
     private List<String> serverEndpoints;
     private final List<ConnectionEventListener> listeners = new ArrayList<>();
@@ -58,6 +68,8 @@ public class OjpXAConnection implements XAConnection, ServerHealthListener {
         this.password = password;
         this.properties = properties;
         this.serverEndpoints = serverEndpoints;
+        this.verbCoalescingEnabled = properties != null
+                && Boolean.parseBoolean(properties.getProperty(VERB_COALESCING_PROPERTY, "false"));
         // Session is created lazily when needed
         
         // Register as health listener if using multinode
@@ -171,6 +183,7 @@ public class OjpXAConnection implements XAConnection, ServerHealthListener {
         if (xaResource == null) {
             SessionInfo session = getOrCreateSession();
             xaResource = new OjpXAResource(statementService, session, this); // Phase 1: Pass this connection to XAResource
+            coalescingResource = xaResource;
         }
         return xaResource;
     }
@@ -226,6 +239,24 @@ public class OjpXAConnection implements XAConnection, ServerHealthListener {
         return statementService;
     }
 
+    /**
+     * Get the statement service for logical connections, which carries deferred XA verbs when coalescing.
+     */
+    StatementService getConnectionStatementService() {
+        return verbCoalescingEnabled ? new XaCoalescingStatementService(statementService, this) : statementService;
+    }
+
+    boolean isVerbCoalescingEnabled() {
+        return verbCoalescingEnabled;
+    }
+
+    /**
+     * Get the XA resource whose deferred verbs apply to statements of this connection.
+     */
+    OjpXAResource getCoalescingResource() {
+        return coalescingResource;
+    }
+
     @Override
     public void close() throws SQLException {
         try {
@@ -269,6 +300,16 @@ public class OjpXAConnection implements XAConnection, ServerHealthListener {
                 listener.connectionClosed(event);
             }
             
+            // Send verbs still deferred so the branch state on the server is complete
+            OjpXAResource resource = coalescingResource;
+            if (resource != null && sessionInfo != null) {
+                try {
+                    resource.sendPendingVerbs();
+                } catch (SQLException e) {
+                    log.warn("[XA-CONN-CLOSE] Failed to send deferred XA verbs: {}", e.getMessage());
+                }
+            }
+
             // Close XA session on server (only if it was created)
             if (sessionInfo != null) {
                 try {
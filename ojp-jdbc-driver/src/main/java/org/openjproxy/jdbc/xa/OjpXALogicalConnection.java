@@ -23,7 +23,7 @@ class OjpXALogicalConnection extends Connection {
 
     OjpXALogicalConnection(OjpXAConnection xaConnection, SessionInfo sessionInfo, String url, String boundServerAddress) throws SQLException {
         // Pass the statementService and dbName to the parent Connection class
-        super(sessionInfo, xaConnection.getStatementService(), DatabaseUtils.resolveDbName(url));
+        super(sessionInfo, xaConnection.getConnectionStatementService(), DatabaseUtils.resolveDbName(url));
         this.xaConnection = xaConnection;
         
         // Register with ConnectionTracker if using multinode - this ensures XAConnectionRedistributor
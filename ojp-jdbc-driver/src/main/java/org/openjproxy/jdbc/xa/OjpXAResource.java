@@ -12,11 +12,18 @@ import javax.transaction.xa.XAException;
 import javax.transaction.xa.XAResource;
 import javax.transaction.xa.Xid;
 import java.sql.SQLException;
+import java.util.Arrays;
 
 /**
  * Implementation of XAResource that delegates all operations to the OJP server via StatementService.
  * 
  * Phase 1: Implements retry logic for xaStart() to handle server failures gracefully.
+ * 
+ * Verb coalescing (optional, see {@link OjpXAConnection#VERB_COALESCING_PROPERTY}): a new branch's xaStart is
+ * not sent on its own but with the first statement of the branch, and xaEnd is sent with the prepare, commit or
+ * rollback that follows it. A branch committed in one phase then takes two round trips (statement, commit)
+ * besides its statements instead of four. Verbs are sent on their own whenever anything else comes first.
+ * The server still applies every verb, and checks every state transition, in the original order.
  */
 @Slf4j
 public class OjpXAResource implements XAResource {
@@ -24,17 +31,34 @@ public class OjpXAResource implements XAResource {
     private final StatementService statementService;
     private SessionInfo sessionInfo;
     private final OjpXAConnection xaConnection; // Phase 1: Reference to parent connection for session recreation
+    private final boolean coalesceVerbs;
+    // Verbs deferred by coalescing, guarded by this
+    private Xid pendingStart;
+    private Xid pendingEnd;
+    private int pendingEndFlags;
 
     public OjpXAResource(StatementService statementService, SessionInfo sessionInfo, OjpXAConnection xaConnection) {
         this.statementService = statementService;
         this.sessionInfo = sessionInfo;
         this.xaConnection = xaConnection;
+        this.coalesceVerbs = xaConnection != null && xaConnection.isVerbCoalescingEnabled();
     }
 
     @Override
     public void start(Xid xid, int flags) throws XAException {
         log.debug("start: xid={}, flags={}", xid, flags);
-        
+        flushPendingVerbs();
+        if (coalesceVerbs && flags == TMNOFLAGS) {
+            // Sent with the first statement of the branch, or on its own before any other verb
+            synchronized (this) {
+                pendingStart = xid;
+            }
+            return;
+        }
+        sendStart(xid, flags);
+    }
+
+    private void sendStart(Xid xid, int flags) throws XAException {
         // Phase 1: Implement retry logic for xaStart
         // Safe to retry because no transaction state exists yet
         int maxRetries = getMaxRetries();
@@ -167,6 +191,20 @@ public class OjpXAResource implements XAResource {
     @Override
     public void end(Xid xid, int flags) throws XAException {
         log.debug("end: xid={}, flags={}", xid, flags);
+        // A branch without statements must still exist on the server
+        flushPendingVerbs();
+        if (coalesceVerbs) {
+            // Sent with the prepare, commit or rollback of the branch, or on its own before anything else
+            synchronized (this) {
+                pendingEnd = xid;
+                pendingEndFlags = flags;
+            }
+            return;
+        }
+        sendEnd(xid, flags);
+    }
+
+    private void sendEnd(Xid xid, int flags) throws XAException {
         try {
             XaEndRequest request = XaEndRequest.newBuilder()
                     .setSession(sessionInfo)
@@ -190,11 +228,13 @@ public class OjpXAResource implements XAResource {
     @Override
     public int prepare(Xid xid) throws XAException {
         log.debug("prepare: xid={}", xid);
+        int endFlags = takePendingEnd(xid);
         try {
             // MultinodeStatementService will automatically add cluster health via withClusterHealth()
             XaPrepareRequest request = XaPrepareRequest.newBuilder()
                     .setSession(sessionInfo)
                     .setXid(toXidProto(xid))
+                    .setEndFlags(endFlags)
                     .build();
             XaPrepareResponse response = statementService.xaPrepare(request);
             return response.getResult();
@@ -209,12 +249,15 @@ public class OjpXAResource implements XAResource {
     @Override
     public void commit(Xid xid, boolean onePhase) throws XAException {
         log.debug("commit: xid={}, onePhase={}", xid, onePhase);
+        // A branch committed in one phase was not prepared, its xaEnd is still pending when coalescing
+        int endFlags = takePendingEnd(xid);
         try {
             // MultinodeStatementService will automatically add cluster health via withClusterHealth()
             XaCommitRequest request = XaCommitRequest.newBuilder()
                     .setSession(sessionInfo)
                     .setXid(toXidProto(xid))
                     .setOnePhase(onePhase)
+                    .setEndFlags(endFlags)
                     .build();
             XaResponse response = statementService.xaCommit(request);
             if (!response.getSuccess()) {
@@ -233,10 +276,12 @@ public class OjpXAResource implements XAResource {
     @Override
     public void rollback(Xid xid) throws XAException {
         log.debug("rollback: xid={}", xid);
+        int endFlags = takePendingEnd(xid);
         try {
             XaRollbackRequest request = XaRollbackRequest.newBuilder()
                     .setSession(sessionInfo)
                     .setXid(toXidProto(xid))
+                    .setEndFlags(endFlags)
                     .build();
             XaResponse response = statementService.xaRollback(request);
             if (!response.getSuccess()) {
@@ -255,6 +300,7 @@ public class OjpXAResource implements XAResource {
     @Override
     public Xid[] recover(int flag) throws XAException {
         log.debug("recover: flag={}", flag);
+        flushPendingVerbs();
         try {
             XaRecoverRequest request = XaRecoverRequest.newBuilder()
                     .setSession(sessionInfo)
@@ -275,6 +321,7 @@ public class OjpXAResource implements XAResource {
     @Override
     public void forget(Xid xid) throws XAException {
         log.debug("forget: xid={}", xid);
+        flushPendingVerbs();
         try {
             XaForgetRequest request = XaForgetRequest.newBuilder()
                     .setSession(sessionInfo)
@@ -351,6 +398,109 @@ public class OjpXAResource implements XAResource {
         }
     }
 
+    /**
+     * Attaches the deferred xaStart, if any, to the session of a statement about to be executed, so the server
+     * starts the branch before executing it. A deferred xaEnd is sent first since the statement is not part of
+     * the ended branch.
+     *
+     * @param session Session of the statement request
+     * @return The session to send
+     * @throws SQLException if the deferred xaEnd fails
+     */
+    SessionInfo withPendingStart(SessionInfo session) throws SQLException {
+        try {
+            flushPendingEnd();
+        } catch (XAException e) {
+            throw new SQLException("Deferred XA end failed: " + e.getMessage(), e);
+        }
+        Xid start;
+        synchronized (this) {
+            start = pendingStart;
+            pendingStart = null;
+        }
+        if (start != null) {
+            return session.toBuilder().setPendingXaStart(toXidProto(start)).build();
+        }
+        if (session.hasPendingXaStart()) {
+            // Echoed back by an earlier response, the branch was started already
+            return session.toBuilder().clearPendingXaStart().build();
+        }
+        return session;
+    }
+
+    /**
+     * Sends deferred xaStart and xaEnd on their own, before a request they cannot be combined with.
+     *
+     * @throws SQLException if a deferred verb fails
+     */
+    void sendPendingVerbs() throws SQLException {
+        try {
+            flushPendingVerbs();
+        } catch (XAException e) {
+            throw new SQLException("Deferred XA verb failed: " + e.getMessage(), e);
+        }
+    }
+
+    private void flushPendingVerbs() throws XAException {
+        flushPendingStart();
+        flushPendingEnd();
+    }
+
+    private void flushPendingStart() throws XAException {
+        Xid start;
+        synchronized (this) {
+            start = pendingStart;
+            pendingStart = null;
+        }
+        if (start != null) {
+            sendStart(start, TMNOFLAGS);
+        }
+    }
+
+    private void flushPendingEnd() throws XAException {
+        Xid end;
+        int flags;
+        synchronized (this) {
+            end = pendingEnd;
+            flags = pendingEndFlags;
+            pendingEnd = null;
+        }
+        if (end != null) {
+            sendEnd(end, flags);
+        }
+    }
+
+    /**
+     * Takes the deferred xaEnd of a branch so it is sent with the verb completing the branch.
+     *
+     * @param xid Branch about to be prepared, committed or rolled back
+     * @return Flags of the deferred xaEnd, 0 when the branch has none
+     */
+    private int takePendingEnd(Xid xid) throws XAException {
+        flushPendingStart();
+        Xid end;
+        int flags;
+        synchronized (this) {
+            end = pendingEnd;
+            flags = pendingEndFlags;
+            pendingEnd = null;
+        }
+        if (end == null) {
+            return 0;
+        }
+        if (isSameXid(end, xid)) {
+            return flags;
+        }
+        sendEnd(end, flags);
+        return 0;
+    }
+
+    private static boolean isSameXid(Xid a, Xid b) {
+        return a.getFormatId() == b.getFormatId()
+                && Arrays.equals(a.getGlobalTransactionId(), b.getGlobalTransactionId())
+                && Arrays.equals(a.getBranchQualifier(), b.getBranchQualifier());
+    }
+
     /**
      * Convert javax.transaction.xa.Xid to protobuf XidProto.
      */
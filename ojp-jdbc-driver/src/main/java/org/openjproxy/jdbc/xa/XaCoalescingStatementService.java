@@ -0,0 +1,185 @@
+package org.openjproxy.jdbc.xa;
+
+import com.openjproxy.grpc.CallResourceBatchRequest;
+import com.openjproxy.grpc.CallResourceBatchResponse;
+import com.openjproxy.grpc.CallResourceRequest;
+import com.openjproxy.grpc.CallResourceResponse;
+import com.openjproxy.grpc.ConnectionDetails;
+import com.openjproxy.grpc.LobDataBlock;
+import com.openjproxy.grpc.LobReference;
+import com.openjproxy.grpc.OpResult;
+import com.openjproxy.grpc.SessionInfo;
+import org.openjproxy.grpc.client.StatementService;
+import org.openjproxy.grpc.dto.Parameter;
+import org.openjproxy.jdbc.Connection;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statement service of the logical connections of an XA connection with verb coalescing enabled.
+ * Statements carry the xaStart deferred by the {@link OjpXAResource}, any other request sends deferred verbs
+ * on their own first so the server sees them in the order the transaction manager issued them.
+ */
+class XaCoalescingStatementService implements StatementService {
+
+    private final StatementService delegate;
+    private final OjpXAConnection xaConnection;
+
+    XaCoalescingStatementService(StatementService delegate, OjpXAConnection xaConnection) {
+        this.delegate = delegate;
+        this.xaConnection = xaConnection;
+    }
+
+    private SessionInfo withPendingStart(SessionInfo sessionInfo) throws SQLException {
+        OjpXAResource resource = xaConnection.getCoalescingResource();
+        return resource != null ? resource.withPendingStart(sessionInfo) : sessionInfo;
+    }
+
+    private void sendPendingVerbs() throws SQLException {
+        OjpXAResource resource = xaConnection.getCoalescingResource();
+        if (resource != null) {
+            resource.sendPendingVerbs();
+        }
+    }
+
+    @Override
+    public SessionInfo connect(ConnectionDetails connectionDetails) throws SQLException {
+        return delegate.connect(connectionDetails);
+    }
+
+    @Override
+    public OpResult executeUpdate(SessionInfo sessionInfo, String sql, List<Parameter> params,
+                                  Map<String, Object> properties) throws SQLException {
+        return delegate.executeUpdate(withPendingStart(sessionInfo), sql, params, properties);
+    }
+
+    @Override
+    public OpResult executeUpdate(SessionInfo sessionInfo, String sql, List<Parameter> params, String statementUUID,
+                                  Map<String, Object> properties) throws SQLException {
+        return delegate.executeUpdate(withPendingStart(sessionInfo), sql, params, statementUUID, properties);
+    }
+
+    @Override
+    public Iterator<OpResult> executeQuery(SessionInfo sessionInfo, String sql, List<Parameter> params,
+                                           String statementUUID, Map<String, Object> properties) throws SQLException {
+        return delegate.executeQuery(withPendingStart(sessionInfo), sql, params, statementUUID, properties);
+    }
+
+    @Override
+    public Iterator<OpResult> executeQuery(SessionInfo sessionInfo, String sql, List<Parameter> params,
+                                           Map<String, Object> properties) throws SQLException {
+        return delegate.executeQuery(withPendingStart(sessionInfo), sql, params, properties);
+    }
+
+    @Override
+    public OpResult fetchNextRows(SessionInfo sessionInfo, String resultSetUUID, int size) throws SQLException {
+        sendPendingVerbs();
+        return delegate.fetchNextRows(sessionInfo, resultSetUUID, size);
+    }
+
+    @Override
+    public LobReference createLob(Connection connection, Iterator<LobDataBlock> lobDataBlock) throws SQLException {
+        sendPendingVerbs();
+        return delegate.createLob(connection, lobDataBlock);
+    }
+
+    @Override
+    public Iterator<LobDataBlock> readLob(LobReference lobReference, long pos, int length) throws SQLException {
+        sendPendingVerbs();
+        return delegate.readLob(lobReference, pos, length);
+    }
+
+    @Override
+    public void terminateSession(SessionInfo session) {
+        delegate.terminateSession(session);
+    }
+
+    @Override
+    public SessionInfo startTransaction(SessionInfo session) throws SQLException {
+        sendPendingVerbs();
+        return delegate.startTransaction(session);
+    }
+
+    @Override
+    public SessionInfo commitTransaction(SessionInfo session) throws SQLException {
+        sendPendingVerbs();
+        return delegate.commitTransaction(session);
+    }
+
+    @Override
+    public SessionInfo rollbackTransaction(SessionInfo session) throws SQLException {
+        sendPendingVerbs();
+        return delegate.rollbackTransaction(session);
+    }
+
+    @Override
+    public CallResourceResponse callResource(CallResourceRequest request) throws SQLException {
+        sendPendingVerbs();
+        return delegate.callResource(request);
+    }
+
+    @Override
+    public CallResourceBatchResponse callResourceBatch(CallResourceBatchRequest request) throws SQLException {
+        sendPendingVerbs();
+        return delegate.callResourceBatch(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaResponse xaStart(com.openjproxy.grpc.XaStartRequest request) throws SQLException {
+        return delegate.xaStart(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaResponse xaEnd(com.openjproxy.grpc.XaEndRequest request) throws SQLException {
+        return delegate.xaEnd(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaPrepareResponse xaPrepare(com.openjproxy.grpc.XaPrepareRequest request)
+            throws SQLException {
+        return delegate.xaPrepare(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaResponse xaCommit(com.openjproxy.grpc.XaCommitRequest request) throws SQLException {
+        return delegate.xaCommit(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaResponse xaRollback(com.openjproxy.grpc.XaRollbackRequest request)
+            throws SQLException {
+        return delegate.xaRollback(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaRecoverResponse xaRecover(com.openjproxy.grpc.XaRecoverRequest request)
+            throws SQLException {
+        return delegate.xaRecover(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaResponse xaForget(com.openjproxy.grpc.XaForgetRequest request) throws SQLException {
+        return delegate.xaForget(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaSetTransactionTimeoutResponse xaSetTransactionTimeout(
+            com.openjproxy.grpc.XaSetTransactionTimeoutRequest request) throws SQLException {
+        return delegate.xaSetTransactionTimeout(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaGetTransactionTimeoutResponse xaGetTransactionTimeout(
+            com.openjproxy.grpc.XaGetTransactionTimeoutRequest request) throws SQLException {
+        return delegate.xaGetTransactionTimeout(request);
+    }
+
+    @Override
+    public com.openjproxy.grpc.XaIsSameRMResponse xaIsSameRM(com.openjproxy.grpc.XaIsSameRMRequest request)
+            throws SQLException {
+        return delegate.xaIsSameRM(request);
+    }
+}
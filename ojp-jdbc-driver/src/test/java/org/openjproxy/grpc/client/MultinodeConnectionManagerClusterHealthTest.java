@@ -121,4 +121,32 @@ class MultinodeConnectionManagerClusterHealthTest {
         
         assertEquals("192.168.1.1:1059(UP);192.168.1.2:1059(DOWN);192.168.1.3:1059(UP)", clusterHealth);
     }
+
+    @Test
+    void testClusterHealthSnapshotEpochAdvancesOnlyOnTransitions() {
+        List<ServerEndpoint> endpoints = Arrays.asList(
+            new ServerEndpoint("server1", 1059),
+            new ServerEndpoint("server2", 1059),
+            new ServerEndpoint("server3", 1059)
+        );
+        
+        MultinodeConnectionManager manager = new MultinodeConnectionManager(endpoints);
+        
+        ClusterHealthSnapshot initial = manager.getClusterHealthSnapshot();
+        assertEquals(0b111, initial.getBitmap());
+        assertEquals(3, initial.getHealthyServerCount());
+        assertSame(initial, manager.getClusterHealthSnapshot());
+        
+        endpoints.get(1).setHealthy(false);
+        ClusterHealthSnapshot degraded = manager.getClusterHealthSnapshot();
+        assertEquals(initial.getEpoch() + 1, degraded.getEpoch());
+        assertEquals(0b101, degraded.getBitmap());
+        assertEquals("server1:1059(UP);server2:1059(DOWN);server3:1059(UP)", degraded.getClusterHealth());
+        assertSame(degraded, manager.getClusterHealthSnapshot());
+        
+        endpoints.get(1).setHealthy(true);
+        ClusterHealthSnapshot recovered = manager.getClusterHealthSnapshot();
+        assertEquals(degraded.getEpoch() + 1, recovered.getEpoch());
+        assertEquals(initial.getClusterHealth(), recovered.getClusterHealth());
+    }
 }
@@ -0,0 +1,142 @@
+package org.openjproxy.grpc.client;
+
+import com.openjproxy.grpc.SqlErrorResponse;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.protobuf.ProtoUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for power of two choices server selection and the load signals it relies on.
+ */
+class PowerOfTwoChoicesSelectorTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void testPicksLowerCostOfTwoServers() {
+        ServerEndpoint fast = new ServerEndpoint("fast", 1059);
+        ServerEndpoint slow = new ServerEndpoint("slow", 1059);
+        fast.getLoad().onCallStarted();
+        fast.getLoad().onCallCompleted(2 * MS, 0);
+        slow.getLoad().onCallStarted();
+        slow.getLoad().onCallCompleted(50 * MS, 0);
+
+        PowerOfTwoChoicesSelector selector = new PowerOfTwoChoicesSelector(new Random(1), () -> 0L);
+        ServerEndpoint[] servers = {fast, slow};
+        for (int i = 0; i < 20; i++) {
+            assertSame(fast, selector.select(servers));
+        }
+    }
+
+    @Test
+    void testAvoidsSaturatedServer() {
+        ServerEndpoint[] servers = {
+                new ServerEndpoint("server1", 1059),
+                new ServerEndpoint("server2", 1059),
+                new ServerEndpoint("server3", 1059)
+        };
+        servers[0].getLoad().onUtilizationReported(250, 0);
+        for (int i = 0; i < 5; i++) {
+            servers[1].getLoad().onCallStarted();
+        }
+
+        PowerOfTwoChoicesSelector selector = new PowerOfTwoChoicesSelector(new Random(7), () -> 0L);
+        Map<ServerEndpoint, Integer> picks = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            picks.merge(selector.select(servers), 1, Integer::sum);
+        }
+
+        // server3 wins every pairing it is part of, server1 beats the 5 in-flight calls of server2
+        assertTrue(picks.getOrDefault(servers[2], 0) > 150, picks.toString());
+        assertTrue(picks.getOrDefault(servers[0], 0) > picks.getOrDefault(servers[1], 0), picks.toString());
+    }
+
+    @Test
+    void testLoadSignalsDecayWithoutSamples() {
+        ServerLoad load = new ServerLoad();
+        load.onCallStarted();
+        load.onCallCompleted(100 * MS, 0);
+        load.onUtilizationReported(200, 0);
+        double busy = load.cost(0);
+
+        double later = load.cost(TimeUnit.SECONDS.toNanos(60));
+        assertTrue(later < busy / 50, "cost should decay, was " + busy + " then " + later);
+        assertEquals(0, load.getInFlight());
+    }
+
+    @Test
+    void testSelectionStrategyProperty() {
+        Properties props = new Properties();
+        assertEquals(HealthCheckConfig.SelectionStrategy.LEAST_SESSIONS,
+                HealthCheckConfig.loadFromProperties(props).getSelectionStrategy());
+        props.setProperty("ojp.loadaware.selection.strategy", "p2c");
+        assertEquals(HealthCheckConfig.SelectionStrategy.POWER_OF_TWO_CHOICES,
+                HealthCheckConfig.loadFromProperties(props).getSelectionStrategy());
+        props.setProperty("ojp.loadaware.selection.strategy", "bogus");
+        assertEquals(HealthCheckConfig.SelectionStrategy.LEAST_SESSIONS,
+                HealthCheckConfig.loadFromProperties(props).getSelectionStrategy());
+    }
+
+    @Test
+    void testPoolDemandTrailer() {
+        ServerLoad load = new ServerLoad();
+        ServerLoadInterceptor.onPoolDemand(load, "node1;conn1;7", 0);
+        ServerLoadInterceptor.onPoolDemand(load, "node1;conn2;bogus", 0);
+        ServerLoadInterceptor.onPoolDemand(load, "node1;conn3", 0);
+
+        assertEquals("node1", load.getPoolDemand("conn1", MS).getNodeId());
+        assertEquals(7, load.getPoolDemand("conn1", MS).getDemand());
+        assertNull(load.getPoolDemand("conn2", MS));
+        assertNull(load.getPoolDemand("conn3", MS));
+        // Old demand is not relayed
+        assertNull(load.getPoolDemand("conn1", TimeUnit.SECONDS.toNanos(30)));
+    }
+
+    @Test
+    void testCallOutcomes() {
+        ServerLoad ok = new ServerLoad();
+        ok.onCallStarted();
+        ServerLoadInterceptor.onCallClosed(ok, Status.OK, new Metadata(), 5 * MS, 0);
+        assertEquals(5.0, ok.getRttMillis(0), 0.001);
+
+        // Client streaming calls are not measured
+        ServerLoad stream = new ServerLoad();
+        stream.onCallStarted();
+        ServerLoadInterceptor.onCallClosed(stream, Status.OK, new Metadata(), -1, 0);
+        assertEquals(0.0, stream.getRttMillis(0), 0.001);
+        assertEquals(0, stream.getInFlight());
+
+        // Cancelled by the client, for example a result set closed early
+        ServerLoad cancelled = new ServerLoad();
+        cancelled.onCallStarted();
+        ServerLoadInterceptor.onCallClosed(cancelled, Status.CANCELLED, new Metadata(), 5 * MS, 0);
+        assertEquals(0.0, cancelled.getRttMillis(0), 0.001);
+        assertEquals(0, cancelled.getInFlight());
+
+        Metadata sqlError = new Metadata();
+        sqlError.put(ProtoUtils.keyForProto(SqlErrorResponse.getDefaultInstance()),
+                SqlErrorResponse.newBuilder().setReason("boom").build());
+        ServerLoad failed = new ServerLoad();
+        failed.onCallStarted();
+        ServerLoadInterceptor.onCallClosed(failed, Status.CANCELLED, sqlError, 5 * MS, 0);
+        assertEquals(1000.0, failed.getRttMillis(0), 0.001);
+
+        ServerLoad unavailable = new ServerLoad();
+        unavailable.onCallStarted();
+        ServerLoadInterceptor.onCallClosed(unavailable, Status.UNAVAILABLE, new Metadata(), -1, 0);
+        assertTrue(unavailable.cost(0) > ok.cost(0));
+        assertEquals(0, unavailable.getInFlight());
+    }
+}
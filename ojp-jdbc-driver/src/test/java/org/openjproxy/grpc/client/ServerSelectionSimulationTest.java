@@ -0,0 +1,275 @@
+package org.openjproxy.grpc.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Discrete event simulation comparing server selection strategies under skewed workloads.
+ *
+ * Several independent clients send requests to a small cluster. Each server executes a fixed number of requests
+ * concurrently and queues the rest. Clients only know what they observe themselves: their own sessions per server
+ * for least-sessions, and for power of two choices the round trip times, in-flight calls and utilization reported
+ * by the servers they talked to, using the real {@link PowerOfTwoChoicesSelector} and {@link ServerLoad}.
+ * Least-sessions is modelled with one session per in-flight request, its best case: real session counts also
+ * include idle connections and say nothing about how long requests run.
+ *
+ * Scenarios:
+ * - degraded: one server executes requests three times slower (noisy neighbour, failing disk)
+ * - heavy-tail: 5% of requests are long scans taking 40 times longer, which session counts do not reflect
+ *
+ * The workloads are seeded, so every run gives the same latencies.
+ */
+class ServerSelectionSimulationTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int SERVERS = 3;
+    private static final int WORKERS_PER_SERVER = 8;
+    private static final int CLIENTS = 8;
+    private static final int REQUESTS = 200_000;
+    private static final double LOAD = 0.75;
+
+    enum Strategy { ROUND_ROBIN, LEAST_SESSIONS, POWER_OF_TWO_CHOICES }
+
+    private static final class Request {
+        final int client;
+        final long arrivalNanos;
+        final long serviceNanos;
+        int server;
+
+        Request(int client, long arrivalNanos, long serviceNanos) {
+            this.client = client;
+            this.arrivalNanos = arrivalNanos;
+            this.serviceNanos = serviceNanos;
+        }
+    }
+
+    private static final class Event implements Comparable<Event> {
+        final long timeNanos;
+        final Request request;
+        final boolean completion;
+
+        Event(long timeNanos, Request request, boolean completion) {
+            this.timeNanos = timeNanos;
+            this.request = request;
+            this.completion = completion;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            return Long.compare(timeNanos, other.timeNanos);
+        }
+    }
+
+    private static final class Server {
+        final double slowdown;
+        final ArrayDeque<Request> queue = new ArrayDeque<>();
+        int busy;
+        int completed;
+
+        Server(double slowdown) {
+            this.slowdown = slowdown;
+        }
+
+        int utilizationPercent() {
+            return (busy + queue.size()) * 100 / WORKERS_PER_SERVER;
+        }
+    }
+
+    /**
+     * Latencies and per-server share of the requests of one strategy on one scenario.
+     */
+    private static final class Result {
+        final Strategy strategy;
+        final double p99;
+        final double p999;
+        final double[] share = new double[SERVERS];
+
+        Result(Strategy strategy, long[] sortedLatencies, Server[] servers) {
+            this.strategy = strategy;
+            this.p99 = percentile(sortedLatencies, 0.99);
+            this.p999 = percentile(sortedLatencies, 0.999);
+            for (int s = 0; s < SERVERS; s++) {
+                share[s] = servers[s].completed * 100.0 / REQUESTS;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s p99=%.2fms p99.9=%.2fms share=%s", strategy, p99, p999, Arrays.toString(share));
+        }
+    }
+
+    /**
+     * One run of the cluster with one strategy.
+     */
+    private static final class Simulation {
+        private final Strategy strategy;
+        private final Server[] servers;
+        private final ServerEndpoint[][] clientEndpoints = new ServerEndpoint[CLIENTS][SERVERS];
+        private final int[][] clientSessions = new int[CLIENTS][SERVERS];
+        private final int[] roundRobin = new int[CLIENTS];
+        private final PowerOfTwoChoicesSelector[] selectors = new PowerOfTwoChoicesSelector[CLIENTS];
+        private final PriorityQueue<Event> events = new PriorityQueue<>();
+        private final long[] latencies = new long[REQUESTS];
+        private int completed;
+        private long now;
+
+        Simulation(Strategy strategy, double[] slowdowns) {
+            this.strategy = strategy;
+            this.servers = new Server[SERVERS];
+            for (int s = 0; s < SERVERS; s++) {
+                servers[s] = new Server(slowdowns[s]);
+            }
+            for (int c = 0; c < CLIENTS; c++) {
+                for (int s = 0; s < SERVERS; s++) {
+                    clientEndpoints[c][s] = new ServerEndpoint("server" + s, 1059);
+                }
+                selectors[c] = new PowerOfTwoChoicesSelector(new Random(31 + c), () -> now);
+            }
+        }
+
+        private long[] run(double heavyFraction, double heavyFactor) {
+            Random random = new Random(42);
+            long meanServiceNanos = 10 * MS;
+            double meanWork = meanServiceNanos * (1 - heavyFraction + heavyFraction * heavyFactor);
+            double capacity = 0;
+            for (Server server : servers) {
+                capacity += WORKERS_PER_SERVER / (meanWork * server.slowdown);
+            }
+            double meanInterArrival = 1 / (capacity * LOAD);
+
+            long arrival = 0;
+            for (int i = 0; i < REQUESTS; i++) {
+                arrival += (long) (-Math.log(1 - random.nextDouble()) * meanInterArrival);
+                double work = -Math.log(1 - random.nextDouble()) * meanServiceNanos;
+                if (random.nextDouble() < heavyFraction) {
+                    work *= heavyFactor;
+                }
+                events.add(new Event(arrival, new Request(random.nextInt(CLIENTS), arrival, (long) work), false));
+            }
+
+            while (!events.isEmpty()) {
+                Event event = events.poll();
+                now = event.timeNanos;
+                if (event.completion) {
+                    complete(event.request);
+                } else {
+                    dispatch(event.request);
+                }
+            }
+            return latencies;
+        }
+
+        private void dispatch(Request request) {
+            int client = request.client;
+            int server = select(client);
+            request.server = server;
+            clientSessions[client][server]++;
+            clientEndpoints[client][server].getLoad().onCallStarted();
+
+            Server target = servers[server];
+            if (target.busy < WORKERS_PER_SERVER) {
+                start(target, request);
+            } else {
+                target.queue.add(request);
+            }
+        }
+
+        private void start(Server server, Request request) {
+            server.busy++;
+            long service = (long) (request.serviceNanos * server.slowdown);
+            events.add(new Event(now + service, request, true));
+        }
+
+        private void complete(Request request) {
+            Server server = servers[request.server];
+            server.busy--;
+            server.completed++;
+            if (!server.queue.isEmpty()) {
+                start(server, server.queue.poll());
+            }
+
+            long latency = now - request.arrivalNanos;
+            latencies[completed++] = latency;
+            clientSessions[request.client][request.server]--;
+            ServerLoad load = clientEndpoints[request.client][request.server].getLoad();
+            load.onCallCompleted(latency, now);
+            load.onUtilizationReported(server.utilizationPercent(), now);
+        }
+
+        private int select(int client) {
+            switch (strategy) {
+                case ROUND_ROBIN:
+                    return roundRobin[client]++ % SERVERS;
+                case LEAST_SESSIONS:
+                    int[] sessions = clientSessions[client];
+                    int best = roundRobin[client]++ % SERVERS;
+                    for (int s = 0; s < SERVERS; s++) {
+                        if (sessions[s] < sessions[best]) {
+                            best = s;
+                        }
+                    }
+                    return best;
+                case POWER_OF_TWO_CHOICES:
+                default:
+                    ServerEndpoint selected = selectors[client].select(clientEndpoints[client]);
+                    return Arrays.asList(clientEndpoints[client]).indexOf(selected);
+            }
+        }
+    }
+
+    private static Result simulate(Strategy strategy, double[] slowdowns, double heavyFraction,
+                                   double heavyFactor) {
+        Simulation simulation = new Simulation(strategy, slowdowns);
+        long[] latencies = simulation.run(heavyFraction, heavyFactor);
+        Arrays.sort(latencies);
+        return new Result(strategy, latencies, simulation.servers);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))] / (double) MS;
+    }
+
+    @Test
+    void testPowerOfTwoChoicesAvoidsDegradedServer() {
+        double[] slowdowns = {3.0, 1.0, 1.0};
+        Result roundRobin = simulate(Strategy.ROUND_ROBIN, slowdowns, 0, 1);
+        Result leastSessions = simulate(Strategy.LEAST_SESSIONS, slowdowns, 0, 1);
+        Result p2c = simulate(Strategy.POWER_OF_TWO_CHOICES, slowdowns, 0, 1);
+
+        assertTrue(p2c.share[0] < leastSessions.share[0] && leastSessions.share[0] < roundRobin.share[0],
+                p2c + " / " + leastSessions + " / " + roundRobin);
+        // Round robin overloads the degraded server, whose queue grows without bound
+        assertTrue(p2c.p99 * 100 < roundRobin.p99, p2c + " / " + roundRobin);
+        assertTrue(p2c.p99 < leastSessions.p99 * 0.9, p2c + " / " + leastSessions);
+    }
+
+    @Test
+    void testPowerOfTwoChoicesKeepsUpWithLeastSessionsOnHeavyTail() {
+        double[] slowdowns = {1.0, 1.0, 1.0};
+        Result roundRobin = simulate(Strategy.ROUND_ROBIN, slowdowns, 0.05, 40);
+        Result leastSessions = simulate(Strategy.LEAST_SESSIONS, slowdowns, 0.05, 40);
+        Result p2c = simulate(Strategy.POWER_OF_TWO_CHOICES, slowdowns, 0.05, 40);
+
+        assertTrue(p2c.p99 < roundRobin.p99 * 0.8, p2c + " / " + roundRobin);
+        assertTrue(p2c.p99 < leastSessions.p99 * 1.05, p2c + " / " + leastSessions);
+    }
+
+    @Test
+    void testPowerOfTwoChoicesOnDegradedServerWithHeavyTail() {
+        double[] slowdowns = {2.0, 1.0, 1.0};
+        Result leastSessions = simulate(Strategy.LEAST_SESSIONS, slowdowns, 0.05, 40);
+        Result p2c = simulate(Strategy.POWER_OF_TWO_CHOICES, slowdowns, 0.05, 40);
+
+        assertTrue(p2c.share[0] < leastSessions.share[0], p2c + " / " + leastSessions);
+        assertTrue(p2c.p99 < leastSessions.p99 * 1.05, p2c + " / " + leastSessions);
+        assertTrue(p2c.p999 < leastSessions.p999, p2c + " / " + leastSessions);
+    }
+}
@@ -0,0 +1,205 @@
+package org.openjproxy.grpc.client;
+
+import com.openjproxy.grpc.OpResult;
+import com.openjproxy.grpc.SessionInfo;
+import com.openjproxy.grpc.SessionRequestFrame;
+import com.openjproxy.grpc.SessionResponseFrame;
+import com.openjproxy.grpc.SqlErrorResponse;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionStreamStatementServiceTest {
+
+    private static final SessionInfo SESSION = SessionInfo.newBuilder().setConnHash("ds1").build();
+
+    private final List<SessionRequestFrame> sent = new ArrayList<>();
+    private final List<StreamObserver<SessionResponseFrame>> streams = new ArrayList<>();
+
+    private final StatementService unary = (StatementService) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[]{StatementService.class}, (proxy, method, args) -> null);
+
+    /**
+     * Answers every request right away: updates with the number of frames sent so far, queries with three blocks,
+     * and an error for updates of the table "missing".
+     */
+    private final SessionStreamStatementService service = new SessionStreamStatementService(unary, responses -> {
+        streams.add(responses);
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(SessionRequestFrame frame) {
+                sent.add(frame);
+                SessionResponseFrame.Builder response = SessionResponseFrame.newBuilder()
+                        .setCorrelationId(frame.getCorrelationId());
+                if (frame.hasExecuteQuery()) {
+                    for (int i = 0; i < 3; i++) {
+                        responses.onNext(response.setOpResult(OpResult.newBuilder().setIntValue(i))
+                                .setLast(i == 2).build());
+                    }
+                } else if (frame.getExecuteUpdate().getSql().contains("missing")) {
+                    responses.onNext(response.setError(SqlErrorResponse.newBuilder()
+                            .setReason("Table not found").setSqlState("42S02")).setLast(true).build());
+                } else {
+                    responses.onNext(response.setOpResult(OpResult.newBuilder().setIntValue(sent.size()))
+                            .setLast(true).build());
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        };
+    });
+
+    @Test
+    void testSessionIsSentOnlyWhenItChanges() throws Exception {
+        SessionInfo other = SESSION.toBuilder().setSessionUUID("s1").build();
+
+        assertEquals(1, service.executeUpdate(SESSION, "UPDATE t SET a = 1", null, null).getIntValue());
+        assertEquals(2, service.executeUpdate(SESSION, "UPDATE t SET a = 2", null, null).getIntValue());
+        service.executeUpdate(other, "UPDATE t SET a = 3", null, null);
+        service.executeUpdate(other, "UPDATE t SET a = 4", null, null);
+
+        assertEquals(1, streams.size());
+        assertEquals(List.of(true, false, true, false),
+                sent.stream().map(SessionRequestFrame::hasSession).collect(Collectors.toList()));
+        assertEquals(List.of(1, 2, 3, 4),
+                sent.stream().map(SessionRequestFrame::getCorrelationId).collect(Collectors.toList()));
+        assertFalse(sent.get(0).getExecuteUpdate().hasSession());
+    }
+
+    @Test
+    void testQueryBlocksAreReadUntilTheLastFrame() throws Exception {
+        Iterator<OpResult> results = service.executeQuery(SESSION, "SELECT a FROM t", null, null);
+
+        List<Integer> blocks = new ArrayList<>();
+        results.forEachRemaining(result -> blocks.add(result.getIntValue()));
+        assertEquals(List.of(0, 1, 2), blocks);
+    }
+
+    @Test
+    void testErrorFrameIsThrownAsSQLException() {
+        SQLException e = assertThrows(SQLException.class,
+                () -> service.executeUpdate(SESSION, "UPDATE missing SET a = 1", null, null));
+        assertEquals("Table not found", e.getMessage());
+        assertEquals("42S02", e.getSQLState());
+    }
+
+    @Test
+    void testFailedStreamIsReopenedWithTheSession() throws Exception {
+        service.executeUpdate(SESSION, "UPDATE t SET a = 1", null, null);
+        streams.get(0).onError(Status.UNAVAILABLE.asRuntimeException());
+
+        service.executeUpdate(SESSION, "UPDATE t SET a = 2", null, null);
+
+        assertEquals(2, streams.size());
+        assertTrue(sent.get(1).hasSession());
+    }
+
+    @Test
+    void testStreamFailureFailsWaitingQuery() throws Exception {
+        List<StreamObserver<SessionResponseFrame>> silent = new ArrayList<>();
+        SessionStreamStatementService service = new SessionStreamStatementService(unary, responses -> {
+            silent.add(responses);
+            return new StreamObserver<>() {
+                @Override
+                public void onNext(SessionRequestFrame frame) {
+                    responses.onNext(SessionResponseFrame.newBuilder().setCorrelationId(frame.getCorrelationId())
+                            .setOpResult(OpResult.getDefaultInstance()).build());
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                }
+
+                @Override
+                public void onCompleted() {
+                }
+            };
+        });
+        Iterator<OpResult> results = service.executeQuery(SESSION, "SELECT a FROM t", null, null);
+        results.next();
+        silent.get(0).onError(Status.UNAVAILABLE.asRuntimeException());
+
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class, results::hasNext);
+        assertEquals(Status.Code.UNAVAILABLE, e.getStatus().getCode());
+    }
+
+    @Test
+    void testStreamFailingWhileOpeningFailsTheRequest() {
+        SessionStreamStatementService service = new SessionStreamStatementService(unary, responses -> {
+            // The channel is shut down: the call fails before the stream is returned
+            responses.onError(Status.UNAVAILABLE.asRuntimeException());
+            return silentRequests();
+        });
+
+        StatusRuntimeException e = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThrows(
+                StatusRuntimeException.class, () -> service.executeUpdate(SESSION, "UPDATE t SET a = 1", null, null)));
+        assertEquals(Status.Code.UNAVAILABLE, e.getStatus().getCode());
+    }
+
+    @Test
+    void testStreamFailingConcurrentlyWithSendsFailsEveryRequest() throws Exception {
+        List<StreamObserver<SessionResponseFrame>> opened = new CopyOnWriteArrayList<>();
+        SessionStreamStatementService service = new SessionStreamStatementService(unary, responses -> {
+            opened.add(responses);
+            return silentRequests();
+        });
+        AtomicBoolean done = new AtomicBoolean();
+        Thread failer = new Thread(() -> {
+            while (!done.get()) {
+                if (!opened.isEmpty()) {
+                    opened.get(opened.size() - 1).onError(Status.UNAVAILABLE.asRuntimeException());
+                }
+                Thread.yield();
+            }
+        });
+        failer.start();
+        try {
+            // Never answered, so every request ends only when the failure reaches it
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                for (int i = 0; i < 2000; i++) {
+                    StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+                            () -> service.executeUpdate(SESSION, "UPDATE t SET a = 1", null, null));
+                    assertEquals(Status.Code.UNAVAILABLE, e.getStatus().getCode());
+                }
+            });
+        } finally {
+            done.set(true);
+            failer.join();
+        }
+    }
+
+    private static StreamObserver<SessionRequestFrame> silentRequests() {
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(SessionRequestFrame frame) {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        };
+    }
+}
@@ -0,0 +1,126 @@
+package org.openjproxy.jdbc;
+
+import com.openjproxy.grpc.CallResourceBatchRequest;
+import com.openjproxy.grpc.CallResourceBatchResponse;
+import com.openjproxy.grpc.CallResourceRequest;
+import com.openjproxy.grpc.CallResourceResponse;
+import com.openjproxy.grpc.CallType;
+import com.openjproxy.grpc.ResourceType;
+import com.openjproxy.grpc.SessionInfo;
+import com.openjproxy.grpc.TargetCall;
+import org.junit.jupiter.api.Test;
+import org.openjproxy.grpc.ProtoConverter;
+import org.openjproxy.grpc.client.StatementService;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CallBatchingStatementServiceTest {
+
+    private static final SessionInfo SESSION = SessionInfo.newBuilder().setSessionUUID("s1").build();
+
+    private final List<Object> sent = new ArrayList<>();
+
+    /**
+     * Records every request and answers resource calls with their position in the request.
+     */
+    private final StatementService delegate = (StatementService) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[]{StatementService.class}, (proxy, method, args) -> {
+                sent.add(method.getName().equals("terminateSession") || method.getName().startsWith("execute")
+                        ? method.getName() : args[0]);
+                if (method.getName().equals("callResource")) {
+                    return CallResourceResponse.newBuilder().setSession(SESSION)
+                            .addValues(ProtoConverter.toParameterValue(1)).build();
+                }
+                if (method.getName().equals("callResourceBatch")) {
+                    CallResourceBatchResponse.Builder response = CallResourceBatchResponse.newBuilder();
+                    for (int i = 1; i <= ((CallResourceBatchRequest) args[0]).getCallsCount(); i++) {
+                        response.addResponses(CallResourceResponse.newBuilder().setSession(SESSION)
+                                .addValues(ProtoConverter.toParameterValue(i)));
+                    }
+                    return response.build();
+                }
+                return null;
+            });
+
+    private static CallResourceRequest call(CallType callType, String name, String resourceUUID) {
+        return CallResourceRequest.newBuilder()
+                .setSession(SESSION)
+                .setResourceType(ResourceType.RES_STATEMENT)
+                .setResourceUUID(resourceUUID)
+                .setTarget(TargetCall.newBuilder().setCallType(callType).setResourceName(name))
+                .build();
+    }
+
+    @Test
+    void testVoidCallsAreSentWithTheNextCallThatNeedsAnAnswer() throws Exception {
+        CallBatchingStatementService service = new CallBatchingStatementService(delegate, true);
+
+        service.callResource(call(CallType.CALL_SET, "FetchSize", "st1"));
+        service.callResource(call(CallType.CALL_CLEAR, "Warnings", "st1"));
+        service.callResource(call(CallType.CALL_ADD, "Batch", "st1"));
+        assertTrue(sent.isEmpty());
+        assertEquals(3, service.getPendingCallCount());
+
+        CallResourceResponse response = service.callResource(call(CallType.CALL_GET, "MoreResults", "st1"));
+
+        assertEquals(1, sent.size());
+        CallResourceBatchRequest batch = (CallResourceBatchRequest) sent.get(0);
+        assertEquals(List.of("FetchSize", "Warnings", "Batch", "MoreResults"),
+                batch.getCallsList().stream().map(c -> c.getTarget().getResourceName())
+                        .collect(Collectors.toList()));
+        assertEquals(4, ProtoConverter.fromParameterValue(response.getValues(0)));
+        assertEquals(0, service.getPendingCallCount());
+    }
+
+    @Test
+    void testCallsThatCreateResourcesOrReturnValuesAreNotDeferred() throws Exception {
+        CallBatchingStatementService service = new CallBatchingStatementService(delegate, true);
+
+        service.callResource(call(CallType.CALL_SET, "MaxRows", ""));
+        service.callResource(call(CallType.CALL_SET, "Savepoint", "st1"));
+        service.callResource(call(CallType.CALL_GET, "FetchSize", "st1"));
+
+        assertEquals(3, sent.size());
+        assertTrue(sent.stream().allMatch(request -> request instanceof CallResourceRequest));
+    }
+
+    @Test
+    void testOtherRequestsSendDeferredCallsFirst() throws Exception {
+        CallBatchingStatementService service = new CallBatchingStatementService(delegate, true);
+
+        service.callResource(call(CallType.CALL_SET, "QueryTimeout", "st1"));
+        service.executeUpdate(SESSION, "UPDATE t SET a = 1", List.of(), "st1", null);
+        service.callResource(call(CallType.CALL_SET, "QueryTimeout", "st1"));
+        service.terminateSession(SESSION);
+
+        assertEquals(4, sent.size());
+        assertInstanceOf(CallResourceBatchRequest.class, sent.get(0));
+        assertEquals("executeUpdate", sent.get(1));
+        assertInstanceOf(CallResourceBatchRequest.class, sent.get(2));
+        assertEquals("terminateSession", sent.get(3));
+    }
+
+    @Test
+    void testExplicitScope() throws Exception {
+        CallBatchingStatementService service = new CallBatchingStatementService(delegate, false);
+
+        service.callResource(call(CallType.CALL_SET, "FetchSize", "st1"));
+        assertEquals(1, sent.size());
+
+        try (CallBatch batch = new CallBatch(service)) {
+            service.callResource(call(CallType.CALL_SET, "FetchSize", "st1"));
+            service.callResource(call(CallType.CALL_SET, "MaxRows", "st1"));
+            assertEquals(1, sent.size());
+        }
+
+        assertEquals(2, sent.size());
+        assertEquals(2, ((CallResourceBatchRequest) sent.get(1)).getCallsCount());
+        service.callResource(call(CallType.CALL_SET, "FetchSize", "st1"));
+        assertEquals(3, sent.size());
+    }
+}
@@ -0,0 +1,70 @@
+package org.openjproxy.jdbc;
+
+import com.openjproxy.grpc.OpQueryResultProto;
+import com.openjproxy.grpc.ParameterValue;
+import org.junit.jupiter.api.Test;
+import org.openjproxy.grpc.ProtoConverter;
+import org.openjproxy.grpc.dto.OpQueryResult;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultSetBlockTest {
+
+    private static final Timestamp CREATED = Timestamp.valueOf("2024-01-02 03:04:05.123");
+
+    private static ResultSetBlock block() {
+        List<Object[]> rows = Arrays.asList(
+                new Object[]{1, "first", new BigDecimal("12.34"), CREATED},
+                new Object[]{null, null, null, null});
+        return new ResultSetBlock(ProtoConverter.toProto(OpQueryResult.builder()
+                .resultSetUUID("rs").labels(List.of("ID", "NAME", "AMOUNT", "CREATED")).rows(rows).build()));
+    }
+
+    @Test
+    void testCellsConvertLikeEagerConversion() {
+        ResultSetBlock block = block();
+
+        assertEquals(2, block.size());
+        assertEquals(1, block.get(0, 0));
+        assertEquals("first", block.get(0, 1));
+        assertEquals(new BigDecimal("12.34"), block.get(0, 2));
+        assertEquals(CREATED, block.get(0, 3));
+        for (int column = 0; column < 4; column++) {
+            assertNull(block.get(1, column));
+        }
+    }
+
+    @Test
+    void testCurrentRowValuesAreConvertedOnce() {
+        ResultSetBlock block = block();
+
+        Object amount = block.get(0, 2);
+        assertSame(amount, block.get(0, 2));
+        assertSame(block.get(0, 3), block.get(0, 3));
+
+        assertNull(block.get(1, 2));
+        assertNotSame(amount, block.get(0, 2));
+        assertEquals(amount, block.get(0, 2));
+    }
+
+    @Test
+    void testRawCellsForPrimitiveGetters() {
+        ResultSetBlock block = block();
+
+        assertEquals(ParameterValue.ValueCase.INT_VALUE, block.raw(0, 0).getValueCase());
+        assertEquals(1, block.raw(0, 0).getIntValue());
+        assertEquals(ParameterValue.ValueCase.IS_NULL, block.raw(1, 0).getValueCase());
+    }
+
+    @Test
+    void testEmptyBlock() {
+        ResultSetBlock block = new ResultSetBlock(OpQueryResultProto.newBuilder().setResultSetUUID("rs").build());
+
+        assertEquals(0, block.size());
+    }
+}
@@ -0,0 +1,163 @@
+package org.openjproxy.jdbc.xa;
+
+import com.google.protobuf.Message;
+import com.openjproxy.grpc.OpResult;
+import com.openjproxy.grpc.SessionInfo;
+import com.openjproxy.grpc.XaCommitRequest;
+import com.openjproxy.grpc.XaPrepareRequest;
+import com.openjproxy.grpc.XaPrepareResponse;
+import com.openjproxy.grpc.XaResponse;
+import com.openjproxy.grpc.XaRollbackRequest;
+import org.junit.jupiter.api.Test;
+import org.openjproxy.grpc.client.StatementService;
+
+import javax.transaction.xa.XAResource;
+import javax.transaction.xa.Xid;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for XA verb coalescing: the RPCs sent for a branch and the verbs they carry.
+ */
+class XaVerbCoalescingTest {
+
+    private final List<String> calls = new ArrayList<>();
+    private final List<Object> requests = new ArrayList<>();
+
+    @Test
+    void testOnePhaseBranchTakesTwoRoundTrips() throws Exception {
+        OjpXAConnection connection = connection(true);
+        XAResource resource = connection.getXAResource();
+        StatementService statements = connection.getConnectionStatementService();
+        calls.clear();
+        requests.clear();
+
+        Xid xid = new TestXid(1);
+        resource.start(xid, XAResource.TMNOFLAGS);
+        statements.executeUpdate(session(), "UPDATE t SET v = 1", Collections.emptyList(), Collections.emptyMap());
+        resource.end(xid, XAResource.TMSUCCESS);
+        resource.commit(xid, true);
+
+        assertEquals(List.of("executeUpdate", "xaCommit"), calls);
+        assertTrue(((SessionInfo) requests.get(0)).hasPendingXaStart());
+        assertEquals(XAResource.TMSUCCESS, ((XaCommitRequest) requests.get(1)).getEndFlags());
+    }
+
+    @Test
+    void testTwoPhaseBranchSendsEndWithPrepare() throws Exception {
+        OjpXAConnection connection = connection(true);
+        XAResource resource = connection.getXAResource();
+        StatementService statements = connection.getConnectionStatementService();
+        calls.clear();
+        requests.clear();
+
+        Xid xid = new TestXid(2);
+        resource.start(xid, XAResource.TMNOFLAGS);
+        statements.executeUpdate(session(), "UPDATE t SET v = 1", Collections.emptyList(), Collections.emptyMap());
+        resource.end(xid, XAResource.TMSUCCESS);
+        resource.prepare(xid);
+        resource.commit(xid, false);
+
+        assertEquals(List.of("executeUpdate", "xaPrepare", "xaCommit"), calls);
+        assertEquals(XAResource.TMSUCCESS, ((XaPrepareRequest) requests.get(1)).getEndFlags());
+        assertEquals(0, ((XaCommitRequest) requests.get(2)).getEndFlags());
+    }
+
+    @Test
+    void testDeferredVerbsAreSentBeforeOtherRequests() throws Exception {
+        OjpXAConnection connection = connection(true);
+        XAResource resource = connection.getXAResource();
+        calls.clear();
+        requests.clear();
+
+        // A branch without statements still starts and ends on the server, in order
+        Xid first = new TestXid(3);
+        Xid second = new TestXid(4);
+        resource.start(first, XAResource.TMNOFLAGS);
+        resource.end(first, XAResource.TMFAIL);
+        resource.start(second, XAResource.TMNOFLAGS);
+        resource.rollback(first);
+
+        assertEquals(List.of("xaStart", "xaEnd", "xaStart", "xaRollback"), calls);
+        assertEquals(XAResource.TMFAIL, ((com.openjproxy.grpc.XaEndRequest) requests.get(1)).getFlags());
+        assertEquals(0, ((XaRollbackRequest) requests.get(3)).getEndFlags());
+    }
+
+    @Test
+    void testVerbsAreSentOnTheirOwnByDefault() throws Exception {
+        OjpXAConnection connection = connection(false);
+        XAResource resource = connection.getXAResource();
+        StatementService statements = connection.getConnectionStatementService();
+        calls.clear();
+        requests.clear();
+
+        Xid xid = new TestXid(5);
+        resource.start(xid, XAResource.TMNOFLAGS);
+        statements.executeUpdate(session(), "UPDATE t SET v = 1", Collections.emptyList(), Collections.emptyMap());
+        resource.end(xid, XAResource.TMSUCCESS);
+        resource.commit(xid, true);
+
+        assertEquals(List.of("xaStart", "executeUpdate", "xaEnd", "xaCommit"), calls);
+        assertFalse(((SessionInfo) requests.get(1)).hasPendingXaStart());
+    }
+
+    private OjpXAConnection connection(boolean coalescing) {
+        Properties properties = new Properties();
+        properties.setProperty(OjpXAConnection.VERB_COALESCING_PROPERTY, Boolean.toString(coalescing));
+        return new OjpXAConnection(recordingService(), "jdbc:ojp[localhost:1059]_h2:mem:test", "sa", "",
+                properties, null);
+    }
+
+    private static SessionInfo session() {
+        return SessionInfo.newBuilder().setSessionUUID("session").build();
+    }
+
+    private StatementService recordingService() {
+        return (StatementService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{StatementService.class}, (proxy, method, args) -> {
+                    calls.add(method.getName());
+                    requests.add(args != null && args[0] instanceof Message ? args[0] : null);
+                    Class<?> type = method.getReturnType();
+                    if (type == SessionInfo.class) {
+                        return session();
+                    } else if (type == XaResponse.class) {
+                        return XaResponse.newBuilder().setSuccess(true).build();
+                    } else if (type == XaPrepareResponse.class) {
+                        return XaPrepareResponse.newBuilder().setResult(XAResource.XA_OK).build();
+                    } else if (type == OpResult.class) {
+                        return OpResult.getDefaultInstance();
+                    }
+                    return null;
+                });
+    }
+
+    private static final class TestXid implements Xid {
+        private final byte id;
+
+        private TestXid(int id) {
+            this.id = (byte) id;
+        }
+
+        @Override
+        public int getFormatId() {
+            return 1;
+        }
+
+        @Override
+        public byte[] getGlobalTransactionId() {
+            return new byte[]{id};
+        }
+
+        @Override
+        public byte[] getBranchQualifier() {
+            return new byte[]{1};
+        }
+    }
+}
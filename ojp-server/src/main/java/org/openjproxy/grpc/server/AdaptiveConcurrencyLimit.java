@@ -0,0 +1,193 @@
+package org.openjproxy.grpc.server;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gradient based concurrency limit for a single datasource.
+ *
+ * Each completed operation reports its latency inflation: observed execution time divided by the usual
+ * execution time of that same operation (from {@link QueryPerformanceMonitor}), so a mix of short and long
+ * queries does not look like congestion. Samples are aggregated in windows; at the end of a window:
+ * - if operations failed with timeouts or transient errors, the limit backs off multiplicatively (AIMD)
+ * - otherwise the limit is scaled by the gradient {@code tolerance / avgInflation} (capped at 1.0, floored at
+ *   0.5) and grows by a queue allowance of {@code sqrt(limit)} while latency stays within tolerance
+ * - the limit does not grow while concurrency stays well below it and nothing queued for a slot, so an idle
+ *   datasource keeps its limit
+ *
+ * Time spent queueing for a slot is not part of the latency inflation. Operations that queued, and slot
+ * acquisitions that timed out, mean demand exceeds the limit: they let the limit grow while the database keeps
+ * its usual latency, and latency alone decides when it is the database that is overloaded.
+ *
+ * The result is smoothed and clamped between the configured minimum and maximum (the pool size).
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimit {
+
+    /**
+     * Default tolerated latency inflation: operations may take twice their usual time before the limit shrinks.
+     */
+    public static final double DEFAULT_TOLERANCE = 2.0;
+
+    /**
+     * Default number of samples per adjustment window.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 20;
+
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final int windowSize;
+
+    // Guarded by this
+    private double limit;
+    private int windowSamples;
+    private int windowLatencySamples;
+    private double windowInflationSum;
+    private int windowQueued;
+    private int windowMaxInFlight;
+    private boolean windowDropped;
+
+    private volatile int currentLimit;
+    private final AtomicLong increases = new AtomicLong(0);
+    private final AtomicLong decreases = new AtomicLong(0);
+    private final AtomicLong acquireTimeouts = new AtomicLong(0);
+
+    /**
+     * Creates a new adaptive limit starting at the maximum.
+     *
+     * @param minLimit Lowest limit the datasource can be throttled to
+     * @param maxLimit Highest limit, typically the connection pool size
+     * @param tolerance Average latency inflation tolerated before the limit shrinks (e.g. 1.5 = 50% slower)
+     * @param windowSize Number of samples per adjustment window
+     */
+    public AdaptiveConcurrencyLimit(int minLimit, int maxLimit, double tolerance, int windowSize) {
+        if (maxLimit <= 0) {
+            throw new IllegalArgumentException("Max limit must be positive");
+        }
+        this.maxLimit = maxLimit;
+        this.minLimit = Math.max(1, Math.min(minLimit, maxLimit));
+        this.tolerance = Math.max(1.0, tolerance);
+        this.windowSize = Math.max(1, windowSize);
+        this.limit = maxLimit;
+        this.currentLimit = maxLimit;
+    }
+
+    /**
+     * Records a completed operation that did not queue for its slot.
+     *
+     * @param latencyInflation Observed execution time divided by the operation's usual execution time
+     * @param inFlight Operations executing on the datasource when this one completed
+     * @param dropped Whether the operation failed with a timeout or transient error
+     * @return The limit after this sample
+     */
+    public int onSample(double latencyInflation, int inFlight, boolean dropped) {
+        return onSample(latencyInflation, inFlight, dropped, false);
+    }
+
+    /**
+     * Records a completed operation.
+     *
+     * @param latencyInflation Observed execution time divided by the operation's usual execution time
+     * @param inFlight Operations executing on the datasource when this one completed
+     * @param dropped Whether the operation failed with a timeout or transient error
+     * @param queued Whether the operation had to wait for its slot
+     * @return The limit after this sample
+     */
+    public synchronized int onSample(double latencyInflation, int inFlight, boolean dropped, boolean queued) {
+        windowSamples++;
+        windowLatencySamples++;
+        windowInflationSum += latencyInflation;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+        windowDropped |= dropped;
+        if (queued) {
+            windowQueued++;
+        }
+        return endWindowIfComplete();
+    }
+
+    /**
+     * Records an operation that timed out waiting for a slot. It has no latency, it only signals queueing.
+     *
+     * @param inFlight Operations executing on the datasource when the acquisition timed out
+     * @return The limit after this sample
+     */
+    public synchronized int onAcquireTimeout(int inFlight) {
+        acquireTimeouts.incrementAndGet();
+        windowSamples++;
+        windowQueued++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+        return endWindowIfComplete();
+    }
+
+    // Guarded by this
+    private int endWindowIfComplete() {
+        if (windowSamples < windowSize) {
+            return currentLimit;
+        }
+
+        double avgInflation = windowLatencySamples > 0 ? windowInflationSum / windowLatencySamples : 1.0;
+        double newLimit;
+        if (windowDropped) {
+            newLimit = limit * BACKOFF_RATIO;
+        } else {
+            double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance / avgInflation));
+            newLimit = limit * gradient;
+            if (gradient >= 1.0 && (windowMaxInFlight >= limit / 2 || windowQueued > 0)) {
+                newLimit += Math.sqrt(limit);
+            }
+            newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+
+        int rounded = (int) Math.round(limit);
+        if (rounded != currentLimit) {
+            (rounded > currentLimit ? increases : decreases).incrementAndGet();
+            log.debug("Adaptive concurrency limit {} -> {} (dropped={}, avgInflation={}, queued={})", currentLimit,
+                    rounded, windowDropped, String.format("%.2f", avgInflation), windowQueued);
+            currentLimit = rounded;
+        }
+
+        windowSamples = 0;
+        windowLatencySamples = 0;
+        windowInflationSum = 0;
+        windowQueued = 0;
+        windowMaxInFlight = 0;
+        windowDropped = false;
+        return currentLimit;
+    }
+
+    /**
+     * Gets the current concurrency limit.
+     *
+     * @return Current limit
+     */
+    public int getLimit() {
+        return currentLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public long getIncreaseCount() {
+        return increases.get();
+    }
+
+    public long getDecreaseCount() {
+        return decreases.get();
+    }
+
+    public long getAcquireTimeoutCount() {
+        return acquireTimeouts.get();
+    }
+}
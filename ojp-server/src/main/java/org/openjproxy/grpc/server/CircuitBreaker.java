@@ -2,84 +2,107 @@ package org.openjproxy.grpc.server;
 
 import java.sql.SQLException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Implements a basic circuit breaker that counts failures and return the latest error if a threshold is exceeded.
+ * Implements a circuit breaker that counts failures per key and returns the latest error if a threshold is exceeded.
+ *
+ * States per key:
+ * - CLOSED: calls go through. Keys that never failed have no state at all, so the closed path is a single
+ *   map lookup, with no allocation, no clock read and no map mutation.
+ * - OPEN: after the failure threshold is reached, calls are rejected with the last error for the open period.
+ * - HALF_OPEN: once the open period elapsed, a limited number of probe calls are let through while everybody
+ *   else keeps being rejected. A successful probe closes the breaker, a failed probe opens it again. If probes
+ *   never report back within another open period, a new set of probes is admitted.
  */
 public class CircuitBreaker {
-    private static class FailureRecord {
-        private volatile SQLException lastError;
-        private final AtomicInteger failureCount = new AtomicInteger(0);
-        private final AtomicLong openUntil = new AtomicLong(0);
-        private final int failureThreashold;
-
-        public FailureRecord(int failureThreashold) {
-            this.failureThreashold = failureThreashold;
-        }
-
-        public void recordFailure(SQLException error, long openMs) {
-            lastError = error;
-            int failures = failureCount.incrementAndGet();
-            if (failures >= failureThreashold) {
-                openUntil.updateAndGet(prev -> Math.max(prev, System.currentTimeMillis() + openMs));
-            }
-        }
 
-        public boolean isOpen() {
-            long until = openUntil.get();
-            if (failureCount.get() < failureThreashold) return false;
-            if (System.currentTimeMillis() > until) {
-                return false;
-            }
-            return true;
-        }
-
-        public boolean tryReset() {
-            long until = openUntil.get();
-            if (System.currentTimeMillis() > until && failureCount.get() >= failureThreashold) {
-                return true;
-            }
-            return false;
-        }
+    /**
+     * State of the breaker for a key.
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
 
-        public void reset() {
-            failureCount.set(0);
-            openUntil.set(0);
-            lastError = null;
-        }
+    public static final int DEFAULT_HALF_OPEN_PROBES = 1;
 
-        public SQLException getLastError() {
-            return lastError;
-        }
+    private static final int CLOSED = 0;
+    private static final int OPEN = 1;
+    private static final int HALF_OPEN = 2;
 
-        public int getFailureCount() {
-            return failureCount.get();
-        }
+    private static class FailureRecord {
+        private final AtomicInteger state = new AtomicInteger(CLOSED);
+        private final AtomicInteger failureCount = new AtomicInteger(0);
+        private final AtomicInteger probes = new AtomicInteger(0);
+        private volatile long openUntilNanos;
+        private volatile long probeWindowUntilNanos;
+        private volatile SQLException lastError;
     }
 
     private final ConcurrentHashMap<String, FailureRecord> state = new ConcurrentHashMap<>();
-    private final long openMs;
+    private final long openNanos;
     private final int failureThreashold;
+    private final int halfOpenProbes;
+    private final AtomicLong openedCount = new AtomicLong(0);
+    private final AtomicLong rejectedCount = new AtomicLong(0);
 
     public CircuitBreaker(long openMs, int failureThreashold) {
-        this.openMs = openMs;
-        this.failureThreashold = failureThreashold;
+        this(openMs, failureThreashold, DEFAULT_HALF_OPEN_PROBES);
+    }
+
+    /**
+     * @param openMs How long the breaker stays open before admitting probes, in milliseconds
+     * @param failureThreashold Consecutive failures that open the breaker
+     * @param halfOpenProbes Number of probe calls admitted while half-open
+     */
+    public CircuitBreaker(long openMs, int failureThreashold, int halfOpenProbes) {
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, openMs));
+        this.failureThreashold = Math.max(1, failureThreashold);
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
     }
 
     /**
      * Call when a statement is received.
      * @param sql The SQL statement (normalized string).
-     * @throws java.sql.SQLException if blocked (open).
+     * @throws java.sql.SQLException if blocked (open, or half-open with all probes in flight).
      */
     public void preCheck(String sql) throws SQLException {
         FailureRecord rec = state.get(sql);
         if (rec == null) return;
-        if (rec.isOpen()) {
-            throw rec.getLastError();
+        int current = rec.state.get();
+        if (current == CLOSED) return;
+
+        long now = System.nanoTime();
+        if (current == OPEN) {
+            if (now - rec.openUntilNanos < 0) {
+                reject(rec);
+            }
+            rec.state.compareAndSet(OPEN, HALF_OPEN);
+        }
+        if (rec.probes.incrementAndGet() <= halfOpenProbes) {
+            return;
+        }
+        if (now - rec.probeWindowUntilNanos >= 0) {
+            // Probes admitted earlier never reported back, admit a new one
+            rec.probeWindowUntilNanos = now + openNanos;
+            rec.probes.set(1);
+            return;
+        }
+        reject(rec);
+    }
+
+    /**
+     * Call when a call admitted by {@link #preCheck(String)} is not executed after all, so that a half-open
+     * probe slot it took is given back instead of being held until the probe window expires.
+     * @param sql The SQL statement.
+     */
+    public void releaseProbe(String sql) {
+        FailureRecord rec = state.get(sql);
+        if (rec != null && rec.state.get() == HALF_OPEN) {
+            rec.probes.updateAndGet(probes -> Math.max(0, probes - 1));
         }
-        rec.tryReset();
     }
 
     /**
@@ -89,7 +112,8 @@ public class CircuitBreaker {
     public void onSuccess(String sql) {
         FailureRecord rec = state.get(sql);
         if (rec != null) {
-            rec.reset();
+            rec.state.set(CLOSED);
+            rec.failureCount.set(0);
             state.remove(sql, rec);
         }
     }
@@ -102,9 +126,68 @@ public class CircuitBreaker {
      * @param error The exception.
      */
     public void onFailure(String sql, SQLException error) {
-        FailureRecord rec = state.computeIfAbsent(sql, s -> new FailureRecord(this.failureThreashold));
-        if (!rec.isOpen()) {
-            rec.recordFailure(error, openMs);
+        FailureRecord rec = state.computeIfAbsent(sql, s -> new FailureRecord());
+        int current = rec.state.get();
+        if (current == OPEN || (current == HALF_OPEN && error == rec.lastError)) {
+            // Open, or the rejection thrown by preCheck coming back through a catch block
+            return;
         }
+        rec.lastError = error;
+        if (current == HALF_OPEN) {
+            // Failed probe
+            open(rec);
+        } else if (rec.failureCount.incrementAndGet() >= failureThreashold) {
+            open(rec);
+        }
+    }
+
+    /**
+     * Gets the current state of the breaker for a key.
+     * @param sql The SQL statement.
+     * @return State of the breaker
+     */
+    public State getState(String sql) {
+        FailureRecord rec = state.get(sql);
+        if (rec == null) {
+            return State.CLOSED;
+        }
+        switch (rec.state.get()) {
+            case OPEN:
+                return State.OPEN;
+            case HALF_OPEN:
+                return State.HALF_OPEN;
+            default:
+                return State.CLOSED;
+        }
+    }
+
+    /**
+     * Gets how many times a breaker was opened (including re-opening after a failed probe).
+     * @return Open count
+     */
+    public long getOpenedCount() {
+        return openedCount.get();
+    }
+
+    /**
+     * Gets how many calls were rejected by open breakers.
+     * @return Rejected count
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    private void open(FailureRecord rec) {
+        long now = System.nanoTime();
+        rec.openUntilNanos = now + openNanos;
+        rec.probeWindowUntilNanos = now + 2 * openNanos;
+        rec.probes.set(0);
+        rec.state.set(OPEN);
+        openedCount.incrementAndGet();
+    }
+
+    private void reject(FailureRecord rec) throws SQLException {
+        rejectedCount.incrementAndGet();
+        throw rec.lastError;
     }
-}
\ No newline at end of file
+}
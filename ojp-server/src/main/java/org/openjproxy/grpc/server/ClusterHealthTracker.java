@@ -16,6 +16,19 @@ public class ClusterHealthTracker {
     
     // Maps connHash to the last known cluster health string
     private final Map<String, String> lastKnownHealth = new ConcurrentHashMap<>();
+
+    // Maps connHash to the last health epoch and bitmap reported by a client
+    private final Map<String, HealthEpoch> lastKnownEpoch = new ConcurrentHashMap<>();
+
+    private static final class HealthEpoch {
+        private final long epoch;
+        private final long bitmap;
+
+        private HealthEpoch(long epoch, long bitmap) {
+            this.epoch = epoch;
+            this.bitmap = bitmap;
+        }
+    }
     
     /**
      * Parses a cluster health string into a map of server -> health status.
@@ -87,6 +100,12 @@ public class ClusterHealthTracker {
         // Normalize empty/null cluster health to empty string for comparison
         final String normalizedCurrent = currentClusterHealth == null ? "" : currentClusterHealth;
         
+        // Read-only check first, the health only changes on rare transitions
+        String known = lastKnownHealth.get(connHash);
+        if (known != null && known.equals(normalizedCurrent)) {
+            return false;
+        }
+        
         // Use a holder to return the result from the compute function
         final boolean[] hasChanged = new boolean[1];
         
@@ -117,6 +136,48 @@ public class ClusterHealthTracker {
         return hasChanged[0];
     }
     
+    /**
+     * Checks if the cluster health has changed for a connection hash, using the health epoch and bitmap
+     * sent by the client when available.
+     * 
+     * Clients increase the epoch on every health transition, so while a client keeps reporting the
+     * epoch and bitmap last seen for the connHash the check is a map lookup and two integer comparisons.
+     * When the epoch moves (a transition, or another client reporting for the same connHash) the health
+     * string is compared as in {@link #hasHealthChanged(String, String)}. An epoch of 0 means the client
+     * does not track epochs and always uses the string comparison.
+     * 
+     * @param connHash Connection hash
+     * @param epoch Cluster health epoch reported by the client, 0 if not tracked
+     * @param bitmap Cluster health bitmap reported by the client
+     * @param currentClusterHealth Current cluster health string
+     * @return true if cluster health has changed, false otherwise
+     */
+    public boolean hasHealthChanged(String connHash, long epoch, long bitmap, String currentClusterHealth) {
+        if (epoch == 0 || connHash == null || connHash.isEmpty()) {
+            return hasHealthChanged(connHash, currentClusterHealth);
+        }
+        HealthEpoch last = lastKnownEpoch.get(connHash);
+        if (last != null && last.epoch == epoch && last.bitmap == bitmap) {
+            return false;
+        }
+        boolean changed = hasHealthChanged(connHash, currentClusterHealth);
+        lastKnownEpoch.put(connHash, new HealthEpoch(epoch, bitmap));
+        return changed;
+    }
+    
+    /**
+     * Counts the healthy servers, from the bitmap when the client tracks health epochs and by parsing
+     * the health string otherwise.
+     * 
+     * @param epoch Cluster health epoch reported by the client, 0 if not tracked
+     * @param bitmap Cluster health bitmap reported by the client
+     * @param clusterHealth The cluster health string
+     * @return Number of servers with UP status
+     */
+    public int countHealthyServers(long epoch, long bitmap, String clusterHealth) {
+        return epoch != 0 ? Long.bitCount(bitmap) : countHealthyServers(clusterHealth);
+    }
+    
     /**
      * Removes tracking for a connection hash (e.g., when connection is closed).
      * 
@@ -125,6 +186,7 @@ public class ClusterHealthTracker {
     public void removeTracking(String connHash) {
         if (connHash != null) {
             lastKnownHealth.remove(connHash);
+            lastKnownEpoch.remove(connHash);
             log.debug("Removed cluster health tracking for connHash {}", connHash);
         }
     }
@@ -0,0 +1,135 @@
+package org.openjproxy.grpc.server;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Circuit breakers guarding whole datasources and the database backends behind them.
+ *
+ * The per statement {@link CircuitBreaker} only protects against a single failing SQL. When the database itself
+ * is unreachable every statement fails separately and keeps hitting the pool and the network until each one
+ * reaches its own threshold. This class keeps one breaker keyed by datasource (connection hash) and one keyed by
+ * backend (database URL, shared by every datasource pointing at the same database), both only counting
+ * connection level failures so that regular SQL errors never open them.
+ */
+public class DatasourceCircuitBreaker {
+
+    private final CircuitBreaker datasourceBreaker;
+    private final CircuitBreaker backendBreaker;
+    private final Map<String, String> backendByConnHash = new ConcurrentHashMap<>();
+
+    /**
+     * @param openMs How long a breaker stays open before admitting probes, in milliseconds
+     * @param failureThreshold Consecutive connection failures that open a breaker
+     * @param halfOpenProbes Number of probe calls admitted while half-open
+     */
+    public DatasourceCircuitBreaker(long openMs, int failureThreshold, int halfOpenProbes) {
+        this(new CircuitBreaker(openMs, failureThreshold, halfOpenProbes),
+                new CircuitBreaker(openMs, failureThreshold, halfOpenProbes));
+    }
+
+    DatasourceCircuitBreaker(CircuitBreaker datasourceBreaker, CircuitBreaker backendBreaker) {
+        this.datasourceBreaker = datasourceBreaker;
+        this.backendBreaker = backendBreaker;
+    }
+
+    /**
+     * Associates a datasource with the backend it connects to.
+     *
+     * @param connHash The connection hash of the datasource
+     * @param backend Identifier of the database backend, typically the JDBC URL
+     */
+    public void registerDatasource(String connHash, String backend) {
+        if (connHash != null && backend != null) {
+            backendByConnHash.put(connHash, backend);
+        }
+    }
+
+    /**
+     * Call before executing on a datasource.
+     *
+     * @param connHash The connection hash of the datasource
+     * @throws SQLException the last connection failure if the datasource or its backend is open
+     */
+    public void preCheck(String connHash) throws SQLException {
+        String backend = backendByConnHash.get(connHash);
+        if (backend != null) {
+            backendBreaker.preCheck(backend);
+        }
+        try {
+            datasourceBreaker.preCheck(connHash);
+        } catch (SQLException e) {
+            // The call never reaches the backend, a probe it was admitted as goes to the next call
+            if (backend != null) {
+                backendBreaker.releaseProbe(backend);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Call when an execution on the datasource succeeded.
+     *
+     * @param connHash The connection hash of the datasource
+     */
+    public void onSuccess(String connHash) {
+        datasourceBreaker.onSuccess(connHash);
+        String backend = backendByConnHash.get(connHash);
+        if (backend != null) {
+            backendBreaker.onSuccess(backend);
+        }
+    }
+
+    /**
+     * Call when an execution on the datasource failed. Only connection failures are recorded. An error the
+     * database answered with, one carrying a SQLState, shows the backend is reachable and counts as a success,
+     * which closes a half-open breaker. Errors without a SQLState, raised before reaching the database, are ignored.
+     *
+     * @param connHash The connection hash of the datasource
+     * @param error The exception
+     */
+    public void onFailure(String connHash, SQLException error) {
+        if (!isConnectionFailure(error)) {
+            if (error.getSQLState() != null) {
+                onSuccess(connHash);
+            }
+            return;
+        }
+        datasourceBreaker.onFailure(connHash, error);
+        String backend = backendByConnHash.get(connHash);
+        if (backend != null) {
+            backendBreaker.onFailure(backend, error);
+        }
+    }
+
+    public CircuitBreaker.State getDatasourceState(String connHash) {
+        return datasourceBreaker.getState(connHash);
+    }
+
+    public CircuitBreaker.State getBackendState(String backend) {
+        return backendBreaker.getState(backend);
+    }
+
+    /**
+     * Whether the exception means the database could not be reached, as opposed to a failure of the statement.
+     * Connection exceptions are SQLState class 08 or {@link SQLNonTransientConnectionException}. A
+     * {@link java.sql.SQLTransientConnectionException} alone is not one: connection pools such as HikariCP throw it
+     * when no pooled connection became available in time, which is saturation, not an outage. When the pool timed
+     * out because it could not connect, HikariCP carries the connection failure as SQLState and cause.
+     *
+     * @param error The exception
+     * @return true for connection failures
+     */
+    static boolean isConnectionFailure(SQLException error) {
+        if (error instanceof SQLNonTransientConnectionException) {
+            return true;
+        }
+        String sqlState = error.getSQLState();
+        if (sqlState != null && sqlState.startsWith("08")) {
+            return true;
+        }
+        return error.getCause() instanceof SQLException cause && cause != error && isConnectionFailure(cause);
+    }
+}
@@ -7,6 +7,7 @@ import io.grpc.netty.NettyServerBuilder;
 import io.opentelemetry.instrumentation.grpc.v1_6.GrpcTelemetry;
 import org.openjproxy.config.TlsConfigurationException;
 import org.openjproxy.constants.CommonConstants;
+import org.openjproxy.grpc.server.pool.ConnectionPoolConfigurer;
 import org.openjproxy.grpc.server.utils.DriverLoader;
 import org.openjproxy.grpc.server.utils.DriverUtils;
 import org.slf4j.Logger;
@@ -62,19 +63,32 @@ public class GrpcServer {
 
         // Build server with configuration
         SessionManagerImpl sessionManager = new SessionManagerImpl();
+        StatementServiceImpl statementService = new StatementServiceImpl(
+                sessionManager,
+                new CircuitBreaker(config.getCircuitBreakerTimeout(), config.getCircuitBreakerThreshold(),
+                        config.getCircuitBreakerHalfOpenProbes()),
+                config
+        );
+        ojpServerTelemetry.registerXaMetrics(statementService::getXaTransactionMetrics);
+        ojpServerTelemetry.registerConcurrencyLimitMetrics(statementService::getConcurrencyLimits);
+        if (config.isResultSetCacheEnabled()) {
+            ojpServerTelemetry.registerResultSetCacheMetrics(statementService.getResultSetCache());
+        }
         
+        IpWhitelistMatcher ipWhitelist = IpWhitelistMatcher.compile(config.getAllowedIps());
         NettyServerBuilder serverBuilder = NettyServerBuilder
                 .forPort(config.getServerPort())
                 .executor(Executors.newFixedThreadPool(config.getThreadPoolSize()))
                 .maxInboundMessageSize(config.getMaxRequestSize())
                 .keepAliveTime(config.getConnectionIdleTimeout(), TimeUnit.MILLISECONDS)
-                .addService(new StatementServiceImpl(
-                        sessionManager,
-                        new CircuitBreaker(config.getCircuitBreakerTimeout(), config.getCircuitBreakerThreshold()),
-                        config
-                ))
+                .addService(statementService)
                 .addService(OjpHealthManager.getHealthStatusManager().getHealthService())
-                .intercept(new IpWhitelistingInterceptor(config.getAllowedIps()))
+                .intercept(new UtilizationReportingInterceptor(statementService::getPoolUtilizationPercent,
+                        config.isPoolBudgetSharingEnabled()
+                                ? ConnectionPoolConfigurer.getPoolCoordinator().getNodeId() : null,
+                        statementService::getPoolUtilization))
+                .addTransportFilter(new IpWhitelistingTransportFilter(ipWhitelist))
+                .intercept(new IpWhitelistingInterceptor(ipWhitelist))
                 .intercept(grpcTelemetry.newServerInterceptor());
         
         // Configure TLS if enabled
@@ -0,0 +1,163 @@
+package org.openjproxy.grpc.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+/**
+ * IP whitelist compiled once into a binary prefix trie per address family, so that checking a client address
+ * walks at most 32 (IPv4) or 128 (IPv6) bits and neither parses the rules nor resolves anything.
+ * Individual IP rules are stored as full length prefixes. Invalid rules are logged and left out, as they
+ * never matched anything.
+ */
+public final class IpWhitelistMatcher {
+    private static final Logger logger = LoggerFactory.getLogger(IpWhitelistMatcher.class);
+
+    private final List<String> rules;
+    private final boolean allowAll;
+    private final Node ipv4Root = new Node();
+    private final Node ipv6Root = new Node();
+
+    private IpWhitelistMatcher(List<String> rules) {
+        this.rules = rules == null ? List.of() : List.copyOf(rules);
+        this.allowAll = this.rules.isEmpty() || this.rules.stream()
+                .map(String::trim)
+                .anyMatch(rule -> rule.equals("*") || rule.equals(IpWhitelistValidator.ALLOW_ALL_IPS));
+        if (!allowAll) {
+            for (String rule : this.rules) {
+                addRule(rule.trim());
+            }
+        }
+    }
+
+    /**
+     * Compiles the whitelist rules. An empty list, or one containing a wildcard, allows every address.
+     *
+     * @param allowedIps list of allowed IPs and CIDR ranges
+     * @return the compiled whitelist
+     */
+    public static IpWhitelistMatcher compile(List<String> allowedIps) {
+        return new IpWhitelistMatcher(allowedIps);
+    }
+
+    public boolean isAllowAll() {
+        return allowAll;
+    }
+
+    /**
+     * Checks a textual client IP address.
+     *
+     * @param clientIp the IP address to validate
+     * @return true if the IP is allowed, false otherwise
+     */
+    public boolean isAllowed(String clientIp) {
+        if (allowAll) {
+            return true;
+        }
+        try {
+            return isAllowed(InetAddress.getByName(clientIp));
+        } catch (UnknownHostException e) {
+            logger.warn("Invalid client IP address: {}", clientIp);
+            return false;
+        }
+    }
+
+    /**
+     * Checks the remote address of a transport. Addresses that are not IP socket addresses are only allowed
+     * when the whitelist allows all.
+     *
+     * @param remoteAddress the remote address of the transport
+     * @return true if the address is allowed, false otherwise
+     */
+    public boolean isAllowed(SocketAddress remoteAddress) {
+        if (allowAll) {
+            return true;
+        }
+        if (remoteAddress instanceof InetSocketAddress && ((InetSocketAddress) remoteAddress).getAddress() != null) {
+            return isAllowed(((InetSocketAddress) remoteAddress).getAddress());
+        }
+        logger.warn("Access denied - unable to extract IP address from remote address: {}", remoteAddress);
+        return false;
+    }
+
+    /**
+     * Checks a client IP address.
+     *
+     * @param clientAddress the IP address to validate
+     * @return true if the IP is allowed, false otherwise
+     */
+    public boolean isAllowed(InetAddress clientAddress) {
+        if (allowAll) {
+            return true;
+        }
+        byte[] address = clientAddress.getAddress();
+        Node node = address.length == 4 ? ipv4Root : ipv6Root;
+        for (int bit = 0; node != null && !node.terminal && bit < address.length * 8; bit++) {
+            node = node.children[bitAt(address, bit)];
+        }
+        if (node == null || !node.terminal) {
+            // Log warning when denying access for audit purposes
+            logger.warn("Access denied - IP {} not found in whitelist. Configured whitelist: {}",
+                    clientAddress.getHostAddress(), rules);
+            return false;
+        }
+        logger.debug("IP {} matches the whitelist", clientAddress.getHostAddress());
+        return true;
+    }
+
+    private void addRule(String rule) {
+        try {
+            InetAddress network;
+            int prefixLength;
+            if (rule.contains("/")) {
+                String[] parts = rule.split("/");
+                if (parts.length != 2) {
+                    logger.warn("Invalid CIDR format: {}", rule);
+                    return;
+                }
+                network = InetAddress.getByName(parts[0]);
+                prefixLength = Integer.parseInt(parts[1]);
+            } else {
+                network = InetAddress.getByName(rule);
+                prefixLength = network.getAddress().length * 8;
+            }
+            byte[] address = network.getAddress();
+            if (prefixLength < 0 || prefixLength > address.length * 8) {
+                logger.warn("Invalid CIDR prefix length: {}", rule);
+                return;
+            }
+            insert(address.length == 4 ? ipv4Root : ipv6Root, address, prefixLength);
+        } catch (NumberFormatException | UnknownHostException e) {
+            logger.warn("Invalid IP rule in whitelist: {}", rule);
+        }
+    }
+
+    private static void insert(Node root, byte[] address, int prefixLength) {
+        Node node = root;
+        for (int bit = 0; bit < prefixLength && !node.terminal; bit++) {
+            int branch = bitAt(address, bit);
+            if (node.children[branch] == null) {
+                node.children[branch] = new Node();
+            }
+            node = node.children[branch];
+        }
+        // A shorter prefix covers everything below it
+        node.terminal = true;
+        node.children[0] = null;
+        node.children[1] = null;
+    }
+
+    private static int bitAt(byte[] address, int bit) {
+        return (address[bit >>> 3] >>> (7 - (bit & 7))) & 1;
+    }
+
+    private static final class Node {
+        private final Node[] children = new Node[2];
+        private boolean terminal;
+    }
+}
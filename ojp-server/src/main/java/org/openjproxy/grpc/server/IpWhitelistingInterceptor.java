@@ -16,14 +16,20 @@ import java.util.List;
 /**
  * gRPC Server Interceptor that enforces IP whitelisting for all incoming requests.
  * Logs warning messages with relevant information when denying access for audit purposes.
+ * When {@link IpWhitelistingTransportFilter} is installed, the decision made for the transport is reused and
+ * the whitelist is only consulted for calls on transports the filter has not seen.
  */
 public class IpWhitelistingInterceptor implements ServerInterceptor {
     private static final Logger logger = LoggerFactory.getLogger(IpWhitelistingInterceptor.class);
     
-    private final List<String> allowedIps;
+    private final IpWhitelistMatcher whitelist;
     
     public IpWhitelistingInterceptor(List<String> allowedIps) {
-        this.allowedIps = allowedIps;
+        this(IpWhitelistMatcher.compile(allowedIps));
+    }
+
+    public IpWhitelistingInterceptor(IpWhitelistMatcher whitelist) {
+        this.whitelist = whitelist;
     }
     
     @Override
@@ -32,15 +38,16 @@ public class IpWhitelistingInterceptor implements ServerInterceptor {
             Metadata headers,
             ServerCallHandler<ReqT, RespT> next) {
         
-        // Extract client IP address
-        String clientIp = extractClientIp(call);
-        String methodName = call.getMethodDescriptor().getFullMethodName();
+        // Reuse the decision made when the transport was established
+        Boolean allowed = call.getAttributes().get(IpWhitelistingTransportFilter.TRANSPORT_ATTR_IP_ALLOWED);
+        if (allowed == null) {
+            allowed = whitelist.isAllowed(call.getAttributes().get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR));
+        }
         
-        // Check if IP is allowed
-        if (!IpWhitelistValidator.isIpAllowed(clientIp, allowedIps)) {
+        if (!allowed) {
             // Log warning for audit with relevant information
             logger.warn("IP whitelisting access denied: clientIp={}, method={}", 
-                    clientIp, methodName);
+                    extractClientIp(call), call.getMethodDescriptor().getFullMethodName());
             
             // Close the call with PERMISSION_DENIED status
             call.close(
@@ -0,0 +1,33 @@
+package org.openjproxy.grpc.server;
+
+import io.grpc.Attributes;
+import io.grpc.Grpc;
+import io.grpc.ServerTransportFilter;
+
+/**
+ * Decides once per transport, when a client connection is established, whether its remote address is on the
+ * IP whitelist, and stores the decision in the transport attributes. {@link IpWhitelistingInterceptor} reads it
+ * back from the call attributes, so calls on an established connection are not checked again.
+ */
+public class IpWhitelistingTransportFilter extends ServerTransportFilter {
+
+    /**
+     * Transport attribute holding whether the remote address of the transport is on the whitelist.
+     */
+    public static final Attributes.Key<Boolean> TRANSPORT_ATTR_IP_ALLOWED =
+            Attributes.Key.create("ojp-ip-allowed");
+
+    private final IpWhitelistMatcher whitelist;
+
+    public IpWhitelistingTransportFilter(IpWhitelistMatcher whitelist) {
+        this.whitelist = whitelist;
+    }
+
+    @Override
+    public Attributes transportReady(Attributes transportAttrs) {
+        boolean allowed = whitelist.isAllowed(transportAttrs.get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR));
+        return transportAttrs.toBuilder()
+                .set(TRANSPORT_ATTR_IP_ALLOWED, allowed)
+                .build();
+    }
+}
@@ -5,6 +5,7 @@ import org.openjproxy.constants.CommonConstants;
 
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -16,11 +17,28 @@ import java.util.concurrent.ConcurrentHashMap;
  * - When an unhealthy server recovers, all servers rebalance back to divided pool sizes
  * 
  * This ensures global pool limits are respected while maintaining high availability.
+ * 
+ * Budget sharing (optional): instead of an even split, servers exchange their pool demand (connections in use
+ * plus threads waiting for one) through the clients, which relay the demand each server reports to all servers.
+ * Each server then sizes its pool to a share of the global budget proportional to its demand:
+ * - every server keeps at least half of its even split, so an idle server can still absorb a burst
+ * - the other half of the budget is distributed proportionally to demand
+ * - the computed shares sum to at most the global maximum, although while servers apply a new distribution
+ *   at slightly different times the total can briefly exceed it
+ * - a new size is only applied when it differs enough from the current one and not more often than
+ *   the configured interval (hysteresis), so pools do not flap with short spikes
+ * When cluster health changes the pools fall back to the even split until fresh demand is received.
  */
 @Slf4j
 public class MultinodePoolCoordinator {
     
+    private static final double MIN_SHARE_OF_EVEN_SPLIT = 0.5;
+    private static final double RESIZE_THRESHOLD = 0.1;
+    private static final int MIN_RESIZE_STEP = 2;
+    
     private final Map<String, PoolAllocation> poolAllocations = new ConcurrentHashMap<>();
+    // Identifies this server in the pool demand relayed by clients
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
     
     /**
      * Represents the pool allocation for a connection hash (dataSource).
@@ -30,6 +48,9 @@ public class MultinodePoolCoordinator {
         private final int originalMinIdle;
         private final int totalServers;
         private int healthyServers;
+        // Max pool size assigned by budget sharing, 0 while using the even split
+        private volatile int budgetMaxPoolSize;
+        private volatile long lastBudgetChangeNanos;
         
         public PoolAllocation(int originalMaxPoolSize, int originalMinIdle, int totalServers) {
             this.originalMaxPoolSize = originalMaxPoolSize;
@@ -39,6 +60,10 @@ public class MultinodePoolCoordinator {
         }
         
         public int getCurrentMaxPoolSize() {
+            int budget = budgetMaxPoolSize;
+            if (budget > 0) {
+                return budget;
+            }
             if (healthyServers <= 0) {
                 return originalMaxPoolSize; // Fallback to original if no healthy servers
             }
@@ -51,11 +76,23 @@ public class MultinodePoolCoordinator {
                 return originalMinIdle; // Fallback to original if no healthy servers
             }
             // Divide the total min idle among healthy servers, rounding up
-            return (int) Math.ceil((double) originalMinIdle / healthyServers);
+            int minIdle = (int) Math.ceil((double) originalMinIdle / healthyServers);
+            return Math.min(minIdle, getCurrentMaxPoolSize());
         }
         
         public void updateHealthyServerCount(int count) {
             this.healthyServers = Math.max(1, Math.min(count, totalServers));
+            // Shares were computed for the previous membership
+            this.budgetMaxPoolSize = 0;
+        }
+        
+        /**
+         * Gets the max pool size assigned by budget sharing.
+         * 
+         * @return Assigned max pool size, 0 when the even split is used
+         */
+        public int getBudgetMaxPoolSize() {
+            return budgetMaxPoolSize;
         }
         
         public int getOriginalMaxPoolSize() {
@@ -127,6 +164,62 @@ public class MultinodePoolCoordinator {
         }
     }
     
+    /**
+     * Applies the pool demand of all servers, relayed by a client, to this server's share of the global budget.
+     * 
+     * @param connHash Connection hash identifying the datasource
+     * @param demandByNode Demand (connections in use plus waiting threads) per server node id
+     * @param minIntervalNanos Minimum time between two budget changes
+     * @return true if this server's max pool size changed and must be applied to the pool
+     */
+    public boolean applyPoolDemand(String connHash, Map<String, Integer> demandByNode, long minIntervalNanos) {
+        PoolAllocation allocation = poolAllocations.get(connHash);
+        Integer ownDemand = demandByNode.get(nodeId);
+        if (allocation == null || ownDemand == null) {
+            return false;
+        }
+        int healthy = allocation.getHealthyServers();
+        if (healthy <= 1 || demandByNode.size() < healthy) {
+            // Demand of every healthy server is needed, otherwise shares could exceed the global budget
+            return false;
+        }
+        long now = System.nanoTime();
+        if (allocation.lastBudgetChangeNanos != 0 && now - allocation.lastBudgetChangeNanos < minIntervalNanos) {
+            return false;
+        }
+        
+        int nodes = demandByNode.size();
+        long totalDemand = 0;
+        for (int demand : demandByNode.values()) {
+            totalDemand += Math.max(0, demand);
+        }
+        double floorShare = MIN_SHARE_OF_EVEN_SPLIT / nodes;
+        double share = totalDemand == 0
+                ? 1.0 / nodes
+                : floorShare + (1 - floorShare * nodes) * Math.max(0, ownDemand) / totalDemand;
+        int target = Math.max(1, (int) Math.floor(allocation.getOriginalMaxPoolSize() * share));
+        
+        int current = allocation.getCurrentMaxPoolSize();
+        int step = Math.max(MIN_RESIZE_STEP, (int) Math.ceil(current * RESIZE_THRESHOLD));
+        if (Math.abs(target - current) < step) {
+            return false;
+        }
+        allocation.budgetMaxPoolSize = target;
+        allocation.lastBudgetChangeNanos = now;
+        log.info("Pool budget for {} reassigned by demand: max {} -> {} (own demand {}, cluster demand {}, {} nodes)",
+                connHash, current, target, ownDemand, totalDemand, nodes);
+        return true;
+    }
+    
+    /**
+     * Gets the identifier of this server in the pool demand exchanged through clients.
+     * 
+     * @return Node id
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+    
     /**
      * Gets the pool allocation for a connection hash.
      * 
@@ -1,14 +1,24 @@
 package org.openjproxy.grpc.server;
 
 import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongMeasurement;
 import io.opentelemetry.exporter.prometheus.PrometheusHttpServer;
 import io.opentelemetry.instrumentation.grpc.v1_6.GrpcTelemetry;
 import io.opentelemetry.sdk.OpenTelemetrySdk;
 import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import org.openjproxy.grpc.server.resultset.ResultSetCache;
+import org.openjproxy.xa.pool.XATransactionMetrics;
+import org.openjproxy.xa.pool.commons.BackendSessionImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * OJP Server Telemetry Configuration for OpenTelemetry with Prometheus Exporter.
@@ -17,6 +27,10 @@ import java.util.List;
 public class OjpServerTelemetry {
 	private static final Logger logger = LoggerFactory.getLogger(OjpServerTelemetry.class);
 	private static final int DEFAULT_PROMETHEUS_PORT = 9159;
+	private static final AttributeKey<String> DATASOURCE = AttributeKey.stringKey("datasource");
+	private static final AttributeKey<String> LE = AttributeKey.stringKey("le");
+
+	private OpenTelemetry openTelemetry = OpenTelemetry.noop();
 
 	/**
 	 * Creates GrpcTelemetry with default configuration.
@@ -49,7 +63,7 @@ public class OjpServerTelemetry {
 				.setPort(prometheusPort)
 				.build();
 
-		OpenTelemetry openTelemetry = OpenTelemetrySdk.builder()
+		openTelemetry = OpenTelemetrySdk.builder()
 				.setMeterProvider(
 						SdkMeterProvider.builder()
 								.registerMetricReader(prometheusServer)
@@ -59,6 +73,111 @@ public class OjpServerTelemetry {
 		return GrpcTelemetry.create(openTelemetry);
 	}
 
+	/**
+	 * Exports the XA transaction lifecycle metrics of every XA datasource. The values are read from the
+	 * registries when the metrics are scraped, transactions only increment counters.
+	 *
+	 * @param metrics Supplier of the current metrics by connection hash
+	 */
+	public void registerXaMetrics(Supplier<Map<String, XATransactionMetrics>> metrics) {
+		Meter meter = openTelemetry.getMeter("org.openjproxy.xa");
+		xaCounter(meter, "ojp.xa.transactions.started", "XA branches started", metrics, XATransactionMetrics::getStarted);
+		xaCounter(meter, "ojp.xa.transactions.prepared", "XA branches prepared", metrics, XATransactionMetrics::getPrepared);
+		xaCounter(meter, "ojp.xa.transactions.prepared.readonly", "XA branches prepared with the read-only optimization",
+				metrics, XATransactionMetrics::getPreparedReadOnly);
+		xaCounter(meter, "ojp.xa.transactions.committed", "XA branches committed", metrics, XATransactionMetrics::getCommitted);
+		xaCounter(meter, "ojp.xa.transactions.rolledback", "XA branches rolled back", metrics, XATransactionMetrics::getRolledBack);
+		xaCounter(meter, "ojp.xa.transactions.errors", "Failed XA operations", metrics, XATransactionMetrics::getErrors);
+		xaHistogram(meter, "ojp.xa.commit.latency", "Backend XA commit latency", metrics,
+				XATransactionMetrics::getCommitLatencyBuckets, XATransactionMetrics::getCommitLatencySumMicros);
+		xaHistogram(meter, "ojp.xa.transaction.duration", "XA branch duration from start to completion", metrics,
+				XATransactionMetrics::getTransactionDurationBuckets, XATransactionMetrics::getTransactionDurationSumMicros);
+		meter.counterBuilder("ojp.xa.session.reset.roundtrips.elided")
+				.setDescription("Auto-commit and isolation reads skipped when resetting XA backend sessions")
+				.buildWithCallback(measurement -> measurement.record(BackendSessionImpl.getResetRoundTripsElided()));
+	}
+
+	/**
+	 * Exports the current concurrency limit of every datasource using slow query segregation: the adaptive limit
+	 * when enabled, otherwise the fixed number of slots. The values are read when the metrics are scraped.
+	 *
+	 * @param limits Supplier of the current limits by connection hash
+	 */
+	public void registerConcurrencyLimitMetrics(Supplier<Map<String, Integer>> limits) {
+		Meter meter = openTelemetry.getMeter("org.openjproxy.segregation");
+		meter.gaugeBuilder("ojp.datasource.concurrency.limit")
+				.setDescription("Operations allowed to execute concurrently on the datasource")
+				.ofLongs()
+				.buildWithCallback(measurement -> limits.get().forEach((connHash, limit) ->
+						measurement.record(limit, Attributes.of(DATASOURCE, connHash))));
+	}
+
+	/**
+	 * Exports the lookups, evictions, invalidations and size of the query result cache.
+	 *
+	 * @param cache The result set cache
+	 */
+	public void registerResultSetCacheMetrics(ResultSetCache cache) {
+		Meter meter = openTelemetry.getMeter("org.openjproxy.resultset");
+		meter.counterBuilder("ojp.resultset.cache.hits")
+				.setDescription("Queries answered from the result set cache")
+				.buildWithCallback(measurement -> measurement.record(cache.getHitCount()));
+		meter.counterBuilder("ojp.resultset.cache.misses")
+				.setDescription("Cacheable queries run against the database")
+				.buildWithCallback(measurement -> measurement.record(cache.getMissCount()));
+		meter.gaugeBuilder("ojp.resultset.cache.hit.ratio")
+				.setDescription("Share of cacheable queries answered from the result set cache")
+				.buildWithCallback(measurement -> measurement.record(cache.getHitRatio()));
+		meter.counterBuilder("ojp.resultset.cache.evictions")
+				.setDescription("Result set cache entries evicted to stay within the size budget")
+				.buildWithCallback(measurement -> measurement.record(cache.getEvictionCount()));
+		meter.counterBuilder("ojp.resultset.cache.invalidations")
+				.setDescription("Result set cache entries invalidated by updates")
+				.buildWithCallback(measurement -> measurement.record(cache.getInvalidationCount()));
+		meter.upDownCounterBuilder("ojp.resultset.cache.size")
+				.setDescription("Encoded size of the cached result sets")
+				.setUnit("By")
+				.buildWithCallback(measurement -> measurement.record(cache.getWeightedSize()));
+	}
+
+	private static void xaCounter(Meter meter, String name, String description,
+								  Supplier<Map<String, XATransactionMetrics>> metrics,
+								  Function<XATransactionMetrics, Long> value) {
+		meter.counterBuilder(name)
+				.setDescription(description)
+				.buildWithCallback(measurement -> metrics.get().forEach((connHash, m) ->
+						measurement.record(value.apply(m), Attributes.of(DATASOURCE, connHash))));
+	}
+
+	/**
+	 * Exports a fixed bucket histogram as cumulative bucket counters, labelled with their upper bound in
+	 * microseconds, plus the sum.
+	 */
+	private static void xaHistogram(Meter meter, String name, String description,
+									Supplier<Map<String, XATransactionMetrics>> metrics,
+									Function<XATransactionMetrics, long[]> buckets,
+									Function<XATransactionMetrics, Long> sumMicros) {
+		meter.counterBuilder(name + ".bucket")
+				.setDescription(description + " (microseconds)")
+				.buildWithCallback(measurement -> metrics.get().forEach((connHash, m) ->
+						recordBuckets(measurement, connHash, buckets.apply(m))));
+		meter.counterBuilder(name + ".sum")
+				.setDescription(description + " (microseconds)")
+				.setUnit("us")
+				.buildWithCallback(measurement -> metrics.get().forEach((connHash, m) ->
+						measurement.record(sumMicros.apply(m), Attributes.of(DATASOURCE, connHash))));
+	}
+
+	private static void recordBuckets(ObservableLongMeasurement measurement, String connHash, long[] counts) {
+		long cumulative = 0;
+		for (int i = 0; i < counts.length; i++) {
+			cumulative += counts[i];
+			String bound = i < XATransactionMetrics.LATENCY_BUCKET_BOUNDS_MICROS.length
+					? Long.toString(XATransactionMetrics.LATENCY_BUCKET_BOUNDS_MICROS[i]) : "+Inf";
+			measurement.record(cumulative, Attributes.of(DATASOURCE, connHash, LE, bound));
+		}
+	}
+
 	/**
 	 * Creates a no-op GrpcTelemetry when OpenTelemetry is disabled.
 	 */
@@ -176,6 +176,17 @@ public class QueryPerformanceMonitor {
         return record != null ? record.getAverageExecutionTime() : 0.0;
     }
     
+    /**
+     * Gets the number of recorded executions for a specific operation.
+     * 
+     * @param operationHash The hash of the SQL operation
+     * @return The number of executions recorded, or 0 if not found
+     */
+    public long getOperationExecutionCount(String operationHash) {
+        PerformanceRecord record = operationRecords.get(operationHash);
+        return record != null ? record.getExecutionCount() : 0L;
+    }
+    
     /**
      * Gets the overall average execution time across all tracked operations.
      * This is the average of all individual operation averages.
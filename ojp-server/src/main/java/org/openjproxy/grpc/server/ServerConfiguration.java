@@ -28,12 +28,25 @@ public class ServerConfiguration {
     private static final String PROMETHEUS_ALLOWED_IPS_KEY = "ojp.prometheus.allowedIps";
     private static final String CIRCUIT_BREAKER_TIMEOUT_KEY = "ojp.server.circuitBreakerTimeout";
     private static final String CIRCUIT_BREAKER_THRESHOLD_KEY = "ojp.server.circuitBreakerThreshold";
+    private static final String CIRCUIT_BREAKER_HALF_OPEN_PROBES_KEY = "ojp.server.circuitBreakerHalfOpenProbes";
     private static final String SLOW_QUERY_SEGREGATION_ENABLED_KEY = "ojp.server.slowQuerySegregation.enabled";
     private static final String SLOW_QUERY_SLOT_PERCENTAGE_KEY = "ojp.server.slowQuerySegregation.slowSlotPercentage";
     private static final String SLOW_QUERY_IDLE_TIMEOUT_KEY = "ojp.server.slowQuerySegregation.idleTimeout";
     private static final String SLOW_QUERY_SLOW_SLOT_TIMEOUT_KEY = "ojp.server.slowQuerySegregation.slowSlotTimeout";
     private static final String SLOW_QUERY_FAST_SLOT_TIMEOUT_KEY = "ojp.server.slowQuerySegregation.fastSlotTimeout";
     private static final String SLOW_QUERY_UPDATE_GLOBAL_AVG_INTERVAL_KEY = "ojp.server.slowQuerySegregation.updateGlobalAvgInterval";
+    private static final String SLOW_QUERY_ADAPTIVE_LIMIT_ENABLED_KEY = "ojp.server.slowQuerySegregation.adaptiveLimit.enabled";
+    private static final String SLOW_QUERY_ADAPTIVE_LIMIT_MIN_KEY = "ojp.server.slowQuerySegregation.adaptiveLimit.minLimit";
+    private static final String POOL_BUDGET_SHARING_ENABLED_KEY = "ojp.server.poolBudgetSharing.enabled";
+    private static final String POOL_BUDGET_SHARING_MIN_INTERVAL_MS_KEY = "ojp.server.poolBudgetSharing.minIntervalMs";
+    private static final String XA_RECOVERY_CACHE_TTL_MS_KEY = "ojp.server.xa.recoveryCacheTtlMs";
+    private static final String XA_POOL_PROVIDER_KEY = "ojp.server.xa.poolProvider";
+    private static final String LOB_INLINE_THRESHOLD_KEY = "ojp.server.lob.inlineThresholdBytes";
+    private static final String RESULT_SET_BLOCK_BYTE_BUDGET_KEY = "ojp.server.resultSet.blockByteBudget";
+    private static final String RESULT_SET_CACHE_ENABLED_KEY = "ojp.server.resultSetCache.enabled";
+    private static final String RESULT_SET_CACHE_MAX_BYTES_KEY = "ojp.server.resultSetCache.maxBytes";
+    private static final String RESULT_SET_CACHE_DEFAULT_TTL_SECONDS_KEY = "ojp.server.resultSetCache.defaultTtlSeconds";
+    private static final String RESULT_SET_CACHE_TTL_RULES_KEY = "ojp.server.resultSetCache.ttlRules";
     private static final String DRIVERS_PATH_KEY = "ojp.libs.path";
     private static final String SQL_ENHANCER_ENABLED_KEY = "ojp.sql.enhancer.enabled";
     private static final String SQL_ENHANCER_MODE_KEY = "ojp.sql.enhancer.mode";
@@ -44,7 +57,12 @@ public class ServerConfiguration {
     private static final String SQL_ENHANCER_OPTIMIZATION_TIMEOUT_KEY = "ojp.sql.enhancer.optimizationTimeout";
     private static final String SQL_ENHANCER_CACHE_ENABLED_KEY = "ojp.sql.enhancer.cacheEnabled";
     private static final String SQL_ENHANCER_CACHE_SIZE_KEY = "ojp.sql.enhancer.cacheSize";
+    private static final String SQL_ENHANCER_CACHE_MAX_WEIGHT_KEY = "ojp.sql.enhancer.cacheMaxWeight";
     private static final String SQL_ENHANCER_FAIL_ON_VALIDATION_ERROR_KEY = "ojp.sql.enhancer.failOnValidationError";
+    private static final String SQL_ENHANCER_ASYNC_ENABLED_KEY = "ojp.sql.enhancer.async.enabled";
+    private static final String SQL_ENHANCER_ASYNC_THREADS_KEY = "ojp.sql.enhancer.async.threads";
+    private static final String SQL_ENHANCER_SHADOW_ENABLED_KEY = "ojp.sql.enhancer.shadow.enabled";
+    private static final String SQL_ENHANCER_SHADOW_SAMPLES_KEY = "ojp.sql.enhancer.shadow.samples";
     
     // Schema loader configuration keys
     private static final String SCHEMA_REFRESH_ENABLED_KEY = "ojp.sql.enhancer.schema.refresh.enabled";
@@ -82,12 +100,25 @@ public class ServerConfiguration {
     public static final List<String> DEFAULT_PROMETHEUS_ALLOWED_IPS = List.of(IpWhitelistValidator.ALLOW_ALL_IPS); // Allow all by default
     public static final long DEFAULT_CIRCUIT_BREAKER_TIMEOUT = 60000; // 60 seconds
     public static final int DEFAULT_CIRCUIT_BREAKER_THRESHOLD = 3; // 3 failures before opening the circuit breaker.
+    public static final int DEFAULT_CIRCUIT_BREAKER_HALF_OPEN_PROBES = 1; // probe calls admitted once the open period elapsed
     public static final boolean DEFAULT_SLOW_QUERY_SEGREGATION_ENABLED = true; // Enable slow query segregation by default
     public static final int DEFAULT_SLOW_QUERY_SLOT_PERCENTAGE = 20; // 20% of slots for slow queries
     public static final long DEFAULT_SLOW_QUERY_IDLE_TIMEOUT = 10000; // 10 seconds idle timeout
     public static final long DEFAULT_SLOW_QUERY_SLOW_SLOT_TIMEOUT = 120000; // 120 seconds slow slot timeout
     public static final long DEFAULT_SLOW_QUERY_FAST_SLOT_TIMEOUT = 60000; // 60 seconds fast slot timeout
     public static final long DEFAULT_SLOW_QUERY_UPDATE_GLOBAL_AVG_INTERVAL = 300; // 300 seconds (5 minutes) global average update interval
+    public static final boolean DEFAULT_SLOW_QUERY_ADAPTIVE_LIMIT_ENABLED = false; // Fixed slot count unless enabled
+    public static final int DEFAULT_SLOW_QUERY_ADAPTIVE_LIMIT_MIN = 2; // Lowest adaptive slot count per datasource
+    public static final boolean DEFAULT_POOL_BUDGET_SHARING_ENABLED = false; // Even split of the pool budget unless enabled
+    public static final long DEFAULT_POOL_BUDGET_SHARING_MIN_INTERVAL_MS = 5000; // Minimum time between two pool resizes
+    public static final long DEFAULT_XA_RECOVERY_CACHE_TTL_MS = 2000; // Reuse XA recovery scans for 2 seconds
+    public static final String DEFAULT_XA_POOL_PROVIDER = ""; // Highest priority available provider
+    public static final long DEFAULT_LOB_INLINE_THRESHOLD = 1024 * 1024; // BLOBs up to 1MB are sent within result set rows
+    public static final long DEFAULT_RESULT_SET_BLOCK_BYTE_BUDGET = 8 * 1024 * 1024; // Half the client's default 16MB inbound limit
+    public static final boolean DEFAULT_RESULT_SET_CACHE_ENABLED = false;
+    public static final long DEFAULT_RESULT_SET_CACHE_MAX_BYTES = 64L * 1024 * 1024; // Encoded result set blocks
+    public static final long DEFAULT_RESULT_SET_CACHE_DEFAULT_TTL_SECONDS = 0; // Only statements with a TTL rule or hint are cached
+    public static final String DEFAULT_RESULT_SET_CACHE_TTL_RULES = ""; // regex=seconds entries separated by ';'
     public static final String DEFAULT_DRIVERS_PATH = "./ojp-libs"; // Default external libraries directory path
     
     // SQL Enhancer default values
@@ -100,7 +131,12 @@ public class ServerConfiguration {
     public static final int DEFAULT_SQL_ENHANCER_OPTIMIZATION_TIMEOUT = 100; // milliseconds
     public static final boolean DEFAULT_SQL_ENHANCER_CACHE_ENABLED = true;
     public static final int DEFAULT_SQL_ENHANCER_CACHE_SIZE = 1000;
+    public static final long DEFAULT_SQL_ENHANCER_CACHE_MAX_WEIGHT = 4L * 1024 * 1024; // Total cached SQL characters
     public static final boolean DEFAULT_SQL_ENHANCER_FAIL_ON_VALIDATION_ERROR = true;
+    public static final boolean DEFAULT_SQL_ENHANCER_ASYNC_ENABLED = false; // Enhance synchronously by default
+    public static final int DEFAULT_SQL_ENHANCER_ASYNC_THREADS = 1;
+    public static final boolean DEFAULT_SQL_ENHANCER_SHADOW_ENABLED = false;
+    public static final int DEFAULT_SQL_ENHANCER_SHADOW_SAMPLES = 5; // Executions of each variant before promotion
     
     // Schema loader default values
     public static final boolean DEFAULT_SCHEMA_REFRESH_ENABLED = true;
@@ -138,12 +174,25 @@ public class ServerConfiguration {
     private final List<String> prometheusAllowedIps;
     private final long circuitBreakerTimeout;
     private final int circuitBreakerThreshold;
+    private final int circuitBreakerHalfOpenProbes;
     private final boolean slowQuerySegregationEnabled;
     private final int slowQuerySlotPercentage;
     private final long slowQueryIdleTimeout;
     private final long slowQuerySlowSlotTimeout;
     private final long slowQueryFastSlotTimeout;
     private final long slowQueryUpdateGlobalAvgInterval;
+    private final boolean slowQueryAdaptiveLimitEnabled;
+    private final int slowQueryAdaptiveLimitMin;
+    private final boolean poolBudgetSharingEnabled;
+    private final long poolBudgetSharingMinIntervalMs;
+    private final long xaRecoveryCacheTtlMs;
+    private final String xaPoolProvider;
+    private final long lobInlineThreshold;
+    private final long resultSetBlockByteBudget;
+    private final boolean resultSetCacheEnabled;
+    private final long resultSetCacheMaxBytes;
+    private final long resultSetCacheDefaultTtlSeconds;
+    private final String resultSetCacheTtlRules;
     private final String driversPath;
     private final boolean sqlEnhancerEnabled;
     private final String sqlEnhancerMode;
@@ -154,7 +203,12 @@ public class ServerConfiguration {
     private final int sqlEnhancerOptimizationTimeout;
     private final boolean sqlEnhancerCacheEnabled;
     private final int sqlEnhancerCacheSize;
+    private final long sqlEnhancerCacheMaxWeight;
     private final boolean sqlEnhancerFailOnValidationError;
+    private final boolean sqlEnhancerAsyncEnabled;
+    private final int sqlEnhancerAsyncThreads;
+    private final boolean sqlEnhancerShadowEnabled;
+    private final int sqlEnhancerShadowSamples;
     
     // Schema loader configuration
     private final boolean schemaRefreshEnabled;
@@ -191,12 +245,26 @@ public class ServerConfiguration {
         this.prometheusAllowedIps = getListProperty(PROMETHEUS_ALLOWED_IPS_KEY, DEFAULT_PROMETHEUS_ALLOWED_IPS);
         this.circuitBreakerTimeout = getLongProperty(CIRCUIT_BREAKER_TIMEOUT_KEY, DEFAULT_CIRCUIT_BREAKER_TIMEOUT);
         this.circuitBreakerThreshold = getIntProperty(CIRCUIT_BREAKER_THRESHOLD_KEY, DEFAULT_CIRCUIT_BREAKER_THRESHOLD);
+        this.circuitBreakerHalfOpenProbes = getIntProperty(CIRCUIT_BREAKER_HALF_OPEN_PROBES_KEY, DEFAULT_CIRCUIT_BREAKER_HALF_OPEN_PROBES);
         this.slowQuerySegregationEnabled = getBooleanProperty(SLOW_QUERY_SEGREGATION_ENABLED_KEY, DEFAULT_SLOW_QUERY_SEGREGATION_ENABLED);
         this.slowQuerySlotPercentage = getIntProperty(SLOW_QUERY_SLOT_PERCENTAGE_KEY, DEFAULT_SLOW_QUERY_SLOT_PERCENTAGE);
         this.slowQueryIdleTimeout = getLongProperty(SLOW_QUERY_IDLE_TIMEOUT_KEY, DEFAULT_SLOW_QUERY_IDLE_TIMEOUT);
         this.slowQuerySlowSlotTimeout = getLongProperty(SLOW_QUERY_SLOW_SLOT_TIMEOUT_KEY, DEFAULT_SLOW_QUERY_SLOW_SLOT_TIMEOUT);
         this.slowQueryFastSlotTimeout = getLongProperty(SLOW_QUERY_FAST_SLOT_TIMEOUT_KEY, DEFAULT_SLOW_QUERY_FAST_SLOT_TIMEOUT);
         this.slowQueryUpdateGlobalAvgInterval = getLongProperty(SLOW_QUERY_UPDATE_GLOBAL_AVG_INTERVAL_KEY, DEFAULT_SLOW_QUERY_UPDATE_GLOBAL_AVG_INTERVAL);
+        this.slowQueryAdaptiveLimitEnabled = getBooleanProperty(SLOW_QUERY_ADAPTIVE_LIMIT_ENABLED_KEY, DEFAULT_SLOW_QUERY_ADAPTIVE_LIMIT_ENABLED);
+        this.slowQueryAdaptiveLimitMin = getIntProperty(SLOW_QUERY_ADAPTIVE_LIMIT_MIN_KEY, DEFAULT_SLOW_QUERY_ADAPTIVE_LIMIT_MIN);
+        this.poolBudgetSharingEnabled = getBooleanProperty(POOL_BUDGET_SHARING_ENABLED_KEY, DEFAULT_POOL_BUDGET_SHARING_ENABLED);
+        this.poolBudgetSharingMinIntervalMs = getLongProperty(POOL_BUDGET_SHARING_MIN_INTERVAL_MS_KEY, DEFAULT_POOL_BUDGET_SHARING_MIN_INTERVAL_MS);
+        this.xaRecoveryCacheTtlMs = getLongProperty(XA_RECOVERY_CACHE_TTL_MS_KEY, DEFAULT_XA_RECOVERY_CACHE_TTL_MS);
+        this.xaPoolProvider = getStringProperty(XA_POOL_PROVIDER_KEY, DEFAULT_XA_POOL_PROVIDER);
+        this.lobInlineThreshold = getLongProperty(LOB_INLINE_THRESHOLD_KEY, DEFAULT_LOB_INLINE_THRESHOLD);
+        this.resultSetBlockByteBudget = getLongProperty(RESULT_SET_BLOCK_BYTE_BUDGET_KEY, DEFAULT_RESULT_SET_BLOCK_BYTE_BUDGET);
+        this.resultSetCacheEnabled = getBooleanProperty(RESULT_SET_CACHE_ENABLED_KEY, DEFAULT_RESULT_SET_CACHE_ENABLED);
+        this.resultSetCacheMaxBytes = getLongProperty(RESULT_SET_CACHE_MAX_BYTES_KEY, DEFAULT_RESULT_SET_CACHE_MAX_BYTES);
+        this.resultSetCacheDefaultTtlSeconds = getLongProperty(RESULT_SET_CACHE_DEFAULT_TTL_SECONDS_KEY,
+                DEFAULT_RESULT_SET_CACHE_DEFAULT_TTL_SECONDS);
+        this.resultSetCacheTtlRules = getStringProperty(RESULT_SET_CACHE_TTL_RULES_KEY, DEFAULT_RESULT_SET_CACHE_TTL_RULES);
         this.driversPath = getStringProperty(DRIVERS_PATH_KEY, DEFAULT_DRIVERS_PATH);
         this.sqlEnhancerEnabled = getBooleanProperty(SQL_ENHANCER_ENABLED_KEY, DEFAULT_SQL_ENHANCER_ENABLED);
         this.sqlEnhancerMode = getStringProperty(SQL_ENHANCER_MODE_KEY, DEFAULT_SQL_ENHANCER_MODE);
@@ -207,7 +275,12 @@ public class ServerConfiguration {
         this.sqlEnhancerOptimizationTimeout = getIntProperty(SQL_ENHANCER_OPTIMIZATION_TIMEOUT_KEY, DEFAULT_SQL_ENHANCER_OPTIMIZATION_TIMEOUT);
         this.sqlEnhancerCacheEnabled = getBooleanProperty(SQL_ENHANCER_CACHE_ENABLED_KEY, DEFAULT_SQL_ENHANCER_CACHE_ENABLED);
         this.sqlEnhancerCacheSize = getIntProperty(SQL_ENHANCER_CACHE_SIZE_KEY, DEFAULT_SQL_ENHANCER_CACHE_SIZE);
+        this.sqlEnhancerCacheMaxWeight = getLongProperty(SQL_ENHANCER_CACHE_MAX_WEIGHT_KEY, DEFAULT_SQL_ENHANCER_CACHE_MAX_WEIGHT);
         this.sqlEnhancerFailOnValidationError = getBooleanProperty(SQL_ENHANCER_FAIL_ON_VALIDATION_ERROR_KEY, DEFAULT_SQL_ENHANCER_FAIL_ON_VALIDATION_ERROR);
+        this.sqlEnhancerAsyncEnabled = getBooleanProperty(SQL_ENHANCER_ASYNC_ENABLED_KEY, DEFAULT_SQL_ENHANCER_ASYNC_ENABLED);
+        this.sqlEnhancerAsyncThreads = getIntProperty(SQL_ENHANCER_ASYNC_THREADS_KEY, DEFAULT_SQL_ENHANCER_ASYNC_THREADS);
+        this.sqlEnhancerShadowEnabled = getBooleanProperty(SQL_ENHANCER_SHADOW_ENABLED_KEY, DEFAULT_SQL_ENHANCER_SHADOW_ENABLED);
+        this.sqlEnhancerShadowSamples = getIntProperty(SQL_ENHANCER_SHADOW_SAMPLES_KEY, DEFAULT_SQL_ENHANCER_SHADOW_SAMPLES);
         
         // Schema loader configuration
         this.schemaRefreshEnabled = getBooleanProperty(SCHEMA_REFRESH_ENABLED_KEY, DEFAULT_SCHEMA_REFRESH_ENABLED);
@@ -321,12 +394,25 @@ public class ServerConfiguration {
         logger.info("  Prometheus Allowed IPs: {}", prometheusAllowedIps);
         logger.info("  Circuit Breaker Timeout: {} ms", circuitBreakerTimeout);
         logger.info("  Circuit Breaker Threshold: {} ", circuitBreakerThreshold);
+        logger.info("  Circuit Breaker Half-Open Probes: {}", circuitBreakerHalfOpenProbes);
         logger.info("  Slow Query Segregation Enabled: {}", slowQuerySegregationEnabled);
         logger.info("  Slow Query Slot Percentage: {}%", slowQuerySlotPercentage);
         logger.info("  Slow Query Idle Timeout: {} ms", slowQueryIdleTimeout);
         logger.info("  Slow Query Slow Slot Timeout: {} ms", slowQuerySlowSlotTimeout);
         logger.info("  Slow Query Fast Slot Timeout: {} ms", slowQueryFastSlotTimeout);
         logger.info("  Slow Query Update Global Avg Interval: {} seconds", slowQueryUpdateGlobalAvgInterval);
+        logger.info("  Slow Query Adaptive Limit Enabled: {}", slowQueryAdaptiveLimitEnabled);
+        logger.info("  Slow Query Adaptive Limit Min: {}", slowQueryAdaptiveLimitMin);
+        logger.info("  Pool Budget Sharing Enabled: {}", poolBudgetSharingEnabled);
+        logger.info("  Pool Budget Sharing Min Interval: {} ms", poolBudgetSharingMinIntervalMs);
+        logger.info("  XA Recovery Cache TTL: {} ms", xaRecoveryCacheTtlMs);
+        logger.info("  XA Pool Provider: {}", xaPoolProvider.isEmpty() ? "highest priority" : xaPoolProvider);
+        logger.info("  LOB Inline Threshold: {} bytes", lobInlineThreshold);
+        logger.info("  Result Set Block Byte Budget: {} bytes", resultSetBlockByteBudget);
+        logger.info("  Result Set Cache Enabled: {}", resultSetCacheEnabled);
+        logger.info("  Result Set Cache Max Bytes: {} bytes", resultSetCacheMaxBytes);
+        logger.info("  Result Set Cache Default TTL: {} seconds", resultSetCacheDefaultTtlSeconds);
+        logger.info("  Result Set Cache TTL Rules: {}", resultSetCacheTtlRules.isEmpty() ? "none" : resultSetCacheTtlRules);
         logger.info("  External Libraries Path: {}", driversPath);
         logger.info("  SQL Enhancer Enabled: {}", sqlEnhancerEnabled);
         logger.info("  SQL Enhancer Mode: {}", sqlEnhancerMode);
@@ -337,7 +423,12 @@ public class ServerConfiguration {
         logger.info("  SQL Enhancer Optimization Timeout: {} ms", sqlEnhancerOptimizationTimeout);
         logger.info("  SQL Enhancer Cache Enabled: {}", sqlEnhancerCacheEnabled);
         logger.info("  SQL Enhancer Cache Size: {}", sqlEnhancerCacheSize);
+        logger.info("  SQL Enhancer Cache Max Weight: {} chars", sqlEnhancerCacheMaxWeight);
         logger.info("  SQL Enhancer Fail On Validation Error: {}", sqlEnhancerFailOnValidationError);
+        logger.info("  SQL Enhancer Async Enabled: {}", sqlEnhancerAsyncEnabled);
+        logger.info("  SQL Enhancer Async Threads: {}", sqlEnhancerAsyncThreads);
+        logger.info("  SQL Enhancer Shadow Enabled: {}", sqlEnhancerShadowEnabled);
+        logger.info("  SQL Enhancer Shadow Samples: {}", sqlEnhancerShadowSamples);
         logger.info("Session Cleanup Configuration:");
         logger.info("  Session Cleanup Enabled: {}", sessionCleanupEnabled);
         logger.info("  Session Timeout: {} minutes", sessionTimeoutMinutes);
@@ -421,6 +512,10 @@ public class ServerConfiguration {
         return circuitBreakerThreshold;
     }
 
+    public int getCircuitBreakerHalfOpenProbes() {
+        return circuitBreakerHalfOpenProbes;
+    }
+
     public boolean isSlowQuerySegregationEnabled() {
         return slowQuerySegregationEnabled;
     }
@@ -445,6 +540,54 @@ public class ServerConfiguration {
         return slowQueryUpdateGlobalAvgInterval;
     }
 
+    public boolean isSlowQueryAdaptiveLimitEnabled() {
+        return slowQueryAdaptiveLimitEnabled;
+    }
+
+    public int getSlowQueryAdaptiveLimitMin() {
+        return slowQueryAdaptiveLimitMin;
+    }
+
+    public boolean isPoolBudgetSharingEnabled() {
+        return poolBudgetSharingEnabled;
+    }
+
+    public long getPoolBudgetSharingMinIntervalMs() {
+        return poolBudgetSharingMinIntervalMs;
+    }
+
+    public long getXaRecoveryCacheTtlMs() {
+        return xaRecoveryCacheTtlMs;
+    }
+
+    public String getXaPoolProvider() {
+        return xaPoolProvider;
+    }
+
+    public long getLobInlineThreshold() {
+        return lobInlineThreshold;
+    }
+
+    public long getResultSetBlockByteBudget() {
+        return resultSetBlockByteBudget;
+    }
+
+    public boolean isResultSetCacheEnabled() {
+        return resultSetCacheEnabled;
+    }
+
+    public long getResultSetCacheMaxBytes() {
+        return resultSetCacheMaxBytes;
+    }
+
+    public long getResultSetCacheDefaultTtlSeconds() {
+        return resultSetCacheDefaultTtlSeconds;
+    }
+
+    public String getResultSetCacheTtlRules() {
+        return resultSetCacheTtlRules;
+    }
+
     public String getDriversPath() {
         return driversPath;
     }
@@ -485,10 +628,30 @@ public class ServerConfiguration {
         return sqlEnhancerCacheSize;
     }
     
+    public long getSqlEnhancerCacheMaxWeight() {
+        return sqlEnhancerCacheMaxWeight;
+    }
+    
     public boolean isSqlEnhancerFailOnValidationError() {
         return sqlEnhancerFailOnValidationError;
     }
     
+    public boolean isSqlEnhancerAsyncEnabled() {
+        return sqlEnhancerAsyncEnabled;
+    }
+    
+    public int getSqlEnhancerAsyncThreads() {
+        return sqlEnhancerAsyncThreads;
+    }
+    
+    public boolean isSqlEnhancerShadowEnabled() {
+        return sqlEnhancerShadowEnabled;
+    }
+    
+    public int getSqlEnhancerShadowSamples() {
+        return sqlEnhancerShadowSamples;
+    }
+    
     public boolean isSchemaRefreshEnabled() {
         return schemaRefreshEnabled;
     }
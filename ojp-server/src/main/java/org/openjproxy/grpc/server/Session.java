@@ -13,7 +13,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -45,6 +47,8 @@ public class Session {
     private Map<String, Object> attrMap;
     private boolean closed;
     private int transactionTimeout = 0;
+    // Tables written by the current transaction, invalidated again in the result set cache when it ends
+    private final Set<String> writtenTables = ConcurrentHashMap.newKeySet();
     @Getter
     private volatile long lastActivityTime;
     @Getter
@@ -235,6 +239,26 @@ public class Session {
         return (T) this.lobMap.get(uuid);
     }
 
+    /**
+     * Records tables written by the current transaction, as named by the result set cache.
+     *
+     * @param tables Tables written
+     */
+    public void addWrittenTables(Set<String> tables) {
+        this.writtenTables.addAll(tables);
+    }
+
+    /**
+     * Gets and forgets the tables written by the transaction that just ended.
+     *
+     * @return Tables written, empty if none
+     */
+    public Set<String> takeWrittenTables() {
+        Set<String> tables = new HashSet<>(this.writtenTables);
+        this.writtenTables.removeAll(tables);
+        return tables;
+    }
+
     private void notClosed() {
         if (this.closed) {
             throw new RuntimeException("Session is closed.");
@@ -0,0 +1,173 @@
+package org.openjproxy.grpc.server;
+
+import com.google.protobuf.Message;
+import com.openjproxy.grpc.CallResourceBatchResponse;
+import com.openjproxy.grpc.CallResourceResponse;
+import com.openjproxy.grpc.OpResult;
+import com.openjproxy.grpc.SessionInfo;
+import com.openjproxy.grpc.SessionRequestFrame;
+import com.openjproxy.grpc.SessionResponseFrame;
+import com.openjproxy.grpc.SqlErrorResponse;
+import com.openjproxy.grpc.StatementServiceGrpc;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Server side of a session stream, the long-lived bidirectional stream a driver connection opens when
+ * ojp.sessionStream.enabled is set. Each request frame is dispatched to the same service method the unary rpc
+ * uses, with the session of the stream, and its responses are sent back framed with the request's correlation id.
+ * <p>
+ * The session of the stream is replaced by the session of every frame that carries one, so a request runs with
+ * exactly the session the client would have sent with the unary rpc. Frames of a stream are handled one after the
+ * other on the thread gRPC delivers them on, like the requests of a JDBC connection are issued.
+ */
+@Slf4j
+class SessionStreamObserver implements StreamObserver<SessionRequestFrame> {
+
+    private static final Metadata.Key<SqlErrorResponse> SQL_ERROR_KEY =
+            ProtoUtils.keyForProto(SqlErrorResponse.getDefaultInstance());
+
+    private final StatementServiceGrpc.AsyncService service;
+    private final StreamObserver<SessionResponseFrame> responseObserver;
+    private SessionInfo session = SessionInfo.getDefaultInstance();
+
+    SessionStreamObserver(StatementServiceGrpc.AsyncService service,
+                          StreamObserver<SessionResponseFrame> responseObserver) {
+        this.service = service;
+        this.responseObserver = responseObserver;
+    }
+
+    @Override
+    public void onNext(SessionRequestFrame frame) {
+        if (frame.hasSession()) {
+            session = frame.getSession();
+        }
+        int correlationId = frame.getCorrelationId();
+        try {
+            switch (frame.getRequestCase()) {
+                case EXECUTEUPDATE:
+                    service.executeUpdate(frame.getExecuteUpdate().toBuilder().setSession(session).build(),
+                            new FrameObserver<>(correlationId));
+                    break;
+                case EXECUTEQUERY:
+                    service.executeQuery(frame.getExecuteQuery().toBuilder().setSession(session).build(),
+                            new FrameObserver<>(correlationId));
+                    break;
+                case FETCHNEXTROWS:
+                    service.fetchNextRows(frame.getFetchNextRows().toBuilder().setSession(session).build(),
+                            new FrameObserver<>(correlationId));
+                    break;
+                case CALLRESOURCE:
+                    service.callResource(frame.getCallResource().toBuilder().setSession(session).build(),
+                            new FrameObserver<>(correlationId));
+                    break;
+                case CALLRESOURCEBATCH:
+                    service.callResourceBatch(frame.getCallResourceBatch().toBuilder().setSession(session).build(),
+                            new FrameObserver<>(correlationId));
+                    break;
+                case STARTTRANSACTION:
+                    service.startTransaction(session, new FrameObserver<>(correlationId));
+                    break;
+                case COMMITTRANSACTION:
+                    service.commitTransaction(session, new FrameObserver<>(correlationId));
+                    break;
+                case ROLLBACKTRANSACTION:
+                    service.rollbackTransaction(session, new FrameObserver<>(correlationId));
+                    break;
+                default:
+                    sendError(correlationId, SqlErrorResponse.newBuilder()
+                            .setReason("Unsupported session stream request " + frame.getRequestCase())
+                            .build());
+            }
+        } catch (Exception e) {
+            // executeUpdate rethrows checked exceptions unchecked
+            log.error("Session stream request {} failed: {}", frame.getRequestCase(), e.getMessage(), e);
+            sendError(correlationId, toSqlError(e));
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        log.debug("Session stream {} closed by the client: {}", session.getSessionUUID(), t.getMessage());
+    }
+
+    @Override
+    public void onCompleted() {
+        responseObserver.onCompleted();
+    }
+
+    private void sendError(int correlationId, SqlErrorResponse error) {
+        responseObserver.onNext(SessionResponseFrame.newBuilder()
+                .setCorrelationId(correlationId)
+                .setError(error)
+                .setLast(true)
+                .build());
+    }
+
+    /**
+     * The SQL error the unary rpc would have sent in its trailers, or one with the status description.
+     */
+    private static SqlErrorResponse toSqlError(Throwable t) {
+        Metadata trailers = Status.trailersFromThrowable(t);
+        SqlErrorResponse error = trailers != null ? trailers.get(SQL_ERROR_KEY) : null;
+        if (error != null) {
+            return error;
+        }
+        Status status = Status.fromThrowable(t);
+        String reason = status.getDescription() != null ? status.getDescription() : String.valueOf(t.getMessage());
+        return SqlErrorResponse.newBuilder().setReason(reason).build();
+    }
+
+    /**
+     * Frames the responses of one request. A response is held until the next one or the completion arrives so the
+     * last response of the request is sent with last set, without an extra frame.
+     */
+    private class FrameObserver<T extends Message> implements StreamObserver<T> {
+        private final int correlationId;
+        private SessionResponseFrame.Builder pending;
+
+        FrameObserver(int correlationId) {
+            this.correlationId = correlationId;
+        }
+
+        @Override
+        public void onNext(T value) {
+            if (pending != null) {
+                responseObserver.onNext(pending.build());
+            }
+            pending = SessionResponseFrame.newBuilder().setCorrelationId(correlationId);
+            if (value instanceof OpResult) {
+                pending.setOpResult((OpResult) value);
+            } else if (value instanceof CallResourceResponse) {
+                pending.setCallResource((CallResourceResponse) value);
+            } else if (value instanceof CallResourceBatchResponse) {
+                pending.setCallResourceBatch((CallResourceBatchResponse) value);
+            } else if (value instanceof SessionInfo) {
+                pending.setSession((SessionInfo) value);
+            } else {
+                throw new IllegalArgumentException("Unexpected session stream response " + value.getClass());
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (pending != null) {
+                responseObserver.onNext(pending.build());
+                pending = null;
+            }
+            sendError(correlationId, toSqlError(t));
+        }
+
+        @Override
+        public void onCompleted() {
+            if (pending == null) {
+                pending = SessionResponseFrame.newBuilder().setCorrelationId(correlationId);
+            }
+            responseObserver.onNext(pending.setLast(true).build());
+            pending = null;
+        }
+    }
+}
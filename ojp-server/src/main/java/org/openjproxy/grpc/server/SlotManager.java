@@ -18,14 +18,16 @@ import java.util.concurrent.atomic.AtomicLong;
 @Slf4j
 public class SlotManager {
     
-    private final int totalSlots;
-    private final int slowSlots;
-    private final int fastSlots;
+    private final int maxTotalSlots;
+    private final int slowSlotPercentage;
+    private volatile int totalSlots;
+    private volatile int slowSlots;
+    private volatile int fastSlots;
     private final long idleTimeoutMs;
     
     // Semaphores for slot management
-    private final Semaphore slowOperationSemaphore;
-    private final Semaphore fastOperationSemaphore;
+    private final ResizableSemaphore slowOperationSemaphore;
+    private final ResizableSemaphore fastOperationSemaphore;
     
     // Tracking for active operations
     private final AtomicInteger activeSlowOperations = new AtomicInteger(0);
@@ -60,21 +62,68 @@ public class SlotManager {
             throw new IllegalArgumentException("Idle timeout must be non-negative");
         }
         
+        this.maxTotalSlots = totalSlots;
+        this.slowSlotPercentage = slowSlotPercentage;
         this.totalSlots = totalSlots;
         this.idleTimeoutMs = idleTimeoutMs;
         
         // Calculate slot allocation
-        this.slowSlots = Math.max(1, (totalSlots * slowSlotPercentage) / 100);
+        this.slowSlots = slowSlotsFor(totalSlots);
         this.fastSlots = totalSlots - this.slowSlots;
         
         // Initialize semaphores
-        this.slowOperationSemaphore = new Semaphore(this.slowSlots, true);
-        this.fastOperationSemaphore = new Semaphore(this.fastSlots, true);
+        this.slowOperationSemaphore = new ResizableSemaphore(this.slowSlots);
+        this.fastOperationSemaphore = new ResizableSemaphore(this.fastSlots);
         
         log.info("SlotManager initialized with {} total slots: {} slow, {} fast, idle timeout {}ms", 
                 totalSlots, this.slowSlots, this.fastSlots, idleTimeoutMs);
     }
     
+    /**
+     * Semaphore whose permit count can shrink while permits are held.
+     */
+    private static final class ResizableSemaphore extends Semaphore {
+        private ResizableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        private void resize(int delta) {
+            if (delta > 0) {
+                release(delta);
+            } else if (delta < 0) {
+                reducePermits(-delta);
+            }
+        }
+    }
+
+    private int slowSlotsFor(int total) {
+        return Math.max(1, (total * slowSlotPercentage) / 100);
+    }
+
+    /**
+     * Changes the number of slots, keeping the configured slow/fast split.
+     * Operations holding slots are not affected; when shrinking, new acquisitions wait until enough
+     * slots have been released.
+     *
+     * @param newTotalSlots The new total number of slots, clamped between 2 and the initial total
+     * @return The total number of slots after resizing
+     */
+    public synchronized int resize(int newTotalSlots) {
+        int total = Math.max(Math.min(2, maxTotalSlots), Math.min(maxTotalSlots, newTotalSlots));
+        if (total == totalSlots) {
+            return total;
+        }
+        int newSlow = slowSlotsFor(total);
+        int newFast = total - newSlow;
+        slowOperationSemaphore.resize(newSlow - slowSlots);
+        fastOperationSemaphore.resize(newFast - fastSlots);
+        log.debug("SlotManager resized from {} to {} total slots: {} slow, {} fast", totalSlots, total, newSlow, newFast);
+        slowSlots = newSlow;
+        fastSlots = newFast;
+        totalSlots = total;
+        return total;
+    }
+    
     /**
      * Acquires a slot for a slow operation.
      * 
@@ -286,6 +335,7 @@ public class SlotManager {
     
     // Getters for monitoring
     public int getTotalSlots() { return totalSlots; }
+    public int getMaxTotalSlots() { return maxTotalSlots; }
     public int getSlowSlots() { return slowSlots; }
     public int getFastSlots() { return fastSlots; }
     public int getActiveSlowOperations() { return activeSlowOperations.get(); }
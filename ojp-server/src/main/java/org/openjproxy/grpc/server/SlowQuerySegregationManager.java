@@ -4,11 +4,18 @@ import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.SQLTransientException;
+
 /**
  * Manages slow query segregation by combining performance monitoring with slot management.
  * 
  * This class coordinates between the QueryPerformanceMonitor (which tracks execution times)
  * and the SlotManager (which enforces execution limits) to implement the slow query segregation feature.
+ * 
+ * When an AdaptiveConcurrencyLimit is supplied, the number of slots is no longer fixed: every operation
+ * reports its latency inflation and the slot manager is resized to the limit computed from it, so that
+ * operations queue in the proxy instead of piling up on a struggling database. Operations that waited for
+ * their slot and acquisitions that timed out are reported as queueing.
  */
 @Slf4j
 public class SlowQuerySegregationManager {
@@ -16,11 +23,16 @@ public class SlowQuerySegregationManager {
     // Workaround for Lombok compilation issue
     private static final Logger log = LoggerFactory.getLogger(SlowQuerySegregationManager.class);
     
+    // Shorter waits for a slot are scheduling noise rather than queueing
+    private static final long QUEUED_THRESHOLD_NANOS = 1_000_000L;
+    
     private final QueryPerformanceMonitor performanceMonitor;
     private final SlotManager slotManager;
     private final boolean enabled;
     private final long slowSlotTimeoutMs;
     private final long fastSlotTimeoutMs;
+    private final AdaptiveConcurrencyLimit adaptiveLimit;
+
 
     /**
      * Creates a new SlowQuerySegregationManager.
@@ -35,15 +47,36 @@ public class SlowQuerySegregationManager {
      */
     public SlowQuerySegregationManager(int totalSlots, int slowSlotPercentage, long idleTimeoutMs,
                                      long slowSlotTimeoutMs, long fastSlotTimeoutMs, long updateGlobalAvgIntervalSeconds, boolean enabled) {
+        this(totalSlots, slowSlotPercentage, idleTimeoutMs, slowSlotTimeoutMs, fastSlotTimeoutMs,
+                updateGlobalAvgIntervalSeconds, enabled, null);
+    }
+    
+    /**
+     * Creates a new SlowQuerySegregationManager whose slot count follows an adaptive concurrency limit.
+     * 
+     * @param totalSlots The maximum total number of concurrent operations (from HikariCP max pool size)
+     * @param slowSlotPercentage The percentage of slots allocated to slow operations (0-100)
+     * @param idleTimeoutMs The time in milliseconds before a slot is considered idle and eligible for borrowing
+     * @param slowSlotTimeoutMs The timeout in milliseconds for acquiring slow operation slots
+     * @param fastSlotTimeoutMs The timeout in milliseconds for acquiring fast operation slots
+     * @param updateGlobalAvgIntervalSeconds The interval in seconds for updating global average (0 = update every query)
+     * @param enabled Whether the slow query segregation feature is enabled
+     * @param adaptiveLimit Adaptive limit driving the number of slots, or null for a fixed number of slots
+     */
+    public SlowQuerySegregationManager(int totalSlots, int slowSlotPercentage, long idleTimeoutMs,
+                                     long slowSlotTimeoutMs, long fastSlotTimeoutMs, long updateGlobalAvgIntervalSeconds,
+                                     boolean enabled, AdaptiveConcurrencyLimit adaptiveLimit) {
         this.enabled = enabled;
+        this.adaptiveLimit = enabled ? adaptiveLimit : null;
         this.slowSlotTimeoutMs = slowSlotTimeoutMs;
         this.fastSlotTimeoutMs = fastSlotTimeoutMs;
         this.performanceMonitor = new QueryPerformanceMonitor(updateGlobalAvgIntervalSeconds);
         
         if (enabled) {
             this.slotManager = new SlotManager(totalSlots, slowSlotPercentage, idleTimeoutMs);
-            log.info("SlowQuerySegregationManager initialized: enabled={}, totalSlots={}, slowSlotPercentage={}%, idleTimeout={}ms, slowSlotTimeout={}ms, fastSlotTimeout={}ms, updateGlobalAvgInterval={}s",
-                    enabled, totalSlots, slowSlotPercentage, idleTimeoutMs, slowSlotTimeoutMs, fastSlotTimeoutMs, updateGlobalAvgIntervalSeconds);
+            log.info("SlowQuerySegregationManager initialized: enabled={}, totalSlots={}, slowSlotPercentage={}%, idleTimeout={}ms, slowSlotTimeout={}ms, fastSlotTimeout={}ms, updateGlobalAvgInterval={}s, adaptiveLimit={}",
+                    enabled, totalSlots, slowSlotPercentage, idleTimeoutMs, slowSlotTimeoutMs, fastSlotTimeoutMs, updateGlobalAvgIntervalSeconds,
+                    this.adaptiveLimit != null);
         } else {
             this.slotManager = null;
             log.info("SlowQuerySegregationManager initialized: enabled={}, updateGlobalAvgInterval={}s", enabled, updateGlobalAvgIntervalSeconds);
@@ -87,25 +120,31 @@ public class SlowQuerySegregationManager {
         
         // Acquire appropriate slot
         boolean slotAcquired = false;
-        long startTime = System.currentTimeMillis();
+        long acquireStart = System.nanoTime();
         
         try {
             if (isSlowOperation) {
                 slotAcquired = slotManager.acquireSlowSlot(slowSlotTimeoutMs);
                 if (!slotAcquired) {
+                    onAcquireTimeout();
                     throw new RuntimeException("Timeout waiting for slow operation slot for operation: " + operationHash);
                 }
                 log.debug("Acquired slow slot for operation: {}", operationHash);
             } else {
                 slotAcquired = slotManager.acquireFastSlot(fastSlotTimeoutMs);
                 if (!slotAcquired) {
+                    onAcquireTimeout();
                     throw new RuntimeException("Timeout waiting for fast operation slot for operation: " + operationHash);
                 }
                 log.debug("Acquired fast slot for operation: {}", operationHash);
             }
             
-            // Execute the operation and monitor its performance
-            return executeAndMonitor(operationHash, operation);
+            if (adaptiveLimit == null) {
+                // Execute the operation and monitor its performance
+                return executeAndMonitor(operationHash, operation);
+            }
+            boolean queued = System.nanoTime() - acquireStart > QUEUED_THRESHOLD_NANOS;
+            return executeAndAdapt(operationHash, operation, queued);
             
         } finally {
             // Always release the slot
@@ -143,6 +182,46 @@ public class SlowQuerySegregationManager {
         }
     }
     
+    /**
+     * Executes and monitors an operation, then feeds its latency inflation to the adaptive limit.
+     */
+    private <T> T executeAndAdapt(String operationHash, SegregatedOperation<T> operation, boolean queued)
+            throws Exception {
+        double usualTimeMs = performanceMonitor.getOperationAverageTime(operationHash);
+        long startTime = System.nanoTime();
+        boolean dropped = false;
+        try {
+            return executeAndMonitor(operationHash, operation);
+        } catch (Exception e) {
+            dropped = e instanceof SQLTransientException || e.getCause() instanceof SQLTransientException;
+            throw e;
+        } finally {
+            double elapsedMs = (System.nanoTime() - startTime) / 1_000_000.0;
+            // Sub-millisecond operations are too noisy to signal congestion
+            double inflation = usualTimeMs > 0 ? Math.max(elapsedMs, 1.0) / Math.max(usualTimeMs, 1.0) : 1.0;
+            resizeSlots(adaptiveLimit.onSample(inflation, getInFlight(), dropped, queued));
+        }
+    }
+    
+    /**
+     * Reports a slot acquisition that timed out to the adaptive limit.
+     */
+    private void onAcquireTimeout() {
+        if (adaptiveLimit != null) {
+            resizeSlots(adaptiveLimit.onAcquireTimeout(getInFlight()));
+        }
+    }
+    
+    private int getInFlight() {
+        return slotManager.getActiveSlowOperations() + slotManager.getActiveFastOperations();
+    }
+    
+    private void resizeSlots(int limit) {
+        if (limit != slotManager.getTotalSlots()) {
+            slotManager.resize(limit);
+        }
+    }
+    
     /**
      * Gets the current status of both the performance monitor and slot manager.
      */
@@ -152,10 +231,12 @@ public class SlowQuerySegregationManager {
         }
         
         return String.format(
-            "SlowQuerySegregationManager[enabled=true, trackedOps=%d, totalExecs=%d, overallAvg=%.2fms, %s]",
+            "SlowQuerySegregationManager[enabled=true, trackedOps=%d, totalExecs=%d, overallAvg=%.2fms, concurrencyLimit=%d%s, %s]",
             performanceMonitor.getTrackedOperationCount(),
             performanceMonitor.getTotalExecutionCount(),
             performanceMonitor.getOverallAverageExecutionTime(),
+            getConcurrencyLimit(),
+            adaptiveLimit != null ? "(adaptive)" : "",
             slotManager.getStatus()
         );
     }
@@ -181,6 +262,24 @@ public class SlowQuerySegregationManager {
         return performanceMonitor.getOverallAverageExecutionTime();
     }
     
+    /**
+     * Gets the current concurrency limit of the datasource: the adaptive limit when enabled, otherwise
+     * the fixed number of slots (0 when segregation is disabled).
+     */
+    public int getConcurrencyLimit() {
+        if (adaptiveLimit != null) {
+            return adaptiveLimit.getLimit();
+        }
+        return slotManager != null ? slotManager.getTotalSlots() : 0;
+    }
+    
+    /**
+     * Gets the adaptive concurrency limit, or null when the number of slots is fixed.
+     */
+    public AdaptiveConcurrencyLimit getAdaptiveLimit() {
+        return adaptiveLimit;
+    }
+    
     /**
      * Checks if the slow query segregation feature is enabled.
      */
@@ -1,7 +1,6 @@
 package org.openjproxy.grpc.server;
-import net.jpountz.xxhash.XXHashFactory;
-import net.jpountz.xxhash.XXHash64;
-import java.nio.charset.StandardCharsets;
+
+import org.openjproxy.grpc.server.sql.SqlStatementInfo;
 
 /**
  * SqlQueryXXHash provides a utility for generating unique, deterministic IDs for SQL query strings using the xxHash64 algorithm.
@@ -25,30 +24,27 @@ import java.nio.charset.StandardCharsets;
  *
  * xxHash is chosen here because it is extremely fast, has excellent distribution for typical database workloads,
  * and provides more than enough uniqueness for non-cryptographic use cases—making it ideal for lightweight query identification.
+ *
+ * The hash is computed by {@link SqlStatementInfo} in a single pass over the SQL text, without building the
+ * normalized String or its UTF-8 bytes, and memoized per SQL text.
  */
 public class SqlStatementXXHash {
-    private static final XXHashFactory factory = XXHashFactory.fastestInstance();
-    private static final long SEED = 0x9747b28c; // Arbitrary seed, can be any long
-
     /**
      * Normalize the SQL query string for better consistency.
      * - Lowercase
      * - Trim
      * - Collapse multiple whitespace
+     *
+     * {@link #hashSqlQuery(String)} hashes this same normalized form without materializing it.
      */
     public static String normalizeSql(String sql) {
-        if (sql == null) return "";
-        return sql.trim().replaceAll("\\s+", " ").toLowerCase();
+        return SqlStatementInfo.normalize(sql);
     }
 
     /**
      * Returns the 64-bit xxHash of the normalized SQL query as a hex string.
      */
     public static String hashSqlQuery(String sql) {
-        String normalized = normalizeSql(sql);
-        byte[] data = normalized.getBytes(StandardCharsets.UTF_8);
-        XXHash64 hash64 = factory.hash64();
-        long hash = hash64.hash(data, 0, data.length, SEED);
-        return Long.toHexString(hash);
+        return SqlStatementInfo.of(sql).getHashHex();
     }
 }
\ No newline at end of file
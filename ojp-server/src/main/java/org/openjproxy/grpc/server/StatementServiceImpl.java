@@ -1,5 +1,7 @@
 package org.openjproxy.grpc.server;
 
+import com.openjproxy.grpc.CallResourceBatchRequest;
+import com.openjproxy.grpc.CallResourceBatchResponse;
 import com.openjproxy.grpc.CallResourceRequest;
 import com.openjproxy.grpc.CallResourceResponse;
 import com.openjproxy.grpc.CallType;
@@ -13,13 +15,14 @@ import com.openjproxy.grpc.ResourceType;
 import com.openjproxy.grpc.ResultSetFetchRequest;
 import com.openjproxy.grpc.ResultType;
 import com.openjproxy.grpc.SessionInfo;
+import com.openjproxy.grpc.SessionRequestFrame;
+import com.openjproxy.grpc.SessionResponseFrame;
 import com.openjproxy.grpc.SessionTerminationStatus;
 import com.openjproxy.grpc.SqlErrorType;
 import com.openjproxy.grpc.StatementRequest;
 import com.openjproxy.grpc.StatementServiceGrpc;
 import com.openjproxy.grpc.TransactionInfo;
 import com.openjproxy.grpc.TransactionStatus;
-import com.zaxxer.hikari.HikariDataSource;
 import io.grpc.stub.StreamObserver;
 import lombok.Builder;
 import lombok.Getter;
@@ -30,10 +33,11 @@ import org.apache.commons.lang3.StringUtils;
 import org.openjproxy.constants.CommonConstants;
 import org.openjproxy.database.DatabaseUtils;
 import org.openjproxy.grpc.ProtoConverter;
-import org.openjproxy.grpc.dto.OpQueryResult;
 import org.openjproxy.grpc.dto.Parameter;
 import org.openjproxy.grpc.server.lob.LobProcessor;
-import org.openjproxy.grpc.server.pool.ConnectionPoolConfigurer;
+import org.openjproxy.grpc.server.pool.PoolUtilization;
+import org.openjproxy.grpc.server.resultset.ResultSetBlockEncoder;
+import org.openjproxy.grpc.server.resultset.ResultSetCache;
 import org.openjproxy.grpc.server.resultset.ResultSetWrapper;
 import org.openjproxy.grpc.server.statement.ParameterHandler;
 import org.openjproxy.grpc.server.statement.StatementFactory;
@@ -42,8 +46,10 @@ import org.openjproxy.grpc.server.utils.MethodNameGenerator;
 import org.openjproxy.grpc.server.utils.MethodReflectionUtils;
 import org.openjproxy.grpc.server.utils.SessionInfoUtils;
 import org.openjproxy.grpc.server.utils.StatementRequestValidator;
-import org.openjproxy.grpc.server.sql.SqlSessionAffinityDetector;
+import org.openjproxy.grpc.server.sql.SqlStatementInfo;
+import org.openjproxy.grpc.server.action.util.ProcessClusterHealthAction;
 import org.openjproxy.grpc.server.action.xa.XaStartAction;
+import org.openjproxy.xa.pool.XATransactionMetrics;
 import org.openjproxy.xa.pool.XATransactionRegistry;
 import org.openjproxy.xa.pool.spi.XAConnectionPoolProvider;
 import org.openjproxy.grpc.server.action.transaction.RollbackTransactionAction;
@@ -52,7 +58,6 @@ import javax.sql.XAConnection;
 import javax.sql.XADataSource;
 import java.io.InputStream;
 import java.lang.reflect.Method;
-import java.sql.Clob;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
@@ -62,9 +67,9 @@ import java.sql.SQLDataException;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -79,6 +84,7 @@ import org.openjproxy.grpc.server.action.xa.XaEndAction;
 import org.openjproxy.grpc.server.action.transaction.CommitTransactionAction;
 import org.openjproxy.grpc.server.action.session.TerminateSessionAction;
 import org.openjproxy.grpc.server.action.resource.CallResourceAction;
+import org.openjproxy.grpc.server.action.resource.CallResourceBatchAction;
 import org.openjproxy.grpc.server.action.xa.XaPrepareAction;
 import org.openjproxy.grpc.server.action.xa.XaCommitAction;
 import org.openjproxy.grpc.server.action.xa.XaRollbackAction;
@@ -97,6 +103,8 @@ public class StatementServiceImpl extends StatementServiceGrpc.StatementServiceI
     private final Map<String, XATransactionRegistry> xaRegistries = new ConcurrentHashMap<>();
     private final SessionManager sessionManager;
     private final CircuitBreaker circuitBreaker;
+    // Breakers per datasource and per backend, opened by connection failures only
+    private final DatasourceCircuitBreaker datasourceCircuitBreaker;
 
     // Per-datasource slow query segregation managers
     private final Map<String, SlowQuerySegregationManager> slowQuerySegregationManagers = new ConcurrentHashMap<>();
@@ -104,6 +112,9 @@ public class StatementServiceImpl extends StatementServiceGrpc.StatementServiceI
     // SQL Enhancer Engine for query optimization
     private final org.openjproxy.grpc.server.sql.SqlEnhancerEngine sqlEnhancerEngine;
 
+    // Background enhancement with optional shadow comparison (null when enhancement runs synchronously)
+    private final org.openjproxy.grpc.server.sql.AsyncSqlEnhancer asyncSqlEnhancer;
+
     // Multinode XA coordinator for distributing transaction limits
     private static final MultinodeXaCoordinator xaCoordinator = new MultinodeXaCoordinator();
 
@@ -119,6 +130,13 @@ public class StatementServiceImpl extends StatementServiceGrpc.StatementServiceI
 
     private static final String RESULT_SET_METADATA_ATTR_PREFIX = "rsMetadata|";
 
+    // Largest BLOB sent within result set rows, and byte size from which a result set block is sent early
+    private final long lobInlineThreshold;
+    private final long resultSetBlockByteBudget;
+
+    // Opt-in cache of query results (disabled unless configured)
+    private final ResultSetCache resultSetCache;
+
     // ActionContext for refactored actions
     private final org.openjproxy.grpc.server.action.ActionContext actionContext;
 
@@ -126,10 +144,26 @@ public class StatementServiceImpl extends StatementServiceGrpc.StatementServiceI
             ServerConfiguration serverConfiguration) {
         this.sessionManager = sessionManager;
         this.circuitBreaker = circuitBreaker;
+        this.datasourceCircuitBreaker = new DatasourceCircuitBreaker(serverConfiguration.getCircuitBreakerTimeout(),
+                serverConfiguration.getCircuitBreakerThreshold(), serverConfiguration.getCircuitBreakerHalfOpenProbes());
         // Server configuration for creating segregation managers
         this.sqlEnhancerEngine = new org.openjproxy.grpc.server.sql.SqlEnhancerEngine(
-                serverConfiguration.isSqlEnhancerEnabled());
-        initializeXAPoolProvider();
+                serverConfiguration.isSqlEnhancerEnabled(),
+                new org.openjproxy.grpc.server.sql.SqlEnhancerCache(serverConfiguration.isSqlEnhancerCacheEnabled()
+                        ? serverConfiguration.getSqlEnhancerCacheMaxWeight() : 0));
+        this.asyncSqlEnhancer = serverConfiguration.isSqlEnhancerEnabled() && serverConfiguration.isSqlEnhancerAsyncEnabled()
+                ? new org.openjproxy.grpc.server.sql.AsyncSqlEnhancer(sqlEnhancerEngine,
+                        serverConfiguration.getSqlEnhancerAsyncThreads(),
+                        serverConfiguration.isSqlEnhancerShadowEnabled(),
+                        serverConfiguration.getSqlEnhancerShadowSamples())
+                : null;
+        initializeXAPoolProvider(serverConfiguration.getXaPoolProvider());
+        this.lobInlineThreshold = serverConfiguration.getLobInlineThreshold();
+        this.resultSetBlockByteBudget = serverConfiguration.getResultSetBlockByteBudget();
+        this.resultSetCache = new ResultSetCache(serverConfiguration.isResultSetCacheEnabled()
+                        ? serverConfiguration.getResultSetCacheMaxBytes() : 0,
+                serverConfiguration.getResultSetCacheDefaultTtlSeconds(),
+                ResultSetCache.parseTtlRules(serverConfiguration.getResultSetCacheTtlRules()));
 
         // Initialize ActionContext with all shared state
         this.actionContext = new org.openjproxy.grpc.server.action.ActionContext(
@@ -144,6 +178,8 @@ public class StatementServiceImpl extends StatementServiceGrpc.StatementServiceI
                 clusterHealthTracker,
                 sessionManager,
                 circuitBreaker,
+                datasourceCircuitBreaker,
+                resultSetCache,
                 serverConfiguration);
     }
 
@@ -162,21 +198,28 @@ public class StatementServiceImpl extends StatementServiceGrpc.StatementServiceI
     /**
      * Initialize XA Pool Provider if XA pooling is enabled in configuration.
      * Loads the provider via ServiceLoader (Commons Pool 2 by default).
+     *
+     * @param preferredProviderId id of the provider to use when available, empty to select by priority
      */
-    private void initializeXAPoolProvider() {
+    private void initializeXAPoolProvider(String preferredProviderId) {
         // XA pooling is always enabled
-        // Select the provider with the HIGHEST priority (100 = highest, 0 = lowest)
+        // Select the provider with the configured id, otherwise the one with the HIGHEST priority
+        // (100 = highest, 0 = lowest)
 
         try {
             ServiceLoader<XAConnectionPoolProvider> loader = ServiceLoader.load(XAConnectionPoolProvider.class);
             XAConnectionPoolProvider selectedProvider = null;
+            XAConnectionPoolProvider preferredProvider = null;
             int highestPriority = Integer.MIN_VALUE;
 
             for (XAConnectionPoolProvider provider : loader) {
                 if (provider.isAvailable()) {
-                    log.debug("Found available XA Pool Provider: {} (priority: {})",
-                            provider.getClass().getName(), provider.getPriority());
+                    log.debug("Found available XA Pool Provider: {} (id: {}, priority: {})",
+                            provider.getClass().getName(), provider.id(), provider.getPriority());
 
+                    if (provider.id().equals(preferredProviderId)) {
+                        preferredProvider = provider;
+                    }
                     if (provider.getPriority() > highestPriority) {
                         selectedProvider = provider;
                         highestPriority = provider.getPriority();
@@ -184,6 +227,12 @@ public class StatementServiceImpl extends StatementServiceGrpc.StatementServiceI
                 }
             }
 
+            if (preferredProvider != null) {
+                selectedProvider = preferredProvider;
+            } else if (preferredProviderId != null && !preferredProviderId.isEmpty()) {
+                log.warn("XA Pool Provider '{}' is not available, selecting by priority", preferredProviderId);
+            }
+
             if (selectedProvider != null) {
                 this.xaPoolProvider = selectedProvider;
                 log.info("Selected XA Pool Provider: {} (priority: {})",
@@ -220,81 +269,82 @@ public class StatementServiceImpl extends StatementServiceGrpc.StatementServiceI
     }
 
     /**
-     * Processes cluster health from the client request and triggers pool
-     * rebalancing if needed.
-     * This should be called for every request that includes SessionInfo with
-     * cluster health.
+     * Gets the utilization of the busiest backend connection pool on this server, in percent of its maximum
+     * size. Values above 100 mean requests are waiting for connections. Reported to clients for load-aware
+     * server selection, whichever datasource they use, as clients weigh servers rather than datasources.
+     *
+     * @return Highest pool utilization percentage across datasources, 0 when no pool is active
      */
-    private void processClusterHealth(SessionInfo sessionInfo) {
-        if (sessionInfo == null) {
-            log.debug("[XA-REBALANCE-DEBUG] processClusterHealth: sessionInfo is null");
-            return;
+    public int getPoolUtilizationPercent() {
+        int max = 0;
+        for (DataSource ds : datasourceMap.values()) {
+            max = Math.max(max, PoolUtilization.of(ds).getPercent());
         }
+        for (XATransactionRegistry registry : xaRegistries.values()) {
+            max = Math.max(max, PoolUtilization.of(registry).getPercent());
+        }
+        return max;
+    }
 
-        String clusterHealth = sessionInfo.getClusterHealth();
-        String connHash = sessionInfo.getConnHash();
-
-        log.debug(
-                "[XA-REBALANCE] processClusterHealth called: connHash={}, clusterHealth='{}', isXA={}, hasXARegistry={}",
-                connHash, clusterHealth, sessionInfo.getIsXA(), xaRegistries.containsKey(connHash));
-
-        if (clusterHealth != null && !clusterHealth.isEmpty() &&
-                connHash != null && !connHash.isEmpty()) {
-
-            // Check if cluster health has changed
-            boolean healthChanged = clusterHealthTracker.hasHealthChanged(connHash, clusterHealth);
-
-            log.debug("[XA-REBALANCE] Cluster health check for {}: changed={}, current health='{}', isXA={}",
-                    connHash, healthChanged, clusterHealth, sessionInfo.getIsXA());
-
-            if (healthChanged) {
-                int healthyServerCount = clusterHealthTracker.countHealthyServers(clusterHealth);
-                log.info(
-                        "[XA-REBALANCE] Cluster health changed for {}, healthy servers: {}, triggering pool rebalancing, isXA={}",
-                        connHash, healthyServerCount, sessionInfo.getIsXA());
-
-                // Update the pool coordinator with new healthy server count
-                ConnectionPoolConfigurer.getPoolCoordinator().updateHealthyServers(connHash, healthyServerCount);
-
-                // Apply pool size changes to non-XA HikariDataSource if present
-                DataSource ds = datasourceMap.get(connHash);
-                if (ds instanceof HikariDataSource) {
-                    log.info("[XA-REBALANCE-DEBUG] Applying size changes to HikariDataSource for {}", connHash);
-                    ConnectionPoolConfigurer.applyPoolSizeChanges(connHash, (HikariDataSource) ds);
-                } else {
-                    log.info("[XA-REBALANCE-DEBUG] No HikariDataSource found for {}", connHash);
-                }
+    /**
+     * Gets the utilization of the backend pool of one datasource, XA or not.
+     *
+     * @param connHash Connection hash of the datasource
+     * @return Utilization of its pool, zero when it has no pool on this server
+     */
+    public PoolUtilization getPoolUtilization(String connHash) {
+        XATransactionRegistry registry = xaRegistries.get(connHash);
+        if (registry != null) {
+            return PoolUtilization.of(registry);
+        }
+        DataSource ds = datasourceMap.get(connHash);
+        return ds != null ? PoolUtilization.of(ds) : new PoolUtilization(0, 0, 0);
+    }
 
-                // Apply pool size changes to XA registry if present
-                XATransactionRegistry xaRegistry = xaRegistries.get(connHash);
-                if (xaRegistry != null) {
-                    log.info("[XA-REBALANCE-DEBUG] Found XA registry for {}, resizing", connHash);
-                    MultinodePoolCoordinator.PoolAllocation allocation = ConnectionPoolConfigurer.getPoolCoordinator()
-                            .getPoolAllocation(connHash);
+    /**
+     * Gets the XA transaction lifecycle metrics of every XA datasource, exported by the metrics endpoint.
+     *
+     * @return Metrics by connection hash
+     */
+    public Map<String, XATransactionMetrics> getXaTransactionMetrics() {
+        Map<String, XATransactionMetrics> metrics = new HashMap<>();
+        xaRegistries.forEach((connHash, registry) -> metrics.put(connHash, registry.getMetrics()));
+        return metrics;
+    }
 
-                    if (allocation != null) {
-                        int newMaxPoolSize = allocation.getCurrentMaxPoolSize();
-                        int newMinIdle = allocation.getCurrentMinIdle();
+    /**
+     * Gets the current concurrency limit of every datasource with slow query segregation enabled, exported by the
+     * metrics endpoint.
+     *
+     * @return Concurrency limit by connection hash
+     */
+    public Map<String, Integer> getConcurrencyLimits() {
+        Map<String, Integer> limits = new HashMap<>();
+        slowQuerySegregationManagers.forEach((connHash, manager) -> {
+            if (manager.isEnabled()) {
+                limits.put(connHash, manager.getConcurrencyLimit());
+            }
+        });
+        return limits;
+    }
 
-                        log.info("[XA-REBALANCE-DEBUG] Resizing XA backend pool for {}: maxPoolSize={}, minIdle={}",
-                                connHash, newMaxPoolSize, newMinIdle);
+    /**
+     * Gets the query result cache, exported by the metrics endpoint.
+     *
+     * @return The result set cache, disabled unless configured
+     */
+    public ResultSetCache getResultSetCache() {
+        return resultSetCache;
+    }
 
-                        xaRegistry.resizeBackendPool(newMaxPoolSize, newMinIdle);
-                    } else {
-                        log.warn("[XA-REBALANCE-DEBUG] No pool allocation found for {}", connHash);
-                    }
-                } else if (sessionInfo.getIsXA()) {
-                    // Only log missing XA registry for actual XA connections
-                    log.info("[XA-REBALANCE-DEBUG] No XA registry found for XA connection {}", connHash);
-                }
-            } else {
-                log.debug("[XA-REBALANCE-DEBUG] Cluster health unchanged for {}", connHash);
-            }
-        } else {
-            log.info("[XA-REBALANCE-DEBUG] Skipping cluster health processing: clusterHealth={}, connHash={}",
-                    clusterHealth != null && !clusterHealth.isEmpty() ? "present" : "empty",
-                    connHash != null && !connHash.isEmpty() ? "present" : "empty");
-        }
+    /**
+     * Processes cluster health from the client request and triggers pool
+     * rebalancing if needed.
+     * This should be called for every request that includes SessionInfo with
+     * cluster health.
+     */
+    private void processClusterHealth(SessionInfo sessionInfo) {
+        ProcessClusterHealthAction.getInstance().execute(actionContext, sessionInfo);
     }
 
     @Override
@@ -327,41 +377,67 @@ public class StatementServiceImpl extends StatementServiceGrpc.StatementServiceI
         // Update session activity
         updateSessionActivity(request.getSession());
         
-        String stmtHash = SqlStatementXXHash.hashSqlQuery(request.getSql());
+        // Hash, statement kind and session affinity come from a single (memoized) scan of the SQL
+        SqlStatementInfo statementInfo = SqlStatementInfo.of(request.getSql());
+        String stmtHash = statementInfo.getHashHex();
 
         // Process cluster health from the request
         processClusterHealth(request.getSession());
 
+        String connHash = request.getSession().getConnHash();
         try {
+            // Checked apart from the statement breaker so a datasource outage does not count against the statement
+            datasourceCircuitBreaker.preCheck(connHash);
+            // Start the XA branch whose xaStart the client deferred to its first statement
+            XaStartAction.getInstance().startPendingBranch(actionContext, request.getSession());
+        } catch (SQLException e) {
+            sendSQLExceptionMetadata(e, responseObserver);
+            return;
+        }
+
+        try {
+            // A rejection replays the last error of the statement, it must not count as a new datasource failure
             circuitBreaker.preCheck(stmtHash);
+        } catch (SQLException e) {
+            sendSQLExceptionMetadata(e, responseObserver, e instanceof SQLDataException
+                    ? SqlErrorType.SQL_DATA_EXCEPTION : SqlErrorType.SQL_EXCEPTION);
+            return;
+        }
 
+        try {
             // Get the appropriate slow query segregation manager for this datasource
-            String connHash = request.getSession().getConnHash();
             SlowQuerySegregationManager manager = getSlowQuerySegregationManagerForConnection(connHash);
 
             // Execute with slow query segregation
-            OpResult result = manager.executeWithSegregation(stmtHash, () -> executeUpdateInternal(request));
+            OpResult result = manager.executeWithSegregation(stmtHash, () -> executeUpdateInternal(request, statementInfo));
+            resultSetCache.invalidate(request.getSession(), sessionManager.getSession(request.getSession()),
+                    resultSetCache.tablesWritten(statementInfo, request.getSql()));
 
             responseObserver.onNext(result);
             responseObserver.onCompleted();
             circuitBreaker.onSuccess(stmtHash);
+            datasourceCircuitBreaker.onSuccess(connHash);
 
         } catch (SQLDataException e) {
             circuitBreaker.onFailure(stmtHash, e);
+            datasourceCircuitBreaker.onFailure(connHash, e);
             log.error("SQL data failure during update execution: " + e.getMessage(), e);
             sendSQLExceptionMetadata(e, responseObserver, SqlErrorType.SQL_DATA_EXCEPTION);
         } catch (SQLException e) {
             circuitBreaker.onFailure(stmtHash, e);
+            datasourceCircuitBreaker.onFailure(connHash, e);
             log.error("Failure during update execution: " + e.getMessage(), e);
             sendSQLExceptionMetadata(e, responseObserver);
         } catch (Exception e) {
             log.error("Unexpected failure during update execution: " + e.getMessage(), e);
             if (e.getCause() instanceof SQLException sqlException) {
                 circuitBreaker.onFailure(stmtHash, sqlException);
+                datasourceCircuitBreaker.onFailure(connHash, sqlException);
                 sendSQLExceptionMetadata(sqlException, responseObserver);
             } else {
                 SQLException sqlException = new SQLException("Unexpected error: " + e.getMessage(), e);
                 circuitBreaker.onFailure(stmtHash, sqlException);
+                datasourceCircuitBreaker.onFailure(connHash, sqlException);
                 sendSQLExceptionMetadata(sqlException, responseObserver);
             }
         }
@@ -370,7 +446,7 @@ public class StatementServiceImpl extends StatementServiceGrpc.StatementServiceI
     /**
      * Internal method for executing updates without segregation logic.
      */
-    private OpResult executeUpdateInternal(StatementRequest request) throws SQLException {
+    private OpResult executeUpdateInternal(StatementRequest request, SqlStatementInfo statementInfo) throws SQLException {
         int updated = 0;
         SessionInfo returnSessionInfo = request.getSession();
         ConnectionSessionDTO dto = ConnectionSessionDTO.builder().build();
@@ -381,7 +457,7 @@ public class StatementServiceImpl extends StatementServiceGrpc.StatementServiceI
 
         try {
             // Check if SQL requires session affinity (temporary tables, session variables, etc.)
-            boolean requiresSessionAffinity = SqlSessionAffinityDetector.requiresSessionAffinity(request.getSql());
+            boolean requiresSessionAffinity = statementInfo.requiresSessionAffinity();
             
             dto = sessionConnection(request.getSession(), StatementRequestValidator.isAddBatchOperation(request)
                     || StatementRequestValidator.hasAutoGeneratedKeysFlag(request)
@@ -472,59 +548,123 @@ public class StatementServiceImpl extends StatementServiceGrpc.StatementServiceI
         // Update session activity
         updateSessionActivity(request.getSession());
         
-        String stmtHash = SqlStatementXXHash.hashSqlQuery(request.getSql());
+        // Hash, statement kind and session affinity come from a single (memoized) scan of the SQL
+        SqlStatementInfo statementInfo = SqlStatementInfo.of(request.getSql());
+        String stmtHash = statementInfo.getHashHex();
 
         // Process cluster health from the request
         processClusterHealth(request.getSession());
 
+        String connHash = request.getSession().getConnHash();
         try {
-            circuitBreaker.preCheck(stmtHash);
+            // Checked apart from the statement breaker so a datasource outage does not count against the statement
+            datasourceCircuitBreaker.preCheck(connHash);
+            // Start the XA branch whose xaStart the client deferred to its first statement
+            XaStartAction.getInstance().startPendingBranch(actionContext, request.getSession());
+        } catch (SQLException e) {
+            sendSQLExceptionMetadata(e, responseObserver);
+            return;
+        }
+
+        try {
+            ResultSetCache.Key cacheKey = resultSetCache.keyFor(request.getSession(), statementInfo, request.getSql(),
+                    request.getParametersList());
+            if (cacheKey != null && replayCachedResult(request, cacheKey, responseObserver)) {
+                return;
+            }
+
+            try {
+                // A rejection replays the last error of the statement, it must not count as a new datasource failure
+                circuitBreaker.preCheck(stmtHash);
+            } catch (SQLException rejected) {
+                sendSQLExceptionMetadata(rejected, responseObserver);
+                return;
+            }
 
             // Get the appropriate slow query segregation manager for this datasource
-            String connHash = request.getSession().getConnHash();
             SlowQuerySegregationManager manager = getSlowQuerySegregationManagerForConnection(connHash);
 
             // Execute with slow query segregation
             manager.executeWithSegregation(stmtHash, () -> {
-                executeQueryInternal(request, responseObserver);
+                executeQueryInternal(request, statementInfo, cacheKey, responseObserver);
                 return null; // Void return for query execution
             });
 
             circuitBreaker.onSuccess(stmtHash);
+            datasourceCircuitBreaker.onSuccess(connHash);
         } catch (SQLException e) {
             circuitBreaker.onFailure(stmtHash, e);
+            datasourceCircuitBreaker.onFailure(connHash, e);
             log.error("Failure during query execution: " + e.getMessage(), e);
             sendSQLExceptionMetadata(e, responseObserver);
         } catch (Exception e) {
             log.error("Unexpected failure during query execution: " + e.getMessage(), e);
             if (e.getCause() instanceof SQLException sqlException) {
                 circuitBreaker.onFailure(stmtHash, sqlException);
+                datasourceCircuitBreaker.onFailure(connHash, sqlException);
                 sendSQLExceptionMetadata(sqlException, responseObserver);
             } else {
                 SQLException sqlException = new SQLException("Unexpected error: " + e.getMessage(), e);
                 circuitBreaker.onFailure(stmtHash, sqlException);
+                datasourceCircuitBreaker.onFailure(connHash, sqlException);
                 sendSQLExceptionMetadata(sqlException, responseObserver);
             }
         }
     }
 
+    /**
+     * Sends a cached query result, registering a result set without rows in the session for the metadata and
+     * close calls of the client.
+     *
+     * @return true if the result was cached and sent
+     */
+    private boolean replayCachedResult(StatementRequest request, ResultSetCache.Key cacheKey,
+            StreamObserver<OpResult> responseObserver) throws SQLException {
+        ResultSetCache.Entry cached = resultSetCache.get(cacheKey);
+        if (cached == null) {
+            return false;
+        }
+        ConnectionSessionDTO dto = this.sessionConnection(request.getSession(), true);
+        ResultSet resultSet = cached.newResultSet();
+        String resultSetUUID = this.sessionManager.registerResultSet(dto.getSession(), resultSet);
+        if (DbName.DB2.equals(dbNameMap.get(request.getSession().getConnHash()))) {
+            // DB2 result set metadata calls are answered from the session attribute
+            this.collectResultSetMetadata(dto.getSession(), resultSetUUID, resultSet);
+        }
+        for (com.openjproxy.grpc.OpQueryResultProto block : cached.getBlocks()) {
+            responseObserver.onNext(OpResult.newBuilder()
+                    .setSession(dto.getSession())
+                    .setType(ResultType.RESULT_SET_DATA)
+                    .setQueryResult(block.toBuilder().setResultSetUUID(resultSetUUID))
+                    .build());
+        }
+        responseObserver.onCompleted();
+        return true;
+    }
+
     /**
      * Internal method for executing queries without segregation logic.
      */
-    private void executeQueryInternal(StatementRequest request, StreamObserver<OpResult> responseObserver)
-            throws SQLException {
+    private void executeQueryInternal(StatementRequest request, SqlStatementInfo statementInfo,
+            ResultSetCache.Key cacheKey, StreamObserver<OpResult> responseObserver) throws SQLException {
+        String stmtHash = statementInfo.getHashHex();
         // Check if SQL requires session affinity (temporary tables, session variables, etc.)
         // Note: All queries already create sessions (for result set handling), but this
         // ensures session affinity is properly enforced even for queries that don't return results
-        boolean requiresSessionAffinity = SqlSessionAffinityDetector.requiresSessionAffinity(request.getSql());
+        boolean requiresSessionAffinity = statementInfo.requiresSessionAffinity();
         
         ConnectionSessionDTO dto = this.sessionConnection(request.getSession(), true || requiresSessionAffinity);
 
         // Phase 2: SQL Enhancement with timing
         String sql = request.getSql();
         long enhancementStartTime = System.currentTimeMillis();
+        org.openjproxy.grpc.server.sql.AsyncSqlEnhancer.Selection enhancerSelection = null;
 
-        if (sqlEnhancerEngine.isEnabled()) {
+        if (asyncSqlEnhancer != null) {
+            // Never blocks: runs the original SQL until the background enhancement is ready
+            enhancerSelection = asyncSqlEnhancer.select(stmtHash, sql);
+            sql = enhancerSelection.getSql();
+        } else if (sqlEnhancerEngine.isEnabled()) {
             org.openjproxy.grpc.server.sql.SqlEnhancementResult result = sqlEnhancerEngine.enhance(sql);
             sql = result.getEnhancedSql();
 
@@ -540,16 +680,21 @@ public class StatementServiceImpl extends StatementServiceGrpc.StatementServiceI
         }
 
         List<Parameter> params = ProtoConverter.fromProtoList(request.getParametersList());
+        ResultSet resultSet;
+        long executionStartTime = System.nanoTime();
         if (CollectionUtils.isNotEmpty(params)) {
             PreparedStatement ps = StatementFactory.createPreparedStatement(sessionManager, dto, sql, params, request);
-            String resultSetUUID = this.sessionManager.registerResultSet(dto.getSession(), ps.executeQuery());
-            this.handleResultSet(dto.getSession(), resultSetUUID, responseObserver);
+            resultSet = ps.executeQuery();
         } else {
             Statement stmt = StatementFactory.createStatement(sessionManager, dto.getConnection(), request);
-            String resultSetUUID = this.sessionManager.registerResultSet(dto.getSession(),
-                    stmt.executeQuery(sql));
-            this.handleResultSet(dto.getSession(), resultSetUUID, responseObserver);
+            resultSet = stmt.executeQuery(sql);
+        }
+        if (enhancerSelection != null) {
+            asyncSqlEnhancer.recordExecution(enhancerSelection, System.nanoTime() - executionStartTime);
         }
+        String resultSetUUID = this.sessionManager.registerResultSet(dto.getSession(), resultSet);
+        this.handleResultSet(dto.getSession(), resultSetUUID, responseObserver,
+                cacheKey != null ? resultSetCache.capture(cacheKey) : null);
     }
 
     @Override
@@ -564,7 +709,7 @@ public class StatementServiceImpl extends StatementServiceGrpc.StatementServiceI
 
         try {
             ConnectionSessionDTO dto = this.sessionConnection(request.getSession(), false);
-            this.handleResultSet(dto.getSession(), request.getResultSetUUID(), responseObserver);
+            this.handleResultSet(dto.getSession(), request.getResultSetUUID(), responseObserver, null);
         } catch (SQLException e) {
             log.error("Failure fetch next rows for result set: " + e.getMessage(), e);
             sendSQLExceptionMetadata(e, responseObserver);
@@ -656,6 +801,17 @@ public class StatementServiceImpl extends StatementServiceGrpc.StatementServiceI
         CallResourceAction.getInstance().execute(actionContext, request, responseObserver);
     }
 
+    @Override
+    public void callResourceBatch(CallResourceBatchRequest request,
+                                  StreamObserver<CallResourceBatchResponse> responseObserver) {
+        CallResourceBatchAction.getInstance().execute(actionContext, request, responseObserver);
+    }
+
+    @Override
+    public StreamObserver<SessionRequestFrame> sessionStream(StreamObserver<SessionResponseFrame> responseObserver) {
+        return new SessionStreamObserver(this, responseObserver);
+    }
+
     /**
      * As DB2 eagerly closes result sets in multiple situations the result set
      * metadata is saved a priori in a session
@@ -806,21 +962,34 @@ public class StatementServiceImpl extends StatementServiceGrpc.StatementServiceI
         return dtoBuilder.build();
     }
 
-    private void handleResultSet(SessionInfo session, String resultSetUUID, StreamObserver<OpResult> responseObserver)
-            throws SQLException {
+    /**
+     * Sends the rows of a result set in blocks.
+     *
+     * @param capture collects the blocks for the result set cache, null when the result is not cached
+     */
+    private void handleResultSet(SessionInfo session, String resultSetUUID, StreamObserver<OpResult> responseObserver,
+            ResultSetCache.Capture capture) throws SQLException {
         ResultSet rs = this.sessionManager.getResultSet(session, resultSetUUID);
-        OpQueryResult.OpQueryResultBuilder queryResultBuilder = OpQueryResult.builder();
-        int columnCount = rs.getMetaData().getColumnCount();
-        List<String> labels = new ArrayList<>();
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        int[] colTypes = new int[columnCount];
+        String[] colTypeNames = new String[columnCount];
+        DbName dbName = DatabaseUtils.resolveDbName(rs.getStatement().getConnection().getMetaData().getURL());
+        boolean lobColumns = false;
         for (int i = 0; i < columnCount; i++) {
-            labels.add(rs.getMetaData().getColumnName(i + 1));
+            colTypes[i] = metaData.getColumnType(i + 1);
+            colTypeNames[i] = metaData.getColumnTypeName(i + 1);
+            switch (colTypes[i]) {
+                case Types.VARBINARY, Types.BLOB, Types.LONGVARBINARY, Types.CLOB, Types.BINARY -> lobColumns = true;
+                default -> {
+                }
+            }
         }
-        queryResultBuilder.labels(labels);
+        // Rows are written straight to the block, columns that need conversion are read as before
+        ResultSetBlockEncoder encoder = new ResultSetBlockEncoder(metaData, (resultSet, i) ->
+                readColumnValue(session, resultSet, i, colTypes[i], colTypeNames[i], dbName, capture));
 
-        List<Object[]> results = new ArrayList<>();
-        int row = 0;
         boolean justSent = false;
-        DbName dbName = DatabaseUtils.resolveDbName(rs.getStatement().getConnection().getMetaData().getURL());
         // Only used if result set contains LOBs in SQL Server and DB2 (if LOB's
         // present), so cursor is not read in advance,
         // every row has to be requested by the jdbc client.
@@ -832,108 +1001,115 @@ public class StatementServiceImpl extends StatementServiceGrpc.StatementServiceI
                 this.collectResultSetMetadata(session, resultSetUUID, rs);
             }
             justSent = false;
-            row++;
-            Object[] rowValues = new Object[columnCount];
-            for (int i = 0; i < columnCount; i++) {
-                int colType = rs.getMetaData().getColumnType(i + 1);
-                String colTypeName = rs.getMetaData().getColumnTypeName(i + 1);
-                Object currentValue = null;
-                // Postgres uses type BYTEA which translates to type VARBINARY
-                switch (colType) {
-                    case Types.VARBINARY: {
-                        if (DbName.SQL_SERVER.equals(dbName) || DbName.DB2.equals(dbName)) {
-                            resultSetMode = CommonConstants.RESULT_SET_ROW_BY_ROW_MODE;
-                        }
-                        if ("BLOB".equalsIgnoreCase(colTypeName)) {
-                            currentValue = LobProcessor.treatAsBlob(sessionManager, session, rs, i, dbNameMap);
-                        } else {
-                            currentValue = LobProcessor.treatAsBinary(sessionManager, session, dbName, rs, i,
-                                    INPUT_STREAM_TYPES);
-                        }
-                        break;
-                    }
-                    case Types.BLOB, Types.LONGVARBINARY: {
-                        if (DbName.SQL_SERVER.equals(dbName) || DbName.DB2.equals(dbName)) {
-                            resultSetMode = CommonConstants.RESULT_SET_ROW_BY_ROW_MODE;
-                        }
-                        currentValue = LobProcessor.treatAsBlob(sessionManager, session, rs, i, dbNameMap);
-                        break;
-                    }
-                    case Types.CLOB: {
-                        if (DbName.SQL_SERVER.equals(dbName) || DbName.DB2.equals(dbName)) {
-                            resultSetMode = CommonConstants.RESULT_SET_ROW_BY_ROW_MODE;
-                        }
-                        Clob clob = rs.getClob(i + 1);
-                        if (clob != null) {
-                            String clobUUID = UUID.randomUUID().toString();
-                            // CLOB needs to be prefixed as per it can be read in the JDBC driver by
-                            // getString method and it would be valid to return just a UUID as string
-                            currentValue = CommonConstants.OJP_CLOB_PREFIX + clobUUID;
-                            this.sessionManager.registerLob(session, clob, clobUUID);
-                        }
-                        break;
-                    }
-                    case Types.BINARY: {
-                        if (DbName.SQL_SERVER.equals(dbName) || DbName.DB2.equals(dbName)) {
-                            resultSetMode = CommonConstants.RESULT_SET_ROW_BY_ROW_MODE;
-                        }
-                        currentValue = LobProcessor.treatAsBinary(sessionManager, session, dbName, rs, i,
-                                INPUT_STREAM_TYPES);
-                        break;
-                    }
-                    case Types.DATE: {
-                        Date date = rs.getDate(i + 1);
-                        if ("YEAR".equalsIgnoreCase(colTypeName)) {
-                            currentValue = date.toLocalDate().getYear();
-                        } else {
-                            currentValue = date;
-                        }
-                        break;
-                    }
-                    case Types.TIMESTAMP: {
-                        currentValue = rs.getTimestamp(i + 1);
-                        break;
-                    }
-                    default: {
-                        currentValue = rs.getObject(i + 1);
-                        // com.microsoft.sqlserver.jdbc.DateTimeOffset special case as per it does not
-                        // implement any standar java.sql interface.
-                        if ("datetimeoffset".equalsIgnoreCase(colTypeName) && colType == -155) {
-                            currentValue = DateTimeUtils.extractOffsetDateTime(currentValue);
-                        }
-                        break;
-                    }
-                }
-                rowValues[i] = currentValue;
-
-            }
-            results.add(rowValues);
-
-            if ((DbName.DB2.equals(dbName) || DbName.SQL_SERVER.equals(dbName))
-                    && CommonConstants.RESULT_SET_ROW_BY_ROW_MODE.equalsIgnoreCase(resultSetMode)) {
+            encoder.addRow(rs);
+            if (lobColumns && (DbName.SQL_SERVER.equals(dbName) || DbName.DB2.equals(dbName))) {
+                resultSetMode = CommonConstants.RESULT_SET_ROW_BY_ROW_MODE;
                 break forEachRow;
             }
 
-            if (row % CommonConstants.ROWS_PER_RESULT_SET_DATA_BLOCK == 0) {
+            // Blocks end after a number of rows, or earlier once their encoded rows reach the byte budget
+            if (encoder.getRowCount() >= CommonConstants.ROWS_PER_RESULT_SET_DATA_BLOCK
+                    || encoder.getBlockBytes() >= resultSetBlockByteBudget) {
                 justSent = true;
                 // Send a block of records
-                responseObserver.onNext(ResultSetWrapper.wrapResults(session, results, queryResultBuilder,
-                        resultSetUUID, resultSetMode));
-                queryResultBuilder = OpQueryResult.builder();// Recreate the builder to not send labels in every block.
-                results = new ArrayList<>();
+                sendBlock(session, encoder.finishBlock(resultSetUUID), resultSetMode, responseObserver, capture);
             }
         }
 
         if (!justSent) {
             // Send a block of remaining records
-            responseObserver.onNext(
-                    ResultSetWrapper.wrapResults(session, results, queryResultBuilder, resultSetUUID, resultSetMode));
+            sendBlock(session, encoder.finishBlock(resultSetUUID), resultSetMode, responseObserver, capture);
         }
 
+        if (capture != null) {
+            if (CommonConstants.RESULT_SET_ROW_BY_ROW_MODE.equalsIgnoreCase(resultSetMode)) {
+                // The remaining rows are fetched one by one from the backend result set
+                capture.abandon();
+            }
+            capture.complete(metaData);
+        }
         responseObserver.onCompleted();
 
     }
 
+    private static void sendBlock(SessionInfo session, com.openjproxy.grpc.OpQueryResultProto queryResult,
+            String resultSetMode, StreamObserver<OpResult> responseObserver, ResultSetCache.Capture capture) {
+        if (capture != null) {
+            capture.add(queryResult);
+        }
+        responseObserver.onNext(ResultSetWrapper.wrapBlock(session, queryResult, resultSetMode));
+    }
+
+    /**
+     * Reads a column value that needs conversion before it is sent: LOBs, binaries, dates, timestamps and
+     * driver specific types.
+     */
+    private Object readColumnValue(SessionInfo session, ResultSet rs, int i, int colType, String colTypeName,
+            DbName dbName, ResultSetCache.Capture capture) throws SQLException {
+        Object currentValue = null;
+        // Postgres uses type BYTEA which translates to type VARBINARY
+        switch (colType) {
+            case Types.VARBINARY: {
+                if ("BLOB".equalsIgnoreCase(colTypeName)) {
+                    currentValue = LobProcessor.treatAsBlob(sessionManager, session, rs, i, dbNameMap,
+                            lobInlineThreshold);
+                    if (currentValue instanceof String && capture != null) {
+                        // Locators are only valid in this session
+                        capture.abandon();
+                    }
+                } else {
+                    currentValue = LobProcessor.treatAsBinary(sessionManager, session, dbName, rs, i,
+                            INPUT_STREAM_TYPES);
+                }
+                break;
+            }
+            case Types.BLOB, Types.LONGVARBINARY: {
+                currentValue = LobProcessor.treatAsBlob(sessionManager, session, rs, i, dbNameMap,
+                        lobInlineThreshold);
+                if (currentValue instanceof String && capture != null) {
+                    capture.abandon();
+                }
+                break;
+            }
+            case Types.CLOB: {
+                String clob = LobProcessor.treatAsClob(sessionManager, session, rs, i, lobInlineThreshold);
+                if (clob != null && clob.startsWith(CommonConstants.OJP_CLOB_PREFIX) && capture != null) {
+                    capture.abandon();
+                }
+                currentValue = clob;
+                break;
+            }
+            case Types.BINARY: {
+                currentValue = LobProcessor.treatAsBinary(sessionManager, session, dbName, rs, i,
+                        INPUT_STREAM_TYPES);
+                break;
+            }
+            case Types.DATE: {
+                Date date = rs.getDate(i + 1);
+                if ("YEAR".equalsIgnoreCase(colTypeName)) {
+                    currentValue = date.toLocalDate().getYear();
+                } else {
+                    currentValue = date;
+                }
+                break;
+            }
+            case Types.TIMESTAMP: {
+                currentValue = rs.getTimestamp(i + 1);
+                break;
+            }
+            default: {
+                currentValue = rs.getObject(i + 1);
+                // com.microsoft.sqlserver.jdbc.DateTimeOffset special case as per it does not
+                // implement any standar java.sql interface.
+                if ("datetimeoffset".equalsIgnoreCase(colTypeName) && colType == -155) {
+                    currentValue = DateTimeUtils.extractOffsetDateTime(currentValue);
+                }
+                break;
+            }
+        }
+        return currentValue;
+    }
+
     @SneakyThrows
     private void collectResultSetMetadata(SessionInfo session, String resultSetUUID, ResultSet rs) {
         this.sessionManager.registerAttr(session, RESULT_SET_METADATA_ATTR_PREFIX +
@@ -0,0 +1,155 @@
+package org.openjproxy.grpc.server;
+
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.ForwardingServerCall;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import org.openjproxy.constants.CommonConstants;
+import org.openjproxy.grpc.server.pool.PoolUtilization;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+/**
+ * gRPC Server Interceptor that reports the server's connection pool utilization to clients in the trailers of
+ * every response. Multinode clients use it, together with the latency they observe, to weight server selection.
+ * The utilization is recomputed at most once per refresh interval, not on every call. It is the utilization of the
+ * busiest pool across all datasources, not of the datasource the call used: clients keep one load estimate per
+ * server, so a server with one saturated pool looks busy to the clients of its other datasources too.
+ * 
+ * When pool budget sharing is enabled, the demand on the pool of the datasource a call used is reported too, as
+ * {@code nodeId;connHash;demand}. Clients relay the demand of all servers back to every server, see
+ * {@link MultinodePoolCoordinator#applyPoolDemand}.
+ */
+public class UtilizationReportingInterceptor implements ServerInterceptor {
+
+    static final Metadata.Key<String> UTILIZATION_KEY =
+            Metadata.Key.of(CommonConstants.SERVER_UTILIZATION_TRAILER, Metadata.ASCII_STRING_MARSHALLER);
+
+    static final Metadata.Key<String> POOL_DEMAND_KEY =
+            Metadata.Key.of(CommonConstants.POOL_DEMAND_TRAILER, Metadata.ASCII_STRING_MARSHALLER);
+
+    // Datasource of the current call, set by the service once it knows the session
+    private static final Context.Key<String[]> CALL_DATASOURCE = Context.key("ojp-call-datasource");
+
+    private static final long DEFAULT_REFRESH_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private final IntSupplier utilizationPercent;
+    private final long refreshNanos;
+    private final String nodeId;
+    private final Function<String, PoolUtilization> poolUtilization;
+    private final Map<String, CachedDemand> demandByConnHash = new ConcurrentHashMap<>();
+    private volatile String cached = "0";
+    private volatile long refreshAtNanos = System.nanoTime();
+
+    public UtilizationReportingInterceptor(IntSupplier utilizationPercent) {
+        this(utilizationPercent, null, null);
+    }
+
+    /**
+     * Creates an interceptor that also reports the pool demand of the datasource used by each call.
+     *
+     * @param utilizationPercent Supplier of the overall pool utilization
+     * @param nodeId Identifier of this server, null to not report pool demand
+     * @param poolUtilization Lookup of the pool utilization by connection hash
+     */
+    public UtilizationReportingInterceptor(IntSupplier utilizationPercent, String nodeId,
+                                           Function<String, PoolUtilization> poolUtilization) {
+        this(utilizationPercent, DEFAULT_REFRESH_NANOS, nodeId, poolUtilization);
+    }
+
+    UtilizationReportingInterceptor(IntSupplier utilizationPercent, long refreshNanos) {
+        this(utilizationPercent, refreshNanos, null, null);
+    }
+
+    UtilizationReportingInterceptor(IntSupplier utilizationPercent, long refreshNanos, String nodeId,
+                                    Function<String, PoolUtilization> poolUtilization) {
+        this.utilizationPercent = utilizationPercent;
+        this.refreshNanos = refreshNanos;
+        this.nodeId = nodeId;
+        this.poolUtilization = nodeId != null ? poolUtilization : null;
+    }
+
+    /**
+     * Records the datasource used by the current call so its pool demand is reported in the trailers.
+     * Does nothing outside of a call intercepted with pool demand reporting.
+     *
+     * @param connHash Connection hash of the datasource
+     */
+    public static void setCallDatasource(String connHash) {
+        String[] holder = CALL_DATASOURCE.get();
+        if (holder != null) {
+            holder[0] = connHash;
+        }
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call,
+            Metadata headers,
+            ServerCallHandler<ReqT, RespT> next) {
+        if (poolUtilization == null) {
+            return next.startCall(new ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT>(call) {
+                @Override
+                public void close(Status status, Metadata trailers) {
+                    trailers.put(UTILIZATION_KEY, currentUtilization());
+                    super.close(status, trailers);
+                }
+            }, headers);
+        }
+
+        String[] datasource = new String[1];
+        ServerCall<ReqT, RespT> reporting = new ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                trailers.put(UTILIZATION_KEY, currentUtilization());
+                String connHash = datasource[0];
+                if (connHash != null && !connHash.isEmpty()) {
+                    trailers.put(POOL_DEMAND_KEY, currentDemand(connHash));
+                }
+                super.close(status, trailers);
+            }
+        };
+        Context context = Context.current().withValue(CALL_DATASOURCE, datasource);
+        return Contexts.interceptCall(context, reporting, headers, next);
+    }
+
+    String currentUtilization() {
+        long now = System.nanoTime();
+        if (now - refreshAtNanos >= 0) {
+            // Racing threads may both recompute, which is harmless
+            refreshAtNanos = now + refreshNanos;
+            cached = Integer.toString(utilizationPercent.getAsInt());
+        }
+        return cached;
+    }
+
+    String currentDemand(String connHash) {
+        long now = System.nanoTime();
+        CachedDemand demand = demandByConnHash.get(connHash);
+        if (demand == null || now - demand.refreshAtNanos >= 0) {
+            PoolUtilization utilization = poolUtilization.apply(connHash);
+            demand = new CachedDemand(nodeId + ";" + connHash + ";"
+                    + (utilization.getActive() + utilization.getWaiting()), now + refreshNanos);
+            demandByConnHash.put(connHash, demand);
+        }
+        return demand.value;
+    }
+
+    private static final class CachedDemand {
+        private final String value;
+        private final long refreshAtNanos;
+
+        private CachedDemand(String value, long refreshAtNanos) {
+            this.value = value;
+            this.refreshAtNanos = refreshAtNanos;
+        }
+    }
+}
@@ -3,11 +3,13 @@ package org.openjproxy.grpc.server.action;
 import com.openjproxy.grpc.DbName;
 import org.openjproxy.grpc.server.CircuitBreaker;
 import org.openjproxy.grpc.server.ClusterHealthTracker;
+import org.openjproxy.grpc.server.DatasourceCircuitBreaker;
 import org.openjproxy.grpc.server.MultinodeXaCoordinator;
 import org.openjproxy.grpc.server.ServerConfiguration;
 import org.openjproxy.grpc.server.SessionManager;
 import org.openjproxy.grpc.server.SlowQuerySegregationManager;
 import org.openjproxy.grpc.server.UnpooledConnectionDetails;
+import org.openjproxy.grpc.server.resultset.ResultSetCache;
 import org.openjproxy.xa.pool.XATransactionRegistry;
 import org.openjproxy.xa.pool.spi.XAConnectionPoolProvider;
 
@@ -111,6 +113,18 @@ public class ActionContext {
      */
     private final CircuitBreaker circuitBreaker;
     
+    /**
+     * Circuit breakers per datasource and per database backend, counting connection failures only.
+     * Thread-safe, shared across all actions.
+     */
+    private final DatasourceCircuitBreaker datasourceCircuitBreaker;
+    
+    /**
+     * Opt-in cache of query results, invalidated by the writes and transaction ends of the actions.
+     * Thread-safe, shared across all actions.
+     */
+    private final ResultSetCache resultSetCache;
+    
     /**
      * Server-wide configuration.
      * Immutable after construction.
@@ -131,6 +145,8 @@ public class ActionContext {
             ClusterHealthTracker clusterHealthTracker,
             SessionManager sessionManager,
             CircuitBreaker circuitBreaker,
+            DatasourceCircuitBreaker datasourceCircuitBreaker,
+            ResultSetCache resultSetCache,
             ServerConfiguration serverConfiguration) {
         
         this.datasourceMap = datasourceMap;
@@ -144,6 +160,8 @@ public class ActionContext {
         this.clusterHealthTracker = clusterHealthTracker;
         this.sessionManager = sessionManager;
         this.circuitBreaker = circuitBreaker;
+        this.datasourceCircuitBreaker = datasourceCircuitBreaker;
+        this.resultSetCache = resultSetCache;
         this.serverConfiguration = serverConfiguration;
     }
     
@@ -197,6 +215,14 @@ public class ActionContext {
         return circuitBreaker;
     }
     
+    public DatasourceCircuitBreaker getDatasourceCircuitBreaker() {
+        return datasourceCircuitBreaker;
+    }
+    
+    public ResultSetCache getResultSetCache() {
+        return resultSetCache;
+    }
+    
     public ServerConfiguration getServerConfiguration() {
         return serverConfiguration;
     }
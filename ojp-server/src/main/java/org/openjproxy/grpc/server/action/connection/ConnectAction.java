@@ -61,6 +61,7 @@ public class ConnectAction implements Action<ConnectionDetails, SessionInfo> {
         }
 
         String connHash = ConnectionHashGenerator.hashConnectionDetails(connectionDetails);
+        context.getDatasourceCircuitBreaker().registerDatasource(connHash, connectionDetails.getUrl());
 
         // Use default XA configuration values (deprecated pass-through properties no longer supported)
         int maxXaTransactions = org.openjproxy.constants.CommonConstants.DEFAULT_MAX_XA_TRANSACTIONS;
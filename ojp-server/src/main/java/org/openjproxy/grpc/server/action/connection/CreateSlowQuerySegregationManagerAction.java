@@ -1,6 +1,8 @@
 package org.openjproxy.grpc.server.action.connection;
 
 import lombok.extern.slf4j.Slf4j;
+import org.openjproxy.grpc.server.AdaptiveConcurrencyLimit;
+import org.openjproxy.grpc.server.ServerConfiguration;
 import org.openjproxy.grpc.server.SlowQuerySegregationManager;
 import org.openjproxy.grpc.server.action.ActionContext;
 
@@ -53,7 +55,8 @@ public class CreateSlowQuerySegregationManagerAction {
                     context.getServerConfiguration().getSlowQuerySlowSlotTimeout(),
                     context.getServerConfiguration().getSlowQueryFastSlotTimeout(),
                     context.getServerConfiguration().getSlowQueryUpdateGlobalAvgInterval(),
-                    true
+                    true,
+                    createAdaptiveLimit(context.getServerConfiguration(), actualPoolSize)
                 );
                 context.getSlowQuerySegregationManagers().put(connHash, manager);
                 log.info("Created SlowQuerySegregationManager for XA datasource {} with pool size {} (slow query segregation enabled)", 
@@ -85,7 +88,8 @@ public class CreateSlowQuerySegregationManagerAction {
                     context.getServerConfiguration().getSlowQuerySlowSlotTimeout(),
                     context.getServerConfiguration().getSlowQueryFastSlotTimeout(),
                     context.getServerConfiguration().getSlowQueryUpdateGlobalAvgInterval(),
-                    true
+                    true,
+                    createAdaptiveLimit(context.getServerConfiguration(), actualPoolSize)
                 );
                 context.getSlowQuerySegregationManagers().put(connHash, manager);
                 log.info("Created SlowQuerySegregationManager for datasource {} with pool size {}", 
@@ -100,4 +104,15 @@ public class CreateSlowQuerySegregationManagerAction {
             }
         }
     }
+
+    /**
+     * Creates the adaptive concurrency limit for a datasource, or null when slot counts are fixed.
+     */
+    private AdaptiveConcurrencyLimit createAdaptiveLimit(ServerConfiguration configuration, int actualPoolSize) {
+        if (!configuration.isSlowQueryAdaptiveLimitEnabled()) {
+            return null;
+        }
+        return new AdaptiveConcurrencyLimit(configuration.getSlowQueryAdaptiveLimitMin(), actualPoolSize,
+                AdaptiveConcurrencyLimit.DEFAULT_TOLERANCE, AdaptiveConcurrencyLimit.DEFAULT_WINDOW_SIZE);
+    }
 }
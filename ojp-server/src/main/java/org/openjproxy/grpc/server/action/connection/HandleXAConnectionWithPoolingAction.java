@@ -201,7 +201,8 @@ public class HandleXAConnectionWithPoolingAction {
                 Object pooledXADataSource = context.getXaPoolProvider().createXADataSource(xaPoolConfig);
                 
                 // Create XA Transaction Registry with serverEndpoints hash and pool sizes for validation
-                registry = new XATransactionRegistry(context.getXaPoolProvider(), pooledXADataSource, currentEndpointsHash, maxPoolSize, minIdle);
+                registry = new XATransactionRegistry(context.getXaPoolProvider(), pooledXADataSource, currentEndpointsHash, maxPoolSize, minIdle,
+                        context.getServerConfiguration().getXaRecoveryCacheTtlMs());
                 context.getXaRegistries().put(connHash, registry);
                 
                 // Initialize pool with minIdle connections immediately after creation
@@ -330,6 +331,8 @@ public class HandleXAConnectionWithPoolingAction {
             return "com.ibm.db2.jcc.DB2XADataSource";
         } else if (lowerUrl.contains(":mysql:") || lowerUrl.contains(":mariadb:")) {
             return "com.mysql.cj.jdbc.MysqlXADataSource";
+        } else if (lowerUrl.contains(":h2:")) {
+            return "org.h2.jdbcx.JdbcDataSource";
         } else {
             throw new IllegalArgumentException("Unsupported database for XA: " + url);
         }
@@ -18,6 +18,8 @@ import org.openjproxy.grpc.server.UnpooledConnectionDetails;
 import org.openjproxy.grpc.server.action.Action;
 import org.openjproxy.grpc.server.action.ActionContext;
 import org.openjproxy.grpc.server.action.util.ProcessClusterHealthAction;
+import org.openjproxy.grpc.server.resultset.ResultSetCache;
+import org.openjproxy.grpc.server.sql.SqlStatementInfo;
 import org.openjproxy.grpc.server.utils.MethodNameGenerator;
 import org.openjproxy.grpc.server.utils.MethodReflectionUtils;
 import org.openjproxy.grpc.server.JavaSqlInterfacesConverter;
@@ -37,6 +39,7 @@ import java.sql.SQLException;
 import java.sql.Savepoint;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.openjproxy.grpc.server.Constants.EMPTY_LIST;
@@ -172,6 +175,7 @@ public class CallResourceAction implements Action<CallResourceRequest, CallResou
                     resultFirstLevel = arrayUUID;
                 }
             }
+            invalidateResultSetCache(context, request);
             if (resultFirstLevel instanceof Savepoint) {
                 Savepoint sp = (Savepoint) resultFirstLevel;
                 String uuid = UUID.randomUUID().toString();
@@ -208,6 +212,8 @@ public class CallResourceAction implements Action<CallResourceRequest, CallResou
         } catch (SQLException se) {
             sendSQLExceptionMetadata(se, responseObserver);
         } catch (InvocationTargetException e) {
+            // A failed batch may have applied part of its updates
+            invalidateResultSetCache(context, request);
             if (e.getTargetException() instanceof SQLException) {
                 SQLException sqlException = (SQLException) e.getTargetException();
                 sendSQLExceptionMetadata(sqlException, responseObserver);
@@ -220,6 +226,23 @@ public class CallResourceAction implements Action<CallResourceRequest, CallResou
         }
     }
 
+    /**
+     * Invalidates the cached results an execution may have changed. Executions given the SQL invalidate the
+     * tables it writes, the others (batches, callable statements) the whole datasource.
+     */
+    private void invalidateResultSetCache(ActionContext context, CallResourceRequest request) {
+        ResultSetCache cache = context.getResultSetCache();
+        if (!CallType.CALL_EXECUTE.equals(request.getTarget().getCallType()) || !cache.isEnabled()) {
+            return;
+        }
+        Set<String> tables = Set.of();
+        if (request.getTarget().getParamsCount() > 0
+                && ProtoConverter.fromParameterValue(request.getTarget().getParams(0)) instanceof String sql) {
+            tables = cache.tablesWritten(SqlStatementInfo.of(sql), sql);
+        }
+        cache.invalidate(request.getSession(), context.getSessionManager().getSession(request.getSession()), tables);
+    }
+
     private boolean db2SpecialResultSetMetadata(ActionContext context, CallResourceRequest request, StreamObserver<CallResourceResponse> responseObserver) throws SQLException {
         if (DbName.DB2.equals(context.getDbNameMap().get(request.getSession().getConnHash())) &&
                 ResourceType.RES_RESULT_SET.equals(request.getResourceType()) &&
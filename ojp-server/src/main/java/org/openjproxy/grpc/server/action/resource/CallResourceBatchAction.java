@@ -0,0 +1,117 @@
+package org.openjproxy.grpc.server.action.resource;
+
+import com.openjproxy.grpc.CallResourceBatchRequest;
+import com.openjproxy.grpc.CallResourceBatchResponse;
+import com.openjproxy.grpc.CallResourceRequest;
+import com.openjproxy.grpc.CallResourceResponse;
+import com.openjproxy.grpc.SessionInfo;
+import com.openjproxy.grpc.SqlErrorResponse;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.openjproxy.grpc.server.action.Action;
+import org.openjproxy.grpc.server.action.ActionContext;
+
+import java.sql.SQLException;
+
+import static org.openjproxy.grpc.server.GrpcExceptionHandler.sendSQLExceptionMetadata;
+
+/**
+ * Action to execute several resource calls in one round trip.
+ * <p>
+ * The calls are executed in order by {@link CallResourceAction}, each one with the session returned by the
+ * previous one so a session started by a call is used by the calls after it. The first call that fails fails
+ * the batch with its error, prefixed with the position and target of the call. The calls before it stay applied.
+ */
+@Slf4j
+public class CallResourceBatchAction implements Action<CallResourceBatchRequest, CallResourceBatchResponse> {
+
+    private static final CallResourceBatchAction INSTANCE = new CallResourceBatchAction();
+    private static final Metadata.Key<SqlErrorResponse> SQL_ERROR_KEY =
+            ProtoUtils.keyForProto(SqlErrorResponse.getDefaultInstance());
+
+    private CallResourceBatchAction() {
+        // Private constructor prevents external instantiation
+    }
+
+    public static CallResourceBatchAction getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public void execute(ActionContext context, CallResourceBatchRequest request,
+                        StreamObserver<CallResourceBatchResponse> responseObserver) {
+        if (!request.hasSession()) {
+            sendSQLExceptionMetadata(new SQLException("No active session."), responseObserver);
+            return;
+        }
+        CallResourceBatchResponse.Builder responseBuilder = CallResourceBatchResponse.newBuilder();
+        SessionInfo session = request.getSession();
+        for (CallResourceRequest call : request.getCallsList()) {
+            CallResult result = new CallResult();
+            CallResourceAction.getInstance().execute(context, call.toBuilder().setSession(session).build(), result);
+            if (result.error != null) {
+                log.debug("Resource call {} of batch failed", responseBuilder.getResponsesCount());
+                responseObserver.onError(describeFailure(result.error, responseBuilder.getResponsesCount(),
+                        request.getCallsCount(), call));
+                return;
+            }
+            if (StringUtils.isNotBlank(result.response.getSession().getSessionUUID())) {
+                session = result.response.getSession();
+            }
+            responseBuilder.addResponses(result.response);
+        }
+        responseObserver.onNext(responseBuilder.setSession(session).build());
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * Prefixes the error of a failed call with its position in the batch and its target. The call is usually one
+     * the driver deferred, so without it the error would only tell which later request sent the batch.
+     *
+     * @param error Error the call failed with
+     * @param index Index of the call in the batch, 0 based
+     * @param count Number of calls in the batch
+     * @param call The failed call
+     * @return The error to send to the client, an SQL error stays an SQL error with the same state and vendor code
+     */
+    static Throwable describeFailure(Throwable error, int index, int count, CallResourceRequest call) {
+        String prefix = String.format("Call %d of %d in batch (%s %s on %s) failed: ", index + 1, count,
+                call.getTarget().getCallType(), call.getTarget().getResourceName(), call.getResourceType());
+        Metadata trailers = Status.trailersFromThrowable(error);
+        SqlErrorResponse sqlError = trailers != null ? trailers.get(SQL_ERROR_KEY) : null;
+        if (sqlError != null) {
+            Metadata metadata = new Metadata();
+            metadata.put(SQL_ERROR_KEY, sqlError.toBuilder().setReason(prefix + sqlError.getReason()).build());
+            return Status.CANCELLED.asRuntimeException(metadata);
+        }
+        Status status = Status.fromThrowable(error);
+        return status.withDescription(prefix + status.getDescription()).asRuntimeException(trailers);
+    }
+
+    /**
+     * Keeps the response or error a {@link CallResourceAction} sends for one call of the batch.
+     */
+    private static class CallResult implements StreamObserver<CallResourceResponse> {
+        private CallResourceResponse response = CallResourceResponse.getDefaultInstance();
+        private Throwable error;
+
+        @Override
+        public void onNext(CallResourceResponse value) {
+            this.response = value;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            this.error = t;
+        }
+
+        @Override
+        public void onCompleted() {
+            // Completion is implied by the action returning
+        }
+    }
+}
@@ -48,6 +48,7 @@ public class CommitTransactionAction implements Action<SessionInfo, SessionInfo>
         try {
             Connection conn = context.getSessionManager().getConnection(sessionInfo);
             conn.commit();
+            context.getResultSetCache().transactionEnded(context.getSessionManager().getSession(sessionInfo));
 
             TransactionInfo transactionInfo = TransactionInfo.newBuilder()
                     .setTransactionStatus(TransactionStatus.TRX_COMMITED)
@@ -65,6 +65,7 @@ public class RollbackTransactionAction implements Action<SessionInfo, SessionInf
                 throw new SQLException("Connection not found for this session");
             }
             conn.rollback();
+            context.getResultSetCache().transactionEnded(context.getSessionManager().getSession(sessionInfo));
 
             TransactionInfo transactionInfo = TransactionInfo.newBuilder()
                     .setTransactionStatus(TransactionStatus.TRX_ROLLBACK)
@@ -4,11 +4,15 @@ import com.openjproxy.grpc.SessionInfo;
 import com.zaxxer.hikari.HikariDataSource;
 import lombok.extern.slf4j.Slf4j;
 import org.openjproxy.grpc.server.MultinodePoolCoordinator;
+import org.openjproxy.grpc.server.UtilizationReportingInterceptor;
 import org.openjproxy.grpc.server.action.ActionContext;
 import org.openjproxy.grpc.server.pool.ConnectionPoolConfigurer;
 import org.openjproxy.xa.pool.XATransactionRegistry;
 
 import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Action for processing cluster health changes and triggering pool rebalancing.
@@ -41,6 +45,7 @@ public class ProcessClusterHealthAction {
         
         String clusterHealth = sessionInfo.getClusterHealth();
         String connHash = sessionInfo.getConnHash();
+        UtilizationReportingInterceptor.setCallDatasource(connHash);
         
         log.debug("[XA-REBALANCE] processClusterHealth called: connHash={}, clusterHealth='{}', isXA={}, hasXARegistry={}", 
                 connHash, clusterHealth, sessionInfo.getIsXA(), context.getXaRegistries().containsKey(connHash));
@@ -49,57 +54,109 @@ public class ProcessClusterHealthAction {
             connHash != null && !connHash.isEmpty()) {
             
             // Check if cluster health has changed
-            boolean healthChanged = context.getClusterHealthTracker().hasHealthChanged(connHash, clusterHealth);
+            boolean healthChanged = context.getClusterHealthTracker().hasHealthChanged(connHash,
+                    sessionInfo.getClusterHealthEpoch(), sessionInfo.getClusterHealthBitmap(), clusterHealth);
             
             log.debug("[XA-REBALANCE] Cluster health check for {}: changed={}, current health='{}', isXA={}", 
                     connHash, healthChanged, clusterHealth, sessionInfo.getIsXA());
             
             if (healthChanged) {
-                int healthyServerCount = context.getClusterHealthTracker().countHealthyServers(clusterHealth);
+                int healthyServerCount = context.getClusterHealthTracker().countHealthyServers(
+                        sessionInfo.getClusterHealthEpoch(), sessionInfo.getClusterHealthBitmap(), clusterHealth);
                 log.info("[XA-REBALANCE] Cluster health changed for {}, healthy servers: {}, triggering pool rebalancing, isXA={}", 
                         connHash, healthyServerCount, sessionInfo.getIsXA());
                 
                 // Update the pool coordinator with new healthy server count
                 ConnectionPoolConfigurer.getPoolCoordinator().updateHealthyServers(connHash, healthyServerCount);
-                
-                // Apply pool size changes to non-XA HikariDataSource if present
-                DataSource ds = context.getDatasourceMap().get(connHash);
-                if (ds instanceof HikariDataSource) {
-                    log.info("[XA-REBALANCE-DEBUG] Applying size changes to HikariDataSource for {}", connHash);
-                    ConnectionPoolConfigurer.applyPoolSizeChanges(connHash, (HikariDataSource) ds);
-                } else {
-                    log.info("[XA-REBALANCE-DEBUG] No HikariDataSource found for {}", connHash);
-                }
-                
-                // Apply pool size changes to XA registry if present
-                XATransactionRegistry xaRegistry = context.getXaRegistries().get(connHash);
-                if (xaRegistry != null) {
-                    log.info("[XA-REBALANCE-DEBUG] Found XA registry for {}, resizing", connHash);
-                    MultinodePoolCoordinator.PoolAllocation allocation = 
-                            ConnectionPoolConfigurer.getPoolCoordinator().getPoolAllocation(connHash);
-                    
-                    if (allocation != null) {
-                        int newMaxPoolSize = allocation.getCurrentMaxPoolSize();
-                        int newMinIdle = allocation.getCurrentMinIdle();
-                        
-                        log.info("[XA-REBALANCE-DEBUG] Resizing XA backend pool for {}: maxPoolSize={}, minIdle={}", 
-                                connHash, newMaxPoolSize, newMinIdle);
-                        
-                        xaRegistry.resizeBackendPool(newMaxPoolSize, newMinIdle);
-                    } else {
-                        log.warn("[XA-REBALANCE-DEBUG] No pool allocation found for {}", connHash);
-                    }
-                } else if (sessionInfo.getIsXA()) {
-                    // Only log missing XA registry for actual XA connections
-                    log.info("[XA-REBALANCE-DEBUG] No XA registry found for XA connection {}", connHash);
-                }
+                applyPoolSizes(context, connHash, sessionInfo.getIsXA());
             } else {
                 log.debug("[XA-REBALANCE-DEBUG] Cluster health unchanged for {}", connHash);
             }
+            
+            if (context.getServerConfiguration() != null
+                    && context.getServerConfiguration().isPoolBudgetSharingEnabled()) {
+                processPoolDemand(context, connHash, sessionInfo);
+            }
         } else {
-            log.info("[XA-REBALANCE-DEBUG] Skipping cluster health processing: clusterHealth={}, connHash={}", 
+            log.debug("[XA-REBALANCE-DEBUG] Skipping cluster health processing: clusterHealth={}, connHash={}", 
                     clusterHealth != null && !clusterHealth.isEmpty() ? "present" : "empty", 
                     connHash != null && !connHash.isEmpty() ? "present" : "empty");
         }
     }
+    
+    /**
+     * Resizes this server's share of the pool budget to the demand of all servers, relayed by the client.
+     */
+    private void processPoolDemand(ActionContext context, String connHash, SessionInfo sessionInfo) {
+        String poolDemand = sessionInfo.getClusterPoolDemand();
+        if (poolDemand.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> demandByNode = parsePoolDemand(poolDemand);
+        long minIntervalNanos = TimeUnit.MILLISECONDS.toNanos(
+                context.getServerConfiguration().getPoolBudgetSharingMinIntervalMs());
+        if (ConnectionPoolConfigurer.getPoolCoordinator().applyPoolDemand(connHash, demandByNode, minIntervalNanos)) {
+            applyPoolSizes(context, connHash, sessionInfo.getIsXA());
+        }
+    }
+    
+    /**
+     * Parses pool demand relayed by clients in the format "nodeId1:demand1;nodeId2:demand2;...".
+     * Malformed entries are skipped.
+     * 
+     * @param poolDemand The relayed pool demand
+     * @return Demand per node id
+     */
+    static Map<String, Integer> parsePoolDemand(String poolDemand) {
+        Map<String, Integer> demandByNode = new HashMap<>();
+        for (String entry : poolDemand.split(";")) {
+            int separator = entry.lastIndexOf(':');
+            if (separator <= 0) {
+                continue;
+            }
+            try {
+                demandByNode.put(entry.substring(0, separator), Integer.parseInt(entry.substring(separator + 1)));
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring malformed pool demand entry '{}'", entry);
+            }
+        }
+        return demandByNode;
+    }
+    
+    /**
+     * Applies the current pool allocation of a datasource to its non-XA and XA pools.
+     */
+    private void applyPoolSizes(ActionContext context, String connHash, boolean isXA) {
+        // Apply pool size changes to non-XA HikariDataSource if present
+        DataSource ds = context.getDatasourceMap().get(connHash);
+        if (ds instanceof HikariDataSource) {
+            log.info("[XA-REBALANCE-DEBUG] Applying size changes to HikariDataSource for {}", connHash);
+            ConnectionPoolConfigurer.applyPoolSizeChanges(connHash, (HikariDataSource) ds);
+        } else {
+            log.info("[XA-REBALANCE-DEBUG] No HikariDataSource found for {}", connHash);
+        }
+        
+        // Apply pool size changes to XA registry if present
+        XATransactionRegistry xaRegistry = context.getXaRegistries().get(connHash);
+        if (xaRegistry != null) {
+            log.info("[XA-REBALANCE-DEBUG] Found XA registry for {}, resizing", connHash);
+            MultinodePoolCoordinator.PoolAllocation allocation = 
+                    ConnectionPoolConfigurer.getPoolCoordinator().getPoolAllocation(connHash);
+            
+            if (allocation != null) {
+                int newMaxPoolSize = allocation.getCurrentMaxPoolSize();
+                int newMinIdle = allocation.getCurrentMinIdle();
+                
+                log.info("[XA-REBALANCE-DEBUG] Resizing XA backend pool for {}: maxPoolSize={}, minIdle={}", 
+                        connHash, newMaxPoolSize, newMinIdle);
+                
+                xaRegistry.resizeBackendPool(newMaxPoolSize, newMinIdle);
+            } else {
+                log.warn("[XA-REBALANCE-DEBUG] No pool allocation found for {}", connHash);
+            }
+        } else if (isXA) {
+            // Only log missing XA registry for actual XA connections
+            log.info("[XA-REBALANCE-DEBUG] No XA registry found for XA connection {}", connHash);
+        }
+    }
 }
@@ -45,6 +45,10 @@ public class XaCommitAction implements Action<com.openjproxy.grpc.XaCommitReques
                 throw new SQLException("Session is not an XA session");
             }
 
+            if (request.getEndFlags() != 0) {
+                XaEndAction.endBranch(context, session, request.getXid(), request.getEndFlags());
+            }
+
             // Branch based on XA pooling configuration
             if (context.getXaPoolProvider() != null) {
                 // **NEW PATH: Use XATransactionRegistry**
@@ -67,6 +71,7 @@ public class XaCommitAction implements Action<com.openjproxy.grpc.XaCommitReques
                 javax.transaction.xa.Xid xid = convertXid(request.getXid());
                 session.getXaResource().commit(xid, request.getOnePhase());
             }
+            context.getResultSetCache().transactionEnded(session);
 
             com.openjproxy.grpc.XaResponse response = com.openjproxy.grpc.XaResponse.newBuilder()
                     .setSession(session.getSessionInfo())
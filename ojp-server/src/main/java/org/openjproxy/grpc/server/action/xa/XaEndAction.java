@@ -5,6 +5,7 @@ import static org.openjproxy.grpc.server.action.transaction.XidHelper.convertXid
 
 import java.sql.SQLException;
 
+import com.openjproxy.grpc.XidProto;
 import org.openjproxy.grpc.server.Session;
 import org.openjproxy.grpc.server.action.Action;
 import org.openjproxy.grpc.server.action.ActionContext;
@@ -39,25 +40,7 @@ public class XaEndAction implements Action<com.openjproxy.grpc.XaEndRequest, com
                 throw new SQLException("Session is not an XA session");
             }
 
-            // Branch based on XA pooling configuration
-            if (context.getXaPoolProvider() != null) {
-                // **NEW PATH: Use XATransactionRegistry**
-                String connHash = session.getSessionInfo().getConnHash();
-                XATransactionRegistry registry = context.getXaRegistries().get(connHash);
-                if (registry == null) {
-                    throw new SQLException("No XA registry found for connection hash: " + connHash);
-                }
-
-                XidKey xidKey = XidKey.from(convertXid(request.getXid()));
-                registry.xaEnd(xidKey, request.getFlags());
-            } else {
-                // **OLD PATH: Pass-through (legacy)**
-                if (session.getXaResource() == null) {
-                    throw new SQLException("Session does not have XAResource");
-                }
-                javax.transaction.xa.Xid xid = convertXid(request.getXid());
-                session.getXaResource().end(xid, request.getFlags());
-            }
+            endBranch(context, session, request.getXid(), request.getFlags());
 
             com.openjproxy.grpc.XaResponse response = com.openjproxy.grpc.XaResponse.newBuilder()
                     .setSession(session.getSessionInfo())
@@ -73,4 +56,36 @@ public class XaEndAction implements Action<com.openjproxy.grpc.XaEndRequest, com
             sendSQLExceptionMetadata(sqlException, responseObserver);
         }
     }
+
+    /**
+     * Ends a branch of an XA session. Also used by prepare, commit and rollback requests carrying an xaEnd the
+     * client deferred, so both verbs take a single round trip.
+     *
+     * @param context Action context
+     * @param session XA session
+     * @param xidProto Branch to end
+     * @param flags TMSUCCESS, TMFAIL or TMSUSPEND
+     * @throws Exception if the branch cannot be ended in its current state
+     */
+    static void endBranch(ActionContext context, Session session, XidProto xidProto, int flags) throws Exception {
+        // Branch based on XA pooling configuration
+        if (context.getXaPoolProvider() != null) {
+            // **NEW PATH: Use XATransactionRegistry**
+            String connHash = session.getSessionInfo().getConnHash();
+            XATransactionRegistry registry = context.getXaRegistries().get(connHash);
+            if (registry == null) {
+                throw new SQLException("No XA registry found for connection hash: " + connHash);
+            }
+
+            XidKey xidKey = XidKey.from(convertXid(xidProto));
+            registry.xaEnd(xidKey, flags);
+        } else {
+            // **OLD PATH: Pass-through (legacy)**
+            if (session.getXaResource() == null) {
+                throw new SQLException("Session does not have XAResource");
+            }
+            javax.transaction.xa.Xid xid = convertXid(xidProto);
+            session.getXaResource().end(xid, flags);
+        }
+    }
 }
@@ -46,6 +46,10 @@ public class XaPrepareAction
                 throw new SQLException("Session is not an XA session");
             }
 
+            if (request.getEndFlags() != 0) {
+                XaEndAction.endBranch(context, session, request.getXid(), request.getEndFlags());
+            }
+
             int result;
 
             // Branch based on XA pooling configuration
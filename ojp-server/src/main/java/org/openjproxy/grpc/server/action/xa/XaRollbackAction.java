@@ -46,6 +46,10 @@ public class XaRollbackAction implements Action<com.openjproxy.grpc.XaRollbackRe
                 throw new SQLException("Session is not an XA session");
             }
 
+            if (request.getEndFlags() != 0) {
+                XaEndAction.endBranch(context, session, request.getXid(), request.getEndFlags());
+            }
+
             // Branch based on XA pooling configuration
             if (context.getXaPoolProvider() != null) {
                 // **NEW PATH: Use XATransactionRegistry**
@@ -68,6 +72,7 @@ public class XaRollbackAction implements Action<com.openjproxy.grpc.XaRollbackRe
                 javax.transaction.xa.Xid xid = convertXid(request.getXid());
                 session.getXaResource().rollback(xid);
             }
+            context.getResultSetCache().transactionEnded(session);
 
             com.openjproxy.grpc.XaResponse response = com.openjproxy.grpc.XaResponse.newBuilder()
                     .setSession(session.getSessionInfo())
@@ -5,6 +5,8 @@ import static org.openjproxy.grpc.server.action.transaction.XidHelper.convertXid
 
 import java.sql.SQLException;
 
+import com.openjproxy.grpc.SessionInfo;
+import com.openjproxy.grpc.XidProto;
 import org.openjproxy.grpc.server.Session;
 import org.openjproxy.grpc.server.action.Action;
 import org.openjproxy.grpc.server.action.ActionContext;
@@ -84,6 +86,19 @@ public class XaStartAction
     private void handleXAStartWithPooling(ActionContext context, com.openjproxy.grpc.XaStartRequest request,
             Session session,
             StreamObserver<com.openjproxy.grpc.XaResponse> responseObserver) throws Exception {
+        startBranchWithPooling(context, session, request.getXid(), request.getFlags());
+
+        com.openjproxy.grpc.XaResponse response = com.openjproxy.grpc.XaResponse.newBuilder()
+                .setSession(session.getSessionInfo())
+                .setSuccess(true)
+                .setMessage("XA start successful (pooled)")
+                .build();
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
+
+    private void startBranchWithPooling(ActionContext context, Session session, XidProto xidProto, int flags)
+            throws Exception {
         String connHash = session.getSessionInfo().getConnHash();
         XATransactionRegistry registry = context.getXaRegistries().get(connHash);
         if (registry == null) {
@@ -91,8 +106,7 @@ public class XaStartAction
         }
 
         // Convert proto Xid to XidKey
-        XidKey xidKey = XidKey.from(convertXid(request.getXid()));
-        int flags = request.getFlags();
+        XidKey xidKey = XidKey.from(convertXid(xidProto));
         String ojpSessionId = session.getSessionInfo().getSessionUUID();
 
         // Route based on XA flags
@@ -113,14 +127,6 @@ public class XaStartAction
         } else {
             throw new SQLException("Unsupported XA flags: " + flags);
         }
-
-        com.openjproxy.grpc.XaResponse response = com.openjproxy.grpc.XaResponse.newBuilder()
-                .setSession(session.getSessionInfo())
-                .setSuccess(true)
-                .setMessage("XA start successful (pooled)")
-                .build();
-        responseObserver.onNext(response);
-        responseObserver.onCompleted();
     }
 
     private void handleXAStartPassThrough(ActionContext context, com.openjproxy.grpc.XaStartRequest request,
@@ -141,4 +147,41 @@ public class XaStartAction
         responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
+
+    /**
+     * Starts the branch a client deferred xaStart for and sent along with the first statement of the branch,
+     * saving the xaStart round trip. The branch goes through the same state checks as an explicit xaStart.
+     *
+     * @param context Action context
+     * @param sessionInfo Session of the statement request
+     * @throws SQLException if the branch cannot be started, the statement must then not be executed
+     */
+    public void startPendingBranch(ActionContext context, SessionInfo sessionInfo) throws SQLException {
+        if (!sessionInfo.hasPendingXaStart()) {
+            return;
+        }
+        log.debug("xaStart (with statement): session={}, xid={}",
+                sessionInfo.getSessionUUID(), sessionInfo.getPendingXaStart());
+        try {
+            Session session = context.getSessionManager().getSession(sessionInfo);
+            if (session == null || !session.isXA()) {
+                throw new SQLException("Session is not an XA session");
+            }
+            if (context.getXaPoolProvider() != null) {
+                startBranchWithPooling(context, session, sessionInfo.getPendingXaStart(),
+                        javax.transaction.xa.XAResource.TMNOFLAGS);
+            } else {
+                if (session.getXaResource() == null) {
+                    throw new SQLException("Session does not have XAResource");
+                }
+                session.getXaResource().start(convertXid(sessionInfo.getPendingXaStart()),
+                        javax.transaction.xa.XAResource.TMNOFLAGS);
+            }
+        } catch (SQLException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error in xaStart sent with statement", e);
+            throw new SQLException("XA start failed: " + e.getMessage(), e);
+        }
+    }
 }
@@ -3,13 +3,16 @@ package org.openjproxy.grpc.server.lob;
 import com.openjproxy.grpc.DbName;
 import com.openjproxy.grpc.SessionInfo;
 import lombok.SneakyThrows;
+import org.openjproxy.constants.CommonConstants;
 import org.openjproxy.grpc.server.SessionManager;
 
 import java.io.InputStream;
 import java.sql.Blob;
+import java.sql.Clob;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * Utility class for handling LOB (Large Object) operations.
@@ -18,37 +21,70 @@ import java.util.Map;
 public class LobProcessor {
 
     /**
-     * Processes a BLOB from a result set using hydrated approach.
+     * Processes a BLOB from a result set, inlining small values and registering large ones as locators.
      * 
-     * NOTE: This method now uses a hydrated approach for all databases, where the entire 
-     * BLOB content is materialized in memory as a byte array. This ensures consistent 
-     * behavior across all database types and eliminates the complexity of streaming LOBs.
-     * 
-     * Performance implications:
-     * - Higher memory usage for large BLOBs (entire content loaded into memory)
-     * - Faster access once loaded, but higher initial load time
-     * - May limit maximum BLOB size due to memory constraints
+     * BLOBs of up to {@code inlineThresholdBytes} bytes, as reported by {@link Blob#length()}, are
+     * materialized in memory as a byte array and sent within the result set rows. Larger BLOBs are
+     * registered in the session under a new UUID, sent prefixed with {@code OJP_BLOB_PREFIX} instead;
+     * the JDBC driver streams their content on demand through readLob, in bounded blocks, so neither
+     * the server heap nor a result set block has to hold them.
      *
-     * @param sessionManager The session manager (unused in hydrated approach)
+     * @param sessionManager The session manager the large BLOBs are registered in
      * @param session       The current session
      * @param rs           The result set
      * @param columnIndex  The column index (0-based)
-     * @param dbNameMap    Map of connection hash to database name (unused in hydrated approach)
-     * @return The processed BLOB value as byte array
+     * @param dbNameMap    Map of connection hash to database name (unused)
+     * @param inlineThresholdBytes Largest BLOB, in bytes, sent within the row
+     * @return The BLOB content as byte array, or the prefixed UUID of the registered BLOB
      * @throws SQLException if BLOB processing fails
      */
     @SneakyThrows
     public static Object treatAsBlob(SessionManager sessionManager, SessionInfo session, 
-                                   ResultSet rs, int columnIndex, Map<String, DbName> dbNameMap) throws SQLException {
+                                   ResultSet rs, int columnIndex, Map<String, DbName> dbNameMap,
+                                   long inlineThresholdBytes) throws SQLException {
         Blob blob = rs.getBlob(columnIndex + 1);
         if (blob == null) {
             return null;
         }
-        // Hydrated approach: materialize the entire BLOB content in memory for all databases
-        // This provides consistent behavior and eliminates streaming complexity
+        if (blob.length() > inlineThresholdBytes) {
+            String blobUUID = UUID.randomUUID().toString();
+            sessionManager.registerLob(session, blob, blobUUID);
+            return CommonConstants.OJP_BLOB_PREFIX + blobUUID;
+        }
         return blob.getBinaryStream().readAllBytes();
     }
 
+    /**
+     * Processes a CLOB from a result set, inlining small values and registering large ones as locators.
+     *
+     * CLOBs of up to {@code inlineThreshold} characters, as reported by {@link Clob#length()}, are
+     * materialized as a string and sent within the row. Larger CLOBs are registered in the session under
+     * a new UUID and sent prefixed with {@code OJP_CLOB_PREFIX}, which tells the JDBC driver to read them
+     * through readLob rather than take the value as the column text.
+     *
+     * @param sessionManager The session manager the large CLOBs are registered in
+     * @param session       The current session
+     * @param rs           The result set
+     * @param columnIndex  The column index (0-based)
+     * @param inlineThreshold Largest CLOB, in characters, sent within the row
+     * @return The CLOB content as a string, or the prefixed UUID of the registered CLOB
+     * @throws SQLException if CLOB processing fails
+     */
+    public static String treatAsClob(SessionManager sessionManager, SessionInfo session,
+                                     ResultSet rs, int columnIndex, long inlineThreshold) throws SQLException {
+        Clob clob = rs.getClob(columnIndex + 1);
+        if (clob == null) {
+            return null;
+        }
+        long length = clob.length();
+        if (length > inlineThreshold) {
+            String clobUUID = UUID.randomUUID().toString();
+            sessionManager.registerLob(session, clob, clobUUID);
+            return CommonConstants.OJP_CLOB_PREFIX + clobUUID;
+        }
+        return length == 0 ? "" : clob.getSubString(1, (int) length);
+    }
+
     /**
      * Processes binary data from a result set using hydrated approach.
      * 
@@ -60,6 +96,9 @@ public class LobProcessor {
      * - Higher memory usage for large binary data (entire content loaded into memory)
      * - Faster access once loaded, but higher initial load time
      * - May limit maximum binary data size due to memory constraints
+     * 
+     * Unlike BLOBs, binary streams are always inlined: their length is unknown until read and most
+     * drivers invalidate them when the cursor moves, so they cannot be read later through a locator.
      *
      * @param sessionManager The session manager (unused in hydrated approach)
      * @param session       The current session
@@ -0,0 +1,96 @@
+package org.openjproxy.grpc.server.pool;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.openjproxy.xa.pool.XATransactionRegistry;
+import org.openjproxy.xa.pool.commons.CommonsPool2XADataSource;
+import org.openjproxy.xa.pool.commons.ConcurrentBagXADataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * Point in time utilization of a backend connection pool: connections in use, threads waiting for one and the
+ * configured maximum.
+ */
+public final class PoolUtilization {
+
+    private static final PoolUtilization UNKNOWN = new PoolUtilization(0, 0, 0);
+
+    private final int active;
+    private final int waiting;
+    private final int maxPoolSize;
+
+    public PoolUtilization(int active, int waiting, int maxPoolSize) {
+        this.active = active;
+        this.waiting = waiting;
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    /**
+     * Reads the utilization of a non-XA datasource. Only Hikari pools expose it, other datasources and pools that
+     * did not start yet report no utilization.
+     *
+     * @param dataSource The datasource
+     * @return Utilization of the pool
+     */
+    public static PoolUtilization of(DataSource dataSource) {
+        if (!(dataSource instanceof HikariDataSource)) {
+            return UNKNOWN;
+        }
+        HikariDataSource hikari = (HikariDataSource) dataSource;
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        if (pool == null) {
+            return UNKNOWN;
+        }
+        return new PoolUtilization(pool.getActiveConnections(), pool.getThreadsAwaitingConnection(),
+                hikari.getMaximumPoolSize());
+    }
+
+    /**
+     * Reads the utilization of the backend pool of an XA registry.
+     *
+     * @param registry The XA transaction registry
+     * @return Utilization of the pool
+     */
+    public static PoolUtilization of(XATransactionRegistry registry) {
+        Object pooledXADataSource = registry != null ? registry.getPooledXADataSource() : null;
+        if (pooledXADataSource instanceof CommonsPool2XADataSource) {
+            CommonsPool2XADataSource pool = (CommonsPool2XADataSource) pooledXADataSource;
+            return new PoolUtilization(pool.getNumActive(), pool.getNumWaiters(), pool.getMaxTotal());
+        }
+        if (pooledXADataSource instanceof ConcurrentBagXADataSource) {
+            ConcurrentBagXADataSource pool = (ConcurrentBagXADataSource) pooledXADataSource;
+            return new PoolUtilization(pool.getNumActive(), pool.getNumWaiters(), pool.getMaxTotal());
+        }
+        return UNKNOWN;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * Demand on the pool in percent of its maximum size, above 100 when threads are waiting for connections.
+     *
+     * @return Utilization percentage, 0 when unknown
+     */
+    public int getPercent() {
+        if (maxPoolSize <= 0) {
+            return 0;
+        }
+        return (int) Math.min(1000, (active + waiting) * 100L / maxPoolSize);
+    }
+
+    @Override
+    public String toString() {
+        return "PoolUtilization{active=" + active + ", waiting=" + waiting + ", max=" + maxPoolSize + "}";
+    }
+}
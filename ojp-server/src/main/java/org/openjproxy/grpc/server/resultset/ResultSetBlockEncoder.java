@@ -0,0 +1,400 @@
+package org.openjproxy.grpc.server.resultset;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.UnknownFieldSet;
+import com.google.protobuf.WireFormat;
+import com.openjproxy.grpc.OpQueryResultProto;
+import com.openjproxy.grpc.ParameterValue;
+import com.openjproxy.grpc.ResultRow;
+import org.openjproxy.constants.CommonConstants;
+import org.openjproxy.grpc.ProtoConverter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encodes result set rows straight into the wire format of a result set block, instead of collecting them as
+ * {@code Object[]} rows, converting them to an {@code OpQueryResult} and then to protobuf messages.
+ *
+ * A writer is picked once per column from the result set metadata. Columns whose Java class is a boxed
+ * primitive or String, and whose SQL type needs no special handling, are read with the primitive getters and
+ * written without boxing or intermediate messages. Every other column is read by the given {@link ValueReader}
+ * and converted with {@link ProtoConverter#toParameterValue(Object)} as before, so the client decodes the same
+ * values either way.
+ *
+ * Rows are written to a buffer reused across the blocks of a result set. The rows of a finished block travel as
+ * pre-encoded occurrences of the rows field, which serialize byte for byte like {@link ResultRow} messages but
+ * are not visible through {@link OpQueryResultProto#getRowsList()} until the block is parsed again. Blocks are
+ * only sent, cached and replayed on the server, never read.
+ *
+ * Not thread safe, one encoder serves one result set.
+ */
+public final class ResultSetBlockEncoder {
+
+    /**
+     * Reads the value of a column that has no direct writer.
+     */
+    @FunctionalInterface
+    public interface ValueReader {
+        /**
+         * @param rs          the result set, positioned on the row
+         * @param columnIndex 0-based column index
+         * @return the value to send
+         */
+        Object read(ResultSet rs, int columnIndex) throws SQLException;
+    }
+
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+    private static final int COLUMN_TAG_SIZE = CodedOutputStream.computeTagSize(ResultRow.COLUMNS_FIELD_NUMBER);
+    private static final int NULL_SIZE = CodedOutputStream.computeBoolSize(ParameterValue.IS_NULL_FIELD_NUMBER, true);
+
+    private final Column[] columns;
+    private final int[] columnSizes;
+    private final List<String> labels;
+    private boolean labelsSent;
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private CodedOutputStream out = CodedOutputStream.newInstance(buffer);
+    // Offset in the buffer at which the current output stream starts
+    private int outOffset;
+    private int[] rowEnds = new int[CommonConstants.ROWS_PER_RESULT_SET_DATA_BLOCK];
+    private int rowCount;
+
+    /**
+     * Creates an encoder for the columns of a result set.
+     *
+     * @param metaData metadata of the result set
+     * @param reader   reads the columns without a direct writer
+     */
+    public ResultSetBlockEncoder(ResultSetMetaData metaData, ValueReader reader) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        this.columns = new Column[columnCount];
+        this.columnSizes = new int[columnCount];
+        List<String> names = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            names.add(metaData.getColumnName(i + 1));
+            columns[i] = columnFor(metaData.getColumnType(i + 1), metaData.getColumnClassName(i + 1), i, reader);
+        }
+        this.labels = names;
+    }
+
+    private static Column columnFor(int sqlType, String className, int index, ValueReader reader) {
+        if (isPlainType(sqlType) && className != null) {
+            switch (className) {
+                case "java.lang.Integer", "java.lang.Short", "java.lang.Byte":
+                    return new IntColumn(index);
+                case "java.lang.Long":
+                    return new LongColumn(index);
+                case "java.lang.Double":
+                    return new DoubleColumn(index);
+                case "java.lang.Float":
+                    return new FloatColumn(index);
+                case "java.lang.Boolean":
+                    return new BooleanColumn(index);
+                case "java.lang.String":
+                    return new StringColumn(index);
+                default:
+                    break;
+            }
+        }
+        return new ObjectColumn(index, reader);
+    }
+
+    /**
+     * SQL types whose value is the plain {@code getObject} value, as opposed to LOBs, binaries and temporal
+     * types that are converted when read.
+     */
+    private static boolean isPlainType(int sqlType) {
+        return switch (sqlType) {
+            case Types.INTEGER, Types.SMALLINT, Types.TINYINT, Types.BIGINT, Types.BOOLEAN, Types.BIT,
+                    Types.DOUBLE, Types.REAL, Types.FLOAT, Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR,
+                    Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Reads the current row of the result set and appends it to the block.
+     */
+    public void addRow(ResultSet rs) throws SQLException {
+        int rowSize = 0;
+        for (int i = 0; i < columns.length; i++) {
+            Column column = columns[i];
+            column.read(rs);
+            int size = column.isNull ? NULL_SIZE : column.size();
+            columnSizes[i] = size;
+            rowSize += COLUMN_TAG_SIZE + CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+        }
+        ensureCapacity(rowSize);
+        try {
+            for (int i = 0; i < columns.length; i++) {
+                out.writeTag(ResultRow.COLUMNS_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                out.writeUInt32NoTag(columnSizes[i]);
+                if (columns[i].isNull) {
+                    out.writeBool(ParameterValue.IS_NULL_FIELD_NUMBER, true);
+                } else {
+                    columns[i].write(out);
+                }
+            }
+        } catch (IOException e) {
+            // The buffer was sized for the row
+            throw new UncheckedIOException(e);
+        }
+        if (rowCount == rowEnds.length) {
+            rowEnds = Arrays.copyOf(rowEnds, rowCount * 2);
+        }
+        rowEnds[rowCount++] = position();
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Gets the encoded size of the rows of the current block.
+     */
+    public int getBlockBytes() {
+        return position();
+    }
+
+    /**
+     * Finishes the current block and starts the next one. The first block carries the column labels.
+     *
+     * @param resultSetUUID UUID of the result set
+     * @return the block
+     */
+    public OpQueryResultProto finishBlock(String resultSetUUID) {
+        OpQueryResultProto.Builder block = OpQueryResultProto.newBuilder().setResultSetUUID(resultSetUUID);
+        if (!labelsSent) {
+            block.addAllLabels(labels);
+            labelsSent = true;
+        }
+        if (rowCount > 0) {
+            ByteString encoded = ByteString.copyFrom(buffer, 0, position());
+            UnknownFieldSet.Field.Builder rows = UnknownFieldSet.Field.newBuilder();
+            int start = 0;
+            for (int i = 0; i < rowCount; i++) {
+                rows.addLengthDelimited(encoded.substring(start, rowEnds[i]));
+                start = rowEnds[i];
+            }
+            block.setUnknownFields(UnknownFieldSet.newBuilder()
+                    .addField(OpQueryResultProto.ROWS_FIELD_NUMBER, rows.build())
+                    .build());
+        }
+        rowCount = 0;
+        outOffset = 0;
+        out = CodedOutputStream.newInstance(buffer);
+        return block.build();
+    }
+
+    private int position() {
+        return outOffset + out.getTotalBytesWritten();
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (out.spaceLeft() >= bytes) {
+            return;
+        }
+        int position = position();
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+        outOffset = position;
+        out = CodedOutputStream.newInstance(buffer, position, buffer.length - position);
+    }
+
+    /**
+     * Reads one column of the current row and writes it as the content of a {@link ParameterValue}.
+     */
+    private abstract static class Column {
+        final int jdbcIndex;
+        boolean isNull;
+
+        Column(int index) {
+            this.jdbcIndex = index + 1;
+        }
+
+        abstract void read(ResultSet rs) throws SQLException;
+
+        abstract int size();
+
+        abstract void write(CodedOutputStream out) throws IOException;
+    }
+
+    private static final class IntColumn extends Column {
+        private int value;
+
+        IntColumn(int index) {
+            super(index);
+        }
+
+        @Override
+        void read(ResultSet rs) throws SQLException {
+            value = rs.getInt(jdbcIndex);
+            isNull = rs.wasNull();
+        }
+
+        @Override
+        int size() {
+            return CodedOutputStream.computeInt32Size(ParameterValue.INT_VALUE_FIELD_NUMBER, value);
+        }
+
+        @Override
+        void write(CodedOutputStream out) throws IOException {
+            out.writeInt32(ParameterValue.INT_VALUE_FIELD_NUMBER, value);
+        }
+    }
+
+    private static final class LongColumn extends Column {
+        private long value;
+
+        LongColumn(int index) {
+            super(index);
+        }
+
+        @Override
+        void read(ResultSet rs) throws SQLException {
+            value = rs.getLong(jdbcIndex);
+            isNull = rs.wasNull();
+        }
+
+        @Override
+        int size() {
+            return CodedOutputStream.computeInt64Size(ParameterValue.LONG_VALUE_FIELD_NUMBER, value);
+        }
+
+        @Override
+        void write(CodedOutputStream out) throws IOException {
+            out.writeInt64(ParameterValue.LONG_VALUE_FIELD_NUMBER, value);
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+        private double value;
+
+        DoubleColumn(int index) {
+            super(index);
+        }
+
+        @Override
+        void read(ResultSet rs) throws SQLException {
+            value = rs.getDouble(jdbcIndex);
+            isNull = rs.wasNull();
+        }
+
+        @Override
+        int size() {
+            return CodedOutputStream.computeDoubleSize(ParameterValue.DOUBLE_VALUE_FIELD_NUMBER, value);
+        }
+
+        @Override
+        void write(CodedOutputStream out) throws IOException {
+            out.writeDouble(ParameterValue.DOUBLE_VALUE_FIELD_NUMBER, value);
+        }
+    }
+
+    private static final class FloatColumn extends Column {
+        private float value;
+
+        FloatColumn(int index) {
+            super(index);
+        }
+
+        @Override
+        void read(ResultSet rs) throws SQLException {
+            value = rs.getFloat(jdbcIndex);
+            isNull = rs.wasNull();
+        }
+
+        @Override
+        int size() {
+            return CodedOutputStream.computeFloatSize(ParameterValue.FLOAT_VALUE_FIELD_NUMBER, value);
+        }
+
+        @Override
+        void write(CodedOutputStream out) throws IOException {
+            out.writeFloat(ParameterValue.FLOAT_VALUE_FIELD_NUMBER, value);
+        }
+    }
+
+    private static final class BooleanColumn extends Column {
+        private boolean value;
+
+        BooleanColumn(int index) {
+            super(index);
+        }
+
+        @Override
+        void read(ResultSet rs) throws SQLException {
+            value = rs.getBoolean(jdbcIndex);
+            isNull = rs.wasNull();
+        }
+
+        @Override
+        int size() {
+            return CodedOutputStream.computeBoolSize(ParameterValue.BOOL_VALUE_FIELD_NUMBER, value);
+        }
+
+        @Override
+        void write(CodedOutputStream out) throws IOException {
+            out.writeBool(ParameterValue.BOOL_VALUE_FIELD_NUMBER, value);
+        }
+    }
+
+    private static final class StringColumn extends Column {
+        private String value;
+
+        StringColumn(int index) {
+            super(index);
+        }
+
+        @Override
+        void read(ResultSet rs) throws SQLException {
+            value = rs.getString(jdbcIndex);
+            isNull = value == null;
+        }
+
+        @Override
+        int size() {
+            return CodedOutputStream.computeStringSize(ParameterValue.STRING_VALUE_FIELD_NUMBER, value);
+        }
+
+        @Override
+        void write(CodedOutputStream out) throws IOException {
+            out.writeString(ParameterValue.STRING_VALUE_FIELD_NUMBER, value);
+        }
+    }
+
+    private static final class ObjectColumn extends Column {
+        private final ValueReader reader;
+        private ParameterValue value;
+
+        ObjectColumn(int index, ValueReader reader) {
+            super(index);
+            this.reader = reader;
+        }
+
+        @Override
+        void read(ResultSet rs) throws SQLException {
+            // A null value is encoded by toParameterValue itself
+            value = ProtoConverter.toParameterValue(reader.read(rs, jdbcIndex - 1));
+            isNull = false;
+        }
+
+        @Override
+        int size() {
+            return value.getSerializedSize();
+        }
+
+        @Override
+        void write(CodedOutputStream out) throws IOException {
+            value.writeTo(out);
+        }
+    }
+}
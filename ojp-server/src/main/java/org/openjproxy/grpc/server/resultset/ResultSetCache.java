@@ -0,0 +1,706 @@
+package org.openjproxy.grpc.server.resultset;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.protobuf.ByteString;
+import com.openjproxy.grpc.OpQueryResultProto;
+import com.openjproxy.grpc.ParameterProto;
+import com.openjproxy.grpc.SessionInfo;
+import com.openjproxy.grpc.TransactionStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.openjproxy.grpc.server.Session;
+import org.openjproxy.grpc.server.sql.SqlStatementInfo;
+
+import javax.sql.RowSetMetaData;
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetFactory;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Opt-in cache of query results, for read-mostly statements such as reference data lookups.
+ *
+ * Entries are keyed by datasource (connection hash), statement hash and bound parameters, and hold the encoded
+ * result set blocks as they were sent to the client, so a hit neither runs the query nor converts rows again.
+ * The hash identifies the statement quickly, the SQL text itself is compared too, as the normalized form the hash
+ * is computed on is lowercased, literals included.
+ *
+ * Only statements with a time to live are cached. The time to live comes from a hint in a comment of the statement
+ * ({@code ojp.cache.ttl=60} in seconds, 0 disables caching), else from the first configured rule whose pattern is
+ * found in the SQL, else from the default. Statements inside a transaction, XA sessions and results holding LOB
+ * references are never cached.
+ *
+ * The cache is bounded by the encoded size of the blocks, evicting least recently used entries. Updates run
+ * through the server invalidate the entries of the same datasource reading any table they write; updates whose
+ * tables cannot be told (procedure calls, unknown statements, batches and other executions through resource
+ * calls) invalidate the whole datasource. Updates inside a transaction invalidate again when it is committed or
+ * rolled back, as other sessions may cache the previous rows until then. Writes made
+ * outside this server, or through a view or trigger, are only picked up when the entry expires.
+ */
+@Slf4j
+public class ResultSetCache {
+
+    /**
+     * Marker of the time to live hint, followed by a number of seconds.
+     */
+    public static final String TTL_HINT = "ojp.cache.ttl=";
+
+    // Results larger than this fraction of the budget are not cached, so one result cannot flush the cache
+    private static final int MAX_ENTRY_FRACTION = 8;
+    private static final int ENTRY_OVERHEAD = 128;
+    private static final String ALL_TABLES = "*";
+    private static final long TTL_MEMO_MAX_CHARS = 2L * 1024 * 1024;
+
+    private static volatile RowSetFactory rowSetFactory;
+
+    private final long maxBytes;
+    private final long defaultTtlNanos;
+    private final List<TtlRule> ttlRules;
+    private final Cache<Key, Entry> cache;
+    // Time to live by SQL text, so the rules are not matched on every execution
+    private final Cache<String, Long> ttlMemo = CacheBuilder.newBuilder()
+            .maximumWeight(TTL_MEMO_MAX_CHARS)
+            .weigher((String sql, Long ttl) -> sql.length())
+            .build();
+    // Keys of the cached entries reading each table, by datasource and table
+    private final Map<String, Set<Key>> keysByTable = new ConcurrentHashMap<>();
+    // Incremented before the entries of a table are invalidated, to reject results read before the update
+    private final Map<String, AtomicLong> tableVersions = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+    private final AtomicLong weightedSize = new AtomicLong();
+
+    /**
+     * Time to live applied to the statements in which a pattern is found.
+     */
+    public record TtlRule(Pattern pattern, long ttlSeconds) {
+    }
+
+    /**
+     * Identity of a cached result. The time to live travels with the key but is not part of it.
+     */
+    public static final class Key {
+        private final String connHash;
+        private final long sqlHash;
+        private final String sql;
+        private final ByteString parameters;
+        private final long ttlNanos;
+
+        private Key(String connHash, long sqlHash, String sql, ByteString parameters, long ttlNanos) {
+            this.connHash = connHash;
+            this.sqlHash = sqlHash;
+            this.sql = sql;
+            this.parameters = parameters;
+            this.ttlNanos = ttlNanos;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return sqlHash == other.sqlHash && connHash.equals(other.connHash) && sql.equals(other.sql)
+                    && parameters.equals(other.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * Long.hashCode(sqlHash) + connHash.hashCode()) + parameters.hashCode();
+        }
+    }
+
+    /**
+     * Cached result: the encoded blocks and a copy of the result set metadata.
+     */
+    public static final class Entry {
+        private final List<OpQueryResultProto> blocks;
+        private final RowSetMetaData metaData;
+        private final Set<String> tables;
+        private final long expiresAtNanos;
+        private final int weight;
+
+        private Entry(List<OpQueryResultProto> blocks, RowSetMetaData metaData, Set<String> tables,
+                      long expiresAtNanos, int weight) {
+            this.blocks = blocks;
+            this.metaData = metaData;
+            this.tables = tables;
+            this.expiresAtNanos = expiresAtNanos;
+            this.weight = weight;
+        }
+
+        public List<OpQueryResultProto> getBlocks() {
+            return blocks;
+        }
+
+        /**
+         * Creates the result set registered in the session in place of the backend one. It has no rows, as the
+         * rows are all sent with the blocks, and answers the metadata and close calls of the client.
+         */
+        public ResultSet newResultSet() throws SQLException {
+            CachedRowSet rowSet = rowSetFactory().createCachedRowSet();
+            rowSet.setMetaData(metaData);
+            return rowSet;
+        }
+    }
+
+    /**
+     * Collects the blocks of a result as they are sent, and caches them once the result is complete. Abandoned
+     * when the result cannot be cached or grows past the entry limit.
+     */
+    public final class Capture {
+        private final Key key;
+        private final Set<String> tables;
+        private final long versionSnapshot;
+        private final List<OpQueryResultProto> blocks = new ArrayList<>();
+        private long bytes;
+        private boolean abandoned;
+
+        private Capture(Key key, Set<String> tables, long versionSnapshot) {
+            this.key = key;
+            this.tables = tables;
+            this.versionSnapshot = versionSnapshot;
+        }
+
+        public void add(OpQueryResultProto block) {
+            if (abandoned) {
+                return;
+            }
+            bytes += block.getSerializedSize();
+            if (bytes > maxBytes / MAX_ENTRY_FRACTION) {
+                abandon();
+                return;
+            }
+            blocks.add(block);
+        }
+
+        public void abandon() {
+            abandoned = true;
+            blocks.clear();
+        }
+
+        /**
+         * Caches the collected blocks, unless the capture was abandoned or a table the statement reads was
+         * updated since the capture started.
+         *
+         * @param resultSetMetaData metadata of the backend result set
+         */
+        public void complete(ResultSetMetaData resultSetMetaData) throws SQLException {
+            if (abandoned || blocks.isEmpty()) {
+                return;
+            }
+            long weight = bytes + 2L * key.sql.length() + key.parameters.size() + ENTRY_OVERHEAD;
+            Entry entry = new Entry(List.copyOf(blocks), copyOf(resultSetMetaData), tables,
+                    System.nanoTime() + key.ttlNanos, (int) Math.min(Integer.MAX_VALUE, weight));
+            // Indexed first, so an entry evicted right away is also removed from the index
+            for (String table : tables) {
+                keysByTable.computeIfAbsent(tableKey(key.connHash, table), k -> ConcurrentHashMap.newKeySet()).add(key);
+            }
+            weightedSize.addAndGet(entry.weight);
+            cache.put(key, entry);
+            // An update that ran meanwhile may have missed the entry, the version change tells
+            if (versionOf(key.connHash, tables) != versionSnapshot) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * Creates a result set cache.
+     *
+     * @param maxBytes        budget for the encoded blocks held, 0 or less disables the cache
+     * @param defaultTtlSeconds time to live of statements with neither hint nor matching rule, 0 to not cache them
+     * @param ttlRules        time to live by SQL pattern, checked in order
+     */
+    public ResultSetCache(long maxBytes, long defaultTtlSeconds, List<TtlRule> ttlRules) {
+        this.maxBytes = Math.max(0, maxBytes);
+        this.defaultTtlNanos = TimeUnit.SECONDS.toNanos(Math.max(0, defaultTtlSeconds));
+        this.ttlRules = List.copyOf(ttlRules);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(this.maxBytes)
+                .weigher((Key key, Entry entry) -> entry.weight)
+                .removalListener(this::onRemoval)
+                .build();
+    }
+
+    /**
+     * Parses time to live rules written as {@code regex=seconds} entries separated by semicolons. The seconds
+     * follow the last equals sign, so patterns may contain one. Invalid entries are logged and skipped.
+     *
+     * @param rules rules text, may be empty
+     * @return the parsed rules
+     */
+    public static List<TtlRule> parseTtlRules(String rules) {
+        List<TtlRule> parsed = new ArrayList<>();
+        if (rules == null) {
+            return parsed;
+        }
+        for (String rule : rules.split(";")) {
+            String trimmed = rule.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int separator = trimmed.lastIndexOf('=');
+            try {
+                if (separator <= 0) {
+                    throw new IllegalArgumentException("missing '=seconds'");
+                }
+                parsed.add(new TtlRule(Pattern.compile(trimmed.substring(0, separator).trim(), Pattern.CASE_INSENSITIVE),
+                        Long.parseLong(trimmed.substring(separator + 1).trim())));
+            } catch (IllegalArgumentException e) {
+                // Also thrown for invalid patterns and numbers
+                log.warn("Ignoring invalid result set cache TTL rule '{}': {}", trimmed, e.getMessage());
+            }
+        }
+        return parsed;
+    }
+
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * Gets the cache key of a query, or null when its result must not be cached: the cache is disabled, the
+     * statement is not a query or has no time to live, or the session is in a transaction or is XA, where the
+     * result may include uncommitted changes.
+     */
+    public Key keyFor(SessionInfo session, SqlStatementInfo statementInfo, String sql, List<ParameterProto> parameters) {
+        if (!isEnabled() || !statementInfo.getKind().isQuery() || session.getIsXA() || inTransaction(session)) {
+            return null;
+        }
+        long ttlNanos = ttlNanos(sql);
+        if (ttlNanos <= 0) {
+            return null;
+        }
+        return new Key(session.getConnHash(), statementInfo.getHash(), sql, encode(parameters), ttlNanos);
+    }
+
+    /**
+     * Gets the cached result for a key, counting a hit or a miss.
+     */
+    public Entry get(Key key) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && System.nanoTime() - entry.expiresAtNanos >= 0) {
+            cache.asMap().remove(key, entry);
+            entry = null;
+        }
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        return entry;
+    }
+
+    /**
+     * Starts collecting the result of a query that missed the cache.
+     */
+    public Capture capture(Key key) {
+        Set<String> tables = tablesOf(key.sql);
+        return new Capture(key, tables, versionOf(key.connHash, tables));
+    }
+
+    /**
+     * Invalidates the entries of a datasource reading the tables an update writes.
+     *
+     * @param connHash      connection hash of the datasource
+     * @param statementInfo statement info of the update
+     * @param sql           SQL of the update
+     */
+    public void invalidate(String connHash, SqlStatementInfo statementInfo, String sql) {
+        invalidate(connHash, tablesWritten(statementInfo, sql));
+    }
+
+    /**
+     * Invalidates the entries reading the tables an update of a session writes. Inside a transaction the tables
+     * are recorded in the session too: until the commit, other sessions keep reading the rows committed before
+     * and may cache them again, so {@link #transactionEnded} invalidates the tables once more.
+     *
+     * @param sessionInfo session info of the update
+     * @param session     the session, null when the update did not run in a registered session
+     * @param tables      tables written, as returned by {@link #tablesWritten}
+     */
+    public void invalidate(SessionInfo sessionInfo, Session session, Set<String> tables) {
+        if (!isEnabled()) {
+            return;
+        }
+        invalidate(sessionInfo.getConnHash(), tables);
+        if (session != null && (sessionInfo.getIsXA() || inTransaction(sessionInfo))) {
+            session.addWrittenTables(tables.isEmpty() ? Set.of(ALL_TABLES) : tables);
+        }
+    }
+
+    /**
+     * Invalidates the entries reading the tables written by the transaction of a session, once it was
+     * committed or rolled back. Bumping the versions again also rejects results read before the commit that
+     * are still being captured.
+     *
+     * @param session the session, may be null
+     */
+    public void transactionEnded(Session session) {
+        if (!isEnabled() || session == null) {
+            return;
+        }
+        Set<String> tables = session.takeWrittenTables();
+        if (!tables.isEmpty()) {
+            invalidate(session.getConnectionHash(), tables.contains(ALL_TABLES) ? Set.of() : tables);
+        }
+    }
+
+    /**
+     * Gets the tables an update writes, empty when they cannot be told: procedure calls, unknown statements and
+     * statements that are not updates.
+     */
+    public Set<String> tablesWritten(SqlStatementInfo statementInfo, String sql) {
+        if (!isEnabled()) {
+            return Set.of();
+        }
+        return switch (statementInfo.getKind()) {
+            case INSERT, UPDATE, DELETE, MERGE, UPSERT, CREATE, ALTER, DROP, TRUNCATE -> tablesOf(sql);
+            default -> Set.of();
+        };
+    }
+
+    /**
+     * Invalidates the entries of a datasource reading any of the tables, or all its entries when no table is
+     * given.
+     *
+     * @param connHash connection hash of the datasource
+     * @param tables   tables written, as returned by {@link #tablesWritten}
+     */
+    public void invalidate(String connHash, Set<String> tables) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (tables.isEmpty()) {
+            tableVersions.computeIfAbsent(tableKey(connHash, ALL_TABLES), k -> new AtomicLong()).incrementAndGet();
+            for (Key key : cache.asMap().keySet()) {
+                if (key.connHash.equals(connHash)) {
+                    invalidate(key);
+                }
+            }
+            return;
+        }
+        for (String table : tables) {
+            tableVersions.computeIfAbsent(tableKey(connHash, table), k -> new AtomicLong()).incrementAndGet();
+            Set<Key> keys = keysByTable.get(tableKey(connHash, table));
+            if (keys != null) {
+                for (Key key : keys) {
+                    invalidate(key);
+                }
+            }
+        }
+    }
+
+    private void invalidate(Key key) {
+        if (cache.asMap().remove(key) != null) {
+            invalidationCount.incrementAndGet();
+        }
+    }
+
+    private void onRemoval(RemovalNotification<Key, Entry> notification) {
+        Entry entry = notification.getValue();
+        if (entry == null) {
+            return;
+        }
+        weightedSize.addAndGet(-entry.weight);
+        if (notification.getCause() == RemovalCause.SIZE) {
+            evictionCount.incrementAndGet();
+        }
+        // A replacement has the same SQL and so reads the same tables, its index entries stay
+        if (notification.getCause() != RemovalCause.REPLACED) {
+            Key key = notification.getKey();
+            for (String table : entry.tables) {
+                Set<Key> keys = keysByTable.get(tableKey(key.connHash, table));
+                if (keys != null) {
+                    keys.remove(key);
+                }
+            }
+        }
+    }
+
+    long ttlNanos(String sql) {
+        Long ttl = ttlMemo.getIfPresent(sql);
+        if (ttl == null) {
+            ttl = computeTtlNanos(sql);
+            ttlMemo.put(sql, ttl);
+        }
+        return ttl;
+    }
+
+    private long computeTtlNanos(String sql) {
+        int hint = sql.indexOf(TTL_HINT);
+        if (hint >= 0) {
+            int start = hint + TTL_HINT.length();
+            int end = start;
+            while (end < sql.length() && Character.isDigit(sql.charAt(end))) {
+                end++;
+            }
+            if (end > start) {
+                return TimeUnit.SECONDS.toNanos(Long.parseLong(sql.substring(start, end)));
+            }
+        }
+        for (TtlRule rule : ttlRules) {
+            if (rule.pattern().matcher(sql).find()) {
+                return TimeUnit.SECONDS.toNanos(Math.max(0, rule.ttlSeconds()));
+            }
+        }
+        return defaultTtlNanos;
+    }
+
+    private long versionOf(String connHash, Set<String> tables) {
+        long version = versionOf(tableKey(connHash, ALL_TABLES));
+        for (String table : tables) {
+            version += versionOf(tableKey(connHash, table));
+        }
+        return version;
+    }
+
+    private long versionOf(String tableKey) {
+        AtomicLong version = tableVersions.get(tableKey);
+        return version != null ? version.get() : 0;
+    }
+
+    private static String tableKey(String connHash, String table) {
+        return connHash + '\u0000' + table;
+    }
+
+    private static RowSetFactory rowSetFactory() throws SQLException {
+        if (rowSetFactory == null) {
+            rowSetFactory = RowSetProvider.newFactory();
+        }
+        return rowSetFactory;
+    }
+
+    private static boolean inTransaction(SessionInfo session) {
+        return session.hasTransactionInfo() && !session.getTransactionInfo().getTransactionUUID().isEmpty()
+                && TransactionStatus.TRX_ACTIVE.equals(session.getTransactionInfo().getTransactionStatus());
+    }
+
+    private static ByteString encode(List<ParameterProto> parameters) {
+        if (parameters.isEmpty()) {
+            return ByteString.EMPTY;
+        }
+        ByteString.Output out = ByteString.newOutput();
+        try {
+            for (ParameterProto parameter : parameters) {
+                parameter.writeDelimitedTo(out);
+            }
+        } catch (IOException e) {
+            // Writing to memory does not fail
+            throw new IllegalStateException(e);
+        }
+        return out.toByteString();
+    }
+
+    private static RowSetMetaData copyOf(ResultSetMetaData source) throws SQLException {
+        RowSetMetaDataImpl copy = new RowSetMetaDataImpl();
+        int columnCount = source.getColumnCount();
+        copy.setColumnCount(columnCount);
+        for (int i = 1; i <= columnCount; i++) {
+            copy.setColumnType(i, source.getColumnType(i));
+            copy.setColumnTypeName(i, source.getColumnTypeName(i));
+            copy.setColumnLabel(i, source.getColumnLabel(i));
+            copy.setColumnName(i, source.getColumnName(i));
+            copy.setSchemaName(i, source.getSchemaName(i));
+            copy.setTableName(i, source.getTableName(i));
+            copy.setCatalogName(i, source.getCatalogName(i));
+            copy.setColumnDisplaySize(i, Math.max(0, source.getColumnDisplaySize(i)));
+            copy.setPrecision(i, Math.max(0, source.getPrecision(i)));
+            copy.setScale(i, Math.max(0, source.getScale(i)));
+            copy.setNullable(i, source.isNullable(i));
+            copy.setAutoIncrement(i, source.isAutoIncrement(i));
+            copy.setCaseSensitive(i, source.isCaseSensitive(i));
+            copy.setSearchable(i, source.isSearchable(i));
+            copy.setCurrency(i, source.isCurrency(i));
+            copy.setSigned(i, source.isSigned(i));
+        }
+        return copy;
+    }
+
+    /**
+     * Gets the lowercased names of the tables a statement reads or writes, without schema or catalog: the
+     * names following FROM, JOIN, INTO, UPDATE and TABLE, including comma separated FROM lists. Strings and
+     * comments are skipped. Names it picks up that are not tables only cost extra invalidations.
+     */
+    static Set<String> tablesOf(String sql) {
+        Set<String> tables = new HashSet<>();
+        List<String> tokens = tokenize(sql);
+        for (int i = 0; i < tokens.size(); i++) {
+            String keyword = tokens.get(i);
+            boolean from = keyword.equals("from");
+            if (!from && !keyword.equals("join") && !keyword.equals("into") && !keyword.equals("update")
+                    && !keyword.equals("table")) {
+                continue;
+            }
+            int next = i + 1;
+            while (next < tokens.size() && isName(tokens.get(next))) {
+                String name = tokens.get(next);
+                if (name.equals("only") || name.equals("lateral") || name.equals("table")) {
+                    // FROM ONLY t, DELETE FROM ONLY t, FROM LATERAL (...), TRUNCATE TABLE t
+                    next++;
+                    continue;
+                }
+                tables.add(name.substring(name.lastIndexOf('.') + 1));
+                next++;
+                if (!from) {
+                    break;
+                }
+                // Skip an alias, then continue with the next table of a comma separated list
+                if (next < tokens.size() && tokens.get(next).equals("as")) {
+                    next++;
+                }
+                if (next < tokens.size() && isName(tokens.get(next)) && !isClauseKeyword(tokens.get(next))) {
+                    next++;
+                }
+                if (next < tokens.size() && tokens.get(next).equals(",")) {
+                    next++;
+                } else {
+                    break;
+                }
+            }
+        }
+        return tables;
+    }
+
+    private static boolean isName(String token) {
+        char first = token.charAt(0);
+        return Character.isLetter(first) || first == '_';
+    }
+
+    private static boolean isClauseKeyword(String token) {
+        return switch (token) {
+            case "where", "join", "inner", "left", "right", "full", "cross", "natural", "on", "group", "order",
+                    "having", "limit", "union", "except", "intersect", "minus", "window", "fetch", "offset", "for",
+                    "set", "values", "select", "using", "returning", "with" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Splits SQL into lowercased words (dotted names and quoted identifiers unquoted and joined into one word)
+     * and single character punctuation, dropping strings, comments and numbers.
+     */
+    private static List<String> tokenize(String sql) {
+        List<String> tokens = new ArrayList<>();
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                i = skipQuoted(sql, i, '\'');
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (Character.isLetter(c) || c == '_' || c == '"' || c == '`' || c == '[') {
+                StringBuilder name = new StringBuilder();
+                while (i < length) {
+                    char d = sql.charAt(i);
+                    if (d == '"' || d == '`' || d == '[') {
+                        char close = d == '[' ? ']' : d;
+                        int end = sql.indexOf(close, i + 1);
+                        end = end < 0 ? length : end;
+                        name.append(sql, i + 1, end);
+                        i = Math.min(length, end + 1);
+                    } else if (Character.isLetterOrDigit(d) || d == '_' || d == '$' || d == '.') {
+                        name.append(d);
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (!name.isEmpty() && isName(name.toString())) {
+                    tokens.add(name.toString().toLowerCase(Locale.ROOT));
+                } else if (!name.isEmpty()) {
+                    // Quoted identifier starting with a digit or symbol
+                    tokens.add("_" + name.toString().toLowerCase(Locale.ROOT));
+                }
+            } else if (Character.isDigit(c)) {
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+            } else {
+                if (!Character.isWhitespace(c)) {
+                    tokens.add(String.valueOf(c));
+                }
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static int skipQuoted(String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return sql.length();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Gets the share of lookups served from the cache, 0 before the first lookup.
+     */
+    public double getHitRatio() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    /**
+     * Gets the weighted size of the cached entries in bytes.
+     */
+    public long getWeightedSize() {
+        return weightedSize.get();
+    }
+
+    public long getEntryCount() {
+        return cache.size();
+    }
+}
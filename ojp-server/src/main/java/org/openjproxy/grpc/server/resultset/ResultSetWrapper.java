@@ -1,13 +1,9 @@
 package org.openjproxy.grpc.server.resultset;
 
-import com.google.protobuf.ByteString;
+import com.openjproxy.grpc.OpQueryResultProto;
 import com.openjproxy.grpc.OpResult;
 import com.openjproxy.grpc.ResultType;
 import com.openjproxy.grpc.SessionInfo;
-import org.openjproxy.grpc.ProtoConverter;
-import org.openjproxy.grpc.dto.OpQueryResult;
-
-import java.util.List;
 
 /**
  * Utility class for wrapping result set data into OpResult objects.
@@ -16,28 +12,19 @@ import java.util.List;
 public class ResultSetWrapper {
 
     /**
-     * Wraps result set data into an OpResult for GRPC response.
+     * Wraps an encoded result set block into an OpResult for GRPC response.
      *
-     * @param sessionInfo        The session information
-     * @param results           The result data rows
-     * @param queryResultBuilder The query result builder
-     * @param resultSetUUID     The result set UUID
-     * @param resultSetMode     The result set mode flag
-     * @return OpResult containing wrapped data
+     * @param sessionInfo   The session information
+     * @param queryResult   The block, as written by {@link ResultSetBlockEncoder}
+     * @param resultSetMode The result set mode flag
+     * @return OpResult containing the block
      */
-    public static OpResult wrapResults(SessionInfo sessionInfo,
-                                     List<Object[]> results,
-                                     OpQueryResult.OpQueryResultBuilder queryResultBuilder,
-                                     String resultSetUUID, String resultSetMode) {
-
-        OpResult.Builder resultsBuilder = OpResult.newBuilder();
-        resultsBuilder.setSession(sessionInfo);
-        resultsBuilder.setType(ResultType.RESULT_SET_DATA);
-        queryResultBuilder.resultSetUUID(resultSetUUID);
-        queryResultBuilder.rows(results);
-        resultsBuilder.setQueryResult(ProtoConverter.toProto(queryResultBuilder.build()));
-        resultsBuilder.setFlag(resultSetMode);
-
-        return resultsBuilder.build();
+    public static OpResult wrapBlock(SessionInfo sessionInfo, OpQueryResultProto queryResult, String resultSetMode) {
+        return OpResult.newBuilder()
+                .setSession(sessionInfo)
+                .setType(ResultType.RESULT_SET_DATA)
+                .setQueryResult(queryResult)
+                .setFlag(resultSetMode)
+                .build();
     }
-}
\ No newline at end of file
+}
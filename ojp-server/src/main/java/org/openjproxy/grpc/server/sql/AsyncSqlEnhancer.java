@@ -0,0 +1,264 @@
+package org.openjproxy.grpc.server.sql;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs SQL enhancement off the query execution path.
+ *
+ * The first execution of a statement runs the original SQL while the enhancement is computed on a background
+ * executor. Later executions pick up the cached enhanced SQL once it is ready.
+ *
+ * With shadow mode enabled, a statement whose enhancement modified the SQL is not promoted straight away:
+ * executions alternate between the original and the enhanced SQL, their execution times are recorded with the
+ * trial, and once both variants have enough samples the enhanced SQL is promoted only if it is clearly faster:
+ * by at least {@value #MIN_IMPROVEMENT_PERCENT}% and {@value #MIN_IMPROVEMENT_MICROS}µs on average. Otherwise the
+ * original SQL keeps being executed. The samples live in the trial, so they are evicted with it.
+ */
+@Slf4j
+public class AsyncSqlEnhancer {
+
+    private static final int MAX_QUEUED_ENHANCEMENTS = 1000;
+    private static final int MAX_SHADOW_TRIALS = 10_000;
+    // Margin the enhanced SQL must beat the original by, below it the difference is noise
+    static final int MIN_IMPROVEMENT_PERCENT = 10;
+    static final long MIN_IMPROVEMENT_MICROS = 50;
+
+    private final SqlEnhancerEngine engine;
+    private final ThreadPoolExecutor executor;
+    private final boolean shadowEnabled;
+    private final int shadowSamples;
+    private final Cache<String, ShadowTrial> shadowTrials;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong scheduledEnhancements = new AtomicLong(0);
+    private final AtomicLong rejectedEnhancements = new AtomicLong(0);
+    private final AtomicLong promotedCount = new AtomicLong(0);
+    private final AtomicLong rejectedPromotionCount = new AtomicLong(0);
+
+    /**
+     * Which SQL text a {@link Selection} executes.
+     */
+    public enum Variant {
+        /** No shadow trial in progress, nothing to record. */
+        NONE,
+        /** Original SQL executed as part of a shadow trial. */
+        ORIGINAL,
+        /** Enhanced SQL executed as part of a shadow trial. */
+        ENHANCED
+    }
+
+    /**
+     * SQL chosen for one execution, handed back to {@link #recordExecution(Selection, long)} once it ran.
+     */
+    public static final class Selection {
+        private final String stmtHash;
+        private final String sql;
+        private final Variant variant;
+
+        private Selection(String stmtHash, String sql, Variant variant) {
+            this.stmtHash = stmtHash;
+            this.sql = sql;
+            this.variant = variant;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public Variant getVariant() {
+            return variant;
+        }
+    }
+
+    /**
+     * Shadow comparison state of a single statement.
+     */
+    private static final class ShadowTrial {
+        private final AtomicInteger executions = new AtomicInteger(0);
+        private final AtomicInteger originalSamples = new AtomicInteger(0);
+        private final AtomicLong originalNanos = new AtomicLong(0);
+        private final AtomicInteger enhancedSamples = new AtomicInteger(0);
+        private final AtomicLong enhancedNanos = new AtomicLong(0);
+        private volatile Boolean promoted;
+    }
+
+    /**
+     * Creates a new asynchronous enhancer.
+     *
+     * @param engine The SQL enhancer engine computing (and caching) enhancements
+     * @param threads Number of background enhancement threads
+     * @param shadowEnabled Whether enhanced SQL must beat the original in a shadow comparison before promotion
+     * @param shadowSamples Number of executions of each variant recorded before deciding on promotion
+     */
+    public AsyncSqlEnhancer(SqlEnhancerEngine engine, int threads, boolean shadowEnabled, int shadowSamples) {
+        this.engine = engine;
+        this.shadowEnabled = shadowEnabled;
+        this.shadowSamples = Math.max(1, shadowSamples);
+        this.shadowTrials = CacheBuilder.newBuilder().maximumSize(MAX_SHADOW_TRIALS).build();
+
+        int poolSize = Math.max(1, threads);
+        AtomicInteger threadCounter = new AtomicInteger(0);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_ENHANCEMENTS), r -> {
+                    Thread thread = new Thread(r, "ojp-sql-enhancer-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+
+        log.info("Asynchronous SQL enhancement enabled: threads={}, shadowMode={}, shadowSamples={}",
+                poolSize, shadowEnabled, this.shadowSamples);
+    }
+
+    /**
+     * Selects the SQL to execute for a statement without ever blocking on enhancement.
+     *
+     * @param stmtHash Hash of the original SQL (from SqlStatementXXHash)
+     * @param sql The original SQL
+     * @return Selection holding the SQL to execute
+     */
+    public Selection select(String stmtHash, String sql) {
+        SqlEnhancementResult result = engine.getEnhancementIfReady(sql);
+        if (result == null) {
+            scheduleEnhancement(sql);
+            return new Selection(stmtHash, sql, Variant.NONE);
+        }
+        if (!result.isModified() || !shadowEnabled) {
+            return new Selection(stmtHash, result.getEnhancedSql(), Variant.NONE);
+        }
+
+        ShadowTrial trial;
+        try {
+            trial = shadowTrials.get(stmtHash, ShadowTrial::new);
+        } catch (ExecutionException e) {
+            return new Selection(stmtHash, sql, Variant.NONE);
+        }
+
+        Boolean promoted = trial.promoted;
+        if (promoted != null) {
+            return new Selection(stmtHash, promoted ? result.getEnhancedSql() : sql, Variant.NONE);
+        }
+        // Alternate variants until both have enough samples
+        if (trial.executions.getAndIncrement() % 2 == 0) {
+            return new Selection(stmtHash, sql, Variant.ORIGINAL);
+        }
+        return new Selection(stmtHash, result.getEnhancedSql(), Variant.ENHANCED);
+    }
+
+    /**
+     * Records the execution time of a selection. Only shadow trial executions are recorded.
+     *
+     * @param selection The selection returned by {@link #select(String, String)}
+     * @param executionTimeNanos Execution time of the statement in nanoseconds, from {@link System#nanoTime()}
+     */
+    public void recordExecution(Selection selection, long executionTimeNanos) {
+        if (selection.variant == Variant.NONE) {
+            return;
+        }
+        ShadowTrial trial = shadowTrials.getIfPresent(selection.stmtHash);
+        if (trial == null || trial.promoted != null) {
+            return;
+        }
+        if (selection.variant == Variant.ORIGINAL) {
+            trial.originalNanos.addAndGet(executionTimeNanos);
+            trial.originalSamples.incrementAndGet();
+        } else {
+            trial.enhancedNanos.addAndGet(executionTimeNanos);
+            trial.enhancedSamples.incrementAndGet();
+        }
+        int originalSamples = trial.originalSamples.get();
+        int enhancedSamples = trial.enhancedSamples.get();
+        if (originalSamples < shadowSamples || enhancedSamples < shadowSamples) {
+            return;
+        }
+
+        double originalAvg = (double) trial.originalNanos.get() / originalSamples;
+        double enhancedAvg = (double) trial.enhancedNanos.get() / enhancedSamples;
+        boolean promote = isClearlyFaster(enhancedAvg, originalAvg);
+        synchronized (trial) {
+            if (trial.promoted != null) {
+                return;
+            }
+            trial.promoted = promote;
+        }
+        String original = String.format("%.3f", originalAvg / 1_000_000);
+        String enhanced = String.format("%.3f", enhancedAvg / 1_000_000);
+        if (promote) {
+            promotedCount.incrementAndGet();
+            log.info("Promoting enhanced SQL for statement {}: enhanced avg {}ms, original avg {}ms",
+                    selection.stmtHash, enhanced, original);
+        } else {
+            rejectedPromotionCount.incrementAndGet();
+            log.info("Keeping original SQL for statement {}: enhanced avg {}ms is not clearly faster than original avg {}ms",
+                    selection.stmtHash, enhanced, original);
+        }
+    }
+
+    static boolean isClearlyFaster(double enhancedAvgNanos, double originalAvgNanos) {
+        double saved = originalAvgNanos - enhancedAvgNanos;
+        return saved >= originalAvgNanos * MIN_IMPROVEMENT_PERCENT / 100
+                && saved >= TimeUnit.MICROSECONDS.toNanos(MIN_IMPROVEMENT_MICROS);
+    }
+
+    private void scheduleEnhancement(String sql) {
+        if (!inFlight.add(sql)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    engine.enhance(sql);
+                } catch (Exception e) {
+                    log.warn("Background SQL enhancement failed: {}", e.getMessage());
+                } finally {
+                    inFlight.remove(sql);
+                }
+            });
+            scheduledEnhancements.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            // Queue full, the statement will be scheduled again on a later execution
+            inFlight.remove(sql);
+            rejectedEnhancements.incrementAndGet();
+            log.debug("SQL enhancement queue full, skipping enhancement for now");
+        }
+    }
+
+    /**
+     * Gets statistics about background enhancement and shadow promotion.
+     *
+     * @return String describing the statistics
+     */
+    public String getStats() {
+        return String.format(
+                "Async Enhancement Stats: Scheduled=%d, Rejected=%d, Queued=%d, ShadowTrials=%d, Promoted=%d, KeptOriginal=%d",
+                scheduledEnhancements.get(), rejectedEnhancements.get(), executor.getQueue().size(),
+                shadowTrials.size(), promotedCount.get(), rejectedPromotionCount.get());
+    }
+
+    public long getPromotedCount() {
+        return promotedCount.get();
+    }
+
+    public long getRejectedPromotionCount() {
+        return rejectedPromotionCount.get();
+    }
+
+    /**
+     * Stops the background enhancement threads.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -52,6 +52,8 @@ public class CalciteSchemaFactory {
      */
     private static class MetadataBackedSchema extends AbstractSchema {
         private final SchemaMetadata metadata;
+        // Calcite asks for the table map on every table lookup, SchemaMetadata is never modified
+        private volatile Map<String, Table> tables;
         
         public MetadataBackedSchema(SchemaMetadata metadata) {
             this.metadata = metadata;
@@ -59,16 +61,21 @@ public class CalciteSchemaFactory {
         
         @Override
         protected Map<String, Table> getTableMap() {
-            Map<String, Table> tables = new HashMap<>();
+            Map<String, Table> result = tables;
+            if (result != null) {
+                return result;
+            }
+            result = new HashMap<>();
             
             for (Map.Entry<String, TableMetadata> entry : metadata.getTables().entrySet()) {
                 String tableName = entry.getKey();
                 TableMetadata tableMetadata = entry.getValue();
                 
-                tables.put(tableName, new MetadataBackedTable(tableMetadata));
+                result.put(tableName, new MetadataBackedTable(tableMetadata));
             }
             
-            return tables;
+            tables = result;
+            return result;
         }
     }
     
@@ -1,6 +1,19 @@
 package org.openjproxy.grpc.server.sql;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.calcite.adapter.java.JavaTypeFactory;
+import org.apache.calcite.config.CalciteConnectionConfigImpl;
+import org.apache.calcite.config.CalciteConnectionProperty;
+import org.apache.calcite.jdbc.CalciteSchema;
+import org.apache.calcite.jdbc.JavaTypeFactoryImpl;
+import org.apache.calcite.plan.ConventionTraitDef;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.plan.volcano.VolcanoPlanner;
+import org.apache.calcite.prepare.CalciteCatalogReader;
+import org.apache.calcite.prepare.CalciteSqlValidator;
+import org.apache.calcite.rex.RexBuilder;
 import org.apache.calcite.plan.hep.HepPlanner;
 import org.apache.calcite.plan.hep.HepProgram;
 import org.apache.calcite.plan.hep.HepProgramBuilder;
@@ -16,20 +29,31 @@ import org.apache.calcite.schema.impl.AbstractSchema;
 import org.apache.calcite.schema.impl.AbstractTable;
 import org.apache.calcite.sql.SqlDialect;
 import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlOperatorTable;
+import org.apache.calcite.sql.util.SqlOperatorTables;
+import org.apache.calcite.sql.validate.SqlValidator;
+import org.apache.calcite.sql2rel.RelDecorrelator;
+import org.apache.calcite.sql2rel.SqlToRelConverter;
 import org.apache.calcite.sql.parser.SqlParser;
 import org.apache.calcite.sql.type.SqlTypeName;
 import org.apache.calcite.tools.Frameworks;
-import org.apache.calcite.tools.Planner;
 import org.apache.calcite.tools.FrameworkConfig;
+import org.apache.calcite.tools.RelBuilder;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Converts between SQL and Relational Algebra (RelNode) representations.
  * Handles SQL parsing, optimization using Apache Calcite's HepPlanner,
  * and SQL generation from optimized relational algebra.
+ * <p>
+ * The Calcite schema and framework configuration are built once and rebuilt only when the schema cache
+ * publishes a new schema. Each thread keeps its own type factory, catalog reader and planner for the current
+ * schema, and the HepProgram of each rule set is compiled once, HepPrograms being immutable in Calcite.
+ * </p>
  */
 @Slf4j
 public class RelationalAlgebraConverter {
@@ -38,14 +62,105 @@ public class RelationalAlgebraConverter {
     private final SqlDialect sqlDialect;
     private final SchemaCache schemaCache;
     private final CalciteSchemaFactory schemaFactory;
+    private final Map<List<RelOptRule>, HepProgram> hepPrograms = new ConcurrentHashMap<>();
+    private final ThreadLocal<PlanningSession> planningSessions = new ThreadLocal<>();
+    private volatile PlanningContext planningContext;
+    
+    /**
+     * Framework configuration built for one schema snapshot.
+     */
+    private static final class PlanningContext {
+        // Schema the configuration was built from, null for the dynamic schema
+        private final SchemaMetadata metadata;
+        private final FrameworkConfig config;
+        
+        private PlanningContext(SchemaMetadata metadata, FrameworkConfig config) {
+            this.metadata = metadata;
+            this.config = config;
+        }
+    }
+    
+    /**
+     * Planning state kept by one thread for one planning context, doing what Calcite's Planner does for a
+     * statement without recreating the type factory, catalog reader and planner, nor registering the default
+     * Volcano rules each time, which the converter never fires. Validators are stateful and are created for
+     * every statement.
+     */
+    private static final class PlanningSession {
+        private final PlanningContext context;
+        private final JavaTypeFactory typeFactory;
+        private final CalciteCatalogReader catalogReader;
+        private final SqlOperatorTable operatorTable;
+        private final SqlValidator.Config validatorConfig;
+        private final RelOptPlanner planner;
+        private final RexBuilder rexBuilder;
+        
+        private PlanningSession(PlanningContext context, SqlParser.Config parserConfig) {
+            FrameworkConfig config = context.config;
+            this.context = context;
+            
+            // Same connection settings as Calcite's Planner derives from the parser configuration
+            CalciteConnectionConfigImpl connectionConfig = new CalciteConnectionConfigImpl(new Properties())
+                .set(CalciteConnectionProperty.CASE_SENSITIVE, String.valueOf(parserConfig.caseSensitive()))
+                .set(CalciteConnectionProperty.CONFORMANCE, String.valueOf(parserConfig.conformance()));
+            
+            this.typeFactory = new JavaTypeFactoryImpl(config.getTypeSystem());
+            SchemaPlus defaultSchema = config.getDefaultSchema();
+            SchemaPlus rootSchema = defaultSchema;
+            while (rootSchema.getParentSchema() != null) {
+                rootSchema = rootSchema.getParentSchema();
+            }
+            this.catalogReader = new CalciteCatalogReader(CalciteSchema.from(rootSchema),
+                CalciteSchema.from(defaultSchema).path(null), typeFactory, connectionConfig);
+            this.operatorTable = SqlOperatorTables.chain(config.getOperatorTable(), catalogReader);
+            this.validatorConfig = config.getSqlValidatorConfig()
+                .withDefaultNullCollation(connectionConfig.defaultNullCollation())
+                .withLenientOperatorLookup(connectionConfig.lenientOperatorLookup())
+                .withConformance(connectionConfig.conformance())
+                .withIdentifierExpansion(true);
+            
+            this.planner = new VolcanoPlanner(config.getCostFactory(), config.getContext());
+            this.planner.addRelTraitDef(ConventionTraitDef.INSTANCE);
+            this.planner.setExecutor(config.getExecutor());
+            this.rexBuilder = new RexBuilder(typeFactory);
+        }
+        
+        private RelRoot toRel(String sql, SqlParser.Config parserConfig, FrameworkConfig config) throws Exception {
+            SqlNode sqlNode = SqlParser.create(sql, parserConfig).parseStmt();
+            SqlValidator validator = new CalciteSqlValidator(operatorTable, catalogReader, typeFactory, validatorConfig);
+            SqlNode validatedNode = validator.validate(sqlNode);
+            
+            RelOptCluster cluster = RelOptCluster.create(planner, rexBuilder);
+            SqlToRelConverter.Config converterConfig = config.getSqlToRelConverterConfig().withTrimUnusedFields(false);
+            SqlToRelConverter sqlToRelConverter = new SqlToRelConverter(NO_VIEWS, validator, catalogReader, cluster,
+                config.getConvertletTable(), converterConfig);
+            RelRoot relRoot = sqlToRelConverter.convertQuery(validatedNode, false, true);
+            relRoot = relRoot.withRel(sqlToRelConverter.flattenTypes(relRoot.rel, true));
+            RelBuilder relBuilder = converterConfig.getRelBuilderFactory().create(cluster, null);
+            return relRoot.withRel(RelDecorrelator.decorrelateQuery(relRoot.rel, relBuilder));
+        }
+    }
+    
+    // The schema holds tables only, SchemaLoader does not load views: a statement over a view fails validation
+    // as an unknown table and the enhancer keeps the original SQL, so views never get here
+    private static final RelOptTable.ViewExpander NO_VIEWS = (rowType, queryString, schemaPath, viewPath) -> {
+        throw new UnsupportedOperationException("Views are not supported");
+    };
     
     /**
      * Dynamic schema that provides generic tables for any name requested.
      * Implements Calcite's Schema interface to support unknown table references.
      */
     private static class DynamicSchema extends AbstractSchema {
+        // Calcite asks for the table map on every table lookup
+        private final Map<String, Table> tables = createTableMap();
+        
         @Override
         protected Map<String, Table> getTableMap() {
+            return tables;
+        }
+        
+        private static Map<String, Table> createTableMap() {
             // Pre-populate with common table names used in tests
             Map<String, Table> tables = new ConcurrentHashMap<>();
             GenericTable genericTable = new GenericTable();
@@ -61,7 +176,7 @@ public class RelationalAlgebraConverter {
             return tables;
         }
         
-        private String capitalize(String str) {
+        private static String capitalize(String str) {
             if (str == null || str.isEmpty()) return str;
             return str.substring(0, 1).toUpperCase() + str.substring(1).toLowerCase();
         }
@@ -134,53 +249,64 @@ public class RelationalAlgebraConverter {
         log.debug("Converting SQL to RelNode");
         
         try {
-            // Create a root schema
-            SchemaPlus rootSchema = Frameworks.createRootSchema(true);
-            
-            // Try to use real schema from cache, fall back to dynamic schema
-            SchemaPlus defaultSchema;
-            if (schemaCache != null) {
-                SchemaMetadata metadata = schemaCache.getSchema(false);
-                if (metadata != null && !metadata.getTables().isEmpty()) {
-                    log.debug("Using real schema with {} tables", metadata.getTables().size());
-                    org.apache.calcite.schema.Schema realSchema = schemaFactory.createSchema(metadata);
-                    defaultSchema = rootSchema.add("default", realSchema);
-                } else {
-                    log.debug("Real schema not available, using dynamic schema");
-                    defaultSchema = rootSchema.add("default", new DynamicSchema());
-                }
-            } else {
-                log.debug("No schema cache provided, using dynamic schema");
-                defaultSchema = rootSchema.add("default", new DynamicSchema());
+            PlanningContext context = currentPlanningContext();
+            PlanningSession session = planningSessions.get();
+            if (session == null || session.context != context) {
+                session = new PlanningSession(context, parserConfig);
+                planningSessions.set(session);
             }
             
-            // Create framework configuration
-            FrameworkConfig config = Frameworks.newConfigBuilder()
-                .parserConfig(parserConfig)
-                .defaultSchema(defaultSchema)
-                .build();
+            // Parse, validate, and convert to relational algebra
+            RelRoot relRoot = session.toRel(sql, parserConfig, context.config);
             
-            // Use planner for conversion
-            Planner planner = Frameworks.getPlanner(config);
-            
-            try {
-                // Parse, validate, and convert to relational algebra
-                SqlNode sqlNode = planner.parse(sql);
-                SqlNode validatedNode = planner.validate(sqlNode);
-                RelRoot relRoot = planner.rel(validatedNode);
-                
-                log.debug("Successfully converted SQL to RelNode");
-                return relRoot.rel;
-                
-            } finally {
-                planner.close();
-            }
+            log.debug("Successfully converted SQL to RelNode");
+            return relRoot.rel;
         } catch (Exception e) {
             log.warn("Failed to convert SQL to RelNode: {}", e.getMessage());
             throw new ConversionException("Failed to convert SQL to relational algebra", e);
         }
     }
     
+    /**
+     * Returns the planning context for the schema currently in the cache, building it when the cache has
+     * published a new schema since the last call.
+     */
+    private PlanningContext currentPlanningContext() {
+        SchemaMetadata metadata = schemaCache != null ? schemaCache.getSchema(false) : null;
+        if (metadata != null && metadata.getTables().isEmpty()) {
+            metadata = null;
+        }
+        PlanningContext context = planningContext;
+        if (context != null && context.metadata == metadata) {
+            return context;
+        }
+        
+        // Create a root schema
+        SchemaPlus rootSchema = Frameworks.createRootSchema(true);
+        
+        // Try to use real schema from cache, fall back to dynamic schema
+        SchemaPlus defaultSchema;
+        if (metadata != null) {
+            log.debug("Using real schema with {} tables", metadata.getTables().size());
+            org.apache.calcite.schema.Schema realSchema = schemaFactory.createSchema(metadata);
+            defaultSchema = rootSchema.add("default", realSchema);
+        } else {
+            log.debug("Real schema not available, using dynamic schema");
+            defaultSchema = rootSchema.add("default", new DynamicSchema());
+        }
+        
+        // Create framework configuration
+        FrameworkConfig config = Frameworks.newConfigBuilder()
+            .parserConfig(parserConfig)
+            .defaultSchema(defaultSchema)
+            .build();
+        
+        // Concurrent rebuilds are harmless, the last one wins
+        context = new PlanningContext(metadata, config);
+        planningContext = context;
+        return context;
+    }
+    
     /**
      * Applies optimization rules to a RelNode using Apache Calcite's HepPlanner.
      * 
@@ -193,17 +319,7 @@ public class RelationalAlgebraConverter {
         log.debug("Applying {} optimization rules to RelNode", rules.size());
         
         try {
-            // Create HepProgram with specified rules and match limit
-            HepProgramBuilder builder = new HepProgramBuilder();
-            
-            // Set a match limit to prevent infinite loops with aggressive rules
-            builder.addMatchLimit(1000);
-            
-            for (RelOptRule rule : rules) {
-                builder.addRuleInstance(rule);
-            }
-            
-            HepProgram program = builder.build();
+            HepProgram program = hepPrograms.computeIfAbsent(List.copyOf(rules), this::buildHepProgram);
             
             // Create planner and optimize
             HepPlanner planner = new HepPlanner(program);
@@ -220,6 +336,22 @@ public class RelationalAlgebraConverter {
         }
     }
     
+    /**
+     * Creates a HepProgram with specified rules and match limit.
+     */
+    private HepProgram buildHepProgram(List<RelOptRule> rules) {
+        HepProgramBuilder builder = new HepProgramBuilder();
+        
+        // Set a match limit to prevent infinite loops with aggressive rules
+        builder.addMatchLimit(1000);
+        
+        for (RelOptRule rule : rules) {
+            builder.addRuleInstance(rule);
+        }
+        
+        return builder.build();
+    }
+    
     /**
      * Converts an optimized RelNode back to SQL string.
      * 
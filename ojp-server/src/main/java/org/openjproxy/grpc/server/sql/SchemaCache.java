@@ -7,6 +7,11 @@ import java.util.concurrent.atomic.AtomicBoolean;
 /**
  * Thread-safe cache for database schema metadata.
  * Handles concurrent access and schema refresh coordination.
+ * <p>
+ * The cached schema is copy-on-write: a refresh builds a new {@link SchemaMetadata}, reusing the unchanged
+ * tables of the current one, and publishes it with a single volatile write. Readers never block nor see a
+ * partially refreshed schema.
+ * </p>
  */
 @Slf4j
 public class SchemaCache {
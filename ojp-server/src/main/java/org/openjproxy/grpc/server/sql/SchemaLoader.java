@@ -16,12 +16,28 @@ import java.util.concurrent.ForkJoinPool;
 /**
  * Loads database schema metadata from JDBC connections.
  * Supports asynchronous loading and multiple database dialects.
+ * <p>
+ * Columns of small schemas are read with one {@code getColumns} call per table. From
+ * {@code bulkColumnsThreshold} tables on, they are read in a single {@code getColumns} pass over the whole
+ * schema and grouped by table in memory, so loading costs one metadata query instead of one per table.
+ * </p>
+ * <p>
+ * {@link #refreshSchema} reloads only the tables that were created or altered since a previous load, using
+ * the DDL timestamps of the catalog on databases that keep them (Oracle, SQL Server, DB2). On other
+ * databases it reloads everything.
+ * </p>
  */
 @Slf4j
 public class SchemaLoader {
     
+    /**
+     * Default number of tables from which columns are loaded in a single bulk pass.
+     */
+    public static final int DEFAULT_BULK_COLUMNS_THRESHOLD = 50;
+    
     private final Executor executor;
     private final long timeoutSeconds;
+    private final int bulkColumnsThreshold;
     private final RelDataTypeFactory typeFactory;
     
     /**
@@ -38,8 +54,20 @@ public class SchemaLoader {
      * @param timeoutSeconds Timeout for schema loading operations
      */
     public SchemaLoader(Executor executor, long timeoutSeconds) {
+        this(executor, timeoutSeconds, DEFAULT_BULK_COLUMNS_THRESHOLD);
+    }
+    
+    /**
+     * Creates a schema loader with custom executor, timeout and bulk loading threshold.
+     * 
+     * @param executor Executor for async operations
+     * @param timeoutSeconds Timeout for schema loading operations
+     * @param bulkColumnsThreshold Number of tables from which columns are loaded in a single bulk pass
+     */
+    public SchemaLoader(Executor executor, long timeoutSeconds, int bulkColumnsThreshold) {
         this.executor = executor;
         this.timeoutSeconds = timeoutSeconds;
+        this.bulkColumnsThreshold = bulkColumnsThreshold;
         this.typeFactory = new SqlTypeFactoryImpl(org.apache.calcite.rel.type.RelDataTypeSystem.DEFAULT);
     }
     
@@ -54,9 +82,26 @@ public class SchemaLoader {
     public CompletableFuture<SchemaMetadata> loadSchemaAsync(DataSource dataSource, 
                                                               String catalogName, 
                                                               String schemaName) {
+        return refreshSchemaAsync(dataSource, catalogName, schemaName, null);
+    }
+    
+    /**
+     * Asynchronously refreshes schema metadata from a DataSource with timeout, reloading only the tables
+     * changed since the previous load when the database exposes DDL timestamps.
+     * 
+     * @param dataSource The data source to load schema from
+     * @param catalogName Catalog name (may be null)
+     * @param schemaName Schema name (may be null)
+     * @param previous Previously loaded schema, or null for a full load
+     * @return CompletableFuture containing the new schema metadata
+     */
+    public CompletableFuture<SchemaMetadata> refreshSchemaAsync(DataSource dataSource, 
+                                                                 String catalogName, 
+                                                                 String schemaName,
+                                                                 SchemaMetadata previous) {
         return CompletableFuture.supplyAsync(() -> {
             try (Connection connection = dataSource.getConnection()) {
-                return loadSchema(connection, catalogName, schemaName);
+                return refreshSchema(connection, catalogName, schemaName, previous);
             } catch (SQLException e) {
                 log.error("Failed to load schema asynchronously", e);
                 throw new RuntimeException("Failed to load schema", e);
@@ -82,46 +127,183 @@ public class SchemaLoader {
      */
     public SchemaMetadata loadSchema(Connection connection, String catalogName, String schemaName) 
             throws SQLException {
+        return refreshSchema(connection, catalogName, schemaName, null);
+    }
+    
+    /**
+     * Synchronously refreshes schema metadata from a connection. Tables whose DDL timestamp is unchanged
+     * since the previous load are reused from it; new and altered tables are loaded and dropped tables are
+     * left out. Without a previous load, or on databases without DDL timestamps, all tables are loaded.
+     * 
+     * @param connection Database connection
+     * @param catalogName Catalog name (may be null)
+     * @param schemaName Schema name (may be null)
+     * @param previous Previously loaded schema, or null for a full load
+     * @return New schema metadata, never sharing mutable state with the previous one
+     * @throws SQLException if database access fails
+     */
+    public SchemaMetadata refreshSchema(Connection connection, String catalogName, String schemaName,
+                                        SchemaMetadata previous) throws SQLException {
         log.info("Loading schema metadata for catalog: {}, schema: {}", catalogName, schemaName);
         
         long startTime = System.currentTimeMillis();
         DatabaseMetaData metaData = connection.getMetaData();
         
-        // Load all tables
-        Map<String, TableMetadata> tables = new HashMap<>();
-        
+        // List all tables
+        Set<String> tableNames = new LinkedHashSet<>();
         try (ResultSet tablesRs = metaData.getTables(catalogName, schemaName, null, new String[]{"TABLE"})) {
             while (tablesRs.next()) {
                 String tableName = tablesRs.getString("TABLE_NAME");
                 
                 // Skip system tables
-                if (isSystemTable(tableName)) {
-                    continue;
-                }
-                
-                try {
-                    // Load columns for this table
-                    List<ColumnMetadata> columns = loadColumns(metaData, catalogName, schemaName, tableName);
-                    
-                    if (!columns.isEmpty()) {
-                        // Build Calcite type for this table
-                        RelDataType relDataType = buildTableType(tableName, columns);
-                        
-                        TableMetadata tableMetadata = new TableMetadata(tableName, columns, relDataType);
-                        tables.put(tableName, tableMetadata);
-                        
-                        log.debug("Loaded table: {} with {} columns", tableName, columns.size());
-                    }
-                } catch (SQLException e) {
-                    log.warn("Failed to load columns for table: {}, skipping", tableName, e);
+                if (!isSystemTable(tableName)) {
+                    tableNames.add(tableName);
                 }
             }
         }
         
+        Map<String, Long> changeStamps = loadChangeStamps(connection, metaData, catalogName, schemaName);
+        
+        Map<String, TableMetadata> tables = new HashMap<>();
+        Set<String> toLoad = new LinkedHashSet<>();
+        for (String tableName : tableNames) {
+            TableMetadata unchanged = unchangedTable(previous, changeStamps, tableName);
+            if (unchanged != null) {
+                tables.put(tableName, unchanged);
+            } else {
+                toLoad.add(tableName);
+            }
+        }
+        
+        Map<String, List<ColumnMetadata>> columnsByTable = toLoad.size() >= bulkColumnsThreshold
+                ? loadColumnsBulk(metaData, catalogName, schemaName, toLoad)
+                : loadColumnsPerTable(metaData, catalogName, schemaName, toLoad);
+        
+        for (Map.Entry<String, List<ColumnMetadata>> entry : columnsByTable.entrySet()) {
+            String tableName = entry.getKey();
+            List<ColumnMetadata> columns = entry.getValue();
+            if (!columns.isEmpty()) {
+                // Build Calcite type for this table
+                RelDataType relDataType = buildTableType(tableName, columns);
+                tables.put(tableName, new TableMetadata(tableName, columns, relDataType));
+                log.debug("Loaded table: {} with {} columns", tableName, columns.size());
+            }
+        }
+        
         long duration = System.currentTimeMillis() - startTime;
-        log.info("Loaded {} tables in {}ms", tables.size(), duration);
+        log.info("Loaded {} tables ({} reused from previous load) in {}ms", 
+                tables.size(), tableNames.size() - toLoad.size(), duration);
+        
+        return new SchemaMetadata(Collections.unmodifiableMap(tables), System.currentTimeMillis(), 
+                catalogName, schemaName, changeStamps);
+    }
+    
+    /**
+     * Gets the metadata of a table from the previous load if its DDL timestamp did not change.
+     */
+    private TableMetadata unchangedTable(SchemaMetadata previous, Map<String, Long> changeStamps, String tableName) {
+        if (previous == null) {
+            return null;
+        }
+        Long stamp = changeStamps.get(tableName);
+        if (stamp == null || !stamp.equals(previous.getTableChangeStamps().get(tableName))) {
+            return null;
+        }
+        return previous.getTables().get(tableName);
+    }
+    
+    /**
+     * Loads the columns of each table with one getColumns call per table.
+     */
+    private Map<String, List<ColumnMetadata>> loadColumnsPerTable(DatabaseMetaData metaData, String catalogName,
+                                                                  String schemaName, Set<String> tableNames) {
+        Map<String, List<ColumnMetadata>> columnsByTable = new LinkedHashMap<>();
+        for (String tableName : tableNames) {
+            try {
+                columnsByTable.put(tableName, loadColumns(metaData, catalogName, schemaName, tableName));
+            } catch (SQLException e) {
+                log.warn("Failed to load columns for table: {}, skipping", tableName, e);
+            }
+        }
+        return columnsByTable;
+    }
+    
+    /**
+     * Loads the columns of all tables in a single getColumns pass over the schema, keeping the requested tables.
+     */
+    private Map<String, List<ColumnMetadata>> loadColumnsBulk(DatabaseMetaData metaData, String catalogName,
+                                                              String schemaName, Set<String> tableNames) 
+            throws SQLException {
+        Map<String, List<ColumnMetadata>> columnsByTable = new LinkedHashMap<>();
+        try (ResultSet columnsRs = metaData.getColumns(catalogName, schemaName, "%", "%")) {
+            while (columnsRs.next()) {
+                String tableName = columnsRs.getString("TABLE_NAME");
+                if (tableNames.contains(tableName)) {
+                    columnsByTable.computeIfAbsent(tableName, name -> new ArrayList<>()).add(readColumn(columnsRs));
+                }
+            }
+        }
+        return columnsByTable;
+    }
+    
+    /**
+     * Loads the DDL timestamp of every table from the catalog of databases that keep one.
+     * 
+     * @return DDL timestamps by table name, empty if the database does not expose them or the query fails
+     */
+    private Map<String, Long> loadChangeStamps(Connection connection, DatabaseMetaData metaData, 
+                                               String catalogName, String schemaName) {
+        String query;
+        try {
+            query = changeStampQuery(metaData.getDatabaseProductName());
+        } catch (SQLException e) {
+            return Collections.emptyMap();
+        }
+        if (query == null) {
+            return Collections.emptyMap();
+        }
         
-        return new SchemaMetadata(tables, System.currentTimeMillis(), catalogName, schemaName);
+        Map<String, Long> stamps = new HashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setString(1, schemaName);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp changed = rs.getTimestamp(2);
+                    if (changed != null) {
+                        stamps.put(rs.getString(1), changed.getTime());
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Failed to read table DDL timestamps, schema refresh will reload all tables: {}", e.getMessage());
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(stamps);
+    }
+    
+    /**
+     * Gets the query listing table names with their last DDL time, with the schema as its only parameter
+     * (null for the current schema), or null if the database does not record DDL times.
+     */
+    static String changeStampQuery(String databaseProductName) {
+        if (databaseProductName == null) {
+            return null;
+        }
+        String product = databaseProductName.toUpperCase(Locale.ROOT);
+        if (product.contains("ORACLE")) {
+            return "SELECT OBJECT_NAME, LAST_DDL_TIME FROM ALL_OBJECTS WHERE OBJECT_TYPE = 'TABLE' "
+                    + "AND OWNER = COALESCE(?, SYS_CONTEXT('USERENV', 'CURRENT_SCHEMA'))";
+        }
+        if (product.contains("MICROSOFT SQL SERVER")) {
+            return "SELECT t.name, t.modify_date FROM sys.tables t JOIN sys.schemas s ON s.schema_id = t.schema_id "
+                    + "WHERE s.name = COALESCE(?, SCHEMA_NAME())";
+        }
+        if (product.startsWith("DB2")) {
+            return "SELECT TABNAME, ALTER_TIME FROM SYSCAT.TABLES WHERE TYPE = 'T' "
+                    + "AND TABSCHEMA = COALESCE(CAST(? AS VARCHAR(128)), CURRENT SCHEMA)";
+        }
+        // PostgreSQL, H2 and MySQL (whose instant ALTER TABLE leaves the timestamps alone) have no reliable DDL time
+        return null;
     }
     
     /**
@@ -133,31 +315,34 @@ public class SchemaLoader {
         
         try (ResultSet columnsRs = metaData.getColumns(catalogName, schemaName, tableName, null)) {
             while (columnsRs.next()) {
-                String columnName = columnsRs.getString("COLUMN_NAME");
-                int jdbcType = columnsRs.getInt("DATA_TYPE");
-                String typeName = columnsRs.getString("TYPE_NAME");
-                int nullable = columnsRs.getInt("NULLABLE");
-                int precision = columnsRs.getInt("COLUMN_SIZE");
-                int scale = columnsRs.getInt("DECIMAL_DIGITS");
-                
-                // Handle null scale
-                if (columnsRs.wasNull()) {
-                    scale = 0;
-                }
-                
-                boolean isNullable = (nullable == DatabaseMetaData.columnNullable);
-                
-                ColumnMetadata column = new ColumnMetadata(
-                    columnName, jdbcType, typeName, isNullable, precision, scale
-                );
-                
-                columns.add(column);
+                columns.add(readColumn(columnsRs));
             }
         }
         
         return columns;
     }
     
+    /**
+     * Reads the column at the current row of a getColumns result set.
+     */
+    private ColumnMetadata readColumn(ResultSet columnsRs) throws SQLException {
+        String columnName = columnsRs.getString("COLUMN_NAME");
+        int jdbcType = columnsRs.getInt("DATA_TYPE");
+        String typeName = columnsRs.getString("TYPE_NAME");
+        int nullable = columnsRs.getInt("NULLABLE");
+        int precision = columnsRs.getInt("COLUMN_SIZE");
+        int scale = columnsRs.getInt("DECIMAL_DIGITS");
+        
+        // Handle null scale
+        if (columnsRs.wasNull()) {
+            scale = 0;
+        }
+        
+        boolean isNullable = (nullable == DatabaseMetaData.columnNullable);
+        
+        return new ColumnMetadata(columnName, jdbcType, typeName, isNullable, precision, scale);
+    }
+    
     /**
      * Builds a Calcite RelDataType from column metadata.
      */
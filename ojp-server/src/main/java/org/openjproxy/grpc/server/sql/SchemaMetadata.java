@@ -2,6 +2,7 @@ package org.openjproxy.grpc.server.sql;
 
 import lombok.Data;
 
+import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -14,6 +15,7 @@ public class SchemaMetadata {
     private final long loadTimestamp;
     private final String catalogName;
     private final String schemaName;
+    private final Map<String, Long> tableChangeStamps;
     
     /**
      * Creates schema metadata.
@@ -25,10 +27,25 @@ public class SchemaMetadata {
      */
     public SchemaMetadata(Map<String, TableMetadata> tables, long loadTimestamp, 
                          String catalogName, String schemaName) {
+        this(tables, loadTimestamp, catalogName, schemaName, Collections.emptyMap());
+    }
+    
+    /**
+     * Creates schema metadata with the DDL timestamps the tables were loaded at.
+     * 
+     * @param tables Map of table name to table metadata
+     * @param loadTimestamp When this schema was loaded (milliseconds since epoch)
+     * @param catalogName Database catalog name (may be null)
+     * @param schemaName Database schema name (may be null)
+     * @param tableChangeStamps Last DDL time of each table as reported by the database, empty if unknown
+     */
+    public SchemaMetadata(Map<String, TableMetadata> tables, long loadTimestamp, 
+                         String catalogName, String schemaName, Map<String, Long> tableChangeStamps) {
         this.tables = tables;
         this.loadTimestamp = loadTimestamp;
         this.catalogName = catalogName;
         this.schemaName = schemaName;
+        this.tableChangeStamps = tableChangeStamps;
     }
     
     /**
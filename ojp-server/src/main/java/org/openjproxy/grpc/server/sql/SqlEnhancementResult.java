@@ -71,6 +71,23 @@ public class SqlEnhancementResult {
         return new SqlEnhancementResult(originalSql, false, false, null, false, null, 0);
     }
     
+    /**
+     * Creates a copy of this result carrying a different SQL text.
+     * Only meaningful for unmodified results, where the enhanced SQL is the original statement and
+     * the outcome does not depend on the literal values inlined in it, and for results computed for
+     * parameterized SQL, carrying that SQL with a statement's literals bound.
+     *
+     * @param sql The SQL text to carry
+     * @return SqlEnhancementResult with the same metadata and the given SQL
+     */
+    SqlEnhancementResult rebind(String sql) {
+        if (sql.equals(enhancedSql)) {
+            return this;
+        }
+        return new SqlEnhancementResult(sql, modified, hasErrors, errorMessage,
+                                       optimized, appliedRules, optimizationTimeMs);
+    }
+
     /**
      * Creates an error result.
      * 
@@ -0,0 +1,306 @@
+package org.openjproxy.grpc.server.sql;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of SQL enhancement results.
+ *
+ * Entries are keyed by the literal-normalized {@link SqlFingerprint} of the statement, so applications
+ * that inline literals instead of using bind variables do not create one entry per distinct literal value.
+ * An unmodified enhancement outcome does not depend on the literal values and is shared by every variant
+ * of the fingerprint. A modified outcome (optimized or translated SQL) embeds the literals of the statement
+ * it was computed for. For those, the parameterized SQL of the fingerprint is enhanced too, and the resulting
+ * template is kept if binding the statement's own literals into it gives back exactly the modified SQL; other
+ * variants then get the template with their literals bound. Binding only proves the markers are in order when
+ * the statement's literals are all different, so until a variant with distinct literals comes by, and for
+ * templates that fail the check (e.g. a rule folded a literal), variants fall back to an entry keyed by their
+ * exact text.
+ *
+ * The cache is bounded by total SQL characters rather than entry count, evicting least recently used entries
+ * per segment once the budget is exceeded. Concurrent misses on the same key are coalesced so the Calcite
+ * parse/convert/optimize pipeline runs once per statement.
+ */
+@Slf4j
+public class SqlEnhancerCache {
+
+    /**
+     * Default budget in SQL characters (roughly 8MB of String data).
+     */
+    public static final long DEFAULT_MAX_WEIGHT = 4L * 1024 * 1024;
+
+    // Prefix for exact-text keys, cannot collide with a fingerprint as fingerprints never start with a control char
+    private static final String EXACT_KEY_PREFIX = "\u0000";
+
+    private final long maxWeight;
+    private final Cache<String, Entry> cache;
+
+    private final AtomicLong hitCount = new AtomicLong(0);
+    private final AtomicLong literalVariantHitCount = new AtomicLong(0);
+    private final AtomicLong missCount = new AtomicLong(0);
+
+    /**
+     * Cached enhancement outcome together with the statement it was computed for.
+     */
+    private static final class Entry {
+        private static final int TEMPLATE_UNKNOWN = 0;
+        private static final int TEMPLATE_BUILDING = 1;
+        private static final int TEMPLATE_SETTLED = 2;
+
+        private final String sourceSql;
+        private final SqlEnhancementResult result;
+        // Enhancement of the parameterized SQL, set once verified against a variant with distinct literals
+        private volatile SqlEnhancementResult template;
+        private final AtomicInteger templateState = new AtomicInteger(TEMPLATE_UNKNOWN);
+
+        private Entry(String sourceSql, SqlEnhancementResult result) {
+            this.sourceSql = sourceSql;
+            this.result = result;
+        }
+
+        private boolean isLiteralIndependent() {
+            return !result.isModified();
+        }
+
+        private int weight(String key) {
+            int weight = key.length() + sourceSql.length();
+            if (result.getEnhancedSql() != sourceSql) {
+                weight += result.getEnhancedSql().length();
+            }
+            SqlEnhancementResult t = template;
+            if (t != null) {
+                weight += t.getEnhancedSql().length();
+            }
+            return weight;
+        }
+    }
+
+    /**
+     * Entry returned by a load, and whether this load computed it or found it loaded by a concurrent caller.
+     */
+    private static final class Load {
+        private final Entry entry;
+        private final boolean computed;
+
+        private Load(Entry entry, boolean computed) {
+            this.entry = entry;
+            this.computed = computed;
+        }
+    }
+
+    /**
+     * Creates a new cache bounded by the given number of SQL characters.
+     *
+     * @param maxWeight Maximum total SQL characters held by the cache (0 disables caching)
+     */
+    public SqlEnhancerCache(long maxWeight) {
+        this.maxWeight = Math.max(0, maxWeight);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(this.maxWeight)
+                .weigher((String key, Entry entry) -> entry.weight(key))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Gets the enhancement result for the given SQL, computing it with the loader on a miss.
+     * Concurrent callers missing on the same key wait for a single computation.
+     *
+     * @param sql The SQL statement
+     * @param loader Function computing the enhancement result for a SQL statement
+     * @return The cached or freshly computed result
+     */
+    public SqlEnhancementResult get(String sql, Function<String, SqlEnhancementResult> loader) {
+        return lookup(sql, loader);
+    }
+
+    /**
+     * Gets the enhancement result for the given SQL if it is already cached, without computing it.
+     *
+     * @param sql The SQL statement
+     * @return The cached result or null if the statement has not been enhanced yet
+     */
+    public SqlEnhancementResult getIfPresent(String sql) {
+        return lookup(sql, null);
+    }
+
+    private SqlEnhancementResult lookup(String sql, Function<String, SqlEnhancementResult> loader) {
+        SqlFingerprint fingerprint = SqlFingerprint.of(sql);
+        String key = fingerprint.getText();
+
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            if (loader == null) {
+                return null;
+            }
+            Load load = load(key, sql, loader);
+            entry = load.entry;
+            if (load.computed) {
+                buildTemplate(key, entry, fingerprint, entry.result, loader);
+                return entry.result;
+            }
+        }
+
+        if (entry.sourceSql.equals(sql)) {
+            hitCount.incrementAndGet();
+            return entry.result;
+        }
+        if (entry.isLiteralIndependent()) {
+            hitCount.incrementAndGet();
+            if (fingerprint.hasLiterals()) {
+                literalVariantHitCount.incrementAndGet();
+            }
+            return entry.result.rebind(sql);
+        }
+
+        // Modified outcome computed for another literal variant, bind this variant's literals into the template
+        SqlEnhancementResult template = entry.template;
+        if (template != null) {
+            String bound = fingerprint.bind(template.getEnhancedSql());
+            if (bound != null) {
+                hitCount.incrementAndGet();
+                literalVariantHitCount.incrementAndGet();
+                return template.rebind(bound);
+            }
+        }
+
+        // No usable template, cache this variant by its exact text
+        String exactKey = EXACT_KEY_PREFIX + sql;
+        Entry exact = cache.getIfPresent(exactKey);
+        if (exact != null) {
+            hitCount.incrementAndGet();
+            return exact.result;
+        }
+        if (loader == null) {
+            return null;
+        }
+        SqlEnhancementResult result = load(exactKey, sql, loader).entry.result;
+        buildTemplate(key, entry, fingerprint, result, loader);
+        return result;
+    }
+
+    /**
+     * Enhances the parameterized SQL of a modified entry and keeps it as the entry's template if binding
+     * the literals of the statement that was just enhanced gives back the same outcome. Runs at most once
+     * per entry, after a variant with distinct literals was enhanced.
+     */
+    private void buildTemplate(String key, Entry entry, SqlFingerprint fingerprint, SqlEnhancementResult result,
+                               Function<String, SqlEnhancementResult> loader) {
+        if (!result.isModified() || result.isHasErrors() || !fingerprint.hasLiterals()
+                || !fingerprint.hasDistinctLiterals()
+                || !entry.templateState.compareAndSet(Entry.TEMPLATE_UNKNOWN, Entry.TEMPLATE_BUILDING)) {
+            return;
+        }
+        try {
+            SqlEnhancementResult template = loader.apply(fingerprint.getParameterizedSql());
+            if (template.isModified() && !template.isHasErrors()
+                    && result.getEnhancedSql().equals(fingerprint.bind(template.getEnhancedSql()))) {
+                entry.template = template;
+                // Re-weigh the entry with its template, unless it was evicted meanwhile
+                cache.asMap().replace(key, entry, entry);
+            } else {
+                log.debug("Parameterized enhancement does not match for fingerprint, literal variants are enhanced one by one");
+            }
+        } catch (RuntimeException e) {
+            log.debug("Failed to enhance parameterized SQL: {}", e.getMessage());
+        } finally {
+            entry.templateState.set(Entry.TEMPLATE_SETTLED);
+        }
+    }
+
+    private Load load(String key, String sql, Function<String, SqlEnhancementResult> loader) {
+        AtomicBoolean computed = new AtomicBoolean();
+        try {
+            Entry entry = cache.get(key, () -> {
+                computed.set(true);
+                missCount.incrementAndGet();
+                return new Entry(sql, loader.apply(sql));
+            });
+            return new Load(entry, computed.get());
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            log.warn("Failed to load SQL enhancement into cache, computing without caching: {}", e.getMessage());
+            return new Load(new Entry(sql, loader.apply(sql)), true);
+        }
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Gets the approximate number of cached entries.
+     *
+     * @return Number of entries
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * Gets the maximum total SQL characters held by the cache.
+     *
+     * @return Maximum weight
+     */
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     *
+     * @return Hit count
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Gets the number of hits served from an entry computed for a different literal variant.
+     *
+     * @return Literal variant hit count
+     */
+    public long getLiteralVariantHitCount() {
+        return literalVariantHitCount.get();
+    }
+
+    /**
+     * Gets the number of lookups that required computing the enhancement.
+     *
+     * @return Miss count
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Gets the number of entries evicted because the weight budget was exceeded.
+     *
+     * @return Eviction count
+     */
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    /**
+     * Gets the hit ratio of the cache.
+     *
+     * @return Hit ratio between 0.0 and 1.0
+     */
+    public double getHitRatio() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
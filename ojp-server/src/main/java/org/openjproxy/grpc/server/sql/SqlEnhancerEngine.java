@@ -10,7 +10,6 @@ import org.apache.calcite.sql.validate.SqlConformanceEnum;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -20,7 +19,7 @@ import java.util.concurrent.atomic.AtomicLong;
  * - SQL syntax validation and parsing
  * - Query optimization using rule-based transformations
  * - SQL rewriting for improved performance
- * - Comprehensive caching for fast repeated queries
+ * - Bounded caching keyed by literal-normalized fingerprints for fast repeated queries
  * - Metrics tracking for monitoring
  */
 @Slf4j
@@ -28,7 +27,7 @@ public class SqlEnhancerEngine {
     
     private final boolean enabled;
     private final SqlParser.Config parserConfig;
-    private final ConcurrentHashMap<String, SqlEnhancementResult> cache;
+    private final SqlEnhancerCache cache;
     private final OjpSqlDialect dialect;
     private final org.apache.calcite.sql.SqlDialect calciteDialect;
     private final OjpSqlDialect targetDialect; // Target dialect for translation
@@ -72,16 +71,17 @@ public class SqlEnhancerEngine {
      * @param catalogName Catalog name for schema refresh (can be null)
      * @param schemaName Schema name for schema refresh (can be null)
      * @param schemaRefreshIntervalHours Hours between schema refreshes (0 = disabled)
+     * @param cache Cache of enhancement results
      */
     public SqlEnhancerEngine(boolean enabled, String dialectName, String targetDialectName, boolean conversionEnabled,
                              boolean optimizationEnabled, List<String> enabledRules,
                              SchemaCache schemaCache, SchemaLoader schemaLoader,
                              javax.sql.DataSource dataSource, String catalogName, String schemaName,
-                             long schemaRefreshIntervalHours) {
+                             long schemaRefreshIntervalHours, SqlEnhancerCache cache) {
         this.enabled = enabled;
         this.conversionEnabled = conversionEnabled;
         this.optimizationEnabled = optimizationEnabled;
-        this.cache = new ConcurrentHashMap<>();
+        this.cache = cache;
         this.dialect = OjpSqlDialect.fromString(dialectName);
         this.calciteDialect = dialect.getCalciteDialect();
         
@@ -137,6 +137,33 @@ public class SqlEnhancerEngine {
         }
     }
     
+    /**
+     * Creates a new SqlEnhancerEngine with full configuration options including schema refresh
+     * and a default sized result cache.
+     * 
+     * @param enabled Whether the SQL enhancer is enabled
+     * @param dialectName The SQL dialect to use (source dialect)
+     * @param targetDialectName The target SQL dialect for translation (empty = no translation)
+     * @param conversionEnabled Whether to enable SQL-to-RelNode conversion
+     * @param optimizationEnabled Whether to enable query optimization
+     * @param enabledRules List of rule names to enable (null = use safe rules)
+     * @param schemaCache Optional schema cache for real schema metadata (can be null)
+     * @param schemaLoader Optional schema loader for periodic refresh (can be null)
+     * @param dataSource Optional data source for schema refresh (can be null)
+     * @param catalogName Catalog name for schema refresh (can be null)
+     * @param schemaName Schema name for schema refresh (can be null)
+     * @param schemaRefreshIntervalHours Hours between schema refreshes (0 = disabled)
+     */
+    public SqlEnhancerEngine(boolean enabled, String dialectName, String targetDialectName, boolean conversionEnabled,
+                             boolean optimizationEnabled, List<String> enabledRules,
+                             SchemaCache schemaCache, SchemaLoader schemaLoader,
+                             javax.sql.DataSource dataSource, String catalogName, String schemaName,
+                             long schemaRefreshIntervalHours) {
+        this(enabled, dialectName, targetDialectName, conversionEnabled, optimizationEnabled, enabledRules,
+             schemaCache, schemaLoader, dataSource, catalogName, schemaName, schemaRefreshIntervalHours,
+             new SqlEnhancerCache(SqlEnhancerCache.DEFAULT_MAX_WEIGHT));
+    }
+    
     /**
      * Creates a new SqlEnhancerEngine with full configuration options (without schema refresh).
      * 
@@ -218,6 +245,16 @@ public class SqlEnhancerEngine {
         this(enabled, "GENERIC");
     }
     
+    /**
+     * Creates a new SqlEnhancerEngine with default GENERIC dialect and the given result cache.
+     * 
+     * @param enabled Whether the SQL enhancer is enabled
+     * @param cache Cache of enhancement results
+     */
+    public SqlEnhancerEngine(boolean enabled, SqlEnhancerCache cache) {
+        this(enabled, "GENERIC", "", false, false, null, null, null, null, null, null, 0, cache);
+    }
+    
     /**
      * Get SQL conformance based on dialect.
      */
@@ -260,7 +297,19 @@ public class SqlEnhancerEngine {
      * @return String describing cache statistics
      */
     public String getCacheStats() {
-        return String.format("Cache size: %d (no max limit, dynamically expands)", cache.size());
+        return String.format("Cache size: %d, MaxWeight=%d chars, Hits=%d (literal variants=%d), Misses=%d, "
+                        + "Evictions=%d, HitRatio=%.1f%%",
+                cache.size(), cache.getMaxWeight(), cache.getHitCount(), cache.getLiteralVariantHitCount(),
+                cache.getMissCount(), cache.getEvictionCount(), 100.0 * cache.getHitRatio());
+    }
+    
+    /**
+     * Gets the enhancement result cache, exposing hit/miss/eviction metrics.
+     * 
+     * @return the result cache
+     */
+    public SqlEnhancerCache getCache() {
+        return cache;
     }
     
     /**
@@ -306,8 +355,9 @@ public class SqlEnhancerEngine {
      * Phase 3: Adds database-specific dialect support.
      * 
      * Note: Enhancement happens synchronously in the same thread as query execution,
-     * on the first execution of each unique SQL query. The SQL is blocked until 
-     * parsing completes or times out. Subsequent executions use cached results.
+     * on the first execution of each unique SQL fingerprint. The SQL is blocked until 
+     * parsing completes or times out. Concurrent first executions wait for a single
+     * enhancement, subsequent executions use cached results.
      * 
      * @param sql The SQL statement to enhance
      * @return SqlEnhancementResult containing the result
@@ -318,14 +368,35 @@ public class SqlEnhancerEngine {
             return SqlEnhancementResult.passthrough(sql);
         }
         
-        // Phase 2: Use original SQL as cache key
-        // Check cache first - no synchronization needed for ConcurrentHashMap.get()
-        SqlEnhancementResult cached = cache.get(sql);
-        if (cached != null) {
-            log.debug("Cache hit for SQL (dialect: {}): {}", dialect, sql.substring(0, Math.min(sql.length(), 50)));
-            return cached;
-        }
+        SqlEnhancementResult result = cache.get(sql, this::computeEnhancement);
         
+        // Check if schema refresh is needed (after enhancement to minimize overhead)
+        triggerSchemaRefreshIfNeeded();
+        
+        return result;
+    }
+    
+    /**
+     * Gets the enhancement result for the given SQL only if it has already been computed.
+     * Never runs the enhancement pipeline, so it is safe to call on the query execution path.
+     * 
+     * @param sql The SQL statement
+     * @return SqlEnhancementResult, or null if the statement has not been enhanced yet
+     */
+    public SqlEnhancementResult getEnhancementIfReady(String sql) {
+        if (!enabled) {
+            return SqlEnhancementResult.passthrough(sql);
+        }
+        return cache.getIfPresent(sql);
+    }
+    
+    /**
+     * Runs the full parse/convert/optimize/translate pipeline for a SQL statement, bypassing the cache.
+     * 
+     * @param sql The SQL statement to enhance
+     * @return SqlEnhancementResult containing the result
+     */
+    private SqlEnhancementResult computeEnhancement(String sql) {
         // Track metrics
         totalQueriesProcessed.incrementAndGet();
         
@@ -469,13 +540,6 @@ public class SqlEnhancerEngine {
             log.debug("SQL enhancement took {}ms for SQL: {}", duration, sql.substring(0, Math.min(sql.length(), 50)));
         }
         
-        // Phase 2: Cache the result - ConcurrentHashMap.put() is thread-safe without explicit synchronization
-        // If two threads cache the same SQL simultaneously, the last one wins (acceptable - same result)
-        cache.put(sql, result);
-        
-        // Check if schema refresh is needed (after enhancement to minimize overhead)
-        triggerSchemaRefreshIfNeeded();
-        
         return result;
     }
     
@@ -546,8 +610,8 @@ public class SqlEnhancerEngine {
             if (schemaCache.tryAcquireRefreshLock()) {
                 try {
                     log.debug("Triggering async schema refresh");
-                    // Trigger async refresh
-                    schemaLoader.loadSchemaAsync(dataSource, catalogName, schemaName)
+                    // Trigger async refresh, reloading only tables changed since the cached schema was loaded
+                    schemaLoader.refreshSchemaAsync(dataSource, catalogName, schemaName, schemaCache.getSchema(false))
                         .thenAccept(schema -> {
                             schemaCache.updateSchema(schema);
                             log.info("Schema refreshed successfully with {} tables", schema.getTables().size());
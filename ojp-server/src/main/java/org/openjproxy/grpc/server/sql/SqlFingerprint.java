@@ -0,0 +1,283 @@
+package org.openjproxy.grpc.server.sql;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Literal-normalized fingerprint of a SQL statement.
+ *
+ * The fingerprint collapses whitespace runs into a single space and replaces string and numeric
+ * literals with {@code ?}, so statements that only differ by inlined literal values share the same
+ * fingerprint. Quoted identifiers and comments are kept verbatim because they can change the meaning
+ * of the statement (or carry optimizer hints).
+ *
+ * Example: {@code SELECT * FROM users WHERE id = 42 AND name = 'bob'} and
+ * {@code SELECT *  FROM users WHERE id = 7 AND name = 'alice'} both produce
+ * {@code SELECT * FROM users WHERE id = ? AND name = ?}.
+ *
+ * The positions of the literals and of the statement's own {@code ?} markers are kept, so the statement
+ * can be turned into parameterized SQL, and SQL derived from that parameterized SQL can have this
+ * statement's literals bound back into it, see {@link #getParameterizedSql()} and {@link #bind(String)}.
+ */
+public final class SqlFingerprint {
+
+    private static final int[] NO_SLOTS = new int[0];
+
+    private final String sql;
+    private final String text;
+    private final int literalCount;
+    // Start and end offsets of each literal and ? marker in sql, in order of appearance
+    private final int[] slots;
+
+    private SqlFingerprint(String sql, String text, int literalCount, int[] slots) {
+        this.sql = sql;
+        this.text = text;
+        this.literalCount = literalCount;
+        this.slots = slots;
+    }
+
+    /**
+     * Computes the fingerprint of the given SQL in a single pass.
+     *
+     * @param sql The SQL statement
+     * @return The fingerprint (never null)
+     */
+    public static SqlFingerprint of(String sql) {
+        if (sql == null || sql.isEmpty()) {
+            return new SqlFingerprint("", "", 0, NO_SLOTS);
+        }
+
+        int len = sql.length();
+        StringBuilder out = new StringBuilder(len);
+        int literals = 0;
+        int[] slots = NO_SLOTS;
+        int slotCount = 0;
+        boolean pendingSpace = false;
+        int i = 0;
+
+        while (i < len) {
+            char c = sql.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                pendingSpace = out.length() > 0;
+                i++;
+                continue;
+            }
+            if (pendingSpace) {
+                out.append(' ');
+                pendingSpace = false;
+            }
+
+            if (c == '\'') {
+                // String literal, '' is an escaped quote
+                int end = skipQuoted(sql, i, '\'');
+                slots = addSlot(slots, slotCount++, i, end);
+                i = end;
+                out.append('?');
+                literals++;
+            } else if (c == '"' || c == '`' || c == '[') {
+                // Quoted identifier, kept verbatim
+                int end = skipQuoted(sql, i, c == '[' ? ']' : c);
+                out.append(sql, i, end);
+                i = end;
+            } else if (c == '-' && i + 1 < len && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                end = end < 0 ? len : end;
+                out.append(sql, i, end);
+                i = end;
+            } else if (c == '/' && i + 1 < len && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                end = end < 0 ? len : end + 2;
+                out.append(sql, i, end);
+                i = end;
+            } else if (isNumberStart(sql, i) && !isIdentifierPart(out)) {
+                int end = skipNumber(sql, i);
+                slots = addSlot(slots, slotCount++, i, end);
+                i = end;
+                out.append('?');
+                literals++;
+            } else if (c == '?') {
+                slots = addSlot(slots, slotCount++, i, i + 1);
+                out.append(c);
+                i++;
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+
+        return new SqlFingerprint(sql, out.toString(), literals,
+                slotCount * 2 == slots.length ? slots : Arrays.copyOf(slots, slotCount * 2));
+    }
+
+    private static int[] addSlot(int[] slots, int index, int start, int end) {
+        if (slots.length < (index + 1) * 2) {
+            slots = Arrays.copyOf(slots, Math.max(8, slots.length * 2));
+        }
+        slots[index * 2] = start;
+        slots[index * 2 + 1] = end;
+        return slots;
+    }
+
+    /**
+     * Gets the normalized fingerprint text.
+     *
+     * @return The fingerprint text
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Gets the number of literals replaced by placeholders.
+     *
+     * @return The number of literals
+     */
+    public int getLiteralCount() {
+        return literalCount;
+    }
+
+    /**
+     * Checks if any literal was replaced while fingerprinting.
+     *
+     * @return true if the SQL contained inlined literals
+     */
+    public boolean hasLiterals() {
+        return literalCount > 0;
+    }
+
+    /**
+     * Gets the statement with every literal replaced by a {@code ?} marker, keeping everything else,
+     * whitespace and comments included, verbatim. Its markers are numbered like the statement's slots:
+     * the n-th marker stands for the n-th literal or {@code ?} marker of the statement.
+     *
+     * @return The parameterized SQL, the statement itself when it has no literals
+     */
+    public String getParameterizedSql() {
+        if (literalCount == 0) {
+            return sql;
+        }
+        StringBuilder out = new StringBuilder(sql.length());
+        int last = 0;
+        for (int i = 0; i < slots.length; i += 2) {
+            out.append(sql, last, slots[i]).append('?');
+            last = slots[i + 1];
+        }
+        return out.append(sql, last, sql.length()).toString();
+    }
+
+    /**
+     * Checks if the literals of the statement all have different texts. Only then does a template that
+     * binds back to this statement's SQL prove that its markers are in the statement's order.
+     *
+     * @return true if no two literals have the same text
+     */
+    public boolean hasDistinctLiterals() {
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < slots.length; i += 2) {
+            String slot = sql.substring(slots[i], slots[i + 1]);
+            if (!slot.equals("?") && !seen.add(slot)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Binds the literals of this statement into SQL derived from its parameterized SQL, replacing the
+     * n-th {@code ?} marker of the template with the n-th literal, or marker, of this statement.
+     * Markers inside quoted strings, quoted identifiers and comments of the template are left alone.
+     *
+     * @param template SQL derived from {@link #getParameterizedSql()}
+     * @return The template with this statement's literals bound, or null if the template does not
+     *         have one marker per literal and marker of the statement
+     */
+    public String bind(String template) {
+        int len = template.length();
+        StringBuilder out = new StringBuilder(len + sql.length() - text.length());
+        int slot = 0;
+        int i = 0;
+        while (i < len) {
+            char c = template.charAt(i);
+            int end;
+            if (c == '\'' || c == '"' || c == '`' || c == '[') {
+                end = skipQuoted(template, i, c == '[' ? ']' : c);
+            } else if (c == '-' && i + 1 < len && template.charAt(i + 1) == '-') {
+                end = template.indexOf('\n', i);
+                end = end < 0 ? len : end;
+            } else if (c == '/' && i + 1 < len && template.charAt(i + 1) == '*') {
+                end = template.indexOf("*/", i + 2);
+                end = end < 0 ? len : end + 2;
+            } else if (c == '?') {
+                if (slot * 2 == slots.length) {
+                    return null;
+                }
+                out.append(sql, slots[slot * 2], slots[slot * 2 + 1]);
+                slot++;
+                i++;
+                continue;
+            } else {
+                end = i + 1;
+            }
+            out.append(template, i, end);
+            i = end;
+        }
+        return slot * 2 == slots.length ? out.toString() : null;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    private static int skipQuoted(String sql, int start, char close) {
+        int len = sql.length();
+        int i = start + 1;
+        while (i < len) {
+            if (sql.charAt(i) == close) {
+                // Doubled closing character is an escape
+                if (i + 1 < len && sql.charAt(i + 1) == close) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return len;
+    }
+
+    private static boolean isNumberStart(String sql, int i) {
+        char c = sql.charAt(i);
+        if (c >= '0' && c <= '9') {
+            return true;
+        }
+        return c == '.' && i + 1 < sql.length() && Character.isDigit(sql.charAt(i + 1));
+    }
+
+    private static int skipNumber(String sql, int start) {
+        int len = sql.length();
+        int i = start;
+        while (i < len) {
+            char c = sql.charAt(i);
+            if (Character.isLetterOrDigit(c) || c == '.') {
+                i++;
+            } else if ((c == '+' || c == '-') && (sql.charAt(i - 1) == 'e' || sql.charAt(i - 1) == 'E')) {
+                // Exponent sign, e.g. 1.5E-3
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isIdentifierPart(StringBuilder out) {
+        if (out.length() == 0) {
+            return false;
+        }
+        char prev = out.charAt(out.length() - 1);
+        return Character.isLetterOrDigit(prev) || prev == '_' || prev == '$' || prev == '#' || prev == '@';
+    }
+}
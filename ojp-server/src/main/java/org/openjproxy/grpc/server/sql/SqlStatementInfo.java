@@ -0,0 +1,496 @@
+package org.openjproxy.grpc.server.sql;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Facts about a SQL statement gathered in a single pass over its text.
+ *
+ * One scan produces:
+ * - the xxHash64 of the {@link #normalize normalized} statement, hashed while streaming the characters
+ *   instead of building the normalized String and its UTF-8 byte array. Statements whose lowercasing
+ *   Character.toLowerCase cannot reproduce (capital I with dot, capital sigma, or a Turkish, Azerbaijani or
+ *   Lithuanian default locale) are hashed from the normalized String, so the hash always equals the xxHash64
+ *   of the normalized String's UTF-8 bytes
+ * - the statement kind, from the first keyword
+ * - the session affinity flags (temporary tables, session variables, prepared statements), from the
+ *   first few keywords, replacing the regular expressions previously matched on every request
+ *
+ * Leading whitespace and comments are skipped when reading keywords. Results are memoized per SQL text
+ * in a small bounded cache, since the same statements are executed over and over.
+ */
+public final class SqlStatementInfo {
+
+    /**
+     * Kind of statement, from its first keyword.
+     */
+    public enum Kind {
+        SELECT, WITH, VALUES, INSERT, UPDATE, DELETE, MERGE, UPSERT, CALL, EXEC,
+        CREATE, ALTER, DROP, TRUNCATE, SET, PREPARE, DECLARE, OTHER;
+
+        public boolean isQuery() {
+            return this == SELECT || this == WITH || this == VALUES;
+        }
+
+        public boolean isDdl() {
+            return this == CREATE || this == ALTER || this == DROP || this == TRUNCATE;
+        }
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    static final long HASH_SEED = 0x9747b28c;
+
+    // Languages whose lowercasing rules String.toLowerCase() applies beyond Character.toLowerCase()
+    private static final Set<String> SPECIAL_CASING_LANGUAGES = Set.of("tr", "az", "lt");
+
+    // xxHash64 primes
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+    private static final long P5 = 0x27D4EB2F165667C5L;
+
+    // SQL longer than this is scanned on every call rather than memoized, the scan is cheap next to the
+    // memory a handful of huge statements would pin
+    private static final int MAX_MEMOIZED_LENGTH = 4096;
+    private static final long MEMO_MAX_CHARS = 2L * 1024 * 1024;
+
+    private static final Cache<String, SqlStatementInfo> MEMO = CacheBuilder.newBuilder()
+            .maximumWeight(MEMO_MAX_CHARS)
+            .weigher((String sql, SqlStatementInfo info) -> sql.length())
+            .build();
+
+    private static final SqlStatementInfo EMPTY = new SqlStatementInfo(
+            Kind.OTHER, finishHash(HASH_SEED + P5, 0, 0, 0, 0, 0, 0, 0), false, false, false);
+
+    private final Kind kind;
+    private final long hash;
+    private final String hashHex;
+    private final boolean temporaryTable;
+    private final boolean sessionVariable;
+    private final boolean preparedStatement;
+
+    private SqlStatementInfo(Kind kind, long hash, boolean temporaryTable, boolean sessionVariable,
+                             boolean preparedStatement) {
+        this.kind = kind;
+        this.hash = hash;
+        this.hashHex = Long.toHexString(hash);
+        this.temporaryTable = temporaryTable;
+        this.sessionVariable = sessionVariable;
+        this.preparedStatement = preparedStatement;
+    }
+
+    /**
+     * Gets the statement info for the given SQL, scanning it only the first time it is seen.
+     *
+     * @param sql The SQL statement (null is treated as empty)
+     * @return Statement info
+     */
+    public static SqlStatementInfo of(String sql) {
+        if (sql == null || sql.isEmpty()) {
+            return EMPTY;
+        }
+        if (sql.length() > MAX_MEMOIZED_LENGTH) {
+            return scan(sql);
+        }
+        SqlStatementInfo info = MEMO.getIfPresent(sql);
+        if (info == null) {
+            info = scan(sql);
+            MEMO.put(sql, info);
+        }
+        return info;
+    }
+
+    /**
+     * Scans the given SQL without consulting the memo.
+     *
+     * @param sql The SQL statement (null is treated as empty)
+     * @return Statement info
+     */
+    public static SqlStatementInfo scan(String sql) {
+        if (sql == null || sql.isEmpty()) {
+            return EMPTY;
+        }
+        return new Scanner(sql).run();
+    }
+
+    /**
+     * Normalizes the SQL the way the statement hash sees it: trimmed, whitespace runs collapsed to a single
+     * space and lowercased in the default locale.
+     *
+     * @param sql The SQL statement (null is treated as empty)
+     * @return Normalized SQL
+     */
+    public static String normalize(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        return sql.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the 64-bit xxHash of the normalized statement.
+     *
+     * @return Hash value
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Gets the 64-bit xxHash of the normalized statement as a hex string, as used for statement keys.
+     *
+     * @return Hash as hex string
+     */
+    public String getHashHex() {
+        return hashHex;
+    }
+
+    public boolean isTemporaryTable() {
+        return temporaryTable;
+    }
+
+    public boolean isSessionVariable() {
+        return sessionVariable;
+    }
+
+    public boolean isPreparedStatement() {
+        return preparedStatement;
+    }
+
+    /**
+     * Whether the statement creates session state and must stick to the same database connection.
+     *
+     * @return true if session affinity is required
+     */
+    public boolean requiresSessionAffinity() {
+        return temporaryTable || sessionVariable || preparedStatement;
+    }
+
+    @Override
+    public String toString() {
+        return "SqlStatementInfo{kind=" + kind + ", hash=" + hashHex
+                + ", sessionAffinity=" + requiresSessionAffinity() + "}";
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * P2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * P1;
+    }
+
+    private static long mergeRound(long acc, long value) {
+        acc ^= round(0, value);
+        return acc * P1 + P4;
+    }
+
+    /**
+     * Completes an xxHash64 from the accumulated state and the bytes not yet consumed by a full stripe:
+     * up to three full 8-byte lanes and a partial lane of {@code tailBytes} bytes.
+     */
+    private static long finishHash(long h, long length, int lanes, long lane0, long lane1, long lane2,
+                                   long tail, int tailBytes) {
+        h += length;
+        for (int i = 0; i < lanes; i++) {
+            long lane = i == 0 ? lane0 : i == 1 ? lane1 : lane2;
+            h ^= round(0, lane);
+            h = Long.rotateLeft(h, 27) * P1 + P4;
+        }
+        if (tailBytes >= 4) {
+            h ^= (tail & 0xFFFFFFFFL) * P1;
+            h = Long.rotateLeft(h, 23) * P2 + P3;
+            tail >>>= 32;
+            tailBytes -= 4;
+        }
+        for (int i = 0; i < tailBytes; i++) {
+            h ^= (tail & 0xFF) * P5;
+            h = Long.rotateLeft(h, 11) * P1;
+            tail >>>= 8;
+        }
+        h ^= h >>> 33;
+        h *= P2;
+        h ^= h >>> 29;
+        h *= P3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    /**
+     * Single-use scanner state. All state is primitive, no intermediate Strings or byte arrays are created.
+     */
+    private static final class Scanner {
+
+        private static final int MAX_KEYWORDS = 4;
+
+        private final String sql;
+
+        // xxHash64 streaming state over the UTF-8 bytes of the normalized statement
+        private long v1 = HASH_SEED + P1 + P2;
+        private long v2 = HASH_SEED + P2;
+        private long v3 = HASH_SEED;
+        private long v4 = HASH_SEED - P1;
+        private long lane0;
+        private long lane1;
+        private long lane2;
+        private long lane;
+        private int laneBytes;
+        private int lanes;
+        private long length;
+
+        // Keyword positions, first MAX_KEYWORDS whitespace separated words outside leading comments
+        private int keywords;
+        private int start0, end0, start1, end1, start2, end2, start3, end3;
+        private int wordStart = -1;
+        private boolean inLineComment;
+        private int blockCommentStart = -1;
+
+        private Scanner(String sql) {
+            this.sql = sql;
+        }
+
+        private SqlStatementInfo run() {
+            final String s = sql;
+            final int len = s.length();
+            // String.trim() bounds, trim strips every char up to ' ' while only \s runs are collapsed inside
+            int hashStart = 0;
+            int hashEnd = len;
+            while (hashStart < hashEnd && s.charAt(hashStart) <= ' ') {
+                hashStart++;
+            }
+            while (hashEnd > hashStart && s.charAt(hashEnd - 1) <= ' ') {
+                hashEnd--;
+            }
+            // Lowercasing differs from Character.toLowerCase in these locales, the statement is then hashed
+            // from its normalized String
+            boolean specialCasing = SPECIAL_CASING_LANGUAGES.contains(Locale.getDefault().getLanguage());
+            boolean pendingSpace = false;
+
+            for (int i = 0; i < len; i++) {
+                char c = s.charAt(i);
+                boolean whitespace = isWhitespace(c);
+
+                if (keywords < MAX_KEYWORDS) {
+                    readKeyword(c, i, whitespace);
+                }
+
+                if (specialCasing || i < hashStart || i >= hashEnd) {
+                    continue;
+                }
+                if (whitespace) {
+                    pendingSpace = true;
+                    continue;
+                }
+                if (pendingSpace) {
+                    update((byte) ' ');
+                    pendingSpace = false;
+                }
+                if (c < 0x80) {
+                    update((byte) (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c));
+                } else if (c == '\u0130' || c == '\u03A3') {
+                    // Capital I with dot lowercases to two chars, capital sigma depends on its position in the word
+                    specialCasing = true;
+                } else {
+                    int codePoint = c;
+                    if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                        codePoint = Character.toCodePoint(c, s.charAt(++i));
+                    } else if (Character.isSurrogate(c)) {
+                        // Unpaired surrogate, String.getBytes(UTF_8) encodes it as '?'
+                        update((byte) '?');
+                        continue;
+                    }
+                    updateUtf8(Character.toLowerCase(codePoint));
+                }
+            }
+            if (wordStart >= 0 && keywords < MAX_KEYWORDS) {
+                addKeyword(wordStart, len);
+            }
+
+            return new SqlStatementInfo(kind(), specialCasing ? hashNormalized(s) : hash(), isTemporaryTable(),
+                    isSessionVariable(), isPreparedStatement());
+        }
+
+        private static long hashNormalized(String sql) {
+            Scanner hasher = new Scanner(sql);
+            for (byte b : normalize(sql).getBytes(StandardCharsets.UTF_8)) {
+                hasher.update(b);
+            }
+            return hasher.hash();
+        }
+
+        private static boolean isWhitespace(char c) {
+            // Same set as the \s character class
+            return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+        }
+
+        private void readKeyword(char c, int i, boolean whitespace) {
+            if (inLineComment) {
+                inLineComment = c != '\n';
+                return;
+            }
+            if (blockCommentStart >= 0) {
+                if (c == '/' && i > blockCommentStart + 2 && sql.charAt(i - 1) == '*') {
+                    blockCommentStart = -1;
+                }
+                return;
+            }
+            if (wordStart < 0) {
+                if (whitespace) {
+                    return;
+                }
+                char next = i + 1 < sql.length() ? sql.charAt(i + 1) : 0;
+                if (c == '-' && next == '-') {
+                    inLineComment = true;
+                } else if (c == '/' && next == '*') {
+                    blockCommentStart = i;
+                } else {
+                    wordStart = i;
+                }
+            } else if (whitespace) {
+                addKeyword(wordStart, i);
+                wordStart = -1;
+            }
+        }
+
+        private void addKeyword(int start, int end) {
+            switch (keywords++) {
+                case 0: start0 = start; end0 = end; break;
+                case 1: start1 = start; end1 = end; break;
+                case 2: start2 = start; end2 = end; break;
+                default: start3 = start; end3 = end; break;
+            }
+        }
+
+        private void updateUtf8(int codePoint) {
+            if (codePoint < 0x80) {
+                update((byte) codePoint);
+            } else if (codePoint < 0x800) {
+                update((byte) (0xC0 | (codePoint >> 6)));
+                update((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (codePoint < 0x10000) {
+                update((byte) (0xE0 | (codePoint >> 12)));
+                update((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                update((byte) (0x80 | (codePoint & 0x3F)));
+            } else {
+                update((byte) (0xF0 | (codePoint >> 18)));
+                update((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                update((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                update((byte) (0x80 | (codePoint & 0x3F)));
+            }
+        }
+
+        private void update(byte b) {
+            length++;
+            lane |= (b & 0xFFL) << (laneBytes << 3);
+            if (++laneBytes < 8) {
+                return;
+            }
+            switch (lanes) {
+                case 0: lane0 = lane; lanes = 1; break;
+                case 1: lane1 = lane; lanes = 2; break;
+                case 2: lane2 = lane; lanes = 3; break;
+                default:
+                    // Full 32-byte stripe
+                    v1 = round(v1, lane0);
+                    v2 = round(v2, lane1);
+                    v3 = round(v3, lane2);
+                    v4 = round(v4, lane);
+                    lanes = 0;
+                    break;
+            }
+            lane = 0;
+            laneBytes = 0;
+        }
+
+        private long hash() {
+            long h;
+            if (length >= 32) {
+                h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+                h = mergeRound(h, v1);
+                h = mergeRound(h, v2);
+                h = mergeRound(h, v3);
+                h = mergeRound(h, v4);
+            } else {
+                h = HASH_SEED + P5;
+            }
+            return finishHash(h, length, lanes, lane0, lane1, lane2, lane, laneBytes);
+        }
+
+        private Kind kind() {
+            if (keywords == 0) {
+                return Kind.OTHER;
+            }
+            int start = start0;
+            while (start < end0 && sql.charAt(start) == '(') {
+                start++;
+            }
+            int end = start;
+            while (end < end0 && Character.isLetter(sql.charAt(end))) {
+                end++;
+            }
+            int wordLength = end - start;
+            for (Kind candidate : KINDS) {
+                String name = candidate.name();
+                if (candidate != Kind.OTHER && name.length() == wordLength
+                        && sql.regionMatches(true, start, name, 0, wordLength)) {
+                    return candidate;
+                }
+            }
+            return Kind.OTHER;
+        }
+
+        private boolean isTemporaryTable() {
+            if (keywords >= 3 && is(start0, end0, "CREATE")) {
+                // CREATE TEMP[ORARY] TABLE
+                if (isTemp(start1, end1) && startsWith(start2, end2, "TABLE")) {
+                    return true;
+                }
+                // CREATE TABLE #local_temp (SQL Server), ##global_temp is shared across sessions
+                if (is(start1, end1, "TABLE") && end2 - start2 >= 2
+                        && sql.charAt(start2) == '#' && sql.charAt(start2 + 1) != '#') {
+                    return true;
+                }
+                // CREATE GLOBAL|LOCAL TEMP[ORARY] TABLE
+                return keywords >= 4 && (is(start1, end1, "GLOBAL") || is(start1, end1, "LOCAL"))
+                        && isTemp(start2, end2) && startsWith(start3, end3, "TABLE");
+            }
+            // DECLARE GLOBAL TEMPORARY TABLE (DB2)
+            return keywords >= 4 && is(start0, end0, "DECLARE") && is(start1, end1, "GLOBAL")
+                    && is(start2, end2, "TEMPORARY") && startsWith(start3, end3, "TABLE");
+        }
+
+        private boolean isSessionVariable() {
+            // SET @var, SET SESSION var, SET LOCAL var
+            if (keywords < 2 || !is(start0, end0, "SET")) {
+                return false;
+            }
+            return sql.charAt(start1) == '@'
+                    || (keywords >= 3 && (is(start1, end1, "SESSION") || is(start1, end1, "LOCAL")));
+        }
+
+        private boolean isPreparedStatement() {
+            // PREPARE name FROM ...
+            return keywords >= 2 && is(start0, end0, "PREPARE");
+        }
+
+        private boolean isTemp(int start, int end) {
+            return is(start, end, "TEMP") || is(start, end, "TEMPORARY");
+        }
+
+        private boolean is(int start, int end, String keyword) {
+            return end - start == keyword.length() && sql.regionMatches(true, start, keyword, 0, keyword.length());
+        }
+
+        private boolean startsWith(int start, int end, String keyword) {
+            return end - start >= keyword.length() && sql.regionMatches(true, start, keyword, 0, keyword.length());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.openjproxy.grpc.server;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the gradient based AdaptiveConcurrencyLimit.
+ */
+class AdaptiveConcurrencyLimitTest {
+
+    @Test
+    void testKeepsLimitWhileLatencyIsNormal() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 20, 2.0, 10);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(1.1, 15, false);
+        }
+        assertEquals(20, limit.getLimit());
+        assertEquals(0, limit.getDecreaseCount());
+    }
+
+    @Test
+    void testShrinksWhenLatencyInflates() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 20, 2.0, 10);
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(8.0, 20, false);
+        }
+        assertEquals(2, limit.getLimit(), "Sustained inflation should drive the limit to its minimum");
+        assertTrue(limit.getDecreaseCount() > 0);
+    }
+
+    @Test
+    void testBacksOffOnDropsAndRecovers() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 20, 2.0, 5);
+        for (int i = 0; i < 5; i++) {
+            limit.onSample(1.0, 20, i == 0);
+        }
+        assertEquals(18, limit.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(1.0, limit.getLimit(), false);
+        }
+        assertEquals(20, limit.getLimit(), "Limit should grow back once latency is normal under load");
+        assertTrue(limit.getIncreaseCount() > 0);
+    }
+
+    @Test
+    void testDoesNotGrowWhenUnderused() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 20, 2.0, 5);
+        for (int i = 0; i < 5; i++) {
+            limit.onSample(1.0, 20, i == 0);
+        }
+        int reduced = limit.getLimit();
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(1.0, 1, false);
+        }
+        assertEquals(reduced, limit.getLimit());
+    }
+
+    @Test
+    void testGrowsWhenOperationsQueue() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 20, 2.0, 5);
+        for (int i = 0; i < 5; i++) {
+            limit.onSample(1.0, 20, i == 0);
+        }
+        int reduced = limit.getLimit();
+        for (int i = 0; i < 100; i++) {
+            // Few operations in flight, but they waited for a slot of the other kind
+            limit.onSample(1.0, 1, false, true);
+        }
+        assertTrue(limit.getLimit() > reduced, "Queueing with normal latency should let the limit grow");
+    }
+
+    @Test
+    void testAcquireTimeoutsGrowTheLimitOnlyWhileLatencyIsNormal() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 20, 2.0, 5);
+        for (int i = 0; i < 5; i++) {
+            limit.onSample(1.0, 20, i == 0);
+        }
+        int reduced = limit.getLimit();
+        for (int i = 0; i < 50; i++) {
+            limit.onAcquireTimeout(1);
+        }
+        assertTrue(limit.getLimit() > reduced);
+        assertEquals(50, limit.getAcquireTimeoutCount());
+
+        AdaptiveConcurrencyLimit congested = new AdaptiveConcurrencyLimit(2, 20, 2.0, 10);
+        for (int i = 0; i < 200; i++) {
+            congested.onSample(8.0, 20, false, true);
+            congested.onAcquireTimeout(20);
+        }
+        assertEquals(2, congested.getLimit(), "Queueing must not hold the limit up when the database is slow");
+    }
+
+    @Test
+    void testSegregationManagerReportsAcquireTimeouts() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 2, 2.0, 1);
+        SlowQuerySegregationManager manager = new SlowQuerySegregationManager(2, 50, 0, 50, 50, 0, true, limit);
+        SlotManager slots = manager.getSlotManager();
+        assertTrue(slots.acquireFastSlot(0));
+        assertTrue(slots.acquireSlowSlot(0));
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> manager.executeWithSegregation("op", () -> "x"));
+        assertTrue(e.getMessage().startsWith("Timeout waiting for"));
+        assertEquals(1, limit.getAcquireTimeoutCount());
+        slots.releaseFastSlot();
+        slots.releaseSlowSlot();
+    }
+
+    @Test
+    void testSegregationManagerFollowsLimit() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 10, 2.0, 1);
+        SlowQuerySegregationManager manager = new SlowQuerySegregationManager(10, 20, 100, 5000, 1000, 0, true, limit);
+
+        manager.executeWithSegregation("op", () -> "warmup");
+        for (int i = 0; i < 5; i++) {
+            try {
+                manager.executeWithSegregation("op", () -> {
+                    throw new java.sql.SQLTransientConnectionException("timeout");
+                });
+            } catch (java.sql.SQLTransientConnectionException expected) {
+                // dropped sample
+            }
+        }
+
+        assertTrue(manager.getConcurrencyLimit() < 10);
+        assertEquals(manager.getConcurrencyLimit(), manager.getSlotManager().getTotalSlots());
+        assertTrue(manager.getStatus().contains("(adaptive)"));
+    }
+}
@@ -79,4 +79,60 @@ class CircuitBreakerTest {
         SQLException thrown = assertThrows(SQLException.class, () -> breaker.preCheck(sql));
         assertEquals("fail1", thrown.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testHalfOpenAdmitsLimitedProbes() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(200, 3, 2);
+        String sql = "SELECT probe";
+        SQLException ex = new SQLException("fail");
+        breaker.onFailure(sql, ex);
+        breaker.onFailure(sql, ex);
+        breaker.onFailure(sql, ex);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(sql));
+
+        Thread.sleep(250);
+        assertDoesNotThrow(() -> breaker.preCheck(sql));
+        assertDoesNotThrow(() -> breaker.preCheck(sql));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState(sql));
+        // Probes in flight, everybody else is still rejected
+        assertThrows(SQLException.class, () -> breaker.preCheck(sql));
+        assertTrue(breaker.getRejectedCount() > 0);
+    }
+
+    @Test
+    void testFailedProbeReopens() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(200, 3);
+        String sql = "SELECT reopen";
+        SQLException ex = new SQLException("fail");
+        breaker.onFailure(sql, ex);
+        breaker.onFailure(sql, ex);
+        breaker.onFailure(sql, ex);
+
+        Thread.sleep(250);
+        assertDoesNotThrow(() -> breaker.preCheck(sql));
+        // A rejected caller reporting the breaker's own exception must not count as the probe outcome
+        SQLException rejection = assertThrows(SQLException.class, () -> breaker.preCheck(sql));
+        breaker.onFailure(sql, rejection);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState(sql));
+
+        breaker.onFailure(sql, new SQLException("probe failed"));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(sql));
+        SQLException thrown = assertThrows(SQLException.class, () -> breaker.preCheck(sql));
+        assertEquals("probe failed", thrown.getMessage());
+        assertEquals(2, breaker.getOpenedCount());
+    }
+
+    @Test
+    void testSuccessfulProbeCloses() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(200, 1);
+        String sql = "SELECT close";
+        breaker.onFailure(sql, new SQLException("fail"));
+
+        Thread.sleep(250);
+        assertDoesNotThrow(() -> breaker.preCheck(sql));
+        breaker.onSuccess(sql);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(sql));
+        assertDoesNotThrow(() -> breaker.preCheck(sql));
+        assertDoesNotThrow(() -> breaker.preCheck(sql));
+    }
+}
@@ -175,4 +175,29 @@ class ClusterHealthTrackerTest {
         
         assertEquals(2, healthyCount);
     }
+
+    @Test
+    void testEpochFastPath() {
+        String connHash = "conn-epoch";
+        String health = "192.168.1.1:1059(UP);192.168.1.2:1059(UP)";
+        String degraded = "192.168.1.1:1059(UP);192.168.1.2:1059(DOWN)";
+
+        assertTrue(tracker.hasHealthChanged(connHash, 1, 0b11, health));
+        assertFalse(tracker.hasHealthChanged(connHash, 1, 0b11, health));
+
+        // Epoch advances with a transition
+        assertTrue(tracker.hasHealthChanged(connHash, 2, 0b01, degraded));
+        assertEquals(1, tracker.countHealthyServers(2, 0b01, degraded));
+        assertEquals(degraded, tracker.getLastKnownHealth(connHash));
+
+        // Another client on its own epoch reporting the same health is not a change
+        assertFalse(tracker.hasHealthChanged(connHash, 7, 0b01, degraded));
+
+        // Epoch 0 falls back to comparing strings
+        assertTrue(tracker.hasHealthChanged(connHash, 0, 0, health));
+        assertEquals(2, tracker.countHealthyServers(0, 0, health));
+
+        tracker.removeTracking(connHash);
+        assertTrue(tracker.hasHealthChanged(connHash, 7, 0b01, degraded));
+    }
 }
@@ -0,0 +1,105 @@
+package org.openjproxy.grpc.server;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasourceCircuitBreakerTest {
+
+    @Test
+    void testIgnoresStatementFailures() {
+        DatasourceCircuitBreaker breaker = new DatasourceCircuitBreaker(5000, 2, 1);
+        breaker.registerDatasource("ds1", "jdbc:h2:mem:test");
+
+        breaker.onFailure("ds1", new SQLException("duplicate key", "23505"));
+        breaker.onFailure("ds1", new SQLException("duplicate key", "23505"));
+
+        assertDoesNotThrow(() -> breaker.preCheck("ds1"));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getDatasourceState("ds1"));
+    }
+
+    @Test
+    void testConnectionFailuresOpenDatasourceAndBackend() {
+        DatasourceCircuitBreaker breaker = new DatasourceCircuitBreaker(5000, 2, 1);
+        breaker.registerDatasource("ds1", "jdbc:postgresql://db:5432/app");
+        breaker.registerDatasource("ds2", "jdbc:postgresql://db:5432/app");
+
+        breaker.onFailure("ds1", new SQLNonTransientConnectionException("Connection closed"));
+        breaker.onFailure("ds1", new SQLException("Connection refused", "08001"));
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getDatasourceState("ds1"));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getBackendState("jdbc:postgresql://db:5432/app"));
+        // Another datasource on the same backend fails fast too
+        SQLException thrown = assertThrows(SQLException.class, () -> breaker.preCheck("ds2"));
+        assertEquals("08001", thrown.getSQLState());
+    }
+
+    @Test
+    void testDetectsWrappedConnectionFailure() {
+        SQLException wrapped = new SQLException("Unexpected error", new SQLException("I/O error", "08006"));
+        assertTrue(DatasourceCircuitBreaker.isConnectionFailure(wrapped));
+        assertFalse(DatasourceCircuitBreaker.isConnectionFailure(new SQLException("syntax error", "42601")));
+    }
+
+    @Test
+    void testPoolTimeoutIsNotAnOutage() throws Exception {
+        DatasourceCircuitBreaker breaker = new DatasourceCircuitBreaker(5000, 2, 1);
+        breaker.registerDatasource("ds1", "jdbc:h2:mem:saturated");
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:saturated_" + System.nanoTime());
+        config.setMaximumPoolSize(1);
+        config.setConnectionTimeout(250);
+        try (HikariDataSource dataSource = new HikariDataSource(config);
+             Connection held = dataSource.getConnection()) {
+            for (int i = 0; i < 3; i++) {
+                SQLTransientConnectionException timeout =
+                        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+                assertFalse(DatasourceCircuitBreaker.isConnectionFailure(timeout), timeout.getMessage());
+                breaker.onFailure("ds1", timeout);
+            }
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getDatasourceState("ds1"));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getBackendState("jdbc:h2:mem:saturated"));
+        // A pool that timed out because it could not connect carries the connection failure
+        assertTrue(DatasourceCircuitBreaker.isConnectionFailure(new SQLTransientConnectionException(
+                "Connection is not available", "08001", new SQLException("Connection refused", "08001"))));
+    }
+
+    @Test
+    void testStatementErrorOfHalfOpenProbeClosesTheBreaker() throws Exception {
+        DatasourceCircuitBreaker breaker = new DatasourceCircuitBreaker(0, 1, 1);
+        breaker.registerDatasource("ds1", "jdbc:postgresql://db:5432/app");
+        breaker.onFailure("ds1", new SQLException("Connection refused", "08001"));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getDatasourceState("ds1"));
+
+        breaker.preCheck("ds1");
+        breaker.onFailure("ds1", new SQLException("duplicate key", "23505"));
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getDatasourceState("ds1"));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getBackendState("jdbc:postgresql://db:5432/app"));
+    }
+
+    @Test
+    void testBackendProbeIsReleasedWhenTheDatasourceRejects() throws Exception {
+        // The backend breaker half-opens after 100ms, the datasource breaker stays open
+        DatasourceCircuitBreaker breaker = new DatasourceCircuitBreaker(new CircuitBreaker(60000, 1, 1),
+                new CircuitBreaker(100, 1, 1));
+        breaker.registerDatasource("ds1", "jdbc:postgresql://db:5432/app");
+        breaker.registerDatasource("ds2", "jdbc:postgresql://db:5432/app");
+        breaker.onFailure("ds1", new SQLException("Connection refused", "08001"));
+        Thread.sleep(150);
+
+        assertThrows(SQLException.class, () -> breaker.preCheck("ds1"));
+        // The backend probe slot the rejected call took is free for ds2
+        assertDoesNotThrow(() -> breaker.preCheck("ds2"));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getBackendState("jdbc:postgresql://db:5432/app"));
+    }
+}
@@ -135,4 +135,27 @@ public class IpWhitelistValidatorTest {
         assertTrue(IpWhitelistValidator.isIpAllowed("192.168.1.1", rulesWithWhitespace));
         assertTrue(IpWhitelistValidator.isIpAllowed("192.168.1.50", rulesWithWhitespace));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testIpv6CidrMatching() {
+        List<String> rules = List.of("2001:db8::/32", "::1");
+        assertTrue(IpWhitelistValidator.isIpAllowed("2001:db8::1", rules));
+        assertTrue(IpWhitelistValidator.isIpAllowed("2001:db8:ffff::1", rules));
+        assertTrue(IpWhitelistValidator.isIpAllowed("::1", rules));
+        assertFalse(IpWhitelistValidator.isIpAllowed("2001:db9::1", rules));
+        assertFalse(IpWhitelistValidator.isIpAllowed("10.0.0.1", rules));
+
+        assertTrue(IpWhitelistValidator.validateWhitelistRules(List.of("2001:db8::/128")));
+        assertFalse(IpWhitelistValidator.validateWhitelistRules(List.of("2001:db8::/129")));
+    }
+
+    @Test
+    void testOverlappingCidrRanges() {
+        // The /16 covers the more specific ranges, whatever the order of the rules
+        List<String> rules = List.of("10.1.2.0/24", "10.1.0.0/16", "10.1.2.3");
+        IpWhitelistMatcher whitelist = IpWhitelistMatcher.compile(rules);
+        assertTrue(whitelist.isAllowed("10.1.2.3"));
+        assertTrue(whitelist.isAllowed("10.1.200.1"));
+        assertFalse(whitelist.isAllowed("10.2.0.1"));
+    }
+}
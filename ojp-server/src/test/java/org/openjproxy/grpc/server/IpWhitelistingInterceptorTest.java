@@ -133,6 +133,39 @@ class IpWhitelistingInterceptorTest {
         verify(call, never()).close(any(), any());
     }
 
+    @Test
+    void testTransportDecisionIsReused() {
+        IpWhitelistMatcher whitelist = IpWhitelistMatcher.compile(List.of("10.0.0.0/8"));
+        IpWhitelistingTransportFilter filter = new IpWhitelistingTransportFilter(whitelist);
+        IpWhitelistingInterceptor interceptor = new IpWhitelistingInterceptor(whitelist);
+
+        Attributes allowedTransport = filter.transportReady(Attributes.newBuilder()
+                .set(Grpc.TRANSPORT_ATTR_REMOTE_ADDR, new InetSocketAddress("10.1.2.3", 12345))
+                .build());
+        Attributes deniedTransport = filter.transportReady(Attributes.newBuilder()
+                .set(Grpc.TRANSPORT_ATTR_REMOTE_ADDR, new InetSocketAddress("203.0.113.1", 12345))
+                .build());
+        assertEquals(true, allowedTransport.get(IpWhitelistingTransportFilter.TRANSPORT_ATTR_IP_ALLOWED));
+        assertEquals(false, deniedTransport.get(IpWhitelistingTransportFilter.TRANSPORT_ATTR_IP_ALLOWED));
+
+        // The cached decision wins over the remote address of the call
+        ServerCall<String, String> call = createMockServerCall("203.0.113.1");
+        when(call.getAttributes()).thenReturn(allowedTransport.toBuilder()
+                .set(Grpc.TRANSPORT_ATTR_REMOTE_ADDR, new InetSocketAddress("203.0.113.1", 12345))
+                .build());
+        ServerCallHandler<String, String> next = mock(ServerCallHandler.class);
+        when(next.startCall(any(), any())).thenReturn(mock(ServerCall.Listener.class));
+
+        interceptor.interceptCall(call, new Metadata(), next);
+        verify(next, times(1)).startCall(any(), any());
+
+        ServerCall<String, String> deniedCall = createMockServerCall("10.1.2.3");
+        when(deniedCall.getAttributes()).thenReturn(deniedTransport);
+        interceptor.interceptCall(deniedCall, new Metadata(), next);
+        verify(deniedCall, times(1)).close(any(), any());
+        verify(next, times(1)).startCall(any(), any());
+    }
+
     /**
      * Helper method to create a mock ServerCall with a specific IP address.
      */
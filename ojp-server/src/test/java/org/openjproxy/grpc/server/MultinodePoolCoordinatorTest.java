@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -159,4 +160,75 @@ class MultinodePoolCoordinatorTest {
         
         assertEquals(1, allocation.getHealthyServers()); // Min 1
     }
+
+    @Test
+    void testPoolDemandReassignsBudgetProportionally() {
+        MultinodePoolCoordinator coordinator = new MultinodePoolCoordinator();
+        String self = coordinator.getNodeId();
+        List<String> servers = Arrays.asList("server1:1059", "server2:1059", "server3:1059");
+        MultinodePoolCoordinator.PoolAllocation allocation =
+                coordinator.calculatePoolSizes("conn1", 30, 6, servers);
+        assertEquals(10, allocation.getCurrentMaxPoolSize());
+
+        // Busy node: a sixth of the budget as floor plus a third of the remaining half
+        assertTrue(coordinator.applyPoolDemand("conn1", Map.of(self, 20, "n2", 5, "n3", 5), 0));
+        assertEquals(15, allocation.getCurrentMaxPoolSize());
+        assertEquals(2, allocation.getCurrentMinIdle());
+
+        // Same demand again, the size does not change
+        assertFalse(coordinator.applyPoolDemand("conn1", Map.of(self, 20, "n2", 5, "n3", 5), 0));
+
+        // Idle node keeps its floor
+        assertTrue(coordinator.applyPoolDemand("conn1", Map.of(self, 0, "n2", 20, "n3", 20), 0));
+        assertEquals(5, allocation.getCurrentMaxPoolSize());
+    }
+
+    @Test
+    void testPoolDemandHysteresis() {
+        MultinodePoolCoordinator coordinator = new MultinodePoolCoordinator();
+        String self = coordinator.getNodeId();
+        List<String> servers = Arrays.asList("server1:1059", "server2:1059");
+        MultinodePoolCoordinator.PoolAllocation allocation =
+                coordinator.calculatePoolSizes("conn1", 20, 4, servers);
+
+        // 11 instead of 10 is below the minimum step
+        assertFalse(coordinator.applyPoolDemand("conn1", Map.of(self, 12, "n2", 8), 0));
+        assertEquals(10, allocation.getCurrentMaxPoolSize());
+
+        assertTrue(coordinator.applyPoolDemand("conn1", Map.of(self, 30, "n2", 0), Long.MAX_VALUE));
+        assertEquals(15, allocation.getCurrentMaxPoolSize());
+
+        // Within the minimum interval nothing changes
+        assertFalse(coordinator.applyPoolDemand("conn1", Map.of(self, 0, "n2", 30), Long.MAX_VALUE));
+        assertEquals(15, allocation.getCurrentMaxPoolSize());
+    }
+
+    @Test
+    void testPoolDemandRequiresAllHealthyServers() {
+        MultinodePoolCoordinator coordinator = new MultinodePoolCoordinator();
+        String self = coordinator.getNodeId();
+        List<String> servers = Arrays.asList("server1:1059", "server2:1059", "server3:1059");
+        MultinodePoolCoordinator.PoolAllocation allocation =
+                coordinator.calculatePoolSizes("conn1", 30, 6, servers);
+
+        assertFalse(coordinator.applyPoolDemand("conn1", Map.of(self, 20, "n2", 0), 0));
+        assertFalse(coordinator.applyPoolDemand("conn1", Map.of("n2", 20, "n3", 0, "n4", 0), 0));
+        assertFalse(coordinator.applyPoolDemand("unknown", Map.of(self, 20, "n2", 0, "n3", 0), 0));
+        assertEquals(10, allocation.getCurrentMaxPoolSize());
+    }
+
+    @Test
+    void testHealthChangeResetsPoolBudget() {
+        MultinodePoolCoordinator coordinator = new MultinodePoolCoordinator();
+        String self = coordinator.getNodeId();
+        List<String> servers = Arrays.asList("server1:1059", "server2:1059", "server3:1059");
+        MultinodePoolCoordinator.PoolAllocation allocation =
+                coordinator.calculatePoolSizes("conn1", 30, 6, servers);
+        assertTrue(coordinator.applyPoolDemand("conn1", Map.of(self, 20, "n2", 5, "n3", 5), 0));
+        assertEquals(15, allocation.getBudgetMaxPoolSize());
+
+        coordinator.updateHealthyServers("conn1", 2);
+        assertEquals(0, allocation.getBudgetMaxPoolSize());
+        assertEquals(15, allocation.getCurrentMaxPoolSize()); // ceil(30 / 2)
+    }
 }
@@ -5,11 +5,15 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class OjpServerTelemetryTest {
 
@@ -19,6 +23,7 @@ class OjpServerTelemetryTest {
 	static void setUp() {
 		OjpServerTelemetry instrument = new OjpServerTelemetry();
 		grpcTelemetry = instrument.createGrpcTelemetry(9191);
+		instrument.registerConcurrencyLimitMetrics(() -> Map.of("ds1", 7));
 	}
 
 	@Test
@@ -39,4 +44,17 @@ class OjpServerTelemetryTest {
 		assertEquals("text/plain; version=0.0.4; charset=utf-8", connection.getContentType());
 	}
 
+	@Test
+	void shouldExportConcurrencyLimitPerDatasource() throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) URI.create("http://localhost:9191/metrics").toURL().openConnection();
+		connection.setConnectTimeout(5000);
+		connection.setReadTimeout(5000);
+
+		String metrics;
+		try (InputStream in = connection.getInputStream()) {
+			metrics = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+		assertTrue(metrics.lines().anyMatch(line -> line.startsWith("ojp_datasource_concurrency_limit")
+				&& line.contains("datasource=\"ds1\"") && line.endsWith(" 7.0")), metrics);
+	}
 }
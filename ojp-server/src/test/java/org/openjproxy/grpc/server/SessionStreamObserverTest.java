@@ -0,0 +1,119 @@
+package org.openjproxy.grpc.server;
+
+import com.openjproxy.grpc.CallResourceRequest;
+import com.openjproxy.grpc.CallResourceResponse;
+import com.openjproxy.grpc.OpResult;
+import com.openjproxy.grpc.SessionInfo;
+import com.openjproxy.grpc.SessionRequestFrame;
+import com.openjproxy.grpc.SessionResponseFrame;
+import com.openjproxy.grpc.StatementRequest;
+import com.openjproxy.grpc.StatementServiceGrpc;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that SessionStreamObserver runs framed requests with the session of the stream and frames their responses.
+ */
+class SessionStreamObserverTest {
+
+    private final List<SessionInfo> sessions = new ArrayList<>();
+    private final List<SessionResponseFrame> frames = new ArrayList<>();
+
+    private final StatementServiceGrpc.AsyncService service = new StatementServiceGrpc.AsyncService() {
+        @Override
+        public void executeUpdate(StatementRequest request, StreamObserver<OpResult> responseObserver) {
+            sessions.add(request.getSession());
+            responseObserver.onNext(OpResult.newBuilder().setSession(request.getSession()).setIntValue(1).build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void executeQuery(StatementRequest request, StreamObserver<OpResult> responseObserver) {
+            for (int i = 0; i < 3; i++) {
+                responseObserver.onNext(OpResult.newBuilder().setIntValue(i).build());
+            }
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void callResource(CallResourceRequest request, StreamObserver<CallResourceResponse> responseObserver) {
+            GrpcExceptionHandler.sendSQLExceptionMetadata(new SQLException("No such resource", "42000", 7),
+                    responseObserver);
+        }
+    };
+
+    private final SessionStreamObserver observer = new SessionStreamObserver(service, new StreamObserver<>() {
+        @Override
+        public void onNext(SessionResponseFrame value) {
+            frames.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            fail(t);
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    });
+
+    private static SessionInfo session(String sessionUUID) {
+        return SessionInfo.newBuilder().setConnHash("ds1").setSessionUUID(sessionUUID).build();
+    }
+
+    private static SessionRequestFrame.Builder update(int correlationId) {
+        return SessionRequestFrame.newBuilder()
+                .setCorrelationId(correlationId)
+                .setExecuteUpdate(StatementRequest.newBuilder().setSql("UPDATE t SET a = 1"));
+    }
+
+    @Test
+    void testRequestsRunWithTheLastSessionSentOnTheStream() {
+        observer.onNext(update(1).setSession(session("s1")).build());
+        observer.onNext(update(2).build());
+        observer.onNext(update(3).setSession(session("s2")).build());
+        observer.onNext(update(4).build());
+
+        assertEquals(List.of("s1", "s1", "s2", "s2"),
+                sessions.stream().map(SessionInfo::getSessionUUID).toList());
+        assertEquals(List.of(1, 2, 3, 4), frames.stream().map(SessionResponseFrame::getCorrelationId).toList());
+        assertTrue(frames.stream().allMatch(frame -> frame.getLast() && frame.getOpResult().getIntValue() == 1));
+    }
+
+    @Test
+    void testQueryBlocksAreFramedAndOnlyTheLastOneEndsTheRequest() {
+        observer.onNext(SessionRequestFrame.newBuilder()
+                .setCorrelationId(9)
+                .setSession(session("s1"))
+                .setExecuteQuery(StatementRequest.newBuilder().setSql("SELECT 1"))
+                .build());
+
+        assertEquals(3, frames.size());
+        assertEquals(List.of(false, false, true), frames.stream().map(SessionResponseFrame::getLast).toList());
+        assertEquals(2, frames.get(2).getOpResult().getIntValue());
+        assertTrue(frames.stream().allMatch(frame -> frame.getCorrelationId() == 9));
+    }
+
+    @Test
+    void testSqlErrorIsSentInAFrame() {
+        observer.onNext(SessionRequestFrame.newBuilder()
+                .setCorrelationId(5)
+                .setCallResource(CallResourceRequest.getDefaultInstance())
+                .build());
+
+        assertEquals(1, frames.size());
+        SessionResponseFrame frame = frames.get(0);
+        assertTrue(frame.getLast());
+        assertEquals(5, frame.getCorrelationId());
+        assertEquals("No such resource", frame.getError().getReason());
+        assertEquals("42000", frame.getError().getSqlState());
+        assertEquals(7, frame.getError().getVendorCode());
+    }
+}
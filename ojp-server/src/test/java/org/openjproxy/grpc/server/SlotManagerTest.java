@@ -417,4 +417,27 @@ public class SlotManagerTest {
         testSlotManager.releaseSlowSlot();
         testSlotManager.releaseFastSlot();
     }
-}
\ No newline at end of file
+
+    @Test
+    void testResizeKeepsSplitAndShrinksWhileHeld() throws InterruptedException {
+        // Hold 6 of the 8 fast slots, then shrink to 5 total (1 slow, 4 fast)
+        for (int i = 0; i < 6; i++) {
+            assertTrue(slotManager.acquireFastSlot(100));
+        }
+        assertEquals(5, slotManager.resize(5));
+        assertEquals(1, slotManager.getSlowSlots());
+        assertEquals(4, slotManager.getFastSlots());
+
+        // 6 held > 4 allowed, no new fast slot until enough are released
+        assertFalse(slotManager.acquireFastSlot(50));
+        for (int i = 0; i < 3; i++) {
+            slotManager.releaseFastSlot();
+        }
+        assertTrue(slotManager.acquireFastSlot(50));
+
+        // Growing is capped at the initial total
+        assertEquals(10, slotManager.resize(50));
+        assertEquals(8, slotManager.getFastSlots());
+        assertEquals(2, slotManager.resize(0));
+    }
+}
@@ -0,0 +1,78 @@
+package org.openjproxy.grpc.server;
+
+import com.openjproxy.grpc.OpResult;
+import com.openjproxy.grpc.SessionInfo;
+import com.openjproxy.grpc.StatementRequest;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.openjproxy.grpc.server.sql.SqlStatementInfo;
+
+import java.lang.reflect.Field;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Verifies how the statement breaker and the datasource breaker interact in the statement service.
+ */
+class StatementServiceCircuitBreakerTest {
+
+    private static final String CONN_HASH = "ds1";
+    private static final String UPDATE_SQL = "UPDATE accounts SET balance = 0 WHERE id = 1";
+    private static final String QUERY_SQL = "SELECT balance FROM accounts WHERE id = 1";
+
+    private CircuitBreaker statementBreaker;
+    private DatasourceCircuitBreaker datasourceBreaker;
+    private StatementServiceImpl statementService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        statementBreaker = new CircuitBreaker(60000, 1);
+        statementService = new StatementServiceImpl(Mockito.mock(SessionManager.class), statementBreaker,
+                new ServerConfiguration());
+        Field field = StatementServiceImpl.class.getDeclaredField("datasourceCircuitBreaker");
+        field.setAccessible(true);
+        datasourceBreaker = (DatasourceCircuitBreaker) field.get(statementService);
+        datasourceBreaker.registerDatasource(CONN_HASH, "jdbc:postgresql://db:5432/app");
+    }
+
+    @Test
+    void testOpenStatementBreakerDoesNotReopenRecoveredDatasource() {
+        SQLException outage = new SQLException("Connection refused", "08001");
+        // The outage opened the statement breaker and the datasource breaker
+        statementBreaker.onFailure(SqlStatementInfo.of(UPDATE_SQL).getHashHex(), outage);
+        statementBreaker.onFailure(SqlStatementInfo.of(QUERY_SQL).getHashHex(), outage);
+        for (int i = 0; i < ServerConfiguration.DEFAULT_CIRCUIT_BREAKER_THRESHOLD; i++) {
+            datasourceBreaker.onFailure(CONN_HASH, outage);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, datasourceBreaker.getDatasourceState(CONN_HASH));
+
+        // The backend recovered, another statement closed the datasource breaker
+        datasourceBreaker.onSuccess(CONN_HASH);
+        assertEquals(CircuitBreaker.State.CLOSED, datasourceBreaker.getDatasourceState(CONN_HASH));
+
+        // The statements whose breakers are still open keep being rejected with the old error
+        StreamObserver<OpResult> observer = Mockito.mock(StreamObserver.class);
+        for (int i = 0; i < ServerConfiguration.DEFAULT_CIRCUIT_BREAKER_THRESHOLD; i++) {
+            statementService.executeUpdate(request(UPDATE_SQL), observer);
+            statementService.executeQuery(request(QUERY_SQL), observer);
+        }
+
+        verify(observer, times(2 * ServerConfiguration.DEFAULT_CIRCUIT_BREAKER_THRESHOLD)).onError(any());
+        assertEquals(CircuitBreaker.State.OPEN, statementBreaker.getState(SqlStatementInfo.of(UPDATE_SQL).getHashHex()));
+        assertEquals(CircuitBreaker.State.CLOSED, datasourceBreaker.getDatasourceState(CONN_HASH));
+        assertEquals(CircuitBreaker.State.CLOSED, datasourceBreaker.getBackendState("jdbc:postgresql://db:5432/app"));
+    }
+
+    private static StatementRequest request(String sql) {
+        return StatementRequest.newBuilder()
+                .setSql(sql)
+                .setSession(SessionInfo.newBuilder().setConnHash(CONN_HASH).build())
+                .build();
+    }
+}
@@ -0,0 +1,40 @@
+package org.openjproxy.grpc.server;
+
+import org.junit.jupiter.api.Test;
+import org.openjproxy.grpc.server.pool.PoolUtilization;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for the utilization reported to clients in response trailers.
+ */
+class UtilizationReportingInterceptorTest {
+
+    @Test
+    void testUtilizationIsCachedForRefreshInterval() {
+        AtomicInteger utilization = new AtomicInteger(40);
+        AtomicInteger reads = new AtomicInteger();
+        UtilizationReportingInterceptor interceptor = new UtilizationReportingInterceptor(() -> {
+            reads.incrementAndGet();
+            return utilization.get();
+        }, TimeUnit.HOURS.toNanos(1));
+
+        assertEquals("40", interceptor.currentUtilization());
+        utilization.set(90);
+        assertEquals("40", interceptor.currentUtilization());
+        assertEquals(1, reads.get());
+
+        UtilizationReportingInterceptor uncached = new UtilizationReportingInterceptor(utilization::get, 0);
+        assertEquals("90", uncached.currentUtilization());
+    }
+
+    @Test
+    void testPoolUtilizationPercent() {
+        assertEquals(50, new PoolUtilization(5, 0, 10).getPercent());
+        assertEquals(150, new PoolUtilization(10, 5, 10).getPercent());
+        assertEquals(0, new PoolUtilization(3, 0, 0).getPercent());
+    }
+}
@@ -0,0 +1,118 @@
+package org.openjproxy.grpc.server.action.resource;
+
+import com.openjproxy.grpc.CallResourceRequest;
+import com.openjproxy.grpc.CallResourceResponse;
+import com.openjproxy.grpc.CallType;
+import com.openjproxy.grpc.OpQueryResultProto;
+import com.openjproxy.grpc.ResourceType;
+import com.openjproxy.grpc.SessionInfo;
+import com.openjproxy.grpc.TargetCall;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openjproxy.grpc.ProtoConverter;
+import org.openjproxy.grpc.server.SessionManager;
+import org.openjproxy.grpc.server.action.ActionContext;
+import org.openjproxy.grpc.server.resultset.ResultSetCache;
+import org.openjproxy.grpc.server.sql.SqlStatementInfo;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that executions through resource calls invalidate the result set cache.
+ */
+class CallResourceActionTest {
+
+    private static final String COUNTRIES = "SELECT code FROM countries /* ojp.cache.ttl=60 */";
+    private static final String FLAGS = "SELECT code FROM feature_flags /* ojp.cache.ttl=60 */";
+
+    private Connection connection;
+    private Statement statement;
+    private ResultSetCache cache;
+    private ActionContext context;
+    private SessionInfo session;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:call_" + System.nanoTime());
+        statement = connection.createStatement();
+        statement.execute("CREATE TABLE countries (code VARCHAR(2))");
+        statement.execute("CREATE TABLE feature_flags (code VARCHAR(20))");
+        cache = new ResultSetCache(1024 * 1024, 0, List.of());
+        session = SessionInfo.newBuilder().setSessionUUID("s1").setConnHash("ds1").build();
+        SessionManager sessionManager = mock(SessionManager.class);
+        when(sessionManager.getConnection(any())).thenReturn(connection);
+        when(sessionManager.getStatement(any(), eq("st1"))).thenReturn(statement);
+        context = mock(ActionContext.class);
+        when(context.getSessionManager()).thenReturn(sessionManager);
+        when(context.getResultSetCache()).thenReturn(cache);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    private void store(String sql) throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnType(1)).thenReturn(Types.VARCHAR);
+        ResultSetCache.Capture capture = cache.capture(key(sql));
+        capture.add(OpQueryResultProto.newBuilder().setResultSetUUID("rs").build());
+        capture.complete(metaData);
+    }
+
+    private ResultSetCache.Key key(String sql) {
+        return cache.keyFor(session, SqlStatementInfo.of(sql), sql, List.of());
+    }
+
+    private void execute(String name, Object... params) {
+        StreamObserver<CallResourceResponse> observer = mock(StreamObserver.class);
+        CallResourceAction.getInstance().execute(context, CallResourceRequest.newBuilder()
+                .setSession(session)
+                .setResourceType(ResourceType.RES_STATEMENT)
+                .setResourceUUID("st1")
+                .setTarget(TargetCall.newBuilder()
+                        .setCallType(CallType.CALL_EXECUTE)
+                        .setResourceName(name)
+                        .addAllParams(ProtoConverter.objectListToParameterValues(List.of(params))))
+                .build(), observer);
+        verify(observer).onCompleted();
+    }
+
+    @Test
+    void testExecuteWithSqlInvalidatesTheTablesItWrites() throws Exception {
+        store(COUNTRIES);
+        store(FLAGS);
+
+        execute("Update", "INSERT INTO countries (code) VALUES ('PT')", Statement.RETURN_GENERATED_KEYS);
+
+        assertNull(cache.get(key(COUNTRIES)));
+        assertNotNull(cache.get(key(FLAGS)));
+    }
+
+    @Test
+    void testBatchInvalidatesTheDatasource() throws Exception {
+        statement.addBatch("INSERT INTO countries (code) VALUES ('ES')");
+        store(COUNTRIES);
+        store(FLAGS);
+
+        execute("Batch");
+
+        assertNull(cache.get(key(COUNTRIES)));
+        assertNull(cache.get(key(FLAGS)));
+    }
+}
@@ -0,0 +1,135 @@
+package org.openjproxy.grpc.server.action.resource;
+
+import com.openjproxy.grpc.CallResourceBatchRequest;
+import com.openjproxy.grpc.CallResourceBatchResponse;
+import com.openjproxy.grpc.CallResourceRequest;
+import com.openjproxy.grpc.CallType;
+import com.openjproxy.grpc.ResourceType;
+import com.openjproxy.grpc.SessionInfo;
+import com.openjproxy.grpc.SqlErrorResponse;
+import com.openjproxy.grpc.TargetCall;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openjproxy.grpc.ProtoConverter;
+import org.openjproxy.grpc.server.SessionManager;
+import org.openjproxy.grpc.server.action.ActionContext;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that CallResourceBatchAction runs the calls in order and stops at the first failing one.
+ */
+class CallResourceBatchActionTest {
+
+    private Connection connection;
+    private Statement statement;
+    private ActionContext context;
+    private SessionInfo session;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:batch_" + System.nanoTime());
+        statement = connection.createStatement();
+        session = SessionInfo.newBuilder().setSessionUUID("s1").setConnHash("ds1").build();
+        SessionManager sessionManager = mock(SessionManager.class);
+        when(sessionManager.getConnection(any())).thenReturn(connection);
+        when(sessionManager.getStatement(any(), eq("st1"))).thenReturn(statement);
+        context = mock(ActionContext.class);
+        when(context.getSessionManager()).thenReturn(sessionManager);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    private static CallResourceRequest call(CallType callType, String name, Object... params) {
+        return CallResourceRequest.newBuilder()
+                .setResourceType(ResourceType.RES_STATEMENT)
+                .setResourceUUID("st1")
+                .setTarget(TargetCall.newBuilder()
+                        .setCallType(callType)
+                        .setResourceName(name)
+                        .addAllParams(ProtoConverter.objectListToParameterValues(List.of(params))))
+                .build();
+    }
+
+    private Recorder execute(CallResourceRequest... calls) {
+        Recorder recorder = new Recorder();
+        CallResourceBatchAction.getInstance().execute(context, CallResourceBatchRequest.newBuilder()
+                .setSession(session)
+                .addAllCalls(List.of(calls))
+                .build(), recorder);
+        return recorder;
+    }
+
+    @Test
+    void testCallsRunInOrderInOneResponse() throws Exception {
+        Recorder recorder = execute(
+                call(CallType.CALL_SET, "MaxRows", 70),
+                call(CallType.CALL_SET, "FetchSize", 50),
+                call(CallType.CALL_CLEAR, "Warnings"),
+                call(CallType.CALL_GET, "MaxRows"));
+
+        assertNull(recorder.error);
+        assertTrue(recorder.completed);
+        CallResourceBatchResponse response = recorder.responses.get(0);
+        assertEquals(4, response.getResponsesCount());
+        assertEquals(70, ProtoConverter.fromParameterValue(response.getResponses(3).getValues(0)));
+        assertEquals("s1", response.getSession().getSessionUUID());
+        assertEquals(50, statement.getFetchSize());
+    }
+
+    @Test
+    void testFirstFailingCallFailsTheBatch() throws Exception {
+        Recorder recorder = execute(
+                call(CallType.CALL_SET, "MaxRows", 3),
+                call(CallType.CALL_SET, "MaxRows", -1),
+                call(CallType.CALL_SET, "FetchSize", 50));
+
+        assertInstanceOf(StatusRuntimeException.class, recorder.error);
+        SqlErrorResponse error = Status.trailersFromThrowable(recorder.error)
+                .get(ProtoUtils.keyForProto(SqlErrorResponse.getDefaultInstance()));
+        assertTrue(error.getReason().startsWith("Call 2 of 3 in batch (CALL_SET MaxRows on RES_STATEMENT) failed: "),
+                error.getReason());
+        assertTrue(recorder.responses.isEmpty());
+        assertEquals(3, statement.getMaxRows());
+        assertNotEquals(50, statement.getFetchSize());
+    }
+
+    private static class Recorder implements StreamObserver<CallResourceBatchResponse> {
+        private final List<CallResourceBatchResponse> responses = new ArrayList<>();
+        private Throwable error;
+        private boolean completed;
+
+        @Override
+        public void onNext(CallResourceBatchResponse value) {
+            responses.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onCompleted() {
+            completed = true;
+        }
+    }
+}
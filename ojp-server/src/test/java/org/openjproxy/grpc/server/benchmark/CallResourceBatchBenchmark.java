@@ -0,0 +1,139 @@
+package org.openjproxy.grpc.server.benchmark;
+
+import com.openjproxy.grpc.CallResourceBatchRequest;
+import com.openjproxy.grpc.CallResourceBatchResponse;
+import com.openjproxy.grpc.CallResourceRequest;
+import com.openjproxy.grpc.CallResourceResponse;
+import com.openjproxy.grpc.CallType;
+import com.openjproxy.grpc.ConnectionDetails;
+import com.openjproxy.grpc.ResourceType;
+import com.openjproxy.grpc.SessionInfo;
+import com.openjproxy.grpc.StatementServiceGrpc;
+import com.openjproxy.grpc.TargetCall;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.NettyServerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjproxy.grpc.ProtoConverter;
+import org.openjproxy.grpc.server.CircuitBreaker;
+import org.openjproxy.grpc.server.ServerConfiguration;
+import org.openjproxy.grpc.server.SessionManagerImpl;
+import org.openjproxy.grpc.server.StatementServiceImpl;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the chain of statement calls an ORM makes around a statement, through a server on the loopback
+ * interface backed by H2, sending each call on its own against sending them in one callResourceBatch the way
+ * the driver does when ojp.callBatching.enabled is set:
+ * setFetchSize, setQueryTimeout, clearWarnings, getMoreResults.
+ *
+ * Not run by the test suite, run {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CallResourceBatchBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:callbatch;DB_CLOSE_DELAY=-1";
+
+    private Server server;
+    private ManagedChannel channel;
+    private StatementServiceGrpc.StatementServiceBlockingStub stub;
+    private SessionInfo session;
+    private List<CallResourceRequest> calls;
+
+    @Setup
+    public void setup() throws Exception {
+        StatementServiceImpl service = new StatementServiceImpl(new SessionManagerImpl(),
+                new CircuitBreaker(60000, 3), new ServerConfiguration());
+        server = NettyServerBuilder.forAddress(new InetSocketAddress("127.0.0.1", 0))
+                .addService(service)
+                .build()
+                .start();
+        channel = NettyChannelBuilder.forAddress("127.0.0.1", server.getPort()).usePlaintext().build();
+        stub = StatementServiceGrpc.newBlockingStub(channel);
+        session = stub.connect(ConnectionDetails.newBuilder()
+                .setUrl(URL)
+                .setUser("sa")
+                .setPassword("")
+                .setClientUUID("call-batch-benchmark")
+                .build());
+        CallResourceResponse created = stub.callResource(CallResourceRequest.newBuilder()
+                .setSession(session)
+                .setResourceType(ResourceType.RES_STATEMENT)
+                .setTarget(call(CallType.CALL_SET, "MaxRows", 1000))
+                .build());
+        session = created.getSession();
+        String statementUUID = created.getResourceUUID();
+        calls = List.of(
+                request(statementUUID, call(CallType.CALL_SET, "FetchSize", 100)),
+                request(statementUUID, call(CallType.CALL_SET, "QueryTimeout", 30)),
+                request(statementUUID, call(CallType.CALL_CLEAR, "Warnings")),
+                request(statementUUID, call(CallType.CALL_GET, "MoreResults")));
+    }
+
+    private static TargetCall call(CallType callType, String name, Object... params) {
+        return TargetCall.newBuilder()
+                .setCallType(callType)
+                .setResourceName(name)
+                .addAllParams(ProtoConverter.objectListToParameterValues(List.of(params)))
+                .build();
+    }
+
+    private CallResourceRequest request(String statementUUID, TargetCall target) {
+        return CallResourceRequest.newBuilder()
+                .setSession(session)
+                .setResourceType(ResourceType.RES_STATEMENT)
+                .setResourceUUID(statementUUID)
+                .setTarget(target)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        stub.terminateSession(session);
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public CallResourceResponse separate() {
+        CallResourceResponse response = null;
+        for (CallResourceRequest call : calls) {
+            response = stub.callResource(call);
+        }
+        return response;
+    }
+
+    @Benchmark
+    public CallResourceBatchResponse batched() {
+        return stub.callResourceBatch(CallResourceBatchRequest.newBuilder()
+                .setSession(session)
+                .addAllCalls(calls)
+                .build());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CallResourceBatchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,163 @@
+package org.openjproxy.grpc.server.benchmark;
+
+import com.google.protobuf.CodedOutputStream;
+import com.openjproxy.grpc.OpResult;
+import com.openjproxy.grpc.ResultType;
+import com.openjproxy.grpc.SessionInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjproxy.grpc.ProtoConverter;
+import org.openjproxy.grpc.dto.OpQueryResult;
+import org.openjproxy.grpc.server.resultset.ResultSetBlockEncoder;
+import org.openjproxy.grpc.server.resultset.ResultSetWrapper;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building a 100 row result set block through {@code Object[]} rows and the {@code OpQueryResult} DTO
+ * with writing the rows straight to the block with {@link ResultSetBlockEncoder}, both including the
+ * serialization gRPC does afterwards. The narrow shape has 3 columns, the wide one 30 of mixed types.
+ * Run with {@code -prof gc} to compare allocation.
+ *
+ * Not run by the test suite, run {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultSetEncodingBenchmark {
+
+    private static final int ROWS = 100;
+
+    @Param({"narrow", "wide"})
+    public String shape;
+
+    private Connection connection;
+    private ResultSet rs;
+    private final SessionInfo session = SessionInfo.newBuilder().setSessionUUID("session").build();
+    private final byte[] wire = new byte[1024 * 1024];
+
+    @Setup
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:encoding");
+        StringBuilder columns = new StringBuilder("id INT");
+        StringBuilder values = new StringBuilder("?");
+        int extra = "wide".equals(shape) ? 29 : 2;
+        for (int i = 1; i <= extra; i++) {
+            columns.append(", c").append(i).append(switch (i % 5) {
+                case 0 -> " BIGINT";
+                case 1 -> " VARCHAR(64)";
+                case 2 -> " DOUBLE";
+                case 3 -> " BOOLEAN";
+                default -> " DECIMAL(12, 2)";
+            });
+            values.append(", ?");
+        }
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE rows_" + shape + " (" + columns + ")");
+        }
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO rows_" + shape + " VALUES (" + values + ")")) {
+            for (int row = 0; row < ROWS; row++) {
+                ps.setInt(1, row);
+                for (int i = 1; i <= extra; i++) {
+                    switch (i % 5) {
+                        case 0 -> ps.setLong(i + 1, row * 1_000_000L + i);
+                        case 1 -> ps.setString(i + 1, "value " + row + " of column " + i);
+                        case 2 -> ps.setDouble(i + 1, row / 3.0);
+                        case 3 -> ps.setBoolean(i + 1, row % 2 == 0);
+                        default -> ps.setBigDecimal(i + 1, java.math.BigDecimal.valueOf(row * 100L + i, 2));
+                    }
+                }
+                ps.executeUpdate();
+            }
+        }
+        rs = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY)
+                .executeQuery("SELECT * FROM rows_" + shape);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    private static Object read(ResultSet rs, int i) throws SQLException {
+        int type = rs.getMetaData().getColumnType(i + 1);
+        if (type == Types.TIMESTAMP) {
+            return rs.getTimestamp(i + 1);
+        }
+        return rs.getObject(i + 1);
+    }
+
+    private int serialize(OpResult result) throws Exception {
+        CodedOutputStream out = CodedOutputStream.newInstance(wire);
+        result.writeTo(out);
+        return out.getTotalBytesWritten();
+    }
+
+    @Benchmark
+    public int objectRows() throws Exception {
+        rs.beforeFirst();
+        int columnCount = rs.getMetaData().getColumnCount();
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < columnCount; i++) {
+            labels.add(rs.getMetaData().getColumnName(i + 1));
+        }
+        List<Object[]> rows = new ArrayList<>();
+        while (rs.next()) {
+            Object[] row = new Object[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                row[i] = read(rs, i);
+            }
+            rows.add(row);
+        }
+        return serialize(OpResult.newBuilder()
+                .setSession(session)
+                .setType(ResultType.RESULT_SET_DATA)
+                .setQueryResult(ProtoConverter.toProto(OpQueryResult.builder()
+                        .labels(labels)
+                        .resultSetUUID("rs")
+                        .rows(rows)
+                        .build()))
+                .setFlag("")
+                .build());
+    }
+
+    @Benchmark
+    public int directEncoder() throws Exception {
+        rs.beforeFirst();
+        ResultSetBlockEncoder encoder = new ResultSetBlockEncoder(rs.getMetaData(), ResultSetEncodingBenchmark::read);
+        while (rs.next()) {
+            encoder.addRow(rs);
+        }
+        return serialize(ResultSetWrapper.wrapBlock(session, encoder.finishBlock("rs"), ""));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ResultSetEncodingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,137 @@
+package org.openjproxy.grpc.server.benchmark;
+
+import com.openjproxy.grpc.ConnectionDetails;
+import com.openjproxy.grpc.OpResult;
+import com.openjproxy.grpc.SessionInfo;
+import com.openjproxy.grpc.SessionRequestFrame;
+import com.openjproxy.grpc.SessionResponseFrame;
+import com.openjproxy.grpc.StatementRequest;
+import com.openjproxy.grpc.StatementServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjproxy.grpc.server.CircuitBreaker;
+import org.openjproxy.grpc.server.ServerConfiguration;
+import org.openjproxy.grpc.server.SessionManagerImpl;
+import org.openjproxy.grpc.server.StatementServiceImpl;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures small statement throughput through a server on the loopback interface backed by H2, sending each
+ * statement as a unary executeUpdate against sending it on a session stream the way the driver does when
+ * ojp.sessionStream.enabled is set: framed with a correlation id and without the session, sent once when the
+ * stream opens.
+ *
+ * Not run by the test suite, run {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionStreamBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:sessionstream;DB_CLOSE_DELAY=-1";
+    private static final String SQL = "UPDATE counter SET hits = hits + 1 WHERE id = 1";
+
+    private Server server;
+    private ManagedChannel channel;
+    private StatementServiceGrpc.StatementServiceBlockingStub stub;
+    private SessionInfo session;
+    private StreamObserver<SessionRequestFrame> requests;
+    private final BlockingQueue<SessionResponseFrame> responses = new LinkedBlockingQueue<>();
+    private int correlationId;
+
+    @Setup
+    public void setup() throws Exception {
+        StatementServiceImpl service = new StatementServiceImpl(new SessionManagerImpl(),
+                new CircuitBreaker(60000, 3), new ServerConfiguration());
+        server = NettyServerBuilder.forAddress(new InetSocketAddress("127.0.0.1", 0))
+                .addService(service)
+                .build()
+                .start();
+        channel = NettyChannelBuilder.forAddress("127.0.0.1", server.getPort()).usePlaintext().build();
+        stub = StatementServiceGrpc.newBlockingStub(channel);
+        session = stub.connect(ConnectionDetails.newBuilder()
+                .setUrl(URL)
+                .setUser("sa")
+                .setPassword("")
+                .setClientUUID("session-stream-benchmark")
+                .build());
+        session = stub.executeUpdate(statement("CREATE TABLE counter (id INT PRIMARY KEY, hits BIGINT)")).getSession();
+        session = stub.executeUpdate(statement("INSERT INTO counter VALUES (1, 0)")).getSession();
+
+        requests = StatementServiceGrpc.newStub(channel).sessionStream(new StreamObserver<>() {
+            @Override
+            public void onNext(SessionResponseFrame frame) {
+                responses.add(frame);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                t.printStackTrace();
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        });
+        requests.onNext(SessionRequestFrame.newBuilder()
+                .setCorrelationId(++correlationId)
+                .setSession(session)
+                .setExecuteUpdate(StatementRequest.newBuilder().setSql(SQL))
+                .build());
+        responses.take();
+    }
+
+    private StatementRequest statement(String sql) {
+        return StatementRequest.newBuilder().setSession(session).setSql(sql).build();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        requests.onCompleted();
+        stub.terminateSession(session);
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public OpResult unary() {
+        return stub.executeUpdate(statement(SQL));
+    }
+
+    @Benchmark
+    public OpResult stream() throws InterruptedException {
+        requests.onNext(SessionRequestFrame.newBuilder()
+                .setCorrelationId(++correlationId)
+                .setExecuteUpdate(StatementRequest.newBuilder().setSql(SQL))
+                .build());
+        return responses.take().getOpResult();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SessionStreamBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,104 @@
+package org.openjproxy.grpc.server.benchmark;
+
+import org.apache.calcite.jdbc.JavaTypeFactoryImpl;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.type.RelDataTypeFactory;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.sql.dialect.AnsiSqlDialect;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjproxy.grpc.server.sql.ColumnMetadata;
+import org.openjproxy.grpc.server.sql.OptimizationRuleRegistry;
+import org.openjproxy.grpc.server.sql.RelationalAlgebraConverter;
+import org.openjproxy.grpc.server.sql.SchemaCache;
+import org.openjproxy.grpc.server.sql.SchemaMetadata;
+import org.openjproxy.grpc.server.sql.TableMetadata;
+
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-statement cost of the SQL enhancer's relational algebra round trip: SQL to RelNode, the
+ * safe optimization rules, and back to SQL, against the generic schema or a cached real schema.
+ *
+ * Not run by the test suite, run {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlEnhancementBenchmark {
+
+    @Param({"generic", "cached"})
+    public String schema;
+
+    private RelationalAlgebraConverter converter;
+    private List<RelOptRule> rules;
+
+    @Setup
+    public void setup() {
+        SchemaCache schemaCache = null;
+        if ("cached".equals(schema)) {
+            schemaCache = new SchemaCache();
+            schemaCache.updateSchema(schemaMetadata());
+        }
+        converter = new RelationalAlgebraConverter(SqlParser.config().withCaseSensitive(false),
+                AnsiSqlDialect.DEFAULT, schemaCache);
+        rules = new OptimizationRuleRegistry().getSafeRules();
+    }
+
+    private static SchemaMetadata schemaMetadata() {
+        RelDataTypeFactory typeFactory = new JavaTypeFactoryImpl();
+        Map<String, TableMetadata> tables = new HashMap<>();
+        tables.put("ORDERS", new TableMetadata("ORDERS", List.of(
+                new ColumnMetadata("ID", Types.INTEGER, "INTEGER", false, 10, 0),
+                new ColumnMetadata("CUSTOMER_ID", Types.INTEGER, "INTEGER", false, 10, 0),
+                new ColumnMetadata("STATUS", Types.VARCHAR, "VARCHAR", false, 20, 0),
+                new ColumnMetadata("AMOUNT", Types.DECIMAL, "DECIMAL", false, 10, 2)),
+                typeFactory.builder()
+                        .add("ID", SqlTypeName.INTEGER)
+                        .add("CUSTOMER_ID", SqlTypeName.INTEGER)
+                        .add("STATUS", SqlTypeName.VARCHAR)
+                        .add("AMOUNT", SqlTypeName.DECIMAL)
+                        .build()));
+        tables.put("CUSTOMERS", new TableMetadata("CUSTOMERS", List.of(
+                new ColumnMetadata("ID", Types.INTEGER, "INTEGER", false, 10, 0),
+                new ColumnMetadata("NAME", Types.VARCHAR, "VARCHAR", false, 255, 0)),
+                typeFactory.builder()
+                        .add("ID", SqlTypeName.INTEGER)
+                        .add("NAME", SqlTypeName.VARCHAR)
+                        .build()));
+        return new SchemaMetadata(tables, System.currentTimeMillis(), null, null);
+    }
+
+    @Benchmark
+    public String enhance() throws Exception {
+        String sql = "SELECT c.name, o.amount FROM orders o JOIN customers c ON c.id = o.customer_id"
+                + " WHERE o.status = 'OPEN' AND 1 = 1";
+        RelNode relNode = converter.convertToRelNode(sql);
+        return converter.convertToSql(converter.applyOptimizations(relNode, rules));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SqlEnhancementBenchmark.class.getSimpleName()).build()).run();
+    }
+}
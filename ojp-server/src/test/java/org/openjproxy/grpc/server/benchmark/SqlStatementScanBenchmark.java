@@ -0,0 +1,105 @@
+package org.openjproxy.grpc.server.benchmark;
+
+import net.jpountz.xxhash.XXHash64;
+import net.jpountz.xxhash.XXHashFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjproxy.grpc.server.sql.SqlStatementInfo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the per-request SQL inspection done by executeQuery/executeUpdate: the former regex based
+ * session affinity detection plus trim/replaceAll/toLowerCase/getBytes hashing, against the single-pass
+ * SqlStatementInfo scan, with and without memoization.
+ *
+ * Not run by the test suite, run {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlStatementScanBenchmark {
+
+    private static final Pattern TEMP_TABLE_PATTERN = Pattern.compile(
+            "^\\s*(CREATE\\s+(GLOBAL\\s+|LOCAL\\s+)?(TEMP(ORARY)?|TEMPORARY)\\s+TABLE|DECLARE\\s+GLOBAL\\s+TEMPORARY\\s+TABLE)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern SESSION_VAR_PATTERN = Pattern.compile(
+            "^\\s*SET\\s+(@|SESSION\\s+|LOCAL\\s+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PREPARE_PATTERN = Pattern.compile("^\\s*PREPARE\\s+", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SQLSERVER_TEMP_TABLE_PATTERN = Pattern.compile(
+            "^\\s*CREATE\\s+TABLE\\s+#[^#]", Pattern.CASE_INSENSITIVE);
+    private static final XXHashFactory FACTORY = XXHashFactory.fastestInstance();
+    private static final long SEED = 0x9747b28c;
+
+    @Param({"short", "long"})
+    private String shape;
+
+    private String sql;
+
+    @Setup
+    public void setup() {
+        if ("short".equals(shape)) {
+            sql = "SELECT id, name FROM users WHERE id = ?";
+        } else {
+            sql = "SELECT o.id, o.status, o.created_at, c.name, c.email, SUM(l.amount) AS total\n"
+                    + "  FROM orders o\n  JOIN customers c ON c.id = o.customer_id\n"
+                    + "  JOIN order_lines l ON l.order_id = o.id\n"
+                    + " WHERE o.status IN (?, ?, ?) AND o.created_at > ?\n"
+                    + " GROUP BY o.id, o.status, o.created_at, c.name, c.email\n"
+                    + " ORDER BY o.created_at DESC";
+        }
+    }
+
+    @Benchmark
+    public void regexAndReplaceAll(Blackhole bh) {
+        String prefix = sql.length() > 200 ? sql.substring(0, 200) : sql;
+        String trimmed = prefix.trim();
+        bh.consume(TEMP_TABLE_PATTERN.matcher(trimmed).find()
+                || SESSION_VAR_PATTERN.matcher(trimmed).find()
+                || PREPARE_PATTERN.matcher(trimmed).find()
+                || SQLSERVER_TEMP_TABLE_PATTERN.matcher(trimmed).find());
+
+        byte[] data = sql.trim().replaceAll("\\s+", " ").toLowerCase().getBytes(StandardCharsets.UTF_8);
+        XXHash64 hash64 = FACTORY.hash64();
+        bh.consume(Long.toHexString(hash64.hash(data, 0, data.length, SEED)));
+    }
+
+    @Benchmark
+    public void singlePassScan(Blackhole bh) {
+        SqlStatementInfo info = SqlStatementInfo.scan(sql);
+        bh.consume(info.requiresSessionAffinity());
+        bh.consume(info.getHashHex());
+    }
+
+    @Benchmark
+    public void memoizedScan(Blackhole bh) {
+        // Fresh String instance per call, as each gRPC request carries its own copy of the SQL
+        SqlStatementInfo info = SqlStatementInfo.of(new String(sql));
+        bh.consume(info.requiresSessionAffinity());
+        bh.consume(info.getHashHex());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SqlStatementScanBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
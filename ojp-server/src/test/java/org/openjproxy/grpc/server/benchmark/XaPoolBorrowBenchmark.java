@@ -0,0 +1,182 @@
+package org.openjproxy.grpc.server.benchmark;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjproxy.xa.pool.XABackendSession;
+import org.openjproxy.xa.pool.commons.CommonsPool2XAProvider;
+import org.openjproxy.xa.pool.commons.ConcurrentBagXAProvider;
+import org.openjproxy.xa.pool.spi.XAConnectionPoolProvider;
+
+import javax.sql.XAConnection;
+import javax.sql.XADataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures borrowing a backend session from the XA pool and returning it, with the Commons Pool 2 provider
+ * against the ConcurrentBag provider, backed by H2's XADataSource.
+ * Connection.isValid() waits validationLatencyMicros to stand for the database round trip a validation
+ * costs with a networked database; Commons Pool 2 validates on every borrow, ConcurrentBag only sessions
+ * idle for longer than its validation threshold.
+ *
+ * Not run by the test suite, run {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XaPoolBorrowBenchmark {
+
+    @Param({"commons-pool2", "concurrent-bag"})
+    public String provider;
+
+    @Param({"0", "200"})
+    public long validationLatencyMicros;
+
+    private XAConnectionPoolProvider poolProvider;
+    private XADataSource pool;
+
+    @Setup
+    public void setup() throws Exception {
+        LatencyXADataSource.validationLatencyNanos = TimeUnit.MICROSECONDS.toNanos(validationLatencyMicros);
+        poolProvider = "concurrent-bag".equals(provider) ? new ConcurrentBagXAProvider() : new CommonsPool2XAProvider();
+
+        Map<String, String> config = new HashMap<>();
+        config.put("xa.datasource.className", LatencyXADataSource.class.getName());
+        config.put("xa.url", "jdbc:h2:mem:xapoolbench;DB_CLOSE_DELAY=-1");
+        config.put("xa.username", "sa");
+        config.put("xa.password", "");
+        config.put("xa.maxPoolSize", "16");
+        config.put("xa.minIdle", "16");
+        pool = poolProvider.createXADataSource(config);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        poolProvider.closeXADataSource(pool);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public XABackendSession borrowReturn() throws Exception {
+        return borrowAndReturn();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public XABackendSession borrowReturnContended() throws Exception {
+        return borrowAndReturn();
+    }
+
+    private XABackendSession borrowAndReturn() throws Exception {
+        XABackendSession session = poolProvider.borrowSession(pool);
+        poolProvider.returnSession(pool, session);
+        return session;
+    }
+
+    /**
+     * H2 XADataSource whose connections take validationLatencyNanos to validate.
+     */
+    public static class LatencyXADataSource implements XADataSource {
+        static volatile long validationLatencyNanos;
+
+        private final JdbcDataSource h2 = new JdbcDataSource();
+
+        public void setURL(String url) {
+            h2.setURL(url);
+        }
+
+        public void setUser(String user) {
+            h2.setUser(user);
+        }
+
+        public void setPassword(String password) {
+            h2.setPassword(password);
+        }
+
+        @Override
+        public XAConnection getXAConnection() throws SQLException {
+            XAConnection xaConnection = h2.getXAConnection();
+            return (XAConnection) Proxy.newProxyInstance(XAConnection.class.getClassLoader(),
+                    new Class<?>[]{XAConnection.class}, (proxy, method, args) -> {
+                        Object result = invoke(xaConnection, method, args);
+                        return "getConnection".equals(method.getName()) ? slowValidation((Connection) result) : result;
+                    });
+        }
+
+        private static Connection slowValidation(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        if ("isValid".equals(method.getName()) && validationLatencyNanos > 0) {
+                            LockSupport.parkNanos(validationLatencyNanos);
+                        }
+                        return invoke(connection, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        @Override
+        public XAConnection getXAConnection(String user, String password) throws SQLException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public PrintWriter getLogWriter() {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) {
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) {
+        }
+
+        @Override
+        public int getLoginTimeout() {
+            return 0;
+        }
+
+        @Override
+        public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(XaPoolBorrowBenchmark.class.getSimpleName()).build()).run();
+    }
+}
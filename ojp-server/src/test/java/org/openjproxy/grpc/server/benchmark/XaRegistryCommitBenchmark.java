@@ -0,0 +1,224 @@
+package org.openjproxy.grpc.server.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjproxy.xa.pool.XABackendSession;
+import org.openjproxy.xa.pool.XATransactionRegistry;
+import org.openjproxy.xa.pool.XidKey;
+import org.openjproxy.xa.pool.spi.XAConnectionPoolProvider;
+
+import javax.sql.XAConnection;
+import javax.sql.XADataSource;
+import javax.transaction.xa.XAResource;
+import javax.transaction.xa.Xid;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the overhead XATransactionRegistry adds to an XA transaction: start on an existing session, end,
+ * prepare, commit and the return of the completed session, against a backend XAResource that does nothing.
+ * Covers TxContext state transitions, metrics recording and logging at the default INFO level.
+ *
+ * Not run by the test suite, run {@link #main(String[])} from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XaRegistryCommitBenchmark {
+
+    private static final AtomicLong GTRIDS = new AtomicLong();
+
+    @State(Scope.Benchmark)
+    public static class Registry {
+        XATransactionRegistry registry;
+
+        @Setup
+        public void setup() {
+            registry = new XATransactionRegistry(new NoOpProvider(), new Object(), null, 20, 5);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Branch {
+        final String ojpSessionId = UUID.randomUUID().toString();
+        final XABackendSession session = new NoOpSession();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void twoPhaseCommit(Registry registry, Branch branch) throws Exception {
+        commit(registry.registry, branch, false);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void onePhaseCommit(Registry registry, Branch branch) throws Exception {
+        commit(registry.registry, branch, true);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void twoPhaseCommitContended(Registry registry, Branch branch) throws Exception {
+        commit(registry.registry, branch, false);
+    }
+
+    private static void commit(XATransactionRegistry registry, Branch branch, boolean onePhase) throws Exception {
+        XidKey xid = new XidKey(4660, ByteBuffer.allocate(8).putLong(GTRIDS.incrementAndGet()).array(),
+                new byte[]{1});
+        registry.registerExistingSession(xid, branch.session, XAResource.TMNOFLAGS, branch.ojpSessionId);
+        registry.xaEnd(xid, XAResource.TMSUCCESS);
+        if (!onePhase) {
+            registry.xaPrepare(xid);
+        }
+        registry.xaCommit(xid, onePhase);
+        registry.returnCompletedSessions(branch.ojpSessionId);
+    }
+
+    private static final class NoOpProvider implements XAConnectionPoolProvider {
+        @Override
+        public String id() {
+            return "no-op";
+        }
+
+        @Override
+        public XADataSource createXADataSource(Map<String, String> config) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void closeXADataSource(XADataSource xaDataSource) {
+        }
+
+        @Override
+        public Map<String, Object> getStatistics(XADataSource xaDataSource) {
+            return Map.of();
+        }
+
+        @Override
+        public XABackendSession borrowSession(Object xaDataSource) {
+            return new NoOpSession();
+        }
+
+        @Override
+        public void returnSession(Object xaDataSource, XABackendSession session) {
+        }
+
+        @Override
+        public void invalidateSession(Object xaDataSource, XABackendSession session) {
+        }
+    }
+
+    private static final class NoOpSession implements XABackendSession {
+        private final XAResource xaResource = new NoOpXAResource();
+
+        @Override
+        public void open() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean isHealthy() {
+            return true;
+        }
+
+        @Override
+        public void reset() {
+        }
+
+        @Override
+        public void sanitizeAfterTransaction() {
+        }
+
+        @Override
+        public XAConnection getXAConnection() {
+            return null;
+        }
+
+        @Override
+        public XAResource getXAResource() {
+            return xaResource;
+        }
+
+        @Override
+        public Connection getConnection() {
+            return null;
+        }
+
+        @Override
+        public String getSessionId() {
+            return "no-op";
+        }
+    }
+
+    private static final class NoOpXAResource implements XAResource {
+        @Override
+        public void commit(Xid xid, boolean onePhase) {
+        }
+
+        @Override
+        public void end(Xid xid, int flags) {
+        }
+
+        @Override
+        public void forget(Xid xid) {
+        }
+
+        @Override
+        public int getTransactionTimeout() {
+            return 0;
+        }
+
+        @Override
+        public boolean isSameRM(XAResource xares) {
+            return xares == this;
+        }
+
+        @Override
+        public int prepare(Xid xid) {
+            return XA_OK;
+        }
+
+        @Override
+        public Xid[] recover(int flag) {
+            return new Xid[0];
+        }
+
+        @Override
+        public void rollback(Xid xid) {
+        }
+
+        @Override
+        public boolean setTransactionTimeout(int seconds) {
+            return true;
+        }
+
+        @Override
+        public void start(Xid xid, int flags) {
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(XaRegistryCommitBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,149 @@
+package org.openjproxy.grpc.server.benchmark;
+
+import com.google.protobuf.ByteString;
+import com.openjproxy.grpc.ConnectionDetails;
+import com.openjproxy.grpc.SessionInfo;
+import com.openjproxy.grpc.StatementRequest;
+import com.openjproxy.grpc.StatementServiceGrpc;
+import com.openjproxy.grpc.XaCommitRequest;
+import com.openjproxy.grpc.XaEndRequest;
+import com.openjproxy.grpc.XaPrepareRequest;
+import com.openjproxy.grpc.XaStartRequest;
+import com.openjproxy.grpc.XidProto;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.NettyServerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjproxy.grpc.server.CircuitBreaker;
+import org.openjproxy.grpc.server.ServerConfiguration;
+import org.openjproxy.grpc.server.SessionManagerImpl;
+import org.openjproxy.grpc.server.StatementServiceImpl;
+
+import javax.transaction.xa.XAResource;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures XA transactions per second through a server on the loopback interface backed by H2's XADataSource,
+ * sending every XA verb on its own against coalescing them with the statement and completion requests the way
+ * OjpXAResource does when ojp.xa.verbCoalescing.enabled is set:
+ * - separate: xaStart, executeUpdate, xaEnd, xaPrepare, xaCommit (five round trips)
+ * - coalescedTwoPhase: executeUpdate+xaStart, xaPrepare+xaEnd, xaCommit (three round trips)
+ * - coalescedOnePhase: executeUpdate+xaStart, xaCommit+xaEnd (two round trips, single branch transactions)
+ *
+ * Not run by the test suite, run {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XaVerbCoalescingBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:xabench;DB_CLOSE_DELAY=-1";
+    private static final String UPDATE = "UPDATE account SET balance = balance + 1 WHERE id = 1";
+
+    private Connection keepAlive;
+    private Server server;
+    private ManagedChannel channel;
+    private StatementServiceGrpc.StatementServiceBlockingStub stub;
+    private SessionInfo session;
+    private long transactions;
+
+    @Setup
+    public void setup() throws Exception {
+        keepAlive = DriverManager.getConnection(URL, "sa", "");
+        try (Statement statement = keepAlive.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS account (id INT PRIMARY KEY, balance BIGINT)");
+            statement.execute("MERGE INTO account KEY (id) VALUES (1, 0)");
+        }
+
+        StatementServiceImpl service = new StatementServiceImpl(new SessionManagerImpl(),
+                new CircuitBreaker(60000, 3), new ServerConfiguration());
+        server = NettyServerBuilder.forAddress(new InetSocketAddress("127.0.0.1", 0))
+                .addService(service)
+                .build()
+                .start();
+        channel = NettyChannelBuilder.forAddress("127.0.0.1", server.getPort()).usePlaintext().build();
+        stub = StatementServiceGrpc.newBlockingStub(channel);
+        session = stub.connect(ConnectionDetails.newBuilder()
+                .setUrl(URL)
+                .setUser("sa")
+                .setPassword("")
+                .setClientUUID("xa-benchmark")
+                .setIsXA(true)
+                .build());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        stub.terminateSession(session);
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        keepAlive.close();
+    }
+
+    @Benchmark
+    public void separate() {
+        XidProto xid = nextXid();
+        stub.xaStart(XaStartRequest.newBuilder().setSession(session).setXid(xid)
+                .setFlags(XAResource.TMNOFLAGS).build());
+        stub.executeUpdate(update(session));
+        stub.xaEnd(XaEndRequest.newBuilder().setSession(session).setXid(xid)
+                .setFlags(XAResource.TMSUCCESS).build());
+        stub.xaPrepare(XaPrepareRequest.newBuilder().setSession(session).setXid(xid).build());
+        stub.xaCommit(XaCommitRequest.newBuilder().setSession(session).setXid(xid).setOnePhase(false).build());
+    }
+
+    @Benchmark
+    public void coalescedTwoPhase() {
+        XidProto xid = nextXid();
+        stub.executeUpdate(update(session.toBuilder().setPendingXaStart(xid).build()));
+        stub.xaPrepare(XaPrepareRequest.newBuilder().setSession(session).setXid(xid)
+                .setEndFlags(XAResource.TMSUCCESS).build());
+        stub.xaCommit(XaCommitRequest.newBuilder().setSession(session).setXid(xid).setOnePhase(false).build());
+    }
+
+    @Benchmark
+    public void coalescedOnePhase() {
+        XidProto xid = nextXid();
+        stub.executeUpdate(update(session.toBuilder().setPendingXaStart(xid).build()));
+        stub.xaCommit(XaCommitRequest.newBuilder().setSession(session).setXid(xid).setOnePhase(true)
+                .setEndFlags(XAResource.TMSUCCESS).build());
+    }
+
+    private static StatementRequest update(SessionInfo session) {
+        return StatementRequest.newBuilder().setSession(session).setSql(UPDATE).build();
+    }
+
+    private XidProto nextXid() {
+        return XidProto.newBuilder()
+                .setFormatId(4660)
+                .setGlobalTransactionId(ByteString.copyFrom(ByteBuffer.allocate(8).putLong(++transactions).array()))
+                .setBranchQualifier(ByteString.copyFromUtf8("b1"))
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(XaVerbCoalescingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
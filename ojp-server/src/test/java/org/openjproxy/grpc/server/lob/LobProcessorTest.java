@@ -0,0 +1,104 @@
+package org.openjproxy.grpc.server.lob;
+
+import com.openjproxy.grpc.SessionInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openjproxy.constants.CommonConstants;
+import org.openjproxy.grpc.server.SessionManager;
+
+import java.io.ByteArrayInputStream;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the inline threshold of LobProcessor.treatAsBlob and treatAsClob.
+ */
+class LobProcessorTest {
+
+    private SessionManager sessionManager;
+    private SessionInfo session;
+    private ResultSet rs;
+    private Blob blob;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sessionManager = mock(SessionManager.class);
+        session = SessionInfo.newBuilder().setSessionUUID("session").build();
+        rs = mock(ResultSet.class);
+        blob = mock(Blob.class);
+        when(rs.getBlob(1)).thenReturn(blob);
+    }
+
+    @Test
+    void testSmallBlobIsInlined() throws Exception {
+        byte[] content = new byte[]{1, 2, 3};
+        when(blob.length()).thenReturn((long) content.length);
+        when(blob.getBinaryStream()).thenReturn(new ByteArrayInputStream(content));
+
+        Object value = LobProcessor.treatAsBlob(sessionManager, session, rs, 0, Map.of(), 3);
+
+        assertArrayEquals(content, (byte[]) value);
+        verify(sessionManager, never()).registerLob(any(), any(), any());
+    }
+
+    @Test
+    void testLargeBlobIsRegisteredAsLocator() throws Exception {
+        when(blob.length()).thenReturn(4L);
+
+        Object value = LobProcessor.treatAsBlob(sessionManager, session, rs, 0, Map.of(), 3);
+
+        assertTrue(value instanceof String);
+        String uuid = ((String) value).substring(CommonConstants.OJP_BLOB_PREFIX.length());
+        assertTrue(((String) value).startsWith(CommonConstants.OJP_BLOB_PREFIX));
+        verify(sessionManager).registerLob(eq(session), eq(blob), eq(uuid));
+        verify(blob, never()).getBinaryStream();
+    }
+
+    @Test
+    void testNullBlob() throws Exception {
+        when(rs.getBlob(1)).thenReturn(null);
+
+        assertNull(LobProcessor.treatAsBlob(sessionManager, session, rs, 0, Map.of(), 3));
+    }
+
+    @Test
+    void testSmallClobIsInlined() throws Exception {
+        Clob clob = mock(Clob.class);
+        when(rs.getClob(1)).thenReturn(clob);
+        when(clob.length()).thenReturn(3L);
+        when(clob.getSubString(1, 3)).thenReturn("abc");
+
+        assertEquals("abc", LobProcessor.treatAsClob(sessionManager, session, rs, 0, 3));
+        verify(sessionManager, never()).registerLob(any(), any(), any());
+    }
+
+    @Test
+    void testLargeClobIsRegisteredAsLocator() throws Exception {
+        Clob clob = mock(Clob.class);
+        when(rs.getClob(1)).thenReturn(clob);
+        when(clob.length()).thenReturn(4L);
+
+        String value = LobProcessor.treatAsClob(sessionManager, session, rs, 0, 3);
+
+        assertTrue(value.startsWith(CommonConstants.OJP_CLOB_PREFIX));
+        String uuid = value.substring(CommonConstants.OJP_CLOB_PREFIX.length());
+        verify(sessionManager).registerLob(eq(session), eq(clob), eq(uuid));
+        verify(clob, never()).getSubString(anyLong(), anyInt());
+    }
+
+    @Test
+    void testNullClob() throws Exception {
+        when(rs.getClob(1)).thenReturn(null);
+
+        assertNull(LobProcessor.treatAsClob(sessionManager, session, rs, 0, 3));
+    }
+}
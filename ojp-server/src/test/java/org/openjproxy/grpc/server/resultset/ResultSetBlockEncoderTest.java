@@ -0,0 +1,126 @@
+package org.openjproxy.grpc.server.resultset;
+
+import com.openjproxy.grpc.OpQueryResultProto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openjproxy.grpc.ProtoConverter;
+import org.openjproxy.grpc.dto.OpQueryResult;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that ResultSetBlockEncoder blocks decode to the same rows as the Object[] conversion.
+ */
+class ResultSetBlockEncoderTest {
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:encoder_" + System.nanoTime());
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE t (id INT, big BIGINT, small SMALLINT, name VARCHAR(100), ratio DOUBLE,"
+                    + " score REAL, flag BOOLEAN, amount DECIMAL(10, 2), created DATE, updated TIMESTAMP)");
+            stmt.execute("INSERT INTO t VALUES (1, 10000000000, 7, 'café', 1.5, 2.5, TRUE, 12.34,"
+                    + " DATE '2024-01-02', TIMESTAMP '2024-01-02 03:04:05.123')");
+            stmt.execute("INSERT INTO t VALUES (NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL)");
+            stmt.execute("INSERT INTO t VALUES (-5, -1, 0, '', 0, 0, FALSE, 0, DATE '1999-12-31',"
+                    + " TIMESTAMP '1999-12-31 23:59:59')");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    private static Object read(ResultSet rs, int i) throws SQLException {
+        int type = rs.getMetaData().getColumnType(i + 1);
+        if (type == Types.DATE) {
+            return rs.getDate(i + 1);
+        }
+        if (type == Types.TIMESTAMP) {
+            return rs.getTimestamp(i + 1);
+        }
+        return rs.getObject(i + 1);
+    }
+
+    private static OpQueryResultProto decode(OpQueryResultProto block) throws Exception {
+        return OpQueryResultProto.parseFrom(block.toByteString());
+    }
+
+    @Test
+    void testBlockDecodesLikeObjectRows() throws Exception {
+        OpQueryResultProto expected;
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery("SELECT * FROM t ORDER BY id")) {
+            List<String> labels = new ArrayList<>();
+            for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+                labels.add(rs.getMetaData().getColumnName(i));
+            }
+            List<Object[]> rows = new ArrayList<>();
+            while (rs.next()) {
+                Object[] row = new Object[labels.size()];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = read(rs, i);
+                }
+                rows.add(row);
+            }
+            expected = ProtoConverter.toProto(OpQueryResult.builder()
+                    .resultSetUUID("rs").labels(labels).rows(rows).build());
+        }
+
+        OpQueryResultProto block;
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery("SELECT * FROM t ORDER BY id")) {
+            ResultSetBlockEncoder encoder = new ResultSetBlockEncoder(rs.getMetaData(), ResultSetBlockEncoderTest::read);
+            while (rs.next()) {
+                encoder.addRow(rs);
+            }
+            assertEquals(3, encoder.getRowCount());
+            block = encoder.finishBlock("rs");
+        }
+
+        assertEquals(expected.toByteString().size(), block.getSerializedSize());
+        assertEquals(expected, decode(block));
+    }
+
+    @Test
+    void testLabelsOnlyInFirstBlockAndBufferGrows() throws Exception {
+        String longName = "x".repeat(20_000);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE wide (name VARCHAR(30000))");
+            stmt.execute("INSERT INTO wide VALUES ('" + longName + "')");
+            stmt.execute("INSERT INTO wide VALUES ('short')");
+        }
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery("SELECT name FROM wide")) {
+            ResultSetBlockEncoder encoder = new ResultSetBlockEncoder(rs.getMetaData(), ResultSetBlockEncoderTest::read);
+            assertTrue(rs.next());
+            encoder.addRow(rs);
+            assertTrue(encoder.getBlockBytes() > longName.length());
+            OpQueryResultProto first = decode(encoder.finishBlock("rs"));
+            assertEquals(0, encoder.getBlockBytes());
+
+            assertTrue(rs.next());
+            encoder.addRow(rs);
+            OpQueryResultProto second = decode(encoder.finishBlock("rs"));
+
+            assertEquals(List.of("NAME"), first.getLabelsList());
+            assertEquals(longName, first.getRows(0).getColumns(0).getStringValue());
+            assertEquals(0, second.getLabelsCount());
+            assertEquals("short", second.getRows(0).getColumns(0).getStringValue());
+
+            OpQueryResultProto empty = decode(encoder.finishBlock("rs"));
+            assertEquals("rs", empty.getResultSetUUID());
+            assertEquals(0, empty.getRowsCount());
+        }
+    }
+}
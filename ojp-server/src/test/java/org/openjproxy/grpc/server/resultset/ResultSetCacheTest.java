@@ -0,0 +1,261 @@
+package org.openjproxy.grpc.server.resultset;
+
+import com.openjproxy.grpc.OpQueryResultProto;
+import com.openjproxy.grpc.ParameterProto;
+import com.openjproxy.grpc.SessionInfo;
+import com.openjproxy.grpc.TransactionInfo;
+import com.openjproxy.grpc.TransactionStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openjproxy.grpc.server.Session;
+import org.openjproxy.grpc.server.sql.SqlStatementInfo;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the keys, time to live, invalidation and bounds of the ResultSetCache.
+ */
+class ResultSetCacheTest {
+
+    private static final String COUNTRIES = "SELECT code, name FROM countries /* ojp.cache.ttl=60 */";
+
+    private ResultSetCache cache;
+    private SessionInfo session;
+    private ResultSetMetaData metaData;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cache = new ResultSetCache(1024 * 1024, 0, ResultSetCache.parseTtlRules("from feature_flags=30"));
+        session = SessionInfo.newBuilder().setConnHash("ds1").build();
+        metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("CODE");
+        when(metaData.getColumnName(1)).thenReturn("CODE");
+        when(metaData.getColumnType(1)).thenReturn(Types.VARCHAR);
+    }
+
+    private ResultSetCache.Key key(SessionInfo session, String sql, List<ParameterProto> parameters) {
+        return cache.keyFor(session, SqlStatementInfo.of(sql), sql, parameters);
+    }
+
+    private ResultSetCache.Key store(SessionInfo session, String sql) throws Exception {
+        ResultSetCache.Key key = key(session, sql, List.of());
+        ResultSetCache.Capture capture = cache.capture(key);
+        capture.add(OpQueryResultProto.newBuilder().setResultSetUUID("rs").addLabels("CODE").build());
+        capture.complete(metaData);
+        return key;
+    }
+
+    @Test
+    void testOnlyStatementsWithTimeToLiveAreCached() {
+        assertNotNull(key(session, COUNTRIES, List.of()));
+        assertNotNull(key(session, "select * from FEATURE_FLAGS where id = 1", List.of()));
+        assertNull(key(session, "SELECT * FROM orders", List.of()));
+        assertNull(key(session, "SELECT * FROM feature_flags /* ojp.cache.ttl=0 */", List.of()));
+        assertNull(key(session, "DELETE FROM countries /* ojp.cache.ttl=60 */", List.of()));
+    }
+
+    @Test
+    void testTransactionsAndXaAreNotCached() {
+        SessionInfo inTransaction = session.toBuilder()
+                .setSessionUUID("s1")
+                .setTransactionInfo(TransactionInfo.newBuilder()
+                        .setTransactionUUID("t1")
+                        .setTransactionStatus(TransactionStatus.TRX_ACTIVE))
+                .build();
+        assertNull(key(inTransaction, COUNTRIES, List.of()));
+        assertNull(key(session.toBuilder().setIsXA(true).build(), COUNTRIES, List.of()));
+    }
+
+    @Test
+    void testDisabledCache() {
+        cache = new ResultSetCache(0, 60, List.of());
+        assertFalse(cache.isEnabled());
+        assertNull(key(session, COUNTRIES, List.of()));
+    }
+
+    @Test
+    void testHitAfterCompletedCapture() throws Exception {
+        assertNull(cache.get(key(session, COUNTRIES, List.of())));
+
+        store(session, COUNTRIES);
+
+        ResultSetCache.Entry entry = cache.get(key(session, COUNTRIES, List.of()));
+        assertNotNull(entry);
+        assertEquals(1, entry.getBlocks().size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRatio());
+        assertTrue(cache.getWeightedSize() > 0);
+    }
+
+    @Test
+    void testKeyIncludesParametersDatasourceAndLiteralCase() throws Exception {
+        String sql = "SELECT name FROM countries WHERE code = ? /* ojp.cache.ttl=60 */";
+        ParameterProto pt = ParameterProto.newBuilder().setIndex(1).build();
+        ParameterProto es = ParameterProto.newBuilder().setIndex(2).build();
+        ResultSetCache.Key key = key(session, sql, List.of(pt));
+        ResultSetCache.Capture capture = cache.capture(key);
+        capture.add(OpQueryResultProto.getDefaultInstance());
+        capture.complete(metaData);
+
+        assertNotNull(cache.get(key(session, sql, List.of(pt))));
+        assertNull(cache.get(key(session, sql, List.of(es))));
+        assertNull(cache.get(key(SessionInfo.newBuilder().setConnHash("ds2").build(), sql, List.of(pt))));
+
+        store(session, "SELECT name FROM countries WHERE code = 'PT' /* ojp.cache.ttl=60 */");
+        // Same normalized hash, different literal
+        assertNull(cache.get(key(session, "SELECT name FROM countries WHERE code = 'pt' /* ojp.cache.ttl=60 */",
+                List.of())));
+    }
+
+    @Test
+    void testUpdateInvalidatesReadersOfItsTables() throws Exception {
+        store(session, COUNTRIES);
+        store(session, "SELECT * FROM feature_flags");
+        SessionInfo other = SessionInfo.newBuilder().setConnHash("ds2").build();
+        store(other, COUNTRIES);
+
+        String update = "UPDATE public.Countries SET name = 'x' WHERE code = 'PT'";
+        cache.invalidate("ds1", SqlStatementInfo.of(update), update);
+
+        assertNull(cache.get(key(session, COUNTRIES, List.of())));
+        assertNotNull(cache.get(key(session, "SELECT * FROM feature_flags", List.of())));
+        assertNotNull(cache.get(key(other, COUNTRIES, List.of())));
+        assertEquals(1, cache.getInvalidationCount());
+    }
+
+    @Test
+    void testProcedureCallInvalidatesDatasource() throws Exception {
+        store(session, COUNTRIES);
+        store(session, "SELECT * FROM feature_flags");
+
+        cache.invalidate("ds1", SqlStatementInfo.of("CALL refresh_reference_data()"), "CALL refresh_reference_data()");
+
+        assertNull(cache.get(key(session, COUNTRIES, List.of())));
+        assertNull(cache.get(key(session, "SELECT * FROM feature_flags", List.of())));
+    }
+
+    @Test
+    void testResultReadBeforeUpdateIsNotCached() throws Exception {
+        ResultSetCache.Key key = key(session, COUNTRIES, List.of());
+        ResultSetCache.Capture capture = cache.capture(key);
+        capture.add(OpQueryResultProto.getDefaultInstance());
+
+        String update = "INSERT INTO countries (code, name) VALUES ('XX', 'x')";
+        cache.invalidate("ds1", SqlStatementInfo.of(update), update);
+        capture.complete(metaData);
+
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void testTransactionEndInvalidatesResultsReadBeforeTheCommit() throws Exception {
+        Session writer = new Session(mock(Connection.class), "ds1", "client");
+        SessionInfo inTransaction = session.toBuilder()
+                .setSessionUUID(writer.getSessionUUID())
+                .setTransactionInfo(TransactionInfo.newBuilder()
+                        .setTransactionUUID("t1")
+                        .setTransactionStatus(TransactionStatus.TRX_ACTIVE))
+                .build();
+        String update = "UPDATE countries SET name = 'x' WHERE code = 'PT'";
+        cache.invalidate(inTransaction, writer, cache.tablesWritten(SqlStatementInfo.of(update), update));
+
+        // An autocommit session still reads the committed rows and caches them after the update ran
+        store(session, COUNTRIES);
+        assertNotNull(cache.get(key(session, COUNTRIES, List.of())));
+        // Another read is still running when the transaction commits
+        String names = "SELECT name FROM countries /* ojp.cache.ttl=60 */";
+        ResultSetCache.Capture running = cache.capture(key(session, names, List.of()));
+        running.add(OpQueryResultProto.getDefaultInstance());
+
+        cache.transactionEnded(writer);
+        running.complete(metaData);
+
+        assertNull(cache.get(key(session, COUNTRIES, List.of())));
+        assertNull(cache.get(key(session, names, List.of())));
+        assertTrue(writer.takeWrittenTables().isEmpty());
+    }
+
+    @Test
+    void testXaProcedureCallInvalidatesDatasourceAtTransactionEnd() throws Exception {
+        Session writer = new Session(mock(Connection.class), "ds1", "client");
+        SessionInfo xa = session.toBuilder().setSessionUUID(writer.getSessionUUID()).setIsXA(true).build();
+        cache.invalidate(xa, writer, cache.tablesWritten(SqlStatementInfo.of("CALL refresh()"), "CALL refresh()"));
+        store(session, COUNTRIES);
+        store(session, "SELECT * FROM feature_flags");
+
+        cache.transactionEnded(writer);
+
+        assertNull(cache.get(key(session, COUNTRIES, List.of())));
+        assertNull(cache.get(key(session, "SELECT * FROM feature_flags", List.of())));
+    }
+
+    @Test
+    void testAutocommitUpdatesAreNotRecorded() {
+        Session writer = new Session(mock(Connection.class), "ds1", "client");
+        String update = "DELETE FROM countries";
+        cache.invalidate(session, writer, cache.tablesWritten(SqlStatementInfo.of(update), update));
+        assertTrue(writer.takeWrittenTables().isEmpty());
+    }
+
+    @Test
+    void testAbandonedAndOversizedCapturesAreNotCached() throws Exception {
+        ResultSetCache.Key key = key(session, COUNTRIES, List.of());
+        ResultSetCache.Capture capture = cache.capture(key);
+        capture.add(OpQueryResultProto.getDefaultInstance());
+        capture.abandon();
+        capture.complete(metaData);
+        assertNull(cache.get(key));
+
+        cache = new ResultSetCache(8 * 1024, 0, List.of());
+        key = key(session, COUNTRIES, List.of());
+        capture = cache.capture(key);
+        capture.add(OpQueryResultProto.newBuilder().addLabels("x".repeat(2048)).build());
+        capture.complete(metaData);
+        assertNull(cache.get(key));
+        assertEquals(0, cache.getEntryCount());
+    }
+
+    @Test
+    void testReplayResultSetAnswersMetadata() throws Exception {
+        store(session, COUNTRIES);
+
+        ResultSet resultSet = cache.get(key(session, COUNTRIES, List.of())).newResultSet();
+
+        assertEquals(1, resultSet.getMetaData().getColumnCount());
+        assertEquals("CODE", resultSet.getMetaData().getColumnLabel(1));
+        assertEquals(Types.VARCHAR, resultSet.getMetaData().getColumnType(1));
+        assertFalse(resultSet.next());
+        resultSet.close();
+    }
+
+    @Test
+    void testTablesOf() {
+        assertEquals(Set.of("orders", "customers"), ResultSetCache.tablesOf(
+                "SELECT c.name FROM sales.orders o JOIN \"Customers\" c ON c.id = o.customer_id WHERE o.note = 'from x'"));
+        assertEquals(Set.of("a", "b", "c"), ResultSetCache.tablesOf("select * from a, b x, c as y where a.id = 1"));
+        assertEquals(Set.of("t", "s"), ResultSetCache.tablesOf("INSERT INTO t SELECT * FROM s -- from comment"));
+        assertEquals(Set.of("t"), ResultSetCache.tablesOf("TRUNCATE TABLE t"));
+        assertEquals(Set.of("t"), ResultSetCache.tablesOf("DELETE FROM ONLY t WHERE id = 1"));
+        assertEquals(Set.of(), ResultSetCache.tablesOf("SELECT 1"));
+    }
+
+    @Test
+    void testParseTtlRulesSkipsInvalidEntries() {
+        List<ResultSetCache.TtlRule> rules = ResultSetCache.parseTtlRules("from a=10; bad ;from (b=x;where id=1=5");
+        assertEquals(2, rules.size());
+        assertEquals(10, rules.get(0).ttlSeconds());
+        assertEquals("where id=1", rules.get(1).pattern().pattern());
+        assertEquals(5, rules.get(1).ttlSeconds());
+    }
+}
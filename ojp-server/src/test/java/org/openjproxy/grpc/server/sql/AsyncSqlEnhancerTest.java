@@ -0,0 +1,130 @@
+package org.openjproxy.grpc.server.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openjproxy.grpc.server.SqlStatementXXHash;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for AsyncSqlEnhancer background enhancement and shadow promotion.
+ */
+class AsyncSqlEnhancerTest {
+
+    private static final String SQL = "SELECT id, name FROM users WHERE id = 1";
+    private static final long MILLIS = 1_000_000;
+
+    private AsyncSqlEnhancer asyncEnhancer;
+
+    @AfterEach
+    void tearDown() {
+        if (asyncEnhancer != null) {
+            asyncEnhancer.shutdown();
+        }
+    }
+
+    @Test
+    void testFirstExecutionRunsOriginalSql() throws Exception {
+        SqlEnhancerEngine engine = translatingEngine();
+        asyncEnhancer = new AsyncSqlEnhancer(engine, 1, false, 5);
+        String stmtHash = SqlStatementXXHash.hashSqlQuery(SQL);
+
+        AsyncSqlEnhancer.Selection first = asyncEnhancer.select(stmtHash, SQL);
+        assertEquals(SQL, first.getSql(), "First execution must not wait for enhancement");
+        assertEquals(AsyncSqlEnhancer.Variant.NONE, first.getVariant());
+
+        SqlEnhancementResult ready = awaitEnhancement(engine, SQL);
+        AsyncSqlEnhancer.Selection later = asyncEnhancer.select(stmtHash, SQL);
+        assertEquals(ready.getEnhancedSql(), later.getSql(), "Later executions should use the enhanced SQL");
+    }
+
+    @Test
+    void testShadowModePromotesFasterEnhancedSql() throws Exception {
+        SqlEnhancerEngine engine = translatingEngine();
+        asyncEnhancer = new AsyncSqlEnhancer(engine, 1, true, 3);
+        String stmtHash = SqlStatementXXHash.hashSqlQuery(SQL);
+
+        asyncEnhancer.select(stmtHash, SQL);
+        SqlEnhancementResult ready = awaitEnhancement(engine, SQL);
+        assertNotEquals(SQL, ready.getEnhancedSql(), "Translation should modify the SQL");
+
+        for (int i = 0; i < 6; i++) {
+            AsyncSqlEnhancer.Selection selection = asyncEnhancer.select(stmtHash, SQL);
+            boolean enhanced = selection.getVariant() == AsyncSqlEnhancer.Variant.ENHANCED;
+            assertEquals(enhanced ? ready.getEnhancedSql() : SQL, selection.getSql());
+            asyncEnhancer.recordExecution(selection, enhanced ? MILLIS / 2 : MILLIS);
+        }
+
+        assertEquals(1, asyncEnhancer.getPromotedCount());
+        AsyncSqlEnhancer.Selection promoted = asyncEnhancer.select(stmtHash, SQL);
+        assertEquals(ready.getEnhancedSql(), promoted.getSql());
+        assertEquals(AsyncSqlEnhancer.Variant.NONE, promoted.getVariant());
+    }
+
+    @Test
+    void testShadowModeKeepsOriginalWhenEnhancedIsSlower() throws Exception {
+        SqlEnhancerEngine engine = translatingEngine();
+        asyncEnhancer = new AsyncSqlEnhancer(engine, 1, true, 3);
+        String stmtHash = SqlStatementXXHash.hashSqlQuery(SQL);
+
+        asyncEnhancer.select(stmtHash, SQL);
+        awaitEnhancement(engine, SQL);
+
+        for (int i = 0; i < 6; i++) {
+            AsyncSqlEnhancer.Selection selection = asyncEnhancer.select(stmtHash, SQL);
+            asyncEnhancer.recordExecution(selection,
+                    selection.getVariant() == AsyncSqlEnhancer.Variant.ENHANCED ? 8 * MILLIS : MILLIS);
+        }
+
+        assertEquals(1, asyncEnhancer.getRejectedPromotionCount());
+        assertEquals(SQL, asyncEnhancer.select(stmtHash, SQL).getSql());
+    }
+
+    @Test
+    void testShadowModeKeepsOriginalWithoutAClearImprovement() throws Exception {
+        SqlEnhancerEngine engine = translatingEngine();
+        asyncEnhancer = new AsyncSqlEnhancer(engine, 1, true, 3);
+        String stmtHash = SqlStatementXXHash.hashSqlQuery(SQL);
+
+        asyncEnhancer.select(stmtHash, SQL);
+        awaitEnhancement(engine, SQL);
+
+        // A sub-millisecond statement 20µs faster enhanced, well within noise
+        for (int i = 0; i < 6; i++) {
+            AsyncSqlEnhancer.Selection selection = asyncEnhancer.select(stmtHash, SQL);
+            asyncEnhancer.recordExecution(selection,
+                    selection.getVariant() == AsyncSqlEnhancer.Variant.ENHANCED ? 180_000 : 200_000);
+        }
+
+        assertEquals(0, asyncEnhancer.getPromotedCount());
+        assertEquals(1, asyncEnhancer.getRejectedPromotionCount());
+        assertEquals(SQL, asyncEnhancer.select(stmtHash, SQL).getSql());
+    }
+
+    @Test
+    void testClearlyFasterNeedsRelativeAndAbsoluteMargin() {
+        assertTrue(AsyncSqlEnhancer.isClearlyFaster(0.5 * MILLIS, MILLIS));
+        assertFalse(AsyncSqlEnhancer.isClearlyFaster(0.95 * MILLIS, MILLIS), "Under 10% faster");
+        assertFalse(AsyncSqlEnhancer.isClearlyFaster(10_000, 40_000), "Under 50µs faster");
+        assertFalse(AsyncSqlEnhancer.isClearlyFaster(0, 0), "Both averages zero");
+    }
+
+    private static SqlEnhancerEngine translatingEngine() {
+        return new SqlEnhancerEngine(true, "GENERIC", "POSTGRESQL", false, false, null);
+    }
+
+    private static SqlEnhancementResult awaitEnhancement(SqlEnhancerEngine engine, String sql) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        SqlEnhancementResult result = engine.getEnhancementIfReady(sql);
+        while (result == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            result = engine.getEnhancementIfReady(sql);
+        }
+        assertNotNull(result, "Background enhancement should complete");
+        return result;
+    }
+}
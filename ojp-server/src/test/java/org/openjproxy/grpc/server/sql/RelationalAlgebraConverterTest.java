@@ -0,0 +1,162 @@
+package org.openjproxy.grpc.server.sql;
+
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeFactory;
+import org.apache.calcite.rel.type.RelDataTypeSystem;
+import org.apache.calcite.sql.dialect.AnsiSqlDialect;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.apache.calcite.sql.type.SqlTypeFactoryImpl;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests how RelationalAlgebraConverter reuses its planning state and HepPrograms across statements.
+ */
+class RelationalAlgebraConverterTest {
+
+    private final RelDataTypeFactory typeFactory = new SqlTypeFactoryImpl(RelDataTypeSystem.DEFAULT);
+    private SchemaCache schemaCache;
+    private RelationalAlgebraConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        schemaCache = new SchemaCache();
+        converter = new RelationalAlgebraConverter(SqlParser.config().withCaseSensitive(false),
+                AnsiSqlDialect.DEFAULT, schemaCache);
+    }
+
+    private SchemaMetadata schema(String... tableNames) {
+        Map<String, TableMetadata> tables = new HashMap<>();
+        for (String tableName : tableNames) {
+            List<ColumnMetadata> columns = List.of(
+                    new ColumnMetadata("id", Types.INTEGER, "INTEGER", false, 10, 0),
+                    new ColumnMetadata("name", Types.VARCHAR, "VARCHAR", true, 255, 0));
+            RelDataType rowType = typeFactory.builder()
+                    .add("id", SqlTypeName.INTEGER)
+                    .add("name", typeFactory.createTypeWithNullability(
+                            typeFactory.createSqlType(SqlTypeName.VARCHAR, 255), true))
+                    .build();
+            tables.put(tableName, new TableMetadata(tableName, columns, rowType));
+        }
+        return new SchemaMetadata(tables, System.currentTimeMillis(), null, null);
+    }
+
+    private Object field(String name) throws Exception {
+        Field field = RelationalAlgebraConverter.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(converter);
+    }
+
+    private Object planningSession() throws Exception {
+        return ((ThreadLocal<?>) field("planningSessions")).get();
+    }
+
+    @Test
+    void testPlanningStateIsReusedAcrossStatements() throws Exception {
+        schemaCache.updateSchema(schema("users", "orders"));
+
+        converter.convertToRelNode("SELECT id FROM users");
+        Object context = field("planningContext");
+        Object session = planningSession();
+        converter.convertToRelNode("SELECT name FROM orders WHERE id = 1");
+
+        assertSame(context, field("planningContext"));
+        assertSame(session, planningSession());
+    }
+
+    @Test
+    void testEachThreadPlansWithItsOwnSessionOnTheSameContext() throws Exception {
+        schemaCache.updateSchema(schema("users"));
+        converter.convertToRelNode("SELECT id FROM users");
+        Object context = field("planningContext");
+        Object session = planningSession();
+
+        Object otherSession = CompletableFuture.supplyAsync(() -> {
+            try {
+                converter.convertToRelNode("SELECT name FROM users");
+                return planningSession();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).get();
+
+        assertNotNull(otherSession);
+        assertNotSame(session, otherSession);
+        assertSame(context, field("planningContext"));
+    }
+
+    @Test
+    void testPlanningStateIsRebuiltAfterSchemaChange() throws Exception {
+        schemaCache.updateSchema(schema("users"));
+        converter.convertToRelNode("SELECT id FROM users");
+        Object context = field("planningContext");
+        Object session = planningSession();
+        assertThrows(RelationalAlgebraConverter.ConversionException.class,
+                () -> converter.convertToRelNode("SELECT id FROM orders"));
+
+        // A refresh publishes a new SchemaMetadata, whose Calcite schema builds its own table map
+        schemaCache.updateSchema(schema("users", "orders"));
+        RelNode relNode = converter.convertToRelNode("SELECT id FROM orders");
+
+        assertNotNull(relNode);
+        assertNotSame(context, field("planningContext"));
+        assertNotSame(session, planningSession());
+    }
+
+    @Test
+    void testHepProgramIsCompiledOncePerRuleSet() throws Exception {
+        OptimizationRuleRegistry registry = new OptimizationRuleRegistry();
+        List<RelOptRule> safeRules = registry.getSafeRules();
+        RelNode relNode = converter.convertToRelNode("SELECT id FROM users WHERE 1 = 1 AND id > 5");
+
+        String first = converter.convertToSql(converter.applyOptimizations(relNode, safeRules));
+        String second = converter.convertToSql(converter.applyOptimizations(relNode, new ArrayList<>(safeRules)));
+        assertEquals(first, second);
+        assertEquals(1, ((Map<?, ?>) field("hepPrograms")).size(), "An equal rule list reuses the program");
+
+        converter.applyOptimizations(relNode, registry.getAllRules());
+        assertEquals(2, ((Map<?, ?>) field("hepPrograms")).size());
+    }
+
+    @Test
+    void testStatementOverViewFallsBackToOriginalSql() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:views_" + System.nanoTime());
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE users (id INT PRIMARY KEY, name VARCHAR(255), active BOOLEAN)");
+            statement.execute("CREATE VIEW active_users AS SELECT id, name FROM users WHERE active");
+            // Only tables are loaded, a view is an unknown table to the planner and never reaches the view expander
+            schemaCache.updateSchema(new SchemaLoader().loadSchema(connection, null, null));
+        }
+        assertFalse(schemaCache.getSchema(false).getTables().isEmpty());
+
+        RelationalAlgebraConverter.ConversionException e = assertThrows(
+                RelationalAlgebraConverter.ConversionException.class,
+                () -> converter.convertToRelNode("SELECT name FROM active_users WHERE id = 1"));
+        assertFalse(e.getCause() instanceof UnsupportedOperationException);
+
+        SqlEnhancerEngine engine = new SqlEnhancerEngine(true, "GENERIC", "", true, true, null, schemaCache, 0);
+        String sql = "SELECT name FROM active_users WHERE id = 1";
+        SqlEnhancementResult result = engine.enhance(sql);
+
+        assertEquals(sql, result.getEnhancedSql());
+        assertFalse(result.isModified());
+        assertFalse(result.isHasErrors());
+        assertNotNull(engine.enhance("SELECT name FROM users WHERE id = 1").getEnhancedSql());
+    }
+}
@@ -5,8 +5,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.sql.*;
+import java.util.Arrays;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -115,4 +117,113 @@ class SchemaLoaderTest {
         assertNotNull(schema.getTable("users"), "Should find 'users' (case-insensitive)");
         assertNotNull(schema.getTable("Users"), "Should find 'Users' (case-insensitive)");
     }
+    
+    @Test
+    void testBulkColumnLoading() throws SQLException {
+        Connection connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        ResultSet tablesRs = mock(ResultSet.class);
+        ResultSet columnsRs = mock(ResultSet.class);
+        
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getTables(null, null, null, new String[]{"TABLE"})).thenReturn(tablesRs);
+        when(tablesRs.next()).thenReturn(true, true, false);
+        when(tablesRs.getString("TABLE_NAME")).thenReturn("orders", "customers");
+        
+        // One pass over all columns, including a view that was not listed as a table
+        when(metaData.getColumns(null, null, "%", "%")).thenReturn(columnsRs);
+        when(columnsRs.next()).thenReturn(true, true, true, true, false);
+        when(columnsRs.getString("TABLE_NAME")).thenReturn("orders", "orders", "customers", "orders_view");
+        when(columnsRs.getString("COLUMN_NAME")).thenReturn("id", "customer_id", "id", "id");
+        when(columnsRs.getInt("DATA_TYPE")).thenReturn(Types.INTEGER);
+        when(columnsRs.getString("TYPE_NAME")).thenReturn("INTEGER");
+        when(columnsRs.getInt("NULLABLE")).thenReturn(DatabaseMetaData.columnNoNulls);
+        
+        SchemaLoader bulkLoader = new SchemaLoader(ForkJoinPool.commonPool(), 30, 2);
+        SchemaMetadata schema = bulkLoader.loadSchema(connection, null, null);
+        
+        assertEquals(2, schema.getTables().size());
+        assertEquals(2, schema.getTable("orders").getColumns().size());
+        assertEquals(1, schema.getTable("customers").getColumns().size());
+        assertNull(schema.getTable("orders_view"));
+        verify(metaData, never()).getColumns(isNull(), isNull(), eq("orders"), any());
+    }
+    
+    @Test
+    void testIncrementalRefreshReloadsOnlyChangedTables() throws SQLException {
+        Connection connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        PreparedStatement stampsPs = mock(PreparedStatement.class);
+        
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn("Microsoft SQL Server");
+        when(connection.prepareStatement(SchemaLoader.changeStampQuery("Microsoft SQL Server"))).thenReturn(stampsPs);
+        
+        // First load: two tables
+        ResultSet tablesRs = tableNames("orders", "customers");
+        ResultSet stampsRs = changeStamps(new String[]{"orders", "customers"}, new long[]{1000, 2000});
+        when(metaData.getTables(null, null, null, new String[]{"TABLE"})).thenReturn(tablesRs);
+        when(stampsPs.executeQuery()).thenReturn(stampsRs);
+        ResultSet ordersColumns = idColumn();
+        ResultSet customersColumns = idColumn();
+        when(metaData.getColumns(null, null, "orders", null)).thenReturn(ordersColumns);
+        when(metaData.getColumns(null, null, "customers", null)).thenReturn(customersColumns);
+        
+        SchemaMetadata first = schemaLoader.loadSchema(connection, null, null);
+        assertEquals(2, first.getTables().size());
+        
+        // Refresh: customers altered, orders unchanged, invoices created
+        ResultSet refreshedTablesRs = tableNames("orders", "customers", "invoices");
+        ResultSet refreshedStampsRs = changeStamps(new String[]{"orders", "customers", "invoices"}, 
+                new long[]{1000, 3000, 3000});
+        when(metaData.getTables(null, null, null, new String[]{"TABLE"})).thenReturn(refreshedTablesRs);
+        when(stampsPs.executeQuery()).thenReturn(refreshedStampsRs);
+        ResultSet customersColumnsAgain = idColumn();
+        ResultSet invoicesColumns = idColumn();
+        when(metaData.getColumns(null, null, "customers", null)).thenReturn(customersColumnsAgain);
+        when(metaData.getColumns(null, null, "invoices", null)).thenReturn(invoicesColumns);
+        
+        SchemaMetadata refreshed = schemaLoader.refreshSchema(connection, null, null, first);
+        
+        assertEquals(3, refreshed.getTables().size());
+        assertSame(first.getTable("orders"), refreshed.getTable("orders"), "Unchanged table should be reused");
+        assertNotSame(first.getTable("customers"), refreshed.getTable("customers"));
+        verify(metaData, times(1)).getColumns(null, null, "orders", null);
+        verify(metaData, times(2)).getColumns(null, null, "customers", null);
+        assertEquals(2, first.getTables().size(), "Previous schema should not be modified");
+    }
+    
+    private static ResultSet tableNames(String... names) throws SQLException {
+        ResultSet rs = rows(names.length);
+        when(rs.getString("TABLE_NAME")).thenReturn(names[0], Arrays.copyOfRange(names, 1, names.length));
+        return rs;
+    }
+    
+    private static ResultSet changeStamps(String[] names, long[] millis) throws SQLException {
+        ResultSet rs = rows(names.length);
+        when(rs.getString(1)).thenReturn(names[0], Arrays.copyOfRange(names, 1, names.length));
+        Timestamp[] stamps = Arrays.stream(millis).mapToObj(Timestamp::new).toArray(Timestamp[]::new);
+        when(rs.getTimestamp(2)).thenReturn(stamps[0], Arrays.copyOfRange(stamps, 1, stamps.length));
+        return rs;
+    }
+    
+    private static ResultSet idColumn() throws SQLException {
+        ResultSet rs = rows(1);
+        when(rs.getString("COLUMN_NAME")).thenReturn("id");
+        when(rs.getInt("DATA_TYPE")).thenReturn(Types.INTEGER);
+        when(rs.getString("TYPE_NAME")).thenReturn("INTEGER");
+        return rs;
+    }
+    
+    /**
+     * Mocks a result set with the given number of rows.
+     */
+    private static ResultSet rows(int count) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        Boolean[] more = new Boolean[count];
+        Arrays.fill(more, 0, count - 1, true);
+        more[count - 1] = false;
+        when(rs.next()).thenReturn(true, more);
+        return rs;
+    }
 }
@@ -0,0 +1,254 @@
+package org.openjproxy.grpc.server.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for SqlFingerprint and the bounded SqlEnhancerCache.
+ */
+class SqlEnhancerCacheTest {
+
+    @Test
+    void testFingerprintReplacesLiterals() {
+        SqlFingerprint fp1 = SqlFingerprint.of("SELECT * FROM users WHERE id = 42 AND name = 'bob'");
+        SqlFingerprint fp2 = SqlFingerprint.of("SELECT *  FROM users\n WHERE id = 7 AND name = 'o''brien'");
+
+        assertEquals("SELECT * FROM users WHERE id = ? AND name = ?", fp1.getText());
+        assertEquals(fp1.getText(), fp2.getText());
+        assertEquals(2, fp1.getLiteralCount());
+    }
+
+    @Test
+    void testFingerprintKeepsIdentifiersAndComments() {
+        SqlFingerprint fp = SqlFingerprint.of("SELECT col1, \"Col 2\" FROM t2 /* hint 5 */ WHERE x = 1.5E-3");
+
+        assertEquals("SELECT col1, \"Col 2\" FROM t2 /* hint 5 */ WHERE x = ?", fp.getText());
+        assertEquals(1, fp.getLiteralCount());
+        assertFalse(SqlFingerprint.of("SELECT a FROM t1").hasLiterals());
+    }
+
+    @Test
+    void testUnmodifiedResultSharedAcrossLiteralVariants() {
+        SqlEnhancerCache cache = new SqlEnhancerCache(SqlEnhancerCache.DEFAULT_MAX_WEIGHT);
+        AtomicInteger loads = new AtomicInteger();
+
+        SqlEnhancementResult r1 = cache.get("SELECT * FROM users WHERE id = 1", sql -> {
+            loads.incrementAndGet();
+            return SqlEnhancementResult.success(sql, false);
+        });
+        SqlEnhancementResult r2 = cache.get("SELECT * FROM users WHERE id = 2", sql -> {
+            loads.incrementAndGet();
+            return SqlEnhancementResult.success(sql, false);
+        });
+
+        assertEquals(1, loads.get(), "Literal variants should share one enhancement");
+        assertEquals("SELECT * FROM users WHERE id = 1", r1.getEnhancedSql());
+        assertEquals("SELECT * FROM users WHERE id = 2", r2.getEnhancedSql(), "Result must carry the caller's SQL");
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getLiteralVariantHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void testModifiedResultNotSharedAcrossLiteralVariants() {
+        SqlEnhancerCache cache = new SqlEnhancerCache(SqlEnhancerCache.DEFAULT_MAX_WEIGHT);
+        AtomicInteger loads = new AtomicInteger();
+
+        SqlEnhancementResult r1 = cache.get("SELECT * FROM users WHERE id = 1", sql -> {
+            loads.incrementAndGet();
+            return SqlEnhancementResult.success(sql.toLowerCase() + " /* rewritten */", true);
+        });
+        SqlEnhancementResult r2 = cache.get("SELECT * FROM users WHERE id = 2", sql -> {
+            loads.incrementAndGet();
+            return SqlEnhancementResult.success(sql.toLowerCase() + " /* rewritten */", true);
+        });
+        SqlEnhancementResult r1Again = cache.get("SELECT * FROM users WHERE id = 1", sql -> {
+            throw new AssertionError("Should be served from cache");
+        });
+
+        assertEquals(2, loads.get());
+        assertTrue(r1.getEnhancedSql().contains("id = 1"));
+        assertTrue(r2.getEnhancedSql().contains("id = 2"));
+        assertSame(r1, r1Again);
+    }
+
+    @Test
+    void testEvictsWhenWeightExceeded() {
+        SqlEnhancerCache cache = new SqlEnhancerCache(2_000);
+
+        for (int i = 0; i < 200; i++) {
+            cache.get("SELECT c" + i + " FROM table_" + i, sql -> SqlEnhancementResult.success(sql, false));
+        }
+
+        assertTrue(cache.size() < 200, "Cache should stay within its weight budget");
+        assertTrue(cache.getEvictionCount() > 0, "Evictions should be recorded");
+    }
+
+    @Test
+    void testZeroWeightDisablesCaching() {
+        SqlEnhancerCache cache = new SqlEnhancerCache(0);
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            cache.get("SELECT 1 FROM dual", sql -> {
+                loads.incrementAndGet();
+                return SqlEnhancementResult.passthrough(sql);
+            });
+        }
+
+        assertEquals(3, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testConcurrentMissesAreCoalesced() throws Exception {
+        SqlEnhancerCache cache = new SqlEnhancerCache(SqlEnhancerCache.DEFAULT_MAX_WEIGHT);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<SqlEnhancementResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get("SELECT * FROM orders WHERE status = 'NEW'", sql -> {
+                        loads.incrementAndGet();
+                        try {
+                            Thread.sleep(100);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return SqlEnhancementResult.success(sql, false);
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<SqlEnhancementResult> future : futures) {
+                assertEquals("SELECT * FROM orders WHERE status = 'NEW'", future.get(5, TimeUnit.SECONDS).getEnhancedSql());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get(), "Concurrent misses should run a single enhancement");
+        // Callers that waited for the load are hits even though they passed the very same String instance
+        assertEquals(1, cache.getMissCount());
+        assertEquals(7, cache.getHitCount());
+    }
+
+    @Test
+    void testEngineUsesConfiguredCache() {
+        SqlEnhancerCache cache = new SqlEnhancerCache(SqlEnhancerCache.DEFAULT_MAX_WEIGHT);
+        SqlEnhancerEngine engine = new SqlEnhancerEngine(true, cache);
+
+        engine.enhance("SELECT * FROM users WHERE id = 1");
+        SqlEnhancementResult result = engine.enhance("SELECT * FROM users WHERE id = 99");
+
+        assertEquals("SELECT * FROM users WHERE id = 99", result.getEnhancedSql());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getLiteralVariantHitCount());
+        assertTrue(engine.getCacheStats().contains("Evictions=0"));
+    }
+
+    @Test
+    void testFingerprintParameterizesAndBinds() {
+        SqlFingerprint fp = SqlFingerprint.of("SELECT * FROM users -- 1\nWHERE id = 42 AND name = 'o''brien' AND x = ?");
+
+        assertEquals("SELECT * FROM users -- 1\nWHERE id = ? AND name = ? AND x = ?", fp.getParameterizedSql());
+        assertEquals("select * from users where id = 42 and name = 'o''brien' and x = ? and \"?\" = 'a?'",
+                fp.bind("select * from users where id = ? and name = ? and x = ? and \"?\" = 'a?'"));
+        assertNull(fp.bind("select * from users where id = ? and name = ?"), "Template missing a marker");
+        assertNull(fp.bind("select * from users where id = ? and name = ? and x = ? and y = ?"), "Template with an extra marker");
+        assertTrue(fp.hasDistinctLiterals());
+        assertFalse(SqlFingerprint.of("SELECT * FROM t WHERE a = 1 AND b = 1").hasDistinctLiterals());
+    }
+
+    @Test
+    void testModifiedResultSharedThroughTemplate() {
+        SqlEnhancerCache cache = new SqlEnhancerCache(SqlEnhancerCache.DEFAULT_MAX_WEIGHT);
+        List<String> loaded = new ArrayList<>();
+        java.util.function.Function<String, SqlEnhancementResult> loader = sql -> {
+            loaded.add(sql);
+            return SqlEnhancementResult.success(sql.replace("*", "id, name"), true);
+        };
+
+        SqlEnhancementResult r1 = cache.get("SELECT * FROM users WHERE id = 1 AND name = 'Bob'", loader);
+        SqlEnhancementResult r2 = cache.get("SELECT * FROM users WHERE id = 2 AND name = 'Ann'", loader);
+
+        assertEquals(List.of("SELECT * FROM users WHERE id = 1 AND name = 'Bob'",
+                "SELECT * FROM users WHERE id = ? AND name = ?"), loaded, "Variants should not be enhanced again");
+        assertEquals("SELECT id, name FROM users WHERE id = 1 AND name = 'Bob'", r1.getEnhancedSql());
+        assertEquals("SELECT id, name FROM users WHERE id = 2 AND name = 'Ann'", r2.getEnhancedSql());
+        assertTrue(r2.isModified());
+        assertEquals(1, cache.getLiteralVariantHitCount());
+    }
+
+    @Test
+    void testTemplateRejectedWhenLiteralIsRewritten() {
+        SqlEnhancerCache cache = new SqlEnhancerCache(SqlEnhancerCache.DEFAULT_MAX_WEIGHT);
+        AtomicInteger loads = new AtomicInteger();
+        // Stands for a rule folding the literal into the rewritten SQL
+        java.util.function.Function<String, SqlEnhancementResult> loader = sql -> {
+            loads.incrementAndGet();
+            return SqlEnhancementResult.success(sql.replace("= ?", "IS NULL").replace("1", "one"), true);
+        };
+
+        cache.get("SELECT * FROM users WHERE id = 1", loader);
+        SqlEnhancementResult r2 = cache.get("SELECT * FROM users WHERE id = 2", loader);
+        cache.get("SELECT * FROM users WHERE id = 3", loader);
+
+        assertEquals("SELECT * FROM users WHERE id = 2", r2.getEnhancedSql());
+        assertEquals(4, loads.get(), "Each variant should be enhanced on its own, plus one template attempt");
+        assertEquals(0, cache.getLiteralVariantHitCount());
+    }
+
+    @Test
+    void testTemplateWaitsForDistinctLiterals() {
+        SqlEnhancerCache cache = new SqlEnhancerCache(SqlEnhancerCache.DEFAULT_MAX_WEIGHT);
+        AtomicInteger loads = new AtomicInteger();
+        java.util.function.Function<String, SqlEnhancementResult> loader = sql -> {
+            loads.incrementAndGet();
+            return SqlEnhancementResult.success(sql + " /* rewritten */", true);
+        };
+
+        cache.get("SELECT * FROM t WHERE a = 1 AND b = 1", loader);
+        assertEquals(1, loads.get(), "Equal literals cannot verify the marker order");
+        cache.get("SELECT * FROM t WHERE a = 1 AND b = 2", loader);
+        assertEquals(3, loads.get());
+
+        SqlEnhancementResult result = cache.get("SELECT * FROM t WHERE a = 5 AND b = 5", loader);
+        assertEquals(3, loads.get());
+        assertEquals("SELECT * FROM t WHERE a = 5 AND b = 5 /* rewritten */", result.getEnhancedSql());
+    }
+
+    @Test
+    void testEngineRebindsLiteralsIntoOptimizedSql() {
+        SqlEnhancerCache cache = new SqlEnhancerCache(SqlEnhancerCache.DEFAULT_MAX_WEIGHT);
+        SqlEnhancerEngine engine = new SqlEnhancerEngine(true, "GENERIC", "", true, true, null,
+                null, null, null, null, null, 0, cache);
+
+        SqlEnhancementResult first = engine.enhance("SELECT name FROM users WHERE id = 10 AND status = 'ACTIVE'");
+        SqlEnhancementResult variant = engine.enhance("SELECT name FROM users WHERE id = 20 AND status = 'CLOSED'");
+
+        assertTrue(first.isModified());
+        assertEquals(first.getEnhancedSql().replace("10", "20").replace("'ACTIVE'", "'CLOSED'"),
+                variant.getEnhancedSql());
+        assertEquals(1, cache.getLiteralVariantHitCount(), "The variant should be bound into the template");
+    }
+}
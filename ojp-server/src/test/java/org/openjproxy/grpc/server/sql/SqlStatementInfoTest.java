@@ -0,0 +1,134 @@
+package org.openjproxy.grpc.server.sql;
+
+import net.jpountz.xxhash.XXHashFactory;
+import org.junit.jupiter.api.Test;
+import org.openjproxy.grpc.server.SqlStatementXXHash;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the single-pass SqlStatementInfo scanner.
+ */
+class SqlStatementInfoTest {
+
+    @Test
+    void testHashMatchesNormalizedXXHash() {
+        String[] statements = {
+                "",
+                "   ",
+                "SELECT 1",
+                "  SELECT *\n\tFROM   Users  WHERE id = ?  ",
+                "INSERT INTO orders (id, status, created_at) VALUES (?, 'NEW', CURRENT_TIMESTAMP)",
+                "select naïve, 'Ünïcödé', '日本語', '😀' from t",
+                "UPDATE accounts SET balance = balance - 100 WHERE id = 42 AND owner = 'ALICE' -- long enough to span stripes"
+        };
+        for (String sql : statements) {
+            assertEquals(legacyHash(sql), SqlStatementInfo.scan(sql).getHashHex(), sql);
+        }
+    }
+
+    @Test
+    void testHashMatchesNormalizedXXHashForAllLengths() {
+        Random random = new Random(7);
+        String alphabet = "abcXYZ019 _,()'=*\t\n  ";
+        for (int length = 0; length < 200; length++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < length; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String sql = sb.toString();
+            assertEquals(legacyHash(sql), SqlStatementInfo.scan(sql).getHashHex(), "length " + length);
+        }
+    }
+
+    @Test
+    void testHashMatchesTrimOfControlCharacters() {
+        String[] statements = {
+                "\u0000SELECT 1\u001F",
+                " \u0001 select\u0002  x \u0000 ",
+                "select\u001Cx\u000B\u000By",
+                "\u0007\u0007",
+                "SELECT 1 \u0000"
+        };
+        for (String sql : statements) {
+            assertEquals(legacyHash(sql), SqlStatementInfo.scan(sql).getHashHex(), sql);
+        }
+    }
+
+    @Test
+    void testHashMatchesSpecialCasing() {
+        String[] statements = {
+                "SELECT 'İSTANBUL' FROM cities",
+                "SELECT 'ΟΔΟΣ', 'ΣΑΣ Σ' FROM streets WHERE name = 'ΟΔΟΣ ΣΤΑΔΙΟΥ'",
+                "SELECT ID FROM USERS WHERE NAME LIKE 'I%'"
+        };
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            for (Locale locale : new Locale[]{Locale.ROOT, Locale.of("tr", "TR"), Locale.of("lt")}) {
+                Locale.setDefault(locale);
+                for (String sql : statements) {
+                    assertEquals(legacyHash(sql), SqlStatementInfo.scan(sql).getHashHex(), locale + " " + sql);
+                }
+            }
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    void testStatementKind() {
+        assertEquals(SqlStatementInfo.Kind.SELECT, SqlStatementInfo.scan("  select * from t").getKind());
+        assertEquals(SqlStatementInfo.Kind.SELECT, SqlStatementInfo.scan("(SELECT 1) UNION (SELECT 2)").getKind());
+        assertEquals(SqlStatementInfo.Kind.WITH, SqlStatementInfo.scan("WITH x AS (SELECT 1) SELECT * FROM x").getKind());
+        assertEquals(SqlStatementInfo.Kind.INSERT, SqlStatementInfo.scan("/* audit */ INSERT INTO t VALUES (1)").getKind());
+        assertEquals(SqlStatementInfo.Kind.DELETE, SqlStatementInfo.scan("-- purge\nDELETE FROM t").getKind());
+        assertEquals(SqlStatementInfo.Kind.OTHER, SqlStatementInfo.scan("EXPLAIN SELECT 1").getKind());
+        assertTrue(SqlStatementInfo.scan("SELECT 1").getKind().isQuery());
+        assertTrue(SqlStatementInfo.scan("ALTER TABLE t ADD c INT").getKind().isDdl());
+    }
+
+    @Test
+    void testSessionAffinityFlags() {
+        assertTrue(SqlStatementInfo.scan("CREATE LOCAL TEMPORARY TABLE t (id INT)").isTemporaryTable());
+        assertTrue(SqlStatementInfo.scan("create temp table t as select 1").isTemporaryTable());
+        assertTrue(SqlStatementInfo.scan("DECLARE GLOBAL TEMPORARY TABLE session.t (id INT)").isTemporaryTable());
+        assertTrue(SqlStatementInfo.scan("CREATE TABLE #t (id INT)").isTemporaryTable());
+        assertFalse(SqlStatementInfo.scan("CREATE TABLE ##t (id INT)").isTemporaryTable());
+        assertFalse(SqlStatementInfo.scan("CREATE TABLE temp (id INT)").isTemporaryTable());
+
+        assertTrue(SqlStatementInfo.scan("SET @x = 1").isSessionVariable());
+        assertTrue(SqlStatementInfo.scan("SET SESSION sql_mode = ''").isSessionVariable());
+        assertFalse(SqlStatementInfo.scan("SET search_path = public").isSessionVariable());
+
+        assertTrue(SqlStatementInfo.scan("PREPARE s FROM 'SELECT 1'").isPreparedStatement());
+        assertFalse(SqlStatementInfo.scan("PREPARE").isPreparedStatement());
+    }
+
+    @Test
+    void testLeadingCommentsAreSkippedForKeywords() {
+        assertTrue(SqlStatementInfo.scan("/* job 42 */ CREATE TEMP TABLE t (id INT)").requiresSessionAffinity());
+        assertTrue(SqlStatementInfo.scan("-- setup\n  SET @x = 1").requiresSessionAffinity());
+        assertFalse(SqlStatementInfo.scan("/* CREATE TEMP TABLE t */ SELECT 1").requiresSessionAffinity());
+        assertFalse(SqlStatementInfo.scan("/*/ CREATE TEMP TABLE t */ SELECT 1").requiresSessionAffinity());
+    }
+
+    @Test
+    void testMemoizedPerSqlText() {
+        String sql = "SELECT * FROM memo_test WHERE id = ?";
+        assertSame(SqlStatementInfo.of(sql), SqlStatementInfo.of(sql));
+        assertEquals(SqlStatementInfo.scan(null).getHashHex(), SqlStatementXXHash.hashSqlQuery(""));
+    }
+
+    private static String legacyHash(String sql) {
+        byte[] data = sql.trim().replaceAll("\\s+", " ").toLowerCase().getBytes(StandardCharsets.UTF_8);
+        long hash = XXHashFactory.fastestInstance().hash64().hash(data, 0, data.length, SqlStatementInfo.HASH_SEED);
+        return Long.toHexString(hash);
+    }
+}
@@ -4,8 +4,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.transaction.xa.XAException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Thread-safe context holder for an XA transaction branch.
@@ -18,9 +18,11 @@ import java.util.concurrent.locks.ReentrantLock;
  *   <li>Optional timeout and read-only hints</li>
  * </ul>
  * 
- * <p>This class is thread-safe. State transitions are protected by an internal lock
- * and validated according to XA specification rules. Invalid transitions throw
- * {@link XAException} with appropriate error codes.</p>
+ * <p>This class is thread-safe and lock-free. The state is an atomic int (the {@link TxState}
+ * ordinal) changed by compare-and-set, so of two racing transitions exactly one wins and the
+ * other sees the new state. Transitions are validated according to XA specification rules;
+ * invalid transitions throw {@link XAException} with appropriate error codes. The other fields
+ * are volatile, written by the caller owning the transition.</p>
  * 
  * <p>Example usage:</p>
  * <pre>{@code
@@ -36,19 +38,25 @@ public class TxContext {
     
     private static final Logger log = LoggerFactory.getLogger(TxContext.class);
     
+    private static final TxState[] STATES = TxState.values();
+    // Allowed current states of each transition, as bit masks of TxState ordinals
+    private static final int FROM_NONEXISTENT = mask(TxState.NONEXISTENT);
+    private static final int FROM_ACTIVE = mask(TxState.ACTIVE);
+    private static final int FROM_ENDED = mask(TxState.ENDED);
+    private static final int TO_COMMITTED_FROM = mask(TxState.ENDED, TxState.PREPARED, TxState.ACTIVE, TxState.COMMITTED);
+    private static final int TO_ROLLEDBACK_FROM = mask(TxState.ACTIVE, TxState.ENDED, TxState.PREPARED, TxState.ROLLEDBACK);
+    
     private final XidKey xid;
     private final long createdAtNanos;
     private final AtomicLong lastAccessNanos;
-    private final ReentrantLock lock = new ReentrantLock();
-    
-    private TxState state;
-    private XABackendSession session;
-    private javax.transaction.xa.Xid actualXid;  // Store the actual Xid object to reuse across XA calls
-    private Integer timeoutSeconds;
-    private Boolean readOnlyHint;
-    private int associationCount;
-    private boolean transactionComplete;  // Dual-condition lifecycle: true when commit/rollback called, false otherwise
-    private String ojpSessionId;  // The OJP session ID this transaction belongs to
+    private final AtomicInteger state = new AtomicInteger(TxState.NONEXISTENT.ordinal());
+    private final AtomicInteger associationCount = new AtomicInteger();
+    private volatile XABackendSession session;
+    private volatile javax.transaction.xa.Xid actualXid;  // Store the actual Xid object to reuse across XA calls
+    private volatile Integer timeoutSeconds;
+    private volatile Boolean readOnlyHint;
+    private volatile boolean transactionComplete;  // Dual-condition lifecycle: true when commit/rollback called, false otherwise
+    private final String ojpSessionId;  // The OJP session ID this transaction belongs to
     
     /**
      * Creates a new transaction context in NONEXISTENT state.
@@ -66,11 +74,8 @@ public class TxContext {
         }
         this.xid = xid;
         this.ojpSessionId = ojpSessionId;
-        this.state = TxState.NONEXISTENT;
         this.createdAtNanos = System.nanoTime();
         this.lastAccessNanos = new AtomicLong(createdAtNanos);
-        this.associationCount = 0;
-        this.transactionComplete = false;  // Initially false, set to true on commit/rollback
     }
     
     /**
@@ -88,12 +93,7 @@ public class TxContext {
      * @return the current TxState
      */
     public TxState getState() {
-        lock.lock();
-        try {
-            return state;
-        } finally {
-            lock.unlock();
-        }
+        return STATES[state.get()];
     }
     
     /**
@@ -102,12 +102,7 @@ public class TxContext {
      * @return the XABackendSession, or null if not bound
      */
     public XABackendSession getSession() {
-        lock.lock();
-        try {
-            return session;
-        } finally {
-            lock.unlock();
-        }
+        return session;
     }
     
     /**
@@ -116,12 +111,7 @@ public class TxContext {
      * @param session the backend session to bind
      */
     public void setSession(XABackendSession session) {
-        lock.lock();
-        try {
-            this.session = session;
-        } finally {
-            lock.unlock();
-        }
+        this.session = session;
     }
     
     /**
@@ -131,12 +121,7 @@ public class TxContext {
      * @return the actual Xid, or null if not set
      */
     public javax.transaction.xa.Xid getActualXid() {
-        lock.lock();
-        try {
-            return actualXid;
-        } finally {
-            lock.unlock();
-        }
+        return actualXid;
     }
     
     /**
@@ -145,12 +130,7 @@ public class TxContext {
      * @param actualXid the Xid object to store
      */
     public void setActualXid(javax.transaction.xa.Xid actualXid) {
-        lock.lock();
-        try {
-            this.actualXid = actualXid;
-        } finally {
-            lock.unlock();
-        }
+        this.actualXid = actualXid;
     }
     
     /**
@@ -159,12 +139,7 @@ public class TxContext {
      * @return the timeout, or null if not set
      */
     public Integer getTimeoutSeconds() {
-        lock.lock();
-        try {
-            return timeoutSeconds;
-        } finally {
-            lock.unlock();
-        }
+        return timeoutSeconds;
     }
     
     /**
@@ -173,12 +148,7 @@ public class TxContext {
      * @param timeoutSeconds the timeout in seconds
      */
     public void setTimeoutSeconds(Integer timeoutSeconds) {
-        lock.lock();
-        try {
-            this.timeoutSeconds = timeoutSeconds;
-        } finally {
-            lock.unlock();
-        }
+        this.timeoutSeconds = timeoutSeconds;
     }
     
     /**
@@ -187,12 +157,7 @@ public class TxContext {
      * @return the read-only hint, or null if not set
      */
     public Boolean getReadOnlyHint() {
-        lock.lock();
-        try {
-            return readOnlyHint;
-        } finally {
-            lock.unlock();
-        }
+        return readOnlyHint;
     }
     
     /**
@@ -201,12 +166,7 @@ public class TxContext {
      * @param readOnlyHint true if transaction is read-only
      */
     public void setReadOnlyHint(Boolean readOnlyHint) {
-        lock.lock();
-        try {
-            this.readOnlyHint = readOnlyHint;
-        } finally {
-            lock.unlock();
-        }
+        this.readOnlyHint = readOnlyHint;
     }
     
     /**
@@ -215,12 +175,7 @@ public class TxContext {
      * @return true if transaction is complete, false otherwise
      */
     public boolean isTransactionComplete() {
-        lock.lock();
-        try {
-            return transactionComplete;
-        } finally {
-            lock.unlock();
-        }
+        return transactionComplete;
     }
     
     /**
@@ -229,12 +184,7 @@ public class TxContext {
      * but the backend session remains bound to the OJP session until XAConnection.close().
      */
     public void markTransactionComplete() {
-        lock.lock();
-        try {
-            this.transactionComplete = true;
-        } finally {
-            lock.unlock();
-        }
+        this.transactionComplete = true;
     }
     
     /**
@@ -252,24 +202,14 @@ public class TxContext {
      * @return the association count
      */
     public int getAssociationCount() {
-        lock.lock();
-        try {
-            return associationCount;
-        } finally {
-            lock.unlock();
-        }
+        return associationCount.get();
     }
     
     /**
      * Increments the association count.
      */
     public void incrementAssociationCount() {
-        lock.lock();
-        try {
-            associationCount++;
-        } finally {
-            lock.unlock();
-        }
+        associationCount.incrementAndGet();
     }
     
     /**
@@ -308,20 +248,20 @@ public class TxContext {
      * @throws XAException if the transition is invalid
      */
     public void transitionTo(TxState newState, XABackendSession newSession) throws XAException {
-        lock.lock();
-        try {
-            validateTransition(state, newState);
-            
-            log.debug("Xid {} transitioning: {} → {}", xid.toCompactString(), state, newState);
-            
-            this.state = newState;
-            if (newSession != null) {
-                this.session = newSession;
+        while (true) {
+            int current = state.get();
+            TxState from = STATES[current];
+            validateTransition(from, newState);
+            if (state.compareAndSet(current, newState.ordinal())) {
+                if (newSession != null) {
+                    this.session = newSession;
+                }
+                touch();
+                if (log.isDebugEnabled()) {
+                    log.debug("Xid {} transitioning: {} → {}", xid.toCompactString(), from, newState);
+                }
+                return;
             }
-            touch();
-            
-        } finally {
-            lock.unlock();
         }
     }
     
@@ -369,6 +309,35 @@ public class TxContext {
         }
     }
     
+    /**
+     * Moves to a new state by compare-and-set if the current state is one of the allowed ones.
+     * 
+     * @param to the target state
+     * @param allowedMask bit mask of the allowed current states, see {@link #mask}
+     * @return the previous state
+     * @throws IllegalStateException if the current state is not allowed
+     */
+    private TxState advance(TxState to, int allowedMask) {
+        while (true) {
+            int current = state.get();
+            if ((allowedMask & (1 << current)) == 0) {
+                throw new IllegalStateException("Cannot transition to " + to + " from " + STATES[current]);
+            }
+            if (state.compareAndSet(current, to.ordinal())) {
+                touch();
+                return STATES[current];
+            }
+        }
+    }
+    
+    private static int mask(TxState... states) {
+        int mask = 0;
+        for (TxState s : states) {
+            mask |= 1 << s.ordinal();
+        }
+        return mask;
+    }
+    
     /**
      * Transitions to ACTIVE state from NONEXISTENT (new transaction).
      * 
@@ -376,18 +345,11 @@ public class TxContext {
      * @throws IllegalStateException if current state is not NONEXISTENT
      */
     public void transitionToActive(XABackendSession newSession) {
-        lock.lock();
-        try {
-            if (state != TxState.NONEXISTENT) {
-                throw new IllegalStateException("Cannot transition to ACTIVE from " + state);
-            }
-            this.state = TxState.ACTIVE;
-            this.session = newSession;
-            this.associationCount = 1;
-            touch();
+        advance(TxState.ACTIVE, FROM_NONEXISTENT);
+        this.session = newSession;
+        this.associationCount.set(1);
+        if (log.isDebugEnabled()) {
             log.debug("Xid {} transitioned to ACTIVE", xid.toCompactString());
-        } finally {
-            lock.unlock();
         }
     }
     
@@ -398,20 +360,13 @@ public class TxContext {
      * @throws IllegalStateException if current state is not ENDED
      */
     public void transitionToActiveFromEnded(boolean isJoin) {
-        lock.lock();
-        try {
-            if (state != TxState.ENDED) {
-                throw new IllegalStateException("Cannot transition to ACTIVE from " + state);
-            }
-            this.state = TxState.ACTIVE;
-            if (isJoin) {
-                this.associationCount++;
-            }
-            touch();
+        advance(TxState.ACTIVE, FROM_ENDED);
+        if (isJoin) {
+            this.associationCount.incrementAndGet();
+        }
+        if (log.isDebugEnabled()) {
             log.debug("Xid {} transitioned to ACTIVE ({})", xid.toCompactString(), 
                     isJoin ? "TMJOIN" : "TMRESUME");
-        } finally {
-            lock.unlock();
         }
     }
     
@@ -422,17 +377,10 @@ public class TxContext {
      * @throws IllegalStateException if current state is not ACTIVE
      */
     public void transitionToEnded(boolean isSuspend) {
-        lock.lock();
-        try {
-            if (state != TxState.ACTIVE) {
-                throw new IllegalStateException("Cannot transition to ENDED from " + state);
-            }
-            this.state = TxState.ENDED;
-            touch();
+        advance(TxState.ENDED, FROM_ACTIVE);
+        if (log.isDebugEnabled()) {
             log.debug("Xid {} transitioned to ENDED ({})", xid.toCompactString(), 
                     isSuspend ? "TMSUSPEND" : "TMSUCCESS/TMFAIL");
-        } finally {
-            lock.unlock();
         }
     }
     
@@ -442,16 +390,9 @@ public class TxContext {
      * @throws IllegalStateException if current state is not ENDED
      */
     public void transitionToPrepared() {
-        lock.lock();
-        try {
-            if (state != TxState.ENDED) {
-                throw new IllegalStateException("Cannot transition to PREPARED from " + state);
-            }
-            this.state = TxState.PREPARED;
-            touch();
+        advance(TxState.PREPARED, FROM_ENDED);
+        if (log.isDebugEnabled()) {
             log.debug("Xid {} transitioned to PREPARED", xid.toCompactString());
-        } finally {
-            lock.unlock();
         }
     }
     
@@ -461,17 +402,9 @@ public class TxContext {
      * @throws IllegalStateException if current state is invalid
      */
     public void transitionToCommitted() {
-        lock.lock();
-        try {
-            if (state != TxState.ENDED && state != TxState.PREPARED && 
-                state != TxState.ACTIVE && state != TxState.COMMITTED) {
-                throw new IllegalStateException("Cannot transition to COMMITTED from " + state);
-            }
-            this.state = TxState.COMMITTED;
-            touch();
+        advance(TxState.COMMITTED, TO_COMMITTED_FROM);
+        if (log.isDebugEnabled()) {
             log.debug("Xid {} transitioned to COMMITTED", xid.toCompactString());
-        } finally {
-            lock.unlock();
         }
     }
     
@@ -481,32 +414,19 @@ public class TxContext {
      * @throws IllegalStateException if current state is invalid
      */
     public void transitionToRolledBack() {
-        lock.lock();
-        try {
-            if (state != TxState.ACTIVE && state != TxState.ENDED && 
-                state != TxState.PREPARED && state != TxState.ROLLEDBACK) {
-                throw new IllegalStateException("Cannot transition to ROLLEDBACK from " + state);
-            }
-            this.state = TxState.ROLLEDBACK;
-            touch();
+        advance(TxState.ROLLEDBACK, TO_ROLLEDBACK_FROM);
+        if (log.isDebugEnabled()) {
             log.debug("Xid {} transitioned to ROLLEDBACK", xid.toCompactString());
-        } finally {
-            lock.unlock();
         }
     }
     
     @Override
     public String toString() {
-        lock.lock();
-        try {
-            return "TxContext{" +
-                    "xid=" + xid.toCompactString() +
-                    ", state=" + state +
-                    ", session=" + (session != null ? "bound" : "null") +
-                    ", age=" + ((System.nanoTime() - createdAtNanos) / 1_000_000) + "ms" +
-                    '}';
-        } finally {
-            lock.unlock();
-        }
+        return "TxContext{" +
+                "xid=" + xid.toCompactString() +
+                ", state=" + getState() +
+                ", session=" + (session != null ? "bound" : "null") +
+                ", age=" + ((System.nanoTime() - createdAtNanos) / 1_000_000) + "ms" +
+                '}';
     }
 }
@@ -0,0 +1,172 @@
+package org.openjproxy.xa.pool;
+
+import org.openjproxy.xa.pool.spi.XAConnectionPoolProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.XAConnection;
+import javax.transaction.xa.XAException;
+import javax.transaction.xa.XAResource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Serves XA recovery scans of one datasource from a short lived snapshot shared by all clients.
+ * <p>
+ * Transaction managers call {@code recover()} periodically from every application instance. Instead of
+ * borrowing a pooled session and querying the database's prepared transactions on every call, scans are
+ * served from a snapshot of the prepared Xids taken at most once per TTL, on a dedicated recovery connection
+ * that is not part of the pool.
+ * </p>
+ * <p>
+ * A scan returns the whole snapshot for {@code TMSTARTRSCAN} and nothing for the calls continuing or ending
+ * it, like most JDBC drivers do, so no cursor is kept per client. Branches prepared or completed through this
+ * server after the snapshot was taken are added to or removed from it, so a cached scan never misses a
+ * branch this server prepared nor returns one it completed.
+ * </p>
+ * <p>
+ * Thread-safe: scans are serialized, concurrent callers share the snapshot taken by the first one.
+ * </p>
+ */
+public class XARecoveryService {
+    private static final Logger log = LoggerFactory.getLogger(XARecoveryService.class);
+
+    private final XAConnectionPoolProvider poolProvider;
+    private final Object poolDataSource;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    // Guarded by this
+    private XAConnection recoveryConnection;
+    private Set<XidKey> snapshot;
+    private long snapshotExpiresAtNanos;
+
+    /**
+     * Creates a recovery service for a datasource.
+     *
+     * @param poolProvider the XA connection pool provider
+     * @param poolDataSource the XADataSource instance from the provider
+     * @param cacheTtlMs how long a snapshot of prepared Xids is reused, 0 to query the database on every scan
+     */
+    public XARecoveryService(XAConnectionPoolProvider poolProvider, Object poolDataSource, long cacheTtlMs) {
+        this(poolProvider, poolDataSource, cacheTtlMs, System::nanoTime);
+    }
+
+    XARecoveryService(XAConnectionPoolProvider poolProvider, Object poolDataSource, long cacheTtlMs,
+                      LongSupplier nanoClock) {
+        this.poolProvider = poolProvider;
+        this.poolDataSource = poolDataSource;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, cacheTtlMs));
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns the prepared Xids for a recovery scan.
+     *
+     * @param flag XA recover flags (TMSTARTRSCAN, TMENDRSCAN, TMNOFLAGS)
+     * @return the prepared Xids, empty for calls that do not start a scan
+     * @throws XAException if the backend recovery fails
+     */
+    public synchronized List<XidKey> recover(int flag) throws XAException {
+        if ((flag & XAResource.TMSTARTRSCAN) == 0) {
+            // The whole snapshot was returned when the scan started
+            return Collections.emptyList();
+        }
+        long now = nanoClock.getAsLong();
+        if (snapshot == null || now - snapshotExpiresAtNanos >= 0) {
+            snapshot = scan();
+            snapshotExpiresAtNanos = now + ttlNanos;
+        } else {
+            log.debug("XA recover served from cached snapshot of {} prepared transactions", snapshot.size());
+        }
+        return new ArrayList<>(snapshot);
+    }
+
+    /**
+     * Adds a branch prepared through this server to the current snapshot.
+     *
+     * @param xid the prepared branch
+     */
+    public synchronized void onPrepared(XidKey xid) {
+        if (snapshot != null) {
+            snapshot.add(xid);
+        }
+    }
+
+    /**
+     * Removes a branch committed or rolled back through this server from the current snapshot.
+     *
+     * @param xid the completed branch
+     */
+    public synchronized void onCompleted(XidKey xid) {
+        if (snapshot != null) {
+            snapshot.remove(xid);
+        }
+    }
+
+    /**
+     * Closes the recovery connection.
+     */
+    public synchronized void close() {
+        closeRecoveryConnection();
+        snapshot = null;
+    }
+
+    private Set<XidKey> scan() throws XAException {
+        try {
+            javax.transaction.xa.Xid[] xids = recoverFromBackend();
+            Set<XidKey> prepared = new LinkedHashSet<>();
+            if (xids != null) {
+                for (javax.transaction.xa.Xid xid : xids) {
+                    prepared.add(XidKey.from(xid));
+                }
+            }
+            log.info("XA recover returned {} prepared transactions", prepared.size());
+            return prepared;
+        } catch (Exception e) {
+            log.error("Failed to recover prepared transactions", e);
+            // The connection may be broken, open a new one on the next scan
+            closeRecoveryConnection();
+            XAException xae = new XAException(XAException.XAER_RMERR);
+            xae.initCause(e);
+            throw xae;
+        }
+    }
+
+    private javax.transaction.xa.Xid[] recoverFromBackend() throws Exception {
+        if (recoveryConnection == null) {
+            recoveryConnection = poolProvider.openRecoveryConnection(poolDataSource);
+        }
+        if (recoveryConnection != null) {
+            return recoveryConnection.getXAResource().recover(XAResource.TMSTARTRSCAN | XAResource.TMENDRSCAN);
+        }
+
+        // Provider without unpooled connections
+        XABackendSession session = poolProvider.borrowSession(poolDataSource);
+        try {
+            return session.getXAResource().recover(XAResource.TMSTARTRSCAN | XAResource.TMENDRSCAN);
+        } finally {
+            try {
+                poolProvider.returnSession(poolDataSource, session);
+            } catch (Exception e) {
+                log.error("Failed to return session after recover()", e);
+            }
+        }
+    }
+
+    private void closeRecoveryConnection() {
+        if (recoveryConnection != null) {
+            try {
+                recoveryConnection.close();
+            } catch (Exception e) {
+                log.warn("Failed to close XA recovery connection: {}", e.getMessage());
+            }
+            recoveryConnection = null;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.openjproxy.xa.pool;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of the XA transaction lifecycle of one {@link XATransactionRegistry}.
+ * <p>
+ * Replaces per-transaction INFO logging: recording an event is a {@link LongAdder} increment, cheap and
+ * contention free at thousands of transactions per second. The server exports these values through its
+ * metrics endpoint.
+ * </p>
+ * <p>
+ * Histograms have fixed buckets; {@link #getCommitLatencyBuckets()} returns the count of each bucket, the
+ * last one counting everything above the largest bound of {@link #LATENCY_BUCKET_BOUNDS_MICROS}.
+ * </p>
+ */
+public class XATransactionMetrics {
+
+    /**
+     * Upper bounds, in microseconds, of the latency histogram buckets.
+     */
+    public static final long[] LATENCY_BUCKET_BOUNDS_MICROS = {
+            100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 1_000_000
+    };
+
+    private final LongAdder started = new LongAdder();
+    private final LongAdder prepared = new LongAdder();
+    private final LongAdder preparedReadOnly = new LongAdder();
+    private final LongAdder committed = new LongAdder();
+    private final LongAdder rolledBack = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final Histogram commitLatency = new Histogram();
+    private final Histogram transactionDuration = new Histogram();
+
+    void onStarted() {
+        started.increment();
+    }
+
+    void onPrepared(boolean readOnly) {
+        if (readOnly) {
+            preparedReadOnly.increment();
+        } else {
+            prepared.increment();
+        }
+    }
+
+    void onCommitted(long commitNanos, long transactionNanos) {
+        committed.increment();
+        commitLatency.record(commitNanos);
+        transactionDuration.record(transactionNanos);
+    }
+
+    void onRolledBack(long transactionNanos) {
+        rolledBack.increment();
+        transactionDuration.record(transactionNanos);
+    }
+
+    void onError() {
+        errors.increment();
+    }
+
+    public long getStarted() {
+        return started.sum();
+    }
+
+    public long getPrepared() {
+        return prepared.sum();
+    }
+
+    public long getPreparedReadOnly() {
+        return preparedReadOnly.sum();
+    }
+
+    public long getCommitted() {
+        return committed.sum();
+    }
+
+    public long getRolledBack() {
+        return rolledBack.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * Gets the number of backend commits per latency bucket.
+     *
+     * @return counts per bucket, one more than the number of bounds
+     */
+    public long[] getCommitLatencyBuckets() {
+        return commitLatency.buckets();
+    }
+
+    /**
+     * Gets the total time spent in backend commits.
+     *
+     * @return the sum of commit latencies in microseconds
+     */
+    public long getCommitLatencySumMicros() {
+        return commitLatency.sumMicros.sum();
+    }
+
+    /**
+     * Gets the number of completed transactions per duration bucket, from start to commit or rollback.
+     *
+     * @return counts per bucket, one more than the number of bounds
+     */
+    public long[] getTransactionDurationBuckets() {
+        return transactionDuration.buckets();
+    }
+
+    /**
+     * Gets the total duration of completed transactions.
+     *
+     * @return the sum of transaction durations in microseconds
+     */
+    public long getTransactionDurationSumMicros() {
+        return transactionDuration.sumMicros.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "started=" + getStarted()
+                + ", prepared=" + getPrepared()
+                + ", preparedReadOnly=" + getPreparedReadOnly()
+                + ", committed=" + getCommitted()
+                + ", rolledBack=" + getRolledBack()
+                + ", errors=" + getErrors();
+    }
+
+    private static final class Histogram {
+        private final LongAdder[] counts = new LongAdder[LATENCY_BUCKET_BOUNDS_MICROS.length + 1];
+        private final LongAdder sumMicros = new LongAdder();
+
+        private Histogram() {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+
+        private void record(long nanos) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+            int bucket = 0;
+            while (bucket < LATENCY_BUCKET_BOUNDS_MICROS.length && micros > LATENCY_BUCKET_BOUNDS_MICROS[bucket]) {
+                bucket++;
+            }
+            counts[bucket].increment();
+            sumMicros.add(micros);
+        }
+
+        private long[] buckets() {
+            long[] snapshot = new long[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                snapshot[i] = counts[i].sum();
+            }
+            return snapshot;
+        }
+    }
+}
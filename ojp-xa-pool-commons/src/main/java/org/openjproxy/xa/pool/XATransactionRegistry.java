@@ -13,6 +13,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Registry for managing XA transaction contexts and their lifecycle.
@@ -33,7 +34,12 @@ import java.util.concurrent.ConcurrentMap;
  *   <li>Borrow/return backend sessions from pool</li>
  *   <li>Delegate prepare/commit/rollback to backend XAResource</li>
  *   <li>Handle recovery by querying backend XAResource.recover()</li>
+ *   <li>Record lifecycle events in {@link XATransactionMetrics}</li>
  * </ul>
+ * <p>
+ * Per-transaction events are logged at DEBUG only. At INFO, one completion in
+ * {@value #LOG_SAMPLE_INTERVAL} logs a summary of the metrics; errors are always logged.
+ * </p>
  *
  * <h3>Invariants:</h3>
  * <ul>
@@ -46,6 +52,7 @@ import java.util.concurrent.ConcurrentMap;
  */
 public class XATransactionRegistry {
     private static final Logger log = LoggerFactory.getLogger(XATransactionRegistry.class);
+    static final int LOG_SAMPLE_INTERVAL = 1024;
     
     private final ConcurrentMap<XidKey, TxContext> contexts = new ConcurrentHashMap<>();
     private final XAConnectionPoolProvider poolProvider;
@@ -53,6 +60,8 @@ public class XATransactionRegistry {
     private final String serverEndpointsHash; // Hash of serverEndpoints used to create this registry
     private final int maxPoolSize; // Max pool size used to create backend pool
     private final int minIdle; // Min idle connections used to create backend pool
+    private final XARecoveryService recoveryService;
+    private final XATransactionMetrics metrics = new XATransactionMetrics();
     
     /**
      * Creates a new XA transaction registry.
@@ -64,11 +73,27 @@ public class XATransactionRegistry {
      * @param minIdle the minimum idle connections used to create the backend pool
      */
     public XATransactionRegistry(XAConnectionPoolProvider poolProvider, Object poolDataSource, String serverEndpointsHash, int maxPoolSize, int minIdle) {
+        this(poolProvider, poolDataSource, serverEndpointsHash, maxPoolSize, minIdle, 0);
+    }
+    
+    /**
+     * Creates a new XA transaction registry whose recovery scans are served from a cached snapshot.
+     *
+     * @param poolProvider the XA connection pool provider
+     * @param poolDataSource the XADataSource instance from the provider
+     * @param serverEndpointsHash hash of serverEndpoints configuration used to create backend pools
+     * @param maxPoolSize the maximum pool size used to create the backend pool
+     * @param minIdle the minimum idle connections used to create the backend pool
+     * @param recoveryCacheTtlMs how long a recovery snapshot is reused, 0 to query the database on every scan
+     */
+    public XATransactionRegistry(XAConnectionPoolProvider poolProvider, Object poolDataSource, String serverEndpointsHash,
+                                 int maxPoolSize, int minIdle, long recoveryCacheTtlMs) {
         this.poolProvider = poolProvider;
         this.poolDataSource = poolDataSource;
         this.serverEndpointsHash = serverEndpointsHash;
         this.maxPoolSize = maxPoolSize;
         this.minIdle = minIdle;
+        this.recoveryService = new XARecoveryService(poolProvider, poolDataSource, recoveryCacheTtlMs);
     }
     
     /**
@@ -99,6 +124,15 @@ public class XATransactionRegistry {
         return minIdle;
     }
     
+    /**
+     * Gets the lifecycle metrics of the transactions handled by this registry.
+     *
+     * @return the metrics
+     */
+    public XATransactionMetrics getMetrics() {
+        return metrics;
+    }
+    
     /**
      * Gets the pooled XA DataSource managed by this registry.
      *
@@ -155,8 +189,15 @@ public class XATransactionRegistry {
             // Log diagnostics AFTER resize
             commonsPool.logPoolDiagnostics("AFTER resize");
             
+        } else if (poolDataSource instanceof org.openjproxy.xa.pool.commons.ConcurrentBagXADataSource) {
+            org.openjproxy.xa.pool.commons.ConcurrentBagXADataSource bagPool =
+                    (org.openjproxy.xa.pool.commons.ConcurrentBagXADataSource) poolDataSource;
+            bagPool.setMaxTotal(newMaxPoolSize);
+            bagPool.setMinIdle(newMinIdle);
+            log.info("[XA-POOL-RESIZE] XA backend pool resized: maxTotal={}, minIdle={}", newMaxPoolSize, newMinIdle);
         } else {
-            log.warn("Cannot resize XA backend pool: poolDataSource is not CommonsPool2XADataSource");
+            log.warn("Cannot resize XA backend pool: {} does not support resizing",
+                    poolDataSource != null ? poolDataSource.getClass().getName() : "null");
         }
     }
     
@@ -174,7 +215,9 @@ public class XATransactionRegistry {
      * @throws XAException if flags are invalid, xid already exists, or XA start fails
      */
     public void registerExistingSession(XidKey xid, XABackendSession session, int flags, String ojpSessionId) throws XAException {
-        log.debug("registerExistingSession: xid={}, flags={}, ojpSessionId={}", xid, flagsToString(flags), ojpSessionId);
+        if (log.isDebugEnabled()) {
+            log.debug("registerExistingSession: xid={}, flags={}, ojpSessionId={}", xid, flagsToString(flags), ojpSessionId);
+        }
         
         // Validate flags - only TMNOFLAGS allowed for new transaction
         if (flags != XAResource.TMNOFLAGS) {
@@ -199,11 +242,14 @@ public class XATransactionRegistry {
             // Call XAResource.start on backend with the stored Xid
             session.getXAResource().start(actualXid, flags);
             
-            log.info("XA transaction registered with existing session: xid={}, ojpSessionId={}", xid, ojpSessionId);
+            metrics.onStarted();
+            log.debug("XA transaction registered with existing session: xid={}, ojpSessionId={}", xid, ojpSessionId);
         } catch (XAException e) {
+            metrics.onError();
             contexts.remove(xid);
             throw e;
         } catch (Exception e) {
+            metrics.onError();
             contexts.remove(xid);
             throw new XAException(XAException.XAER_RMERR);
         }
@@ -223,7 +269,9 @@ public class XATransactionRegistry {
      * @throws XAException if state transition is invalid or session cannot be borrowed
      */
     public void xaStart(XidKey xid, int flags, String ojpSessionId) throws XAException {
-        log.debug("xaStart: xid={}, flags={}, ojpSessionId={}", xid, flagsToString(flags), ojpSessionId);
+        if (log.isDebugEnabled()) {
+            log.debug("xaStart: xid={}, flags={}, ojpSessionId={}", xid, flagsToString(flags), ojpSessionId);
+        }
         
         boolean isTmNoFlags = (flags == XAResource.TMNOFLAGS);
         boolean isTmJoin = (flags == XAResource.TMJOIN);
@@ -248,8 +296,10 @@ public class XATransactionRegistry {
                 // Call XAResource.start on backend with the stored Xid
                 session.getXAResource().start(actualXid, flags);
                 
-                log.info("XA transaction started: xid={}, ojpSessionId={}", xid, ojpSessionId);
+                metrics.onStarted();
+                log.debug("XA transaction started: xid={}, ojpSessionId={}", xid, ojpSessionId);
             } catch (Exception e) {
+                metrics.onError();
                 contexts.remove(xid);
                 throw new XAException(XAException.XAER_RMERR);
             }
@@ -362,18 +412,25 @@ public class XATransactionRegistry {
                 ctx.transitionToCommitted();
                 returnSessionToPool(ctx);
                 contexts.remove(xid);
+                metrics.onPrepared(true);
                 
-                log.info("XA transaction prepared (read-only optimization): xid={}", xid);
+                log.debug("XA transaction prepared (read-only optimization): xid={}", xid);
                 return XAResource.XA_RDONLY;
             } else {
                 // Normal 2PC: transition to PREPARED state
                 ctx.transitionToPrepared();
+                recoveryService.onPrepared(xid);
+                metrics.onPrepared(false);
                 
-                log.info("XA transaction prepared: xid={}", xid);
+                log.debug("XA transaction prepared: xid={}", xid);
                 return XAResource.XA_OK;
             }
         } catch (IllegalStateException e) {
+            metrics.onError();
             throw new XAException(XAException.XAER_PROTO);
+        } catch (XAException e) {
+            metrics.onError();
+            throw e;
         }
     }
     
@@ -413,9 +470,13 @@ public class XATransactionRegistry {
             }
             
             // Call XAResource.commit on backend
+            long commitStartNanos = System.nanoTime();
             ctx.getSession().getXAResource().commit(actualXid, onePhase);
+            long committedAtNanos = System.nanoTime();
             
             ctx.transitionToCommitted();
+            recoveryService.onCompleted(xid);
+            metrics.onCommitted(committedAtNanos - commitStartNanos, committedAtNanos - ctx.getCreatedAtNanos());
             
             // Mark transaction as complete but keep in contexts
             // Backend session will be returned to pool when XAConnection.close() is called
@@ -436,8 +497,10 @@ public class XATransactionRegistry {
             // DO NOT remove from contexts here - keep it until XAConnection.close()
             // DO NOT return to pool here - session stays bound until XAConnection.close()
             
-            log.info("XA transaction committed: xid={}, onePhase={}", xid, onePhase);
+            log.debug("XA transaction committed: xid={}, onePhase={}", xid, onePhase);
+            logSampled();
         } catch (XAException e) {
+            metrics.onError();
             log.error("XA error during commit for xid=" + xid, e);
             // Mark as complete even on error to allow cleanup
             if (ctx != null) {
@@ -447,9 +510,11 @@ public class XATransactionRegistry {
             // DO NOT return session to pool - it stays with OJP Session
             throw e;  // Rethrow original XAException to preserve error code
         } catch (IllegalStateException e) {
+            metrics.onError();
             log.error("Invalid state transition during commit for xid=" + xid, e);
             throw new XAException(XAException.XAER_PROTO);
         } catch (Exception e) {
+            metrics.onError();
             log.error("Unexpected error during commit for xid=" + xid, e);
             // Mark as complete even on error to allow cleanup
             if (ctx != null) {
@@ -498,6 +563,8 @@ public class XATransactionRegistry {
             ctx.getSession().getXAResource().rollback(actualXid);
             
             ctx.transitionToRolledBack();
+            recoveryService.onCompleted(xid);
+            metrics.onRolledBack(System.nanoTime() - ctx.getCreatedAtNanos());
             
             // Mark transaction as complete but keep in contexts
             // Backend session will be returned to pool when XAConnection.close() is called
@@ -517,8 +584,10 @@ public class XATransactionRegistry {
             // DO NOT remove from contexts here - keep it until XAConnection.close()
             // DO NOT return to pool here - session stays bound until XAConnection.close()
             
-            log.info("XA transaction rolled back: xid={}", xid);
+            log.debug("XA transaction rolled back: xid={}", xid);
+            logSampled();
         } catch (XAException e) {
+            metrics.onError();
             log.error("XA error during rollback for xid=" + xid, e);
             // Mark as complete even on error to allow cleanup
             if (ctx != null) {
@@ -528,6 +597,7 @@ public class XATransactionRegistry {
             // DO NOT return session to pool - it stays with OJP Session
             throw e;  // Rethrow original XAException to preserve error code
         } catch (Exception e) {
+            metrics.onError();
             log.error("Unexpected error during rollback for xid=" + xid, e);
             // Mark as complete even on error to allow cleanup
             if (ctx != null) {
@@ -544,8 +614,9 @@ public class XATransactionRegistry {
     /**
      * Recovers prepared XA transaction branches from the backend database.
      * <p>
-     * Delegates to backend XAResource.recover(). This queries the database's
-     * transaction log for transactions in PREPARED state.
+     * Delegates to backend XAResource.recover() through the {@link XARecoveryService}, on a
+     * dedicated recovery connection rather than a pooled session. Scans are served from a
+     * snapshot shared by all clients for the configured TTL.
      * </p>
      * <p>
      * For multinode deployments: Each proxy node calls recover() on its backend
@@ -559,37 +630,7 @@ public class XATransactionRegistry {
      */
     public List<XidKey> xaRecover(int flag) throws XAException {
         log.debug("xaRecover: flag={}", flag);
-        
-        List<XidKey> preparedXids = new ArrayList<>();
-        
-        // Delegate to backend XAResource.recover()
-        // In a real implementation, we'd need a backend session to call recover() on
-        XABackendSession session = null;
-        try {
-            session = poolProvider.borrowSession(poolDataSource);
-            javax.transaction.xa.Xid[] xids = session.getXAResource().recover(flag);
-            
-            if (xids != null) {
-                for (javax.transaction.xa.Xid xid : xids) {
-                    preparedXids.add(XidKey.from(xid));
-                }
-            }
-            
-            log.info("XA recover returned {} prepared transactions", preparedXids.size());
-            return preparedXids;
-            
-        } catch (Exception e) {
-            log.error("Failed to recover prepared transactions", e);
-            throw new XAException(XAException.XAER_RMERR);
-        } finally {
-            if (session != null) {
-                try {
-                    poolProvider.returnSession(poolDataSource, session);
-                } catch (Exception e) {
-                    log.error("Failed to return session after recover()", e);
-                }
-            }
-        }
+        return recoveryService.recover(flag);
     }
     
     /**
@@ -653,7 +694,7 @@ public class XATransactionRegistry {
      * @return the number of sessions returned to pool
      */
     public int returnCompletedSessions(String ojpSessionId) {
-        log.info("[XA-RETURN-SESSIONS] returnCompletedSessions called for ojpSessionId={}, total contexts={}", 
+        log.debug("[XA-RETURN-SESSIONS] returnCompletedSessions called for ojpSessionId={}, total contexts={}", 
                 ojpSessionId, contexts.size());
         int returnedCount = 0;
         List<XidKey> toRemove = new ArrayList<>();
@@ -679,11 +720,11 @@ public class XATransactionRegistry {
                         log.debug("[XA-POOL-RETURN] SKIP: Backend session already returned for xid={}, ojpSessionId={}", xidKey, ojpSessionId);
                     } else {
                         try {
-                            log.info("[XA-POOL-RETURN] BEFORE return: Returning backend session for xid={}, ojpSessionId={}", xidKey, ojpSessionId);
+                            log.debug("[XA-POOL-RETURN] BEFORE return: Returning backend session for xid={}, ojpSessionId={}", xidKey, ojpSessionId);
                             poolProvider.returnSession(poolDataSource, session);
                             returnedSessions.add(session);  // Mark as returned
                             returnedCount++;
-                            log.info("[XA-POOL-RETURN] AFTER return: Successfully returned backend session for xid={}, ojpSessionId={}", xidKey, ojpSessionId);
+                            log.debug("[XA-POOL-RETURN] AFTER return: Successfully returned backend session for xid={}, ojpSessionId={}", xidKey, ojpSessionId);
                         } catch (Exception e) {
                             log.error("[XA-POOL-RETURN] Failed to return session to pool for xid={}: {}", xidKey, e.getMessage(), e);
                             // Best effort: try to invalidate
@@ -706,7 +747,7 @@ public class XATransactionRegistry {
             log.debug("Removed completed transaction from registry: xid={}, ojpSessionId={}", xid, ojpSessionId);
         }
         
-        log.info("[XA-RETURN-SESSIONS] returnCompletedSessions complete: returned={}, removed={} contexts for ojpSessionId={}", 
+        log.debug("[XA-RETURN-SESSIONS] returnCompletedSessions complete: returned={}, removed={} contexts for ojpSessionId={}", 
                 returnedCount, toRemove.size(), ojpSessionId);
         
         return returnedCount;
@@ -736,6 +777,7 @@ public class XATransactionRegistry {
                 }
             }
             contexts.clear();
+            recoveryService.close();
             
             log.info("XA registry closed successfully");
         } catch (Exception e) {
@@ -745,6 +787,15 @@ public class XATransactionRegistry {
     
     // Private helper methods
     
+    /**
+     * Logs a summary of the metrics for one completed transaction in {@link #LOG_SAMPLE_INTERVAL}.
+     */
+    private void logSampled() {
+        if (log.isInfoEnabled() && ThreadLocalRandom.current().nextInt(LOG_SAMPLE_INTERVAL) == 0) {
+            log.info("XA transactions (sampled): {}", metrics);
+        }
+    }
+    
     private void returnSessionToPool(TxContext ctx) {
         XABackendSession session = ctx.getSession();
         if (session != null) {
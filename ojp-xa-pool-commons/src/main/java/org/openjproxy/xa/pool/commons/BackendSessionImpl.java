@@ -1,6 +1,7 @@
 package org.openjproxy.xa.pool.commons;
 
 import org.openjproxy.xa.pool.XABackendSession;
+import org.openjproxy.xa.pool.commons.housekeeping.BorrowInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -8,6 +9,7 @@ import javax.sql.XAConnection;
 import javax.transaction.xa.XAResource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Default implementation of {@link XABackendSession} that wraps an {@link XAConnection}.
@@ -25,20 +27,29 @@ import java.sql.SQLException;
  *   <li>Rolls back any open local transaction (should not happen in XA mode)</li>
  *   <li>Clears warnings</li>
  *   <li>Restores auto-commit to true</li>
+ *   <li>Restores the default transaction isolation, read-only, catalog and schema</li>
  *   <li>Does NOT close the physical connection</li>
  * </ul>
+ * <p>
+ * Auto-commit and isolation are checked on every reset, as they can change without going through the
+ * session's connection, but auto-commit is read once instead of twice and the isolation is not read back after
+ * restoring it; {@link #getResetRoundTripsElided()} counts those skipped calls. Read-only, catalog and schema are
+ * read when first changed through the connection handed out by {@link #getConnection()} and restored on reset,
+ * calls that were not made before they were restored.
+ * </p>
  * 
  * <p><strong>Critical Invariant:</strong> reset() is ONLY called after transaction
  * completion (COMMITTED or ROLLEDBACK state), never while in PREPARED state.</p>
  */
 public class BackendSessionImpl implements XABackendSession {
     private static final Logger log = LoggerFactory.getLogger(BackendSessionImpl.class);
+    private static final LongAdder resetRoundTripsElided = new LongAdder();
     
     private final XAConnection xaConnection;
     private final String sessionId;
     private final Integer defaultTransactionIsolation;
     private XAResource xaResource;
-    private Connection connection;
+    private StateTrackingConnection connection;
     private volatile boolean closed = false;
     
     // Housekeeping state tracking
@@ -46,7 +57,7 @@ public class BackendSessionImpl implements XABackendSession {
     private volatile long lastBorrowTime;
     private volatile long lastReturnTime;
     private volatile Thread borrowingThread;
-    private volatile StackTraceElement[] borrowStackTrace;
+    private volatile BorrowInfo borrowInfo;
     
     /**
      * Creates a new backend session wrapping an XAConnection.
@@ -83,7 +94,7 @@ public class BackendSessionImpl implements XABackendSession {
         }
         
         // Obtain Connection and XAResource from XAConnection
-        this.connection = xaConnection.getConnection();
+        this.connection = new StateTrackingConnection(xaConnection.getConnection());
         this.xaResource = xaConnection.getXAResource();
         
         log.debug("[{}] open() called - Connection object hashCode: {}, xaConnection hashCode: {}", 
@@ -180,15 +191,9 @@ public class BackendSessionImpl implements XABackendSession {
                 sessionId, System.identityHashCode(connection));
         
         try {
-            // Roll back any uncommitted local transaction
-            // (should not happen in XA mode, but defensive programming)
-            if (!connection.getAutoCommit()) {
-                try {
-                    connection.rollback();
-                } catch (SQLException e) {
-                    log.warn("Error rolling back during reset", e);
-                }
-            }
+            restoreAutoCommit();
+            // Auto-commit used to be read a second time before restoring it
+            long elided = 1;
             
             // Clear warnings
             try {
@@ -197,38 +202,20 @@ public class BackendSessionImpl implements XABackendSession {
                 log.warn("Error clearing warnings during reset", e);
             }
             
-            // Restore auto-commit to true
-            try {
-                if (!connection.getAutoCommit()) {
-                    connection.setAutoCommit(true);
-                }
-            } catch (SQLException e) {
-                log.error("Error restoring auto-commit during reset", e);
-                throw e;
-            }
-            
             // Reset transaction isolation level
             // This handles cases where the client changed isolation but didn't commit an XA transaction
             // (so sanitizeAfterTransaction() wasn't called)
-            if (defaultTransactionIsolation != null) {
-                try {
-                    int currentIsolation = connection.getTransactionIsolation();
-                    log.debug("[{}] reset() - Current isolation: {}, Default isolation: {}", 
-                            sessionId, currentIsolation, defaultTransactionIsolation);
-                    if (currentIsolation != defaultTransactionIsolation) {
-                        log.debug("[{}] reset() - Resetting transaction isolation from {} to default {}", 
-                                sessionId, currentIsolation, defaultTransactionIsolation);
-                        connection.setTransactionIsolation(defaultTransactionIsolation);
-                        int afterSet = connection.getTransactionIsolation();
-                        log.debug("[{}] reset() - After setTransactionIsolation, isolation is now: {}", 
-                                sessionId, afterSet);
-                    } else {
-                        log.debug("[{}] reset() - Transaction isolation already at default {}", sessionId, defaultTransactionIsolation);
-                    }
-                } catch (SQLException e) {
-                    log.warn("[{}] reset() - Error resetting transaction isolation: {}", sessionId, e.getMessage());
-                    // Don't throw - continue with reset even if isolation reset fails
-                }
+            if (restoreTransactionIsolation("reset()")) {
+                // The isolation used to be read back after restoring it
+                elided++;
+            }
+            resetRoundTripsElided.add(elided);
+            
+            try {
+                connection.restoreSessionSettings();
+            } catch (SQLException e) {
+                log.error("Error restoring read-only, catalog or schema during reset", e);
+                throw e;
             }
             
             log.debug("Backend session reset completed");
@@ -239,6 +226,57 @@ public class BackendSessionImpl implements XABackendSession {
         }
     }
     
+    private void restoreAutoCommit() throws SQLException {
+        // Read once, most drivers answer it without a round trip
+        if (connection.getAutoCommit()) {
+            return;
+        }
+        
+        // Roll back any uncommitted local transaction
+        // (should not happen in XA mode, but defensive programming)
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            log.warn("Error rolling back during reset", e);
+        }
+        
+        // Restore auto-commit to true
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            log.error("Error restoring auto-commit during reset", e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Restores the default transaction isolation, logging and swallowing errors so the session can still be reset.
+     *
+     * @return true if the isolation was set back to the default
+     */
+    private boolean restoreTransactionIsolation(String caller) {
+        if (defaultTransactionIsolation == null) {
+            return false;
+        }
+        try {
+            int currentIsolation = connection.getTransactionIsolation();
+            log.debug("[{}] {} - Current isolation: {}, Default isolation: {}", 
+                    sessionId, caller, currentIsolation, defaultTransactionIsolation);
+            if (currentIsolation != defaultTransactionIsolation) {
+                log.debug("[{}] {} - Resetting transaction isolation from {} to default {}", 
+                        sessionId, caller, currentIsolation, defaultTransactionIsolation);
+                connection.setTransactionIsolation(defaultTransactionIsolation);
+                return true;
+            }
+            log.debug("[{}] {} - Transaction isolation already at default {}", 
+                    sessionId, caller, defaultTransactionIsolation);
+        } catch (SQLException e) {
+            log.warn("[{}] {} - Error resetting transaction isolation: {}", sessionId, caller, e.getMessage());
+            // Don't throw - continue even if isolation reset fails
+        }
+        return false;
+    }
+    
     @Override
     public void sanitizeAfterTransaction() throws SQLException {
         if (closed) {
@@ -257,28 +295,7 @@ public class BackendSessionImpl implements XABackendSession {
         //    connection still has the wrong isolation level
         // 4. Both Connection objects point to the same physical connection, so we just need to ensure
         //    isolation is reset before the session is reused
-        if (defaultTransactionIsolation != null) {
-            try {
-                int currentIsolation = connection.getTransactionIsolation();
-                log.debug("[{}] sanitizeAfterTransaction() - Current isolation: {}, Default isolation: {}", 
-                        sessionId, currentIsolation, defaultTransactionIsolation);
-                if (currentIsolation != defaultTransactionIsolation) {
-                    log.debug("[{}] sanitizeAfterTransaction() - Resetting transaction isolation from {} to default {}", 
-                            sessionId, currentIsolation, defaultTransactionIsolation);
-                    connection.setTransactionIsolation(defaultTransactionIsolation);
-                    int afterSet = connection.getTransactionIsolation();
-                    log.debug("[{}] sanitizeAfterTransaction() - After setTransactionIsolation, isolation is now: {}", 
-                            sessionId, afterSet);
-                } else {
-                    log.debug("[{}] sanitizeAfterTransaction() - Transaction isolation already at default {}", 
-                            sessionId, defaultTransactionIsolation);
-                }
-            } catch (SQLException e) {
-                log.warn("[{}] sanitizeAfterTransaction() - Error resetting transaction isolation: {}", 
-                        sessionId, e.getMessage());
-                // Don't throw - session can still be used
-            }
-        }
+        restoreTransactionIsolation("sanitizeAfterTransaction()");
         
         // Clear warnings on the connection
         try {
@@ -325,22 +342,29 @@ public class BackendSessionImpl implements XABackendSession {
         return closed;
     }
     
+    /**
+     * Gets the number of driver calls that {@link #reset()} no longer makes, a second auto-commit read and the
+     * isolation read after restoring it, across all sessions of this JVM. The calls restoring read-only, catalog
+     * and schema are not subtracted.
+     *
+     * @return the number of skipped calls
+     */
+    public static long getResetRoundTripsElided() {
+        return resetRoundTripsElided.sum();
+    }
+    
     // ========== Housekeeping Methods ==========
     
     /**
      * Called when the session is borrowed from the pool.
      * Updates tracking information for leak detection.
      *
-     * @param captureStackTrace whether to capture the current stack trace for enhanced leak reporting
+     * @param borrowInfo the borrow time, thread and optional borrow site captured by the pool
      */
-    public void onBorrow(boolean captureStackTrace) {
-        this.lastBorrowTime = System.nanoTime();
-        this.borrowingThread = Thread.currentThread();
-        if (captureStackTrace) {
-            this.borrowStackTrace = Thread.currentThread().getStackTrace();
-        } else {
-            this.borrowStackTrace = null;
-        }
+    public void onBorrow(BorrowInfo borrowInfo) {
+        this.lastBorrowTime = borrowInfo.getBorrowTime();
+        this.borrowingThread = borrowInfo.getThread();
+        this.borrowInfo = borrowInfo;
     }
     
     /**
@@ -350,7 +374,7 @@ public class BackendSessionImpl implements XABackendSession {
     public void onReturn() {
         this.lastReturnTime = System.nanoTime();
         this.borrowingThread = null;
-        this.borrowStackTrace = null;
+        this.borrowInfo = null;
     }
     
     /**
@@ -427,7 +451,8 @@ public class BackendSessionImpl implements XABackendSession {
      * @return the stack trace, or null if not captured or not borrowed
      */
     public StackTraceElement[] getBorrowStackTrace() {
-        return borrowStackTrace;
+        BorrowInfo info = borrowInfo;
+        return info != null ? info.getStackTrace() : null;
     }
     
     /**
@@ -4,6 +4,7 @@ import org.apache.commons.pool2.impl.GenericObjectPool;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.openjproxy.xa.pool.XABackendSession;
 import org.openjproxy.xa.pool.commons.housekeeping.BorrowInfo;
+import org.openjproxy.xa.pool.commons.housekeeping.BorrowTracker;
 import org.openjproxy.xa.pool.commons.housekeeping.DiagnosticsTask;
 import org.openjproxy.xa.pool.commons.housekeeping.HousekeepingConfig;
 import org.openjproxy.xa.pool.commons.housekeeping.HousekeepingListener;
@@ -20,9 +21,9 @@ import java.sql.SQLFeatureNotSupportedException;
 import java.time.Duration;
 import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -69,7 +70,7 @@ public class CommonsPool2XADataSource implements XADataSource {
     private final HousekeepingListener housekeepingListener;
     
     // Leak detection state
-    private final ConcurrentHashMap<XABackendSession, BorrowInfo> borrowedSessions;
+    private final BorrowTracker borrowedSessions;
     private ScheduledExecutorService housekeepingExecutor;
     
     /**
@@ -96,7 +97,7 @@ public class CommonsPool2XADataSource implements XADataSource {
         this.housekeepingListener = new LoggingHousekeepingListener();
         
         // Initialize leak detection tracking
-        this.borrowedSessions = new ConcurrentHashMap<>();
+        this.borrowedSessions = new BorrowTracker();
         
         // Get default transaction isolation from config
         Integer defaultTransactionIsolation = getTransactionIsolationFromConfig(config);
@@ -136,27 +137,27 @@ public class CommonsPool2XADataSource implements XADataSource {
      * @throws Exception if session cannot be borrowed for other reasons
      */
     public XABackendSession borrowSession() throws Exception {
-        log.info("[XA-POOL-BORROW] Attempting to borrow session (state BEFORE: active={}, idle={}, maxTotal={}, maxIdle={}, minIdle={})",
-                pool.getNumActive(), pool.getNumIdle(), pool.getMaxTotal(), pool.getMaxIdle(), pool.getMinIdle());
+        if (log.isDebugEnabled()) {
+            log.debug("[XA-POOL-BORROW] Attempting to borrow session (state BEFORE: active={}, idle={}, maxTotal={}, maxIdle={}, minIdle={})",
+                    pool.getNumActive(), pool.getNumIdle(), pool.getMaxTotal(), pool.getMaxIdle(), pool.getMinIdle());
+        }
         
         try {
             XABackendSession session = pool.borrowObject();
             
             // Track borrow for leak detection
             if (housekeepingConfig.isLeakDetectionEnabled()) {
-                boolean captureStackTrace = housekeepingConfig.isEnhancedLeakReport();
+                BorrowInfo borrowInfo = BorrowInfo.capture(System.nanoTime(), borrowSiteFrames(housekeepingConfig));
                 if (session instanceof BackendSessionImpl) {
-                    ((BackendSessionImpl) session).onBorrow(captureStackTrace);
+                    ((BackendSessionImpl) session).onBorrow(borrowInfo);
                 }
-                borrowedSessions.put(session, new BorrowInfo(
-                    System.nanoTime(),
-                    Thread.currentThread(),
-                    captureStackTrace ? Thread.currentThread().getStackTrace() : null
-                ));
+                borrowedSessions.track(session, borrowInfo);
             }
             
-            log.info("[XA-POOL-BORROW] Session borrowed successfully (state AFTER: active={}, idle={}, maxTotal={})",
-                    pool.getNumActive(), pool.getNumIdle(), pool.getMaxTotal());
+            if (log.isDebugEnabled()) {
+                log.debug("[XA-POOL-BORROW] Session borrowed successfully (state AFTER: active={}, idle={}, maxTotal={})",
+                        pool.getNumActive(), pool.getNumIdle(), pool.getMaxTotal());
+            }
             
             return session;
             
@@ -178,6 +179,21 @@ public class CommonsPool2XADataSource implements XADataSource {
         }
     }
     
+    /**
+     * Gets the number of borrow-site frames to capture for this borrow, 0 when enhanced leak reporting is
+     * disabled or the borrow is not sampled.
+     */
+    static int borrowSiteFrames(HousekeepingConfig housekeepingConfig) {
+        if (!housekeepingConfig.isEnhancedLeakReport()) {
+            return 0;
+        }
+        int sampleEvery = housekeepingConfig.getLeakStackSampleEvery();
+        if (sampleEvery > 1 && ThreadLocalRandom.current().nextInt(sampleEvery) != 0) {
+            return 0;
+        }
+        return housekeepingConfig.getLeakStackMaxFrames();
+    }
+    
     /**
      * Returns a backend session to the pool.
      * <p>
@@ -195,20 +211,24 @@ public class CommonsPool2XADataSource implements XADataSource {
         
         // Remove from leak tracking
         if (housekeepingConfig.isLeakDetectionEnabled()) {
-            borrowedSessions.remove(session);
+            borrowedSessions.untrack(session);
             if (session instanceof BackendSessionImpl) {
                 ((BackendSessionImpl) session).onReturn();
             }
         }
         
-        log.debug("[XA-POOL-RETURN] Attempting to return session to pool (state BEFORE: active={}, idle={}, maxTotal={}, minIdle={})",
-                pool.getNumActive(), pool.getNumIdle(), pool.getMaxTotal(), pool.getMinIdle());
+        if (log.isDebugEnabled()) {
+            log.debug("[XA-POOL-RETURN] Attempting to return session to pool (state BEFORE: active={}, idle={}, maxTotal={}, minIdle={})",
+                    pool.getNumActive(), pool.getNumIdle(), pool.getMaxTotal(), pool.getMinIdle());
+        }
         
         try {
             pool.returnObject(session);
             
-            log.debug("[XA-POOL-RETURN] Session returned successfully (state AFTER: active={}, idle={}, maxTotal={})",
-                    pool.getNumActive(), pool.getNumIdle(), pool.getMaxTotal());
+            if (log.isDebugEnabled()) {
+                log.debug("[XA-POOL-RETURN] Session returned successfully (state AFTER: active={}, idle={}, maxTotal={})",
+                        pool.getNumActive(), pool.getNumIdle(), pool.getMaxTotal());
+            }
             
         } catch (Exception e) {
             log.error("[XA-POOL-RETURN] Failed to return session to pool (active={}, idle={}, maxTotal={})",
@@ -548,10 +568,12 @@ public class CommonsPool2XADataSource implements XADataSource {
         
         // Initialize leak detection if enabled
         if (housekeepingConfig.isLeakDetectionEnabled()) {
-            log.info("Initializing leak detection with timeout={}ms, interval={}ms, enhanced={}",
+            log.info("Initializing leak detection with timeout={}ms, interval={}ms, enhanced={} (maxFrames={}, sampleEvery={})",
                 housekeepingConfig.getLeakTimeoutMs(),
                 housekeepingConfig.getLeakCheckIntervalMs(),
-                housekeepingConfig.isEnhancedLeakReport());
+                housekeepingConfig.isEnhancedLeakReport(),
+                housekeepingConfig.getLeakStackMaxFrames(),
+                housekeepingConfig.getLeakStackSampleEvery());
             
             // Schedule leak detection task
             LeakDetectionTask leakTask = new LeakDetectionTask(
@@ -593,6 +615,20 @@ public class CommonsPool2XADataSource implements XADataSource {
         }
     }
     
+    /**
+     * Opens a physical XAConnection from the vendor XADataSource, outside of the pool.
+     * <p>
+     * Used for recovery scans so they do not take sessions away from transactions.
+     * The caller is responsible for closing the connection.
+     * </p>
+     *
+     * @return a new XAConnection
+     * @throws SQLException if the connection cannot be opened
+     */
+    public XAConnection openUnpooledXAConnection() throws SQLException {
+        return vendorXADataSource.getXAConnection();
+    }
+    
     /**
      * Closes the pool and releases all resources.
      * <p>
@@ -742,7 +778,7 @@ public class CommonsPool2XADataSource implements XADataSource {
      * Accepts string names (READ_COMMITTED, SERIALIZABLE, etc.).
      * Returns READ_COMMITTED as the hardcoded default if not specified or invalid.
      */
-    private static Integer getTransactionIsolationFromConfig(Map<String, String> config) {
+    static Integer getTransactionIsolationFromConfig(Map<String, String> config) {
         String value = config.get("xa.defaultTransactionIsolation");
         if (value == null || value.trim().isEmpty()) {
             // Default to READ_COMMITTED for safety
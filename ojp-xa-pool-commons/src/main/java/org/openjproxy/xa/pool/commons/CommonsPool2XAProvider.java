@@ -5,8 +5,8 @@ import org.openjproxy.xa.pool.spi.XAConnectionPoolProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.sql.XAConnection;
 import javax.sql.XADataSource;
-import java.lang.reflect.Method;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
@@ -89,16 +89,9 @@ public class CommonsPool2XAProvider implements XAConnectionPoolProvider {
         log.info("Creating XADataSource using Commons Pool 2: {}", className);
         
         try {
-            // Instantiate vendor XADataSource via reflection
-            // Use the context class loader to find classes loaded from external JARs
-            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
-            Class<?> xaDataSourceClass = Class.forName(className, true, classLoader);
-            XADataSource vendorXADataSource = (XADataSource) xaDataSourceClass
-                    .getDeclaredConstructor()
-                    .newInstance();
-            
-            // Configure vendor XADataSource via reflection
-            configureXADataSource(vendorXADataSource, config);
+            // Instantiate and configure vendor XADataSource via reflection
+            XADataSource vendorXADataSource = VendorXADataSources.instantiate(className);
+            VendorXADataSources.configure(vendorXADataSource, config);
             
             // Wrap in pooling XADataSource
             CommonsPool2XADataSource pooledXADataSource = 
@@ -210,136 +203,14 @@ public class CommonsPool2XAProvider implements XAConnectionPoolProvider {
         pooled.invalidateSession(session);
     }
     
-    // Private helper methods
-    
-    /**
-     * Configures a vendor XADataSource using reflection.
-     * <p>
-     * This method attempts to set properties on the XADataSource by calling
-     * setter methods via reflection. It handles common property names across
-     * different vendors (URL/url, user/username, etc.).
-     * </p>
-     *
-     * @param xaDataSource the XADataSource to configure
-     * @param config the configuration map
-     */
-    private void configureXADataSource(XADataSource xaDataSource, Map<String, String> config) {
-        // Map of property keys to try (in order)
-        Map<String, String[]> propertyMappings = new HashMap<>();
-        propertyMappings.put("xa.url", new String[]{"URL", "url", "Url"});
-        propertyMappings.put("xa.username", new String[]{"user", "User", "username", "Username"});
-        propertyMappings.put("xa.password", new String[]{"password", "Password"});
-        propertyMappings.put("xa.databaseName", new String[]{"databaseName", "DatabaseName"});
-        propertyMappings.put("xa.serverName", new String[]{"serverName", "ServerName"});
-        propertyMappings.put("xa.portNumber", new String[]{"portNumber", "PortNumber"});
-        
-        for (Map.Entry<String, String[]> entry : propertyMappings.entrySet()) {
-            String configKey = entry.getKey();
-            String configValue = config.get(configKey);
-            
-            if (configValue != null && !configValue.trim().isEmpty()) {
-                String[] propertyNames = entry.getValue();
-                
-                boolean set = false;
-                for (String propertyName : propertyNames) {
-                    if (setProperty(xaDataSource, propertyName, configValue)) {
-                        log.debug("Set property {}={}", propertyName, maskPassword(configKey, configValue));
-                        set = true;
-                        break;
-                    }
-                }
-                
-                if (!set) {
-                    log.warn("Could not set property for config key: {}", configKey);
-                }
-            }
-        }
-        
-        // Set any additional properties that start with "xa.property."
-        for (Map.Entry<String, String> entry : config.entrySet()) {
-            String key = entry.getKey();
-            if (key.startsWith("xa.property.")) {
-                String propertyName = key.substring("xa.property.".length());
-                String propertyValue = entry.getValue();
-                
-                if (setProperty(xaDataSource, propertyName, propertyValue)) {
-                    log.debug("Set custom property {}={}", propertyName, propertyValue);
-                } else {
-                    log.warn("Could not set custom property: {}", propertyName);
-                }
-            }
-        }
-    }
-    
-    /**
-     * Sets a property on an object via reflection.
-     *
-     * @param obj the object to set property on
-     * @param propertyName the property name (will try setter method)
-     * @param value the value to set
-     * @return true if property was set successfully, false otherwise
-     */
-    private boolean setProperty(Object obj, String propertyName, String value) {
-        try {
-            // Try String setter
-            Method setter = findSetter(obj.getClass(), propertyName, String.class);
-            if (setter != null) {
-                setter.invoke(obj, value);
-                return true;
-            }
-            
-            // Try int setter (for port numbers, etc.)
-            setter = findSetter(obj.getClass(), propertyName, int.class);
-            if (setter != null) {
-                setter.invoke(obj, Integer.parseInt(value));
-                return true;
-            }
-            
-            // Try Integer setter
-            setter = findSetter(obj.getClass(), propertyName, Integer.class);
-            if (setter != null) {
-                setter.invoke(obj, Integer.valueOf(value));
-                return true;
-            }
-            
-        } catch (Exception e) {
-            log.debug("Failed to set property {} on {}: {}", 
-                    propertyName, obj.getClass().getName(), e.getMessage());
+    @Override
+    public XAConnection openRecoveryConnection(Object xaDataSource) throws Exception {
+        if (!(xaDataSource instanceof CommonsPool2XADataSource)) {
+            throw new IllegalArgumentException(
+                    "xaDataSource must be CommonsPool2XADataSource");
         }
         
-        return false;
-    }
-    
-    /**
-     * Finds a setter method for a property.
-     *
-     * @param clazz the class to search
-     * @param propertyName the property name
-     * @param paramType the parameter type
-     * @return the setter method, or null if not found
-     */
-    private Method findSetter(Class<?> clazz, String propertyName, Class<?> paramType) {
-        String setterName = "set" + propertyName.substring(0, 1).toUpperCase() + 
-                            propertyName.substring(1);
-        
-        try {
-            return clazz.getMethod(setterName, paramType);
-        } catch (NoSuchMethodException e) {
-            return null;
-        }
-    }
-    
-    /**
-     * Masks password values for logging.
-     *
-     * @param configKey the configuration key
-     * @param value the configuration value
-     * @return masked value if password, original value otherwise
-     */
-    private String maskPassword(String configKey, String value) {
-        if (configKey != null && configKey.toLowerCase().contains("password")) {
-            return "****";
-        }
-        return value;
+        CommonsPool2XADataSource pooled = (CommonsPool2XADataSource) xaDataSource;
+        return pooled.openUnpooledXAConnection();
     }
 }
@@ -0,0 +1,306 @@
+package org.openjproxy.xa.pool.commons;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free container of pooled entries, in the style of HikariCP's ConcurrentBag.
+ * <p>
+ * Entries are never moved between queues: every entry stays in a shared copy-on-write list and is claimed by a
+ * compare-and-set of its state. A borrow first tries the entries recently returned by the same thread, which
+ * are usually free and still hot in that thread's caches, then scans the shared list, and finally waits for
+ * an entry handed off directly by a returning thread. No lock is taken on the borrow and return paths.
+ * </p>
+ * <p>
+ * When a borrow finds no free entry, the {@link Listener} is asked to add entries; it is expected to create
+ * them asynchronously and {@link #add} them.
+ * </p>
+ *
+ * @param <T> the type of the pooled entries
+ */
+class ConcurrentBag<T extends ConcurrentBag.Entry> {
+
+    static final int STATE_NOT_IN_USE = 0;
+    static final int STATE_IN_USE = 1;
+    static final int STATE_RESERVED = -2;
+    static final int STATE_REMOVED = -1;
+
+    // Bounded so a thread that returns many entries does not keep references to all of them
+    private static final int MAX_THREAD_LOCAL_ENTRIES = 16;
+
+    /**
+     * Base class of the entries held in a bag.
+     */
+    abstract static class Entry {
+        private static final AtomicIntegerFieldUpdater<Entry> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+        private volatile int state = STATE_NOT_IN_USE;
+
+        final int getState() {
+            return state;
+        }
+
+        final boolean compareAndSetState(int expected, int newState) {
+            return STATE.compareAndSet(this, expected, newState);
+        }
+
+        final void setState(int newState) {
+            state = newState;
+        }
+    }
+
+    /**
+     * Called when borrowers find no free entry.
+     */
+    interface Listener {
+        /**
+         * Requests new entries for waiting borrowers.
+         *
+         * @param waiting the number of borrowers currently waiting
+         */
+        void addBagItem(int waiting);
+    }
+
+    private final CopyOnWriteArrayList<T> sharedList = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<List<T>> threadList = ThreadLocal.withInitial(() -> new ArrayList<>(MAX_THREAD_LOCAL_ENTRIES));
+    private final SynchronousQueue<T> handoffQueue = new SynchronousQueue<>(true);
+    // Borrowers looking for an entry, used to decide whether a returned entry should be handed off
+    private final AtomicInteger waiters = new AtomicInteger();
+    // Borrowers parked on the handoff queue, the only ones a wake-up can reach
+    private final AtomicInteger blocked = new AtomicInteger();
+    // Bumped by wakeWaiters(), so borrowers that had not parked yet give up too
+    private final AtomicInteger wakeUps = new AtomicInteger();
+    // Never borrowable: handed off only to make parked borrowers give up
+    private final T wakeUp;
+    private final Listener listener;
+    private volatile boolean closed;
+
+    @SuppressWarnings("unchecked")
+    ConcurrentBag(Listener listener) {
+        this.listener = listener;
+        this.wakeUp = (T) new Entry() { };
+        this.wakeUp.setState(STATE_REMOVED);
+    }
+
+    /**
+     * Borrows a free entry, waiting up to the timeout for one to be returned or added.
+     *
+     * @param timeout how long to wait
+     * @param unit the unit of the timeout
+     * @return an entry in state {@link #STATE_IN_USE}, or null if the timeout expired, the bag was closed or
+     *         the borrower was woken by {@link #wakeWaiters}
+     * @throws InterruptedException if interrupted while waiting
+     */
+    T borrow(long timeout, TimeUnit unit) throws InterruptedException {
+        // Entries this thread returned recently
+        List<T> recent = threadList.get();
+        for (int i = recent.size() - 1; i >= 0; i--) {
+            T entry = recent.remove(i);
+            if (entry.compareAndSetState(STATE_NOT_IN_USE, STATE_IN_USE)) {
+                return entry;
+            }
+        }
+
+        int wakeUpsAtStart = wakeUps.get();
+        int waiting = waiters.incrementAndGet();
+        try {
+            for (T entry : sharedList) {
+                if (entry.compareAndSetState(STATE_NOT_IN_USE, STATE_IN_USE)) {
+                    // This borrower may have taken an entry another waiter was counting on
+                    if (waiting > 1) {
+                        listener.addBagItem(waiting - 1);
+                    }
+                    return entry;
+                }
+            }
+
+            listener.addBagItem(waiting);
+
+            blocked.incrementAndGet();
+            try {
+                long remainingNanos = unit.toNanos(timeout);
+                do {
+                    // Checked after registering as blocked, so close() and wakeWaiters() either are seen here
+                    // or see this borrower
+                    if (closed || wakeUps.get() != wakeUpsAtStart) {
+                        return null;
+                    }
+                    long start = System.nanoTime();
+                    T entry = handoffQueue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+                    if (entry == wakeUp) {
+                        return null;
+                    }
+                    if (entry == null || entry.compareAndSetState(STATE_NOT_IN_USE, STATE_IN_USE)) {
+                        return entry;
+                    }
+                    remainingNanos -= System.nanoTime() - start;
+                } while (remainingNanos > 10_000);
+
+                return null;
+            } finally {
+                blocked.decrementAndGet();
+            }
+        } finally {
+            waiters.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns a borrowed entry to the bag, handing it directly to a waiting borrower if there is one.
+     *
+     * @param entry the entry to return
+     */
+    void requite(T entry) {
+        entry.setState(STATE_NOT_IN_USE);
+
+        for (int i = 0; waiters.get() > 0; i++) {
+            if (entry.getState() != STATE_NOT_IN_USE || handoffQueue.offer(entry)) {
+                return;
+            } else if ((i & 0xff) == 0xff) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10));
+            } else {
+                Thread.yield();
+            }
+        }
+
+        List<T> recent = threadList.get();
+        if (recent.size() < MAX_THREAD_LOCAL_ENTRIES) {
+            recent.add(entry);
+        }
+    }
+
+    /**
+     * Adds a new free entry to the bag, handing it to a waiting borrower if there is one.
+     *
+     * @param entry the entry to add
+     */
+    void add(T entry) {
+        if (closed) {
+            throw new IllegalStateException("ConcurrentBag has been closed, ignoring add()");
+        }
+        sharedList.add(entry);
+
+        // Spin until a waiter takes it or there are no more waiters
+        while (waiters.get() > 0 && entry.getState() == STATE_NOT_IN_USE && !handoffQueue.offer(entry)) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Removes an entry that is borrowed or reserved by the caller.
+     *
+     * @param entry the entry to remove
+     * @return true if the entry was removed
+     */
+    boolean remove(T entry) {
+        if (!entry.compareAndSetState(STATE_IN_USE, STATE_REMOVED)
+                && !entry.compareAndSetState(STATE_RESERVED, STATE_REMOVED)) {
+            return false;
+        }
+        threadList.get().remove(entry);
+        return sharedList.remove(entry);
+    }
+
+    /**
+     * Reserves a free entry so it cannot be borrowed, for housekeeping.
+     *
+     * @param entry the entry to reserve
+     * @return true if the entry was free and is now reserved
+     */
+    boolean reserve(T entry) {
+        return entry.compareAndSetState(STATE_NOT_IN_USE, STATE_RESERVED);
+    }
+
+    /**
+     * Makes a reserved entry available again.
+     *
+     * @param entry the reserved entry
+     */
+    void unreserve(T entry) {
+        if (entry.compareAndSetState(STATE_RESERVED, STATE_NOT_IN_USE)) {
+            requite(entry);
+        }
+    }
+
+    /**
+     * Gets the entries currently in a state.
+     *
+     * @param state the state
+     * @return a snapshot of the matching entries
+     */
+    List<T> values(int state) {
+        List<T> values = new ArrayList<>();
+        for (T entry : sharedList) {
+            if (entry.getState() == state) {
+                values.add(entry);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Gets all entries, whatever their state.
+     *
+     * @return a snapshot of the entries
+     */
+    List<T> values() {
+        return new ArrayList<>(sharedList);
+    }
+
+    int getCount(int state) {
+        int count = 0;
+        for (T entry : sharedList) {
+            if (entry.getState() == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    int size() {
+        return sharedList.size();
+    }
+
+    /**
+     * Gets the number of borrowers blocked waiting for an entry.
+     *
+     * @return the number of blocked borrowers
+     */
+    int getWaitingThreadCount() {
+        return blocked.get();
+    }
+
+    /**
+     * Makes the borrowers currently waiting give up and return null.
+     *
+     * @throws InterruptedException if interrupted while handing off the wake-ups
+     */
+    void wakeWaiters() throws InterruptedException {
+        wakeUps.incrementAndGet();
+        // A blocked borrower that has not polled yet is about to, and then takes the wake-up
+        for (int i = blocked.get(); i > 0; i--) {
+            if (!handoffQueue.offer(wakeUp, 10, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Closes the bag: no entry can be added anymore and blocked borrowers return null right away.
+     */
+    void close() {
+        closed = true;
+        while (blocked.get() > 0) {
+            if (!handoffQueue.offer(wakeUp)) {
+                Thread.yield();
+            }
+        }
+    }
+}
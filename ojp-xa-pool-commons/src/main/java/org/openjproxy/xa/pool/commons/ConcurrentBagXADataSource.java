@@ -0,0 +1,633 @@
+package org.openjproxy.xa.pool.commons;
+
+import org.openjproxy.xa.pool.XABackendSession;
+import org.openjproxy.xa.pool.commons.housekeeping.BorrowInfo;
+import org.openjproxy.xa.pool.commons.housekeeping.BorrowTracker;
+import org.openjproxy.xa.pool.commons.housekeeping.HousekeepingConfig;
+import org.openjproxy.xa.pool.commons.housekeeping.HousekeepingListener;
+import org.openjproxy.xa.pool.commons.housekeeping.LeakDetectionTask;
+import org.openjproxy.xa.pool.commons.housekeeping.LoggingHousekeepingListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.XAConnection;
+import javax.sql.XADataSource;
+import java.io.PrintWriter;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * XADataSource pooling backend sessions in a lock-free {@link ConcurrentBag}, built for borrow/return throughput.
+ * <p>
+ * Compared to {@link CommonsPool2XADataSource}:
+ * </p>
+ * <ul>
+ *   <li>Borrow and return take no lock; a thread gets back the session it returned last when it is still free</li>
+ *   <li>A session is only validated with {@link XABackendSession#isHealthy()} when it has been idle for longer
+ *       than {@code xa.validationIdleThresholdMs} (default 500ms), instead of on every borrow</li>
+ *   <li>Sessions are created by a background thread, when borrowers find no free session and to keep
+ *       {@code xa.minIdle} sessions available; borrowers never open connections themselves</li>
+ * </ul>
+ * <p>
+ * Sessions are reset on return like in {@link CommonsPool2XADataSource}, and the same housekeeping settings
+ * (leak detection, max lifetime, diagnostics) apply. Idle sessions above {@code xa.minIdle} are closed after
+ * {@code xa.idleTimeoutMs}.
+ * </p>
+ */
+public class ConcurrentBagXADataSource implements XADataSource {
+    private static final Logger log = LoggerFactory.getLogger(ConcurrentBagXADataSource.class);
+
+    private final XADataSource vendorXADataSource;
+    private final Integer defaultTransactionIsolation;
+    private final HousekeepingConfig housekeepingConfig;
+    private final HousekeepingListener housekeepingListener;
+    private final ConcurrentBag<PooledSession> bag;
+    private final Map<XABackendSession, PooledSession> sessions = new ConcurrentHashMap<>();
+    private final BorrowTracker borrowedSessions = new BorrowTracker();
+
+    private final long connectionTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long validationIdleThresholdNanos;
+    private volatile int maxTotal;
+    private volatile int minIdle;
+
+    // Sessions open or being opened, never above maxTotal
+    private final AtomicInteger totalSessions = new AtomicInteger();
+    private final AtomicInteger pendingCreations = new AtomicInteger();
+    private final ExecutorService sessionCreator;
+    private final ScheduledExecutorService housekeepingExecutor;
+    private volatile boolean closed;
+    // Cause of the last failed session creation, cleared by the next successful one
+    private volatile Exception creationFailure;
+
+    /**
+     * Pool entry of a backend session.
+     */
+    static final class PooledSession extends ConcurrentBag.Entry {
+        final BackendSessionImpl session;
+        final long createdNanos;
+        volatile long lastAccessedNanos;
+
+        PooledSession(BackendSessionImpl session) {
+            this.session = session;
+            this.createdNanos = System.nanoTime();
+            this.lastAccessedNanos = createdNanos;
+        }
+    }
+
+    /**
+     * Creates a new pooled XADataSource.
+     *
+     * @param vendorXADataSource the underlying vendor XADataSource
+     * @param config the pool configuration
+     */
+    public ConcurrentBagXADataSource(XADataSource vendorXADataSource, Map<String, String> config) {
+        if (vendorXADataSource == null) {
+            throw new IllegalArgumentException("vendorXADataSource cannot be null");
+        }
+        if (config == null) {
+            throw new IllegalArgumentException("config cannot be null");
+        }
+
+        this.vendorXADataSource = vendorXADataSource;
+        this.defaultTransactionIsolation = CommonsPool2XADataSource.getTransactionIsolationFromConfig(config);
+        this.housekeepingConfig = HousekeepingConfig.parseFromProperties(config);
+        this.housekeepingListener = new LoggingHousekeepingListener();
+
+        this.maxTotal = Math.max(1, (int) getLongConfig(config, "xa.maxPoolSize", 20));
+        this.minIdle = Math.min(maxTotal, (int) getLongConfig(config, "xa.minIdle", 5));
+        this.connectionTimeoutMs = getLongConfig(config, "xa.connectionTimeoutMs", 30000L);
+        this.idleTimeoutMs = getLongConfig(config, "xa.idleTimeoutMs", 600000L);
+        this.validationIdleThresholdNanos = TimeUnit.MILLISECONDS.toNanos(
+                getLongConfig(config, "xa.validationIdleThresholdMs", 500L));
+
+        this.bag = new ConcurrentBag<>(this::addBagItem);
+        this.sessionCreator = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("ojp-xa-bag-creator-", 0).factory()
+        );
+        this.housekeepingExecutor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofVirtual().name("ojp-xa-bag-housekeeping-", 0).factory()
+        );
+        initializeHousekeeping(getLongConfig(config, "xa.timeBetweenEvictionRunsMs", 30000L));
+
+        // Open the minimum idle sessions in the background
+        fillPool();
+
+        log.info("ConcurrentBagXADataSource created with maxTotal={}, minIdle={}, maxWaitMs={}, validationIdleThresholdMs={}, defaultTransactionIsolation={}, housekeeping=enabled(leak={}, maxLifetime={}ms)",
+                maxTotal, minIdle, connectionTimeoutMs, TimeUnit.NANOSECONDS.toMillis(validationIdleThresholdNanos),
+                defaultTransactionIsolation, housekeepingConfig.isLeakDetectionEnabled(), housekeepingConfig.getMaxLifetimeMs());
+    }
+
+    /**
+     * Borrows a backend session from the pool.
+     * <p>
+     * Blocks up to {@code xa.connectionTimeoutMs} when no session is free. A session idle for longer than the
+     * validation threshold is validated first and replaced if it is broken. When opening a session fails, the
+     * blocked borrowers fail right away with the creation error as the cause instead of waiting for the timeout.
+     * </p>
+     *
+     * @return a backend session from the pool
+     * @throws SQLException if the pool is exhausted and the timeout expires, a session cannot be opened, or the
+     *                      pool is closed
+     * @throws InterruptedException if interrupted while waiting for a session
+     */
+    public XABackendSession borrowSession() throws SQLException, InterruptedException {
+        if (closed) {
+            throw new SQLException("[XA-BAG-BORROW] Pool is closed", "08003");
+        }
+
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(connectionTimeoutMs);
+        long startNanos = System.nanoTime();
+        long remainingNanos = timeoutNanos;
+        do {
+            PooledSession entry = bag.borrow(remainingNanos, TimeUnit.NANOSECONDS);
+            if (entry == null) {
+                if (closed) {
+                    throw new SQLException("[XA-BAG-BORROW] Pool is closed", "08003");
+                }
+                if (creationFailure != null) {
+                    break;
+                }
+            } else {
+                long now = System.nanoTime();
+                if (now - entry.lastAccessedNanos > validationIdleThresholdNanos && !entry.session.isHealthy()) {
+                    log.warn("[XA-BAG-BORROW] Discarding session {} that failed validation after {}ms idle",
+                            entry.session.getSessionId(), TimeUnit.NANOSECONDS.toMillis(now - entry.lastAccessedNanos));
+                    closeSession(entry);
+                    fillPool();
+                } else {
+                    entry.lastAccessedNanos = now;
+                    if (housekeepingConfig.isLeakDetectionEnabled()) {
+                        BorrowInfo borrowInfo = BorrowInfo.capture(now,
+                                CommonsPool2XADataSource.borrowSiteFrames(housekeepingConfig));
+                        entry.session.onBorrow(borrowInfo);
+                        borrowedSessions.track(entry.session, borrowInfo);
+                    }
+                    return entry.session;
+                }
+            }
+            remainingNanos = timeoutNanos - (System.nanoTime() - startNanos);
+        } while (remainingNanos > 0);
+
+        Exception failure = creationFailure;
+        String errorMsg;
+        if (failure != null && System.nanoTime() - startNanos < timeoutNanos) {
+            // Woken up because the session this borrower was waiting for could not be opened
+            errorMsg = String.format(
+                "[XA-BAG-BORROW] Failed to open a backend session: %s (maxTotal=%d, active=%d, idle=%d)",
+                failure.getMessage(), maxTotal, getNumActive(), getNumIdle());
+        } else {
+            errorMsg = String.format(
+                "[XA-BAG-BORROW] POOL EXHAUSTED: maxTotal=%d, active=%d, idle=%d, timeout=%dms. " +
+                "Increase pool size or reduce concurrent XA transactions.",
+                maxTotal, getNumActive(), getNumIdle(), connectionTimeoutMs);
+        }
+        log.error(errorMsg);
+        throw new SQLException(errorMsg, "08001", failure);
+    }
+
+    /**
+     * Returns a backend session to the pool.
+     * <p>
+     * The session is reset to a clean state before being made available for reuse. If reset fails, the
+     * session is closed instead.
+     * </p>
+     *
+     * @param session the session to return
+     */
+    public void returnSession(XABackendSession session) {
+        if (session == null) {
+            log.debug("[XA-BAG-RETURN] Skipping return of null session");
+            return;
+        }
+        PooledSession entry = sessions.get(session);
+        if (entry == null) {
+            log.warn("[XA-BAG-RETURN] Session {} does not belong to this pool, closing it", session.getSessionId());
+            closeQuietly(session);
+            return;
+        }
+
+        if (housekeepingConfig.isLeakDetectionEnabled()) {
+            borrowedSessions.untrack(session);
+            entry.session.onReturn();
+        }
+
+        if (closed || totalSessions.get() > maxTotal) {
+            // Pool closed or shrunk while the session was borrowed
+            closeSession(entry);
+            return;
+        }
+
+        try {
+            session.reset();
+        } catch (Exception e) {
+            log.error("[XA-BAG-RETURN] Failed to reset session, closing it", e);
+            closeSession(entry);
+            fillPool();
+            return;
+        }
+
+        entry.lastAccessedNanos = System.nanoTime();
+        bag.requite(entry);
+    }
+
+    /**
+     * Invalidates a backend session, removing it from the pool.
+     * <p>
+     * This is called when a session encounters an unrecoverable error. The session is closed and a
+     * replacement is created in the background when needed to keep the minimum idle sessions.
+     * </p>
+     *
+     * @param session the session to invalidate
+     */
+    public void invalidateSession(XABackendSession session) {
+        if (session == null) {
+            log.debug("[XA-BAG-INVALIDATE] Skipping invalidation of null session");
+            return;
+        }
+        PooledSession entry = sessions.get(session);
+        if (entry == null) {
+            closeQuietly(session);
+            return;
+        }
+
+        log.warn("[XA-BAG-INVALIDATE] Invalidating session {} (active={}, idle={}, maxTotal={})",
+                session.getSessionId(), getNumActive(), getNumIdle(), maxTotal);
+        if (housekeepingConfig.isLeakDetectionEnabled()) {
+            borrowedSessions.untrack(session);
+        }
+        closeSession(entry);
+        fillPool();
+    }
+
+    /**
+     * Opens a physical XA connection directly from the vendor XADataSource, bypassing the pool.
+     * <p>
+     * Used for recovery scans so they do not take sessions away from transactions.
+     * The caller is responsible for closing the connection.
+     * </p>
+     *
+     * @return a new XAConnection
+     * @throws SQLException if the connection cannot be opened
+     */
+    public XAConnection openUnpooledXAConnection() throws SQLException {
+        return vendorXADataSource.getXAConnection();
+    }
+
+    /**
+     * Gets the number of active sessions in the pool.
+     *
+     * @return the number of currently borrowed sessions
+     */
+    public int getNumActive() {
+        return bag.getCount(ConcurrentBag.STATE_IN_USE);
+    }
+
+    /**
+     * Gets the number of idle sessions in the pool.
+     *
+     * @return the number of sessions available for borrowing
+     */
+    public int getNumIdle() {
+        return bag.getCount(ConcurrentBag.STATE_NOT_IN_USE);
+    }
+
+    /**
+     * Gets the number of threads blocked waiting to borrow a session.
+     *
+     * @return the number of blocked threads
+     */
+    public int getNumWaiters() {
+        return bag.getWaitingThreadCount();
+    }
+
+    /**
+     * Gets the maximum pool size.
+     *
+     * @return the configured maximum number of sessions
+     */
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    /**
+     * Gets the minimum number of idle sessions.
+     *
+     * @return the minimum idle sessions kept open
+     */
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    /**
+     * Sets the maximum number of sessions. Idle sessions above the new maximum are closed right away,
+     * borrowed ones when they are returned.
+     *
+     * @param maxTotal the new maximum pool size
+     */
+    public void setMaxTotal(int maxTotal) {
+        int oldMaxTotal = this.maxTotal;
+        this.maxTotal = Math.max(1, maxTotal);
+        log.info("[XA-BAG-RESIZE] setMaxTotal: old={}, new={}, currentState=(active={}, idle={})",
+                oldMaxTotal, this.maxTotal, getNumActive(), getNumIdle());
+        for (PooledSession entry : bag.values(ConcurrentBag.STATE_NOT_IN_USE)) {
+            if (totalSessions.get() <= this.maxTotal) {
+                break;
+            }
+            if (bag.reserve(entry)) {
+                closeSession(entry);
+            }
+        }
+    }
+
+    /**
+     * Sets the minimum number of idle sessions, opening new sessions in the background if needed.
+     *
+     * @param minIdle the new minimum idle sessions
+     */
+    public void setMinIdle(int minIdle) {
+        int oldMinIdle = this.minIdle;
+        this.minIdle = Math.max(0, minIdle);
+        log.info("[XA-BAG-RESIZE] setMinIdle: old={}, new={}", oldMinIdle, this.minIdle);
+        fillPool();
+    }
+
+    /**
+     * Gets the housekeeping configuration.
+     *
+     * @return the housekeeping configuration
+     */
+    public HousekeepingConfig getHousekeepingConfig() {
+        return housekeepingConfig;
+    }
+
+    /**
+     * Closes the pool. Idle sessions are closed right away, borrowed ones when they are returned.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        log.info("Closing ConcurrentBagXADataSource (active={}, idle={})", getNumActive(), getNumIdle());
+
+        bag.close();
+        housekeepingExecutor.shutdownNow();
+        sessionCreator.shutdown();
+        try {
+            if (!sessionCreator.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Session creator did not terminate in time, forcing shutdown");
+                sessionCreator.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            sessionCreator.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        for (PooledSession entry : bag.values(ConcurrentBag.STATE_NOT_IN_USE)) {
+            if (bag.reserve(entry)) {
+                closeSession(entry);
+            }
+        }
+
+        log.info("ConcurrentBagXADataSource closed");
+    }
+
+    // XADataSource interface methods (not directly used)
+
+    @Override
+    public XAConnection getXAConnection() throws SQLException {
+        throw new UnsupportedOperationException(
+                "Do not use getXAConnection() directly. Use provider.borrowSession() instead.");
+    }
+
+    @Override
+    public XAConnection getXAConnection(String user, String password) throws SQLException {
+        throw new UnsupportedOperationException(
+                "Do not use getXAConnection() directly. Use provider.borrowSession() instead.");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return vendorXADataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        vendorXADataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        vendorXADataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return vendorXADataSource.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return vendorXADataSource.getParentLogger();
+    }
+
+    // Private helper methods
+
+    /**
+     * Called by the bag when borrowers find no free session: opens one session per waiting borrower not
+     * already covered by a pending creation.
+     */
+    private void addBagItem(int waiting) {
+        if (waiting - pendingCreations.get() > 0) {
+            submitCreation();
+        }
+    }
+
+    /**
+     * Opens sessions in the background until the minimum idle sessions are available.
+     */
+    private void fillPool() {
+        int needed = Math.min(maxTotal - totalSessions.get(), minIdle - getNumIdle()) - pendingCreations.get();
+        for (int i = 0; i < needed; i++) {
+            submitCreation();
+        }
+    }
+
+    private void submitCreation() {
+        if (closed) {
+            return;
+        }
+        // Reserve a slot so concurrent requests never open more than maxTotal sessions
+        int total;
+        do {
+            total = totalSessions.get();
+            if (total >= maxTotal) {
+                return;
+            }
+        } while (!totalSessions.compareAndSet(total, total + 1));
+
+        pendingCreations.incrementAndGet();
+        try {
+            sessionCreator.execute(this::createSession);
+        } catch (Exception e) {
+            // Rejected because the pool is closing
+            pendingCreations.decrementAndGet();
+            totalSessions.decrementAndGet();
+        }
+    }
+
+    private void createSession() {
+        try {
+            if (closed) {
+                totalSessions.decrementAndGet();
+                return;
+            }
+            XAConnection xaConnection = vendorXADataSource.getXAConnection();
+            BackendSessionImpl session = new BackendSessionImpl(xaConnection, defaultTransactionIsolation);
+            try {
+                session.open();
+            } catch (Exception e) {
+                closeQuietly(session);
+                throw e;
+            }
+
+            PooledSession entry = new PooledSession(session);
+            sessions.put(session, entry);
+            try {
+                bag.add(entry);
+            } catch (IllegalStateException e) {
+                // Closed while the session was being opened
+                sessions.remove(session);
+                closeQuietly(session);
+                throw e;
+            }
+            creationFailure = null;
+            log.debug("[XA-BAG-CREATE] Backend session {} created (total={})", session.getSessionId(), totalSessions.get());
+            return;
+        } catch (Exception e) {
+            totalSessions.decrementAndGet();
+            if (closed) {
+                return;
+            }
+            log.error("[XA-BAG-CREATE] Failed to create backend session", e);
+            creationFailure = e;
+        } finally {
+            pendingCreations.decrementAndGet();
+        }
+
+        // Only once this creation is no longer pending, so borrowers arriving now request their own
+        try {
+            bag.wakeWaiters();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Removes a borrowed or reserved session from the pool and closes it.
+     */
+    private void closeSession(PooledSession entry) {
+        if (bag.remove(entry)) {
+            sessions.remove(entry.session);
+            totalSessions.decrementAndGet();
+            closeQuietly(entry.session);
+        }
+    }
+
+    private static void closeQuietly(XABackendSession session) {
+        try {
+            session.close();
+        } catch (Exception e) {
+            log.warn("Error closing backend session: {}", e.getMessage());
+        }
+    }
+
+    private void initializeHousekeeping(long maintenanceIntervalMs) {
+        if (housekeepingConfig.isLeakDetectionEnabled()) {
+            LeakDetectionTask leakTask = new LeakDetectionTask(
+                borrowedSessions,
+                TimeUnit.MILLISECONDS.toNanos(housekeepingConfig.getLeakTimeoutMs()),
+                housekeepingListener
+            );
+            housekeepingExecutor.scheduleAtFixedRate(
+                leakTask,
+                housekeepingConfig.getLeakCheckIntervalMs(),
+                housekeepingConfig.getLeakCheckIntervalMs(),
+                TimeUnit.MILLISECONDS
+            );
+        }
+
+        if (housekeepingConfig.isDiagnosticsEnabled()) {
+            housekeepingExecutor.scheduleAtFixedRate(
+                () -> housekeepingListener.onPoolStateLog(String.format(
+                    "[XA-BAG-DIAGNOSTICS] active=%d, idle=%d, waiters=%d, total=%d, maxTotal=%d, minIdle=%d",
+                    getNumActive(), getNumIdle(), getNumWaiters(), totalSessions.get(), maxTotal, minIdle)),
+                housekeepingConfig.getDiagnosticsIntervalMs(),
+                housekeepingConfig.getDiagnosticsIntervalMs(),
+                TimeUnit.MILLISECONDS
+            );
+        }
+
+        if (maintenanceIntervalMs > 0) {
+            housekeepingExecutor.scheduleWithFixedDelay(
+                this::retireIdleSessions,
+                maintenanceIntervalMs,
+                maintenanceIntervalMs,
+                TimeUnit.MILLISECONDS
+            );
+        }
+    }
+
+    /**
+     * Closes idle sessions past their max lifetime, and idle sessions above the minimum idle past the idle
+     * timeout, then tops the pool back up to the minimum idle sessions.
+     */
+    private void retireIdleSessions() {
+        try {
+            long now = System.nanoTime();
+            long maxLifetimeNanos = TimeUnit.MILLISECONDS.toNanos(housekeepingConfig.getMaxLifetimeMs());
+            long idleBeforeRecycleNanos = TimeUnit.MILLISECONDS.toNanos(housekeepingConfig.getIdleBeforeRecycleMs());
+            long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMs);
+
+            for (PooledSession entry : bag.values(ConcurrentBag.STATE_NOT_IN_USE)) {
+                long idleNanos = now - entry.lastAccessedNanos;
+                boolean expired = maxLifetimeNanos > 0 && now - entry.createdNanos > maxLifetimeNanos
+                        && idleNanos >= idleBeforeRecycleNanos;
+                boolean idleTooLong = idleTimeoutNanos > 0 && idleNanos > idleTimeoutNanos
+                        && totalSessions.get() > minIdle;
+                if ((expired || idleTooLong) && bag.reserve(entry)) {
+                    if (expired) {
+                        housekeepingListener.onConnectionExpired(entry.session,
+                                TimeUnit.NANOSECONDS.toMillis(now - entry.createdNanos));
+                    }
+                    closeSession(entry);
+                }
+            }
+            fillPool();
+        } catch (Exception e) {
+            log.error("Error during XA pool maintenance", e);
+            housekeepingListener.onHousekeepingError("XA pool maintenance failed", e);
+        }
+    }
+
+    private static long getLongConfig(Map<String, String> config, String key, long defaultValue) {
+        String value = config.get(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid long config for {}: {}, using default {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+}
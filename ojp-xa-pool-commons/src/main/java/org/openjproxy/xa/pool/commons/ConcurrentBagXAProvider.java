@@ -0,0 +1,131 @@
+package org.openjproxy.xa.pool.commons;
+
+import org.openjproxy.xa.pool.XABackendSession;
+import org.openjproxy.xa.pool.spi.XAConnectionPoolProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.XAConnection;
+import javax.sql.XADataSource;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * XA connection pool provider built for throughput, pooling sessions in a lock-free {@link ConcurrentBag}.
+ * <p>
+ * Works with the same databases and configuration keys as {@link CommonsPool2XAProvider}, plus
+ * {@code xa.validationIdleThresholdMs}. See {@link ConcurrentBagXADataSource} for how the pool differs.
+ * </p>
+ *
+ * <h2>Priority and Selection</h2>
+ * <p>
+ * This provider has priority 50, below {@link CommonsPool2XAProvider}, so it is only used when selected by
+ * its id {@code "concurrent-bag"} (server setting {@code ojp.server.xa.poolProvider}) or when Commons Pool 2
+ * is not available.
+ * </p>
+ */
+public class ConcurrentBagXAProvider implements XAConnectionPoolProvider {
+    private static final Logger log = LoggerFactory.getLogger(ConcurrentBagXAProvider.class);
+
+    private static final String ID = "concurrent-bag";
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public XADataSource createXADataSource(Map<String, String> config)
+            throws SQLException, ReflectiveOperationException {
+
+        if (config == null) {
+            throw new IllegalArgumentException("config cannot be null");
+        }
+
+        String className = config.get("xa.datasource.className");
+        if (className == null || className.trim().isEmpty()) {
+            throw new IllegalArgumentException("xa.datasource.className is required");
+        }
+
+        log.info("Creating XADataSource using ConcurrentBag pool: {}", className);
+
+        try {
+            XADataSource vendorXADataSource = VendorXADataSources.instantiate(className);
+            VendorXADataSources.configure(vendorXADataSource, config);
+            return new ConcurrentBagXADataSource(vendorXADataSource, config);
+
+        } catch (ClassNotFoundException e) {
+            log.error("XADataSource class not found: {}", className);
+            throw new SQLException("XADataSource class not found: " + className, e);
+
+        } catch (ReflectiveOperationException e) {
+            log.error("Failed to instantiate XADataSource: {}", className, e);
+            throw e;
+
+        } catch (Exception e) {
+            log.error("Failed to create XADataSource: {}", className, e);
+            throw new SQLException("Failed to create XADataSource: " + className, e);
+        }
+    }
+
+    @Override
+    public void closeXADataSource(XADataSource xaDataSource) throws Exception {
+        if (xaDataSource instanceof ConcurrentBagXADataSource) {
+            ((ConcurrentBagXADataSource) xaDataSource).close();
+        } else if (xaDataSource != null) {
+            log.warn("XADataSource is not a ConcurrentBagXADataSource, cannot close pool");
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatistics(XADataSource xaDataSource) {
+        Map<String, Object> stats = new HashMap<>();
+
+        if (xaDataSource instanceof ConcurrentBagXADataSource) {
+            ConcurrentBagXADataSource pooled = (ConcurrentBagXADataSource) xaDataSource;
+
+            stats.put("activeConnections", pooled.getNumActive());
+            stats.put("idleConnections", pooled.getNumIdle());
+            stats.put("totalConnections", pooled.getNumActive() + pooled.getNumIdle());
+            stats.put("pendingThreads", pooled.getNumWaiters());
+            stats.put("maxPoolSize", pooled.getMaxTotal());
+        }
+
+        return stats;
+    }
+
+    @Override
+    public int getPriority() {
+        return 50; // Below Commons Pool 2, selected by id
+    }
+
+    @Override
+    public XABackendSession borrowSession(Object xaDataSource) throws Exception {
+        return pool(xaDataSource).borrowSession();
+    }
+
+    @Override
+    public void returnSession(Object xaDataSource, XABackendSession session) throws Exception {
+        pool(xaDataSource).returnSession(session);
+    }
+
+    @Override
+    public void invalidateSession(Object xaDataSource, XABackendSession session) throws Exception {
+        pool(xaDataSource).invalidateSession(session);
+    }
+
+    @Override
+    public XAConnection openRecoveryConnection(Object xaDataSource) throws Exception {
+        return pool(xaDataSource).openUnpooledXAConnection();
+    }
+
+    private static ConcurrentBagXADataSource pool(Object xaDataSource) {
+        if (!(xaDataSource instanceof ConcurrentBagXADataSource)) {
+            throw new IllegalArgumentException(
+                    "xaDataSource must be ConcurrentBagXADataSource, got: " +
+                    (xaDataSource != null ? xaDataSource.getClass().getName() : "null"));
+        }
+        return (ConcurrentBagXADataSource) xaDataSource;
+    }
+}
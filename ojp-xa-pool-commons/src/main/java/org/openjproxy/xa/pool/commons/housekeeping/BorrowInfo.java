@@ -1,17 +1,39 @@
 package org.openjproxy.xa.pool.commons.housekeeping;
 
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
 /**
  * Tracks information about a borrowed session for leak detection.
  * <p>
  * This class holds the timestamp, thread, and optional stack trace
  * captured when a session is borrowed from the pool.
  * </p>
+ * <p>
+ * Borrow sites captured with {@link #capture(long, int)} only walk the top frames of the stack and keep them
+ * unresolved; they are converted to {@link StackTraceElement}s the first time {@link #getStackTrace()} is
+ * called, which only happens when a leak is reported.
+ * </p>
  */
 public class BorrowInfo {
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    /**
+     * Orders borrows by borrow time, oldest first.
+     */
+    static final Comparator<BorrowInfo> BORROW_ORDER = Comparator
+            .comparingLong(BorrowInfo::getBorrowTime)
+            .thenComparingLong(info -> info.sequence);
+
     private final long borrowTime;
     private final Thread borrowingThread;
-    private final StackTraceElement[] stackTrace;
-    
+    private final long sequence;
+    private final List<StackWalker.StackFrame> borrowFrames;
+    private volatile StackTraceElement[] stackTrace;
+
     /**
      * Creates borrow tracking information.
      *
@@ -20,11 +42,34 @@ public class BorrowInfo {
      * @param stackTrace the stack trace at borrow time (may be null if not captured)
      */
     public BorrowInfo(long borrowTime, Thread borrowingThread, StackTraceElement[] stackTrace) {
+        this(borrowTime, borrowingThread, null, stackTrace);
+    }
+
+    private BorrowInfo(long borrowTime, Thread borrowingThread, List<StackWalker.StackFrame> borrowFrames,
+                       StackTraceElement[] stackTrace) {
         this.borrowTime = borrowTime;
         this.borrowingThread = borrowingThread;
+        this.sequence = SEQUENCE.incrementAndGet();
+        this.borrowFrames = borrowFrames;
         this.stackTrace = stackTrace;
     }
-    
+
+    /**
+     * Creates borrow tracking information for the current thread, capturing the borrow site.
+     *
+     * @param borrowTime the timestamp (in nanoseconds) when the session was borrowed
+     * @param maxFrames the maximum number of frames to capture, starting at the caller; 0 to capture none
+     * @return the borrow information
+     */
+    public static BorrowInfo capture(long borrowTime, int maxFrames) {
+        List<StackWalker.StackFrame> frames = null;
+        if (maxFrames > 0) {
+            // Skip this method, the walk stops after maxFrames frames
+            frames = STACK_WALKER.walk(stack -> stack.skip(1).limit(maxFrames).collect(Collectors.toList()));
+        }
+        return new BorrowInfo(borrowTime, Thread.currentThread(), frames, null);
+    }
+
     /**
      * Gets the borrow timestamp.
      *
@@ -33,7 +78,7 @@ public class BorrowInfo {
     public long getBorrowTime() {
         return borrowTime;
     }
-    
+
     /**
      * Gets the borrowing thread.
      *
@@ -42,13 +87,20 @@ public class BorrowInfo {
     public Thread getThread() {
         return borrowingThread;
     }
-    
+
     /**
      * Gets the stack trace captured at borrow time.
      *
      * @return the stack trace, or null if not captured
      */
     public StackTraceElement[] getStackTrace() {
-        return stackTrace;
+        StackTraceElement[] trace = stackTrace;
+        if (trace == null && borrowFrames != null) {
+            trace = borrowFrames.stream()
+                    .map(StackWalker.StackFrame::toStackTraceElement)
+                    .toArray(StackTraceElement[]::new);
+            stackTrace = trace;
+        }
+        return trace;
     }
 }
@@ -0,0 +1,82 @@
+package org.openjproxy.xa.pool.commons.housekeeping;
+
+import org.openjproxy.xa.pool.XABackendSession;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Tracks currently borrowed sessions for leak detection, ordered by borrow time.
+ * <p>
+ * Since all borrows share the same leak timeout, ordering by borrow time is ordering by deadline: a leak scan
+ * walks the borrows from the oldest and stops at the first one that has not expired, so it only visits the
+ * expired entries instead of every borrowed session.
+ * </p>
+ * <p>
+ * Thread-safe. A session is expected to be tracked and untracked by one thread at a time, as it is borrowed
+ * and returned.
+ * </p>
+ */
+public class BorrowTracker {
+    private final Map<XABackendSession, BorrowInfo> borrowedSessions = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<BorrowInfo, XABackendSession> byBorrowTime =
+            new ConcurrentSkipListMap<>(BorrowInfo.BORROW_ORDER);
+
+    /**
+     * Records a borrowed session.
+     *
+     * @param session the borrowed session
+     * @param info the borrow information
+     */
+    public void track(XABackendSession session, BorrowInfo info) {
+        BorrowInfo previous = borrowedSessions.put(session, info);
+        if (previous != null) {
+            byBorrowTime.remove(previous);
+        }
+        byBorrowTime.put(info, session);
+    }
+
+    /**
+     * Stops tracking a returned session.
+     *
+     * @param session the returned session
+     * @return the borrow information of the session, or null if it was not tracked
+     */
+    public BorrowInfo untrack(XABackendSession session) {
+        BorrowInfo info = borrowedSessions.remove(session);
+        if (info != null) {
+            byBorrowTime.remove(info);
+        }
+        return info;
+    }
+
+    /**
+     * Visits the sessions borrowed at or before a point in time, oldest first.
+     *
+     * @param borrowedBeforeNanos the latest borrow timestamp (in nanoseconds) to visit
+     * @param action the action to run for each session and its borrow information
+     * @return the number of sessions visited
+     */
+    public int forEachBorrowedBefore(long borrowedBeforeNanos, BiConsumer<XABackendSession, BorrowInfo> action) {
+        int visited = 0;
+        for (Map.Entry<BorrowInfo, XABackendSession> entry : byBorrowTime.entrySet()) {
+            if (entry.getKey().getBorrowTime() - borrowedBeforeNanos > 0) {
+                break;
+            }
+            action.accept(entry.getValue(), entry.getKey());
+            visited++;
+        }
+        return visited;
+    }
+
+    /**
+     * Gets the number of borrowed sessions.
+     *
+     * @return the number of tracked sessions
+     */
+    public int size() {
+        return borrowedSessions.size();
+    }
+}
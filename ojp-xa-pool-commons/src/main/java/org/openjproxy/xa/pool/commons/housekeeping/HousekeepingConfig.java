@@ -25,6 +25,8 @@ public class HousekeepingConfig {
     private final long leakTimeoutMs;
     private final boolean enhancedLeakReport;
     private final long leakCheckIntervalMs;
+    private final int leakStackMaxFrames;
+    private final int leakStackSampleEvery;
     
     // Max Lifetime settings
     private final long maxLifetimeMs;
@@ -39,6 +41,8 @@ public class HousekeepingConfig {
         this.leakTimeoutMs = builder.leakTimeoutMs;
         this.enhancedLeakReport = builder.enhancedLeakReport;
         this.leakCheckIntervalMs = builder.leakCheckIntervalMs;
+        this.leakStackMaxFrames = builder.leakStackMaxFrames;
+        this.leakStackSampleEvery = builder.leakStackSampleEvery;
         this.maxLifetimeMs = builder.maxLifetimeMs;
         this.idleBeforeRecycleMs = builder.idleBeforeRecycleMs;
         this.diagnosticsEnabled = builder.diagnosticsEnabled;
@@ -63,6 +67,25 @@ public class HousekeepingConfig {
         return leakCheckIntervalMs;
     }
     
+    /**
+     * Gets the maximum number of borrow-site frames captured when enhanced leak reporting is enabled.
+     *
+     * @return the maximum number of frames
+     */
+    public int getLeakStackMaxFrames() {
+        return leakStackMaxFrames;
+    }
+    
+    /**
+     * Gets how often the borrow site is captured when enhanced leak reporting is enabled: 1 captures every
+     * borrow, N captures one borrow in N on average.
+     *
+     * @return the sampling interval
+     */
+    public int getLeakStackSampleEvery() {
+        return leakStackSampleEvery;
+    }
+    
     public long getMaxLifetimeMs() {
         return maxLifetimeMs;
     }
@@ -102,6 +125,8 @@ public class HousekeepingConfig {
         builder.leakTimeoutMs(getLongConfig(config, "xa.leakDetection.timeoutMs", 300000L));
         builder.enhancedLeakReport(getBooleanConfig(config, "xa.leakDetection.enhanced", false));
         builder.leakCheckIntervalMs(getLongConfig(config, "xa.leakDetection.intervalMs", 60000L));
+        builder.leakStackMaxFrames((int) getLongConfig(config, "xa.leakDetection.enhanced.maxFrames", 8L));
+        builder.leakStackSampleEvery((int) getLongConfig(config, "xa.leakDetection.enhanced.sampleEvery", 1L));
         
         // Max Lifetime
         builder.maxLifetimeMs(getLongConfig(config, "xa.maxLifetimeMs", 1800000L));
@@ -143,6 +168,8 @@ public class HousekeepingConfig {
         private long leakTimeoutMs = 300000L;         // 5 minutes
         private boolean enhancedLeakReport = false;   // Stack traces off by default
         private long leakCheckIntervalMs = 60000L;    // Check every minute
+        private int leakStackMaxFrames = 8;           // Top 8 frames of the borrow site
+        private int leakStackSampleEvery = 1;         // Capture every borrow
         
         // Max Lifetime defaults
         private long maxLifetimeMs = 1800000L;        // 30 minutes
@@ -175,6 +202,16 @@ public class HousekeepingConfig {
             return this;
         }
         
+        public Builder leakStackMaxFrames(int maxFrames) {
+            this.leakStackMaxFrames = Math.max(1, maxFrames);
+            return this;
+        }
+        
+        public Builder leakStackSampleEvery(int sampleEvery) {
+            this.leakStackSampleEvery = Math.max(1, sampleEvery);
+            return this;
+        }
+        
         public Builder maxLifetimeMs(long lifetimeMs) {
             this.maxLifetimeMs = lifetimeMs;
             return this;
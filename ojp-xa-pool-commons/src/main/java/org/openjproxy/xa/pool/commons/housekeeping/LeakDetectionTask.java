@@ -4,32 +4,31 @@ import org.openjproxy.xa.pool.XABackendSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Map;
-
 /**
  * Task that periodically checks for leaked connections.
  * <p>
- * This task examines all currently borrowed sessions and identifies any
- * that have been held longer than the configured timeout without being
- * returned to the pool.
+ * This task identifies the borrowed sessions that have been held longer
+ * than the configured timeout without being returned to the pool. Borrows
+ * are visited oldest first and the scan stops at the first one that has
+ * not expired, so sessions held for less than the timeout are not visited.
  * </p>
  */
 public class LeakDetectionTask implements Runnable {
     private static final Logger log = LoggerFactory.getLogger(LeakDetectionTask.class);
     
-    private final Map<XABackendSession, BorrowInfo> borrowedSessions;
+    private final BorrowTracker borrowedSessions;
     private final long leakTimeoutNanos;
     private final HousekeepingListener listener;
     
     /**
      * Creates a leak detection task.
      *
-     * @param borrowedSessions map of currently borrowed sessions and their borrow info
+     * @param borrowedSessions the currently borrowed sessions and their borrow info
      * @param leakTimeoutNanos the timeout in nanoseconds after which a held connection is considered leaked
      * @param listener the listener to notify when leaks are detected
      */
     public LeakDetectionTask(
-            Map<XABackendSession, BorrowInfo> borrowedSessions,
+            BorrowTracker borrowedSessions,
             long leakTimeoutNanos,
             HousekeepingListener listener) {
         this.borrowedSessions = borrowedSessions;
@@ -41,26 +40,9 @@ public class LeakDetectionTask implements Runnable {
     public void run() {
         try {
             long now = System.nanoTime();
-            int leakCount = 0;
             
-            for (Map.Entry<XABackendSession, BorrowInfo> entry : borrowedSessions.entrySet()) {
-                XABackendSession session = entry.getKey();
-                BorrowInfo info = entry.getValue();
-                
-                long heldDuration = now - info.getBorrowTime();
-                if (heldDuration > leakTimeoutNanos) {
-                    leakCount++;
-                    
-                    // Notify listener
-                    if (listener != null) {
-                        listener.onLeakDetected(
-                            session,
-                            info.getThread(),
-                            info.getStackTrace()
-                        );
-                    }
-                }
-            }
+            // Borrowed at or before this point means held for longer than the timeout
+            int leakCount = borrowedSessions.forEachBorrowedBefore(now - leakTimeoutNanos - 1, this::reportLeak);
             
             if (leakCount > 0) {
                 log.debug("Leak detection scan completed: {} leak(s) detected out of {} borrowed sessions",
@@ -74,4 +56,10 @@ public class LeakDetectionTask implements Runnable {
             }
         }
     }
+    
+    private void reportLeak(XABackendSession session, BorrowInfo info) {
+        if (listener != null) {
+            listener.onLeakDetected(session, info.getThread(), info.getStackTrace());
+        }
+    }
 }
@@ -2,6 +2,7 @@ package org.openjproxy.xa.pool.spi;
 
 import org.openjproxy.xa.pool.XABackendSession;
 
+import javax.sql.XAConnection;
 import javax.sql.XADataSource;
 import java.sql.SQLException;
 import java.util.Map;
@@ -286,4 +287,22 @@ public interface XAConnectionPoolProvider {
      * @throws Exception if session cannot be invalidated
      */
     void invalidateSession(Object xaDataSource, XABackendSession session) throws Exception;
+    
+    /**
+     * Opens a physical XA connection that bypasses the pool, used for recovery scans.
+     * 
+     * <p>Transaction managers call {@code recover()} periodically from every client. Serving
+     * those scans from a dedicated connection keeps them from taking pool capacity away from
+     * transactions. The caller owns the returned connection and closes it.</p>
+     * 
+     * <p>The default implementation returns {@code null}, in which case recovery borrows a
+     * pooled session.</p>
+     * 
+     * @param xaDataSource the XADataSource (pool) created by this provider
+     * @return a new unpooled XAConnection, or null if not supported
+     * @throws Exception if the connection cannot be opened
+     */
+    default XAConnection openRecoveryConnection(Object xaDataSource) throws Exception {
+        return null;
+    }
 }
@@ -0,0 +1,107 @@
+package org.openjproxy.xa.pool;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.transaction.xa.XAException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for the lock-free TxContext state machine and XA lifecycle metrics.
+ */
+class TxContextTest {
+
+    private static TxContext newContext(int id) {
+        return new TxContext(new XidKey(1, new byte[]{(byte) id}, new byte[]{1}), "session");
+    }
+
+    @Test
+    @DisplayName("Valid transitions follow the XA state machine")
+    void testTransitions() {
+        TxContext ctx = newContext(1);
+        XABackendSession session = mock(XABackendSession.class);
+
+        ctx.transitionToActive(session);
+        assertSame(session, ctx.getSession());
+        assertEquals(1, ctx.getAssociationCount());
+        ctx.transitionToEnded(false);
+        ctx.transitionToActiveFromEnded(true);
+        assertEquals(2, ctx.getAssociationCount());
+        ctx.transitionToEnded(false);
+        ctx.transitionToPrepared();
+        ctx.transitionToCommitted();
+        assertEquals(TxState.COMMITTED, ctx.getState());
+
+        assertThrows(IllegalStateException.class, ctx::transitionToPrepared);
+        assertThrows(IllegalStateException.class, ctx::transitionToRolledBack);
+        XAException thrown = assertThrows(XAException.class, () -> ctx.transitionTo(TxState.ACTIVE, null));
+        assertEquals(XAException.XAER_PROTO, thrown.errorCode);
+    }
+
+    @Test
+    @DisplayName("Of two racing transitions exactly one wins")
+    void testRacingTransitions() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 200; i++) {
+                TxContext ctx = newContext(i);
+                ctx.transitionToActive(mock(XABackendSession.class));
+                CountDownLatch go = new CountDownLatch(1);
+                Future<Boolean> end = executor.submit(() -> succeeds(go, () -> ctx.transitionToEnded(false)));
+                Future<Boolean> rollback = executor.submit(() -> succeeds(go, ctx::transitionToRolledBack));
+                go.countDown();
+
+                boolean ended = end.get(5, TimeUnit.SECONDS);
+                boolean rolledBack = rollback.get(5, TimeUnit.SECONDS);
+                // A rollback after the end is valid too, but an end after the rollback is not
+                assertTrue(rolledBack, "rollback is valid from ACTIVE and ENDED");
+                assertEquals(TxState.ROLLEDBACK, ctx.getState());
+                if (!ended) {
+                    assertThrows(IllegalStateException.class, () -> ctx.transitionToEnded(false));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static boolean succeeds(CountDownLatch go, Runnable transition) throws InterruptedException {
+        go.await();
+        try {
+            transition.run();
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    @Test
+    @DisplayName("Metrics count lifecycle events and bucket latencies")
+    void testMetrics() {
+        XATransactionMetrics metrics = new XATransactionMetrics();
+        metrics.onStarted();
+        metrics.onPrepared(false);
+        metrics.onCommitted(TimeUnit.MICROSECONDS.toNanos(80), TimeUnit.MILLISECONDS.toNanos(3));
+        metrics.onCommitted(TimeUnit.SECONDS.toNanos(2), TimeUnit.SECONDS.toNanos(2));
+        metrics.onError();
+
+        assertEquals(1, metrics.getStarted());
+        assertEquals(1, metrics.getPrepared());
+        assertEquals(2, metrics.getCommitted());
+        assertEquals(1, metrics.getErrors());
+        long[] buckets = metrics.getCommitLatencyBuckets();
+        assertEquals(XATransactionMetrics.LATENCY_BUCKET_BOUNDS_MICROS.length + 1, buckets.length);
+        assertEquals(1, buckets[0]);
+        assertEquals(1, buckets[buckets.length - 1]);
+        assertEquals(2_000_080, metrics.getCommitLatencySumMicros());
+        // 3ms falls in the (2.5ms, 5ms] bucket
+        assertEquals(1, metrics.getTransactionDurationBuckets()[5]);
+    }
+}
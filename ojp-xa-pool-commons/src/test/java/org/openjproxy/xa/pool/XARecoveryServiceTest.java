@@ -0,0 +1,113 @@
+package org.openjproxy.xa.pool;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openjproxy.xa.pool.spi.XAConnectionPoolProvider;
+
+import javax.sql.XAConnection;
+import javax.transaction.xa.XAException;
+import javax.transaction.xa.XAResource;
+import javax.transaction.xa.Xid;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for cached XA recovery scans on a dedicated connection.
+ */
+class XARecoveryServiceTest {
+
+    private static final int START_SCAN = XAResource.TMSTARTRSCAN | XAResource.TMENDRSCAN;
+
+    private final XAConnectionPoolProvider provider = mock(XAConnectionPoolProvider.class);
+    private final XAConnection recoveryConnection = mock(XAConnection.class);
+    private final XAResource xaResource = mock(XAResource.class);
+    private final Object poolDataSource = new Object();
+    private final AtomicLong now = new AtomicLong();
+
+    private final XidKey prepared = new XidKey(1, new byte[]{1}, new byte[]{1});
+    private final XidKey other = new XidKey(1, new byte[]{2}, new byte[]{1});
+
+    XARecoveryServiceTest() throws Exception {
+        when(provider.openRecoveryConnection(poolDataSource)).thenReturn(recoveryConnection);
+        when(recoveryConnection.getXAResource()).thenReturn(xaResource);
+        when(xaResource.recover(anyInt())).thenReturn(new Xid[]{prepared.toXid()});
+    }
+
+    private XARecoveryService service(long ttlMs) {
+        return new XARecoveryService(provider, poolDataSource, ttlMs, now::get);
+    }
+
+    @Test
+    @DisplayName("Scans within the TTL share one snapshot from the dedicated connection")
+    void testSnapshotIsSharedWithinTtl() throws Exception {
+        XARecoveryService service = service(1000);
+
+        assertEquals(List.of(prepared), service.recover(XAResource.TMSTARTRSCAN));
+        assertEquals(List.of(prepared), service.recover(START_SCAN));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertEquals(List.of(prepared), service.recover(XAResource.TMSTARTRSCAN));
+        verify(xaResource, times(1)).recover(anyInt());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        service.recover(XAResource.TMSTARTRSCAN);
+        verify(xaResource, times(2)).recover(anyInt());
+        verify(provider, times(1)).openRecoveryConnection(poolDataSource);
+        verify(provider, never()).borrowSession(any());
+    }
+
+    @Test
+    @DisplayName("Only the call starting a scan returns Xids")
+    void testContinuingScanReturnsNothing() throws Exception {
+        XARecoveryService service = service(1000);
+
+        assertEquals(List.of(prepared), service.recover(XAResource.TMSTARTRSCAN));
+        assertTrue(service.recover(XAResource.TMNOFLAGS).isEmpty());
+        assertTrue(service.recover(XAResource.TMENDRSCAN).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Branches prepared or completed locally update the cached snapshot")
+    void testLocalCompletionsUpdateSnapshot() throws Exception {
+        XARecoveryService service = service(60_000);
+        service.recover(XAResource.TMSTARTRSCAN);
+
+        service.onPrepared(other);
+        assertEquals(List.of(prepared, other), service.recover(XAResource.TMSTARTRSCAN));
+        service.onCompleted(prepared);
+        assertEquals(List.of(other), service.recover(XAResource.TMSTARTRSCAN));
+        verify(xaResource, times(1)).recover(anyInt());
+    }
+
+    @Test
+    @DisplayName("A failed scan reopens the recovery connection")
+    void testFailureReopensConnection() throws Exception {
+        XARecoveryService service = service(0);
+        when(xaResource.recover(anyInt())).thenThrow(new XAException(XAException.XAER_RMFAIL))
+                .thenReturn(new Xid[0]);
+
+        XAException thrown = assertThrows(XAException.class, () -> service.recover(XAResource.TMSTARTRSCAN));
+        assertEquals(XAException.XAER_RMERR, thrown.errorCode);
+        verify(recoveryConnection).close();
+
+        assertTrue(service.recover(XAResource.TMSTARTRSCAN).isEmpty());
+        verify(provider, times(2)).openRecoveryConnection(poolDataSource);
+    }
+
+    @Test
+    @DisplayName("Providers without unpooled connections borrow a session")
+    void testFallsBackToPooledSession() throws Exception {
+        XABackendSession session = mock(XABackendSession.class);
+        when(provider.openRecoveryConnection(poolDataSource)).thenReturn(null);
+        when(provider.borrowSession(poolDataSource)).thenReturn(session);
+        when(session.getXAResource()).thenReturn(xaResource);
+
+        assertEquals(List.of(prepared), service(0).recover(XAResource.TMSTARTRSCAN));
+        verify(provider).returnSession(poolDataSource, session);
+    }
+}
@@ -0,0 +1,141 @@
+package org.openjproxy.xa.pool.commons;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.XAConnection;
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for what BackendSessionImpl.reset() checks and restores, and the reads it skips.
+ */
+class BackendSessionResetTest {
+
+    private Connection physicalConnection;
+    private BackendSessionImpl session;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        XAConnection xaConnection = mock(XAConnection.class);
+        physicalConnection = mock(Connection.class);
+        when(xaConnection.getConnection()).thenReturn(physicalConnection);
+        when(physicalConnection.getAutoCommit()).thenReturn(true);
+        when(physicalConnection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+
+        session = new BackendSessionImpl(xaConnection, Connection.TRANSACTION_READ_COMMITTED);
+        session.open();
+        // The first reset checks the state left by the driver
+        session.reset();
+        clearInvocations(physicalConnection);
+    }
+
+    @Test
+    @DisplayName("Reset of an untouched session only checks auto-commit and isolation")
+    void testCleanResetSkipsSessionSettings() throws Exception {
+        long elidedBefore = BackendSessionImpl.getResetRoundTripsElided();
+
+        session.reset();
+
+        verify(physicalConnection).getAutoCommit();
+        verify(physicalConnection).getTransactionIsolation();
+        verify(physicalConnection, never()).rollback();
+        verify(physicalConnection, never()).setAutoCommit(anyBoolean());
+        verify(physicalConnection, never()).setTransactionIsolation(anyInt());
+        verify(physicalConnection, never()).isReadOnly();
+        verify(physicalConnection, never()).getCatalog();
+        verify(physicalConnection, never()).getSchema();
+        verify(physicalConnection).clearWarnings();
+        // Only the second auto-commit read the reset used to make
+        assertEquals(1, BackendSessionImpl.getResetRoundTripsElided() - elidedBefore);
+    }
+
+    @Test
+    @DisplayName("Reset restores auto-commit and isolation changed without going through the session's connection")
+    void testUntrackedChangesAreRestored() throws Exception {
+        // As after SET TRANSACTION ISOLATION LEVEL, or a change through a statement's getConnection()
+        when(physicalConnection.getAutoCommit()).thenReturn(false);
+        when(physicalConnection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_SERIALIZABLE);
+
+        session.reset();
+
+        verify(physicalConnection).rollback();
+        verify(physicalConnection).setAutoCommit(true);
+        verify(physicalConnection).setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+    }
+
+    @Test
+    @DisplayName("Unwrapping to Connection keeps the tracking connection")
+    void testUnwrapToConnectionKeepsTracking() throws Exception {
+        Connection connection = session.getConnection();
+        when(physicalConnection.isReadOnly()).thenReturn(false);
+
+        connection.unwrap(Connection.class).setReadOnly(true);
+        session.reset();
+
+        assertSame(connection, connection.unwrap(Connection.class));
+        verify(physicalConnection).setReadOnly(false);
+    }
+
+    @Test
+    @DisplayName("Reset rolls back and restores auto-commit after it was turned off")
+    void testAutoCommitChangeIsRestored() throws Exception {
+        session.getConnection().setAutoCommit(false);
+        when(physicalConnection.getAutoCommit()).thenReturn(false);
+
+        session.reset();
+
+        verify(physicalConnection).rollback();
+        verify(physicalConnection).setAutoCommit(true);
+
+        when(physicalConnection.getAutoCommit()).thenReturn(true);
+        clearInvocations(physicalConnection);
+        session.reset();
+        verify(physicalConnection, never()).rollback();
+    }
+
+    @Test
+    @DisplayName("Reset restores the default isolation after it was changed")
+    void testIsolationChangeIsRestored() throws Exception {
+        session.getConnection().setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+        when(physicalConnection.getTransactionIsolation())
+                .thenReturn(Connection.TRANSACTION_SERIALIZABLE, Connection.TRANSACTION_READ_COMMITTED);
+        long elidedBefore = BackendSessionImpl.getResetRoundTripsElided();
+
+        session.reset();
+
+        verify(physicalConnection).setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        // The second auto-commit read and the isolation read back after restoring it
+        assertEquals(2, BackendSessionImpl.getResetRoundTripsElided() - elidedBefore);
+    }
+
+    @Test
+    @DisplayName("Reset restores read-only, catalog and schema to their values before the first change")
+    void testSessionSettingsAreRestored() throws Exception {
+        when(physicalConnection.isReadOnly()).thenReturn(false);
+        when(physicalConnection.getCatalog()).thenReturn("main");
+        when(physicalConnection.getSchema()).thenReturn("public");
+
+        Connection connection = session.getConnection();
+        connection.setReadOnly(true);
+        connection.setCatalog("other");
+        connection.setCatalog("third");
+        connection.setSchema("reporting");
+
+        session.reset();
+
+        verify(physicalConnection).setReadOnly(false);
+        verify(physicalConnection).setCatalog("main");
+        verify(physicalConnection).setSchema("public");
+        verify(physicalConnection, times(1)).getCatalog();
+
+        clearInvocations(physicalConnection);
+        session.reset();
+        verify(physicalConnection, never()).setReadOnly(anyBoolean());
+        verify(physicalConnection, never()).setCatalog(any());
+        verify(physicalConnection, never()).setSchema(any());
+    }
+}
@@ -0,0 +1,238 @@
+package org.openjproxy.xa.pool.commons;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openjproxy.xa.pool.XABackendSession;
+import org.openjproxy.xa.pool.spi.XAConnectionPoolProvider;
+
+import javax.sql.XAConnection;
+import javax.sql.XADataSource;
+import javax.transaction.xa.XAResource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the ConcurrentBag based XA pool.
+ */
+class ConcurrentBagXADataSourceTest {
+
+    private XADataSource vendorXADataSource;
+    private ConcurrentBagXADataSource pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        vendorXADataSource = mock(XADataSource.class);
+        when(vendorXADataSource.getXAConnection()).thenAnswer(invocation -> newXAConnection());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private static XAConnection newXAConnection() throws SQLException {
+        XAConnection xaConnection = mock(XAConnection.class);
+        Connection connection = mock(Connection.class);
+        when(xaConnection.getConnection()).thenReturn(connection);
+        when(xaConnection.getXAResource()).thenReturn(mock(XAResource.class));
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+        when(connection.isValid(anyInt())).thenReturn(true);
+        return xaConnection;
+    }
+
+    private static Connection physicalConnection(XABackendSession session) {
+        return ((StateTrackingConnection) session.getConnection()).getDelegate();
+    }
+
+    private ConcurrentBagXADataSource newPool(int maxPoolSize, int minIdle, long validationIdleThresholdMs) {
+        return newPool(maxPoolSize, minIdle, validationIdleThresholdMs, 500);
+    }
+
+    private ConcurrentBagXADataSource newPool(int maxPoolSize, int minIdle, long validationIdleThresholdMs,
+                                              long connectionTimeoutMs) {
+        Map<String, String> config = new HashMap<>();
+        config.put("xa.maxPoolSize", String.valueOf(maxPoolSize));
+        config.put("xa.minIdle", String.valueOf(minIdle));
+        config.put("xa.connectionTimeoutMs", String.valueOf(connectionTimeoutMs));
+        config.put("xa.validationIdleThresholdMs", String.valueOf(validationIdleThresholdMs));
+        return new ConcurrentBagXADataSource(vendorXADataSource, config);
+    }
+
+    @Test
+    @DisplayName("A thread gets back the session it returned without validating it")
+    void testBorrowReusesSessionWithoutValidation() throws Exception {
+        pool = newPool(5, 0, 60_000);
+
+        XABackendSession first = pool.borrowSession();
+        pool.returnSession(first);
+        XABackendSession second = pool.borrowSession();
+
+        assertSame(first, second, "The returned session should be reused");
+        verify(physicalConnection(second), never()).isValid(anyInt());
+        assertEquals(1, pool.getNumActive());
+        pool.returnSession(second);
+        assertEquals(0, pool.getNumActive());
+        assertEquals(1, pool.getNumIdle());
+    }
+
+    @Test
+    @DisplayName("Sessions idle past the threshold are validated and replaced when broken")
+    void testIdleSessionIsValidated() throws Exception {
+        pool = newPool(5, 0, 0);
+
+        XABackendSession first = pool.borrowSession();
+        Connection connection = physicalConnection(first);
+        pool.returnSession(first);
+        when(connection.isValid(anyInt())).thenReturn(false);
+        Thread.sleep(5);
+
+        XABackendSession second = pool.borrowSession();
+        assertNotSame(first, second, "A broken session should be replaced");
+        // Validated on both borrows, the threshold being 0
+        verify(connection, times(2)).isValid(anyInt());
+        verify(connection).close();
+        pool.returnSession(second);
+    }
+
+    @Test
+    @DisplayName("Borrowing from an exhausted pool times out")
+    void testExhaustedPoolTimesOut() throws Exception {
+        pool = newPool(1, 0, 60_000);
+        XABackendSession session = pool.borrowSession();
+
+        SQLException thrown = assertThrows(SQLException.class, () -> pool.borrowSession());
+        assertEquals("08001", thrown.getSQLState());
+        pool.returnSession(session);
+    }
+
+    @Test
+    @DisplayName("A returned session is handed off to a waiting borrower")
+    void testReturnHandsOffToWaiter() throws Exception {
+        pool = newPool(1, 0, 60_000);
+        XABackendSession session = pool.borrowSession();
+
+        CompletableFuture<XABackendSession> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.borrowSession();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (pool.getNumWaiters() == 0) {
+            Thread.sleep(1);
+        }
+        pool.returnSession(session);
+
+        assertSame(session, waiter.get(5, TimeUnit.SECONDS));
+        verify(vendorXADataSource, times(1)).getXAConnection();
+    }
+
+    @Test
+    @DisplayName("Borrowers fail right away with the cause when sessions cannot be opened")
+    void testCreationFailureFailsWaitersFast() throws Exception {
+        SQLException refused = new SQLException("Connection refused", "08001");
+        when(vendorXADataSource.getXAConnection()).thenThrow(refused);
+        pool = newPool(5, 0, 60_000, 30_000);
+
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            SQLException thrown = assertThrows(SQLException.class, () -> pool.borrowSession());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5),
+                "The borrower should not wait for the connection timeout");
+            assertEquals("08001", thrown.getSQLState());
+            assertSame(refused, thrown.getCause());
+        }
+        assertEquals(0, pool.getNumWaiters());
+    }
+
+    @Test
+    @DisplayName("A session opened after failures clears the creation error")
+    void testCreationRecovers() throws Exception {
+        when(vendorXADataSource.getXAConnection())
+            .thenThrow(new SQLException("Connection refused", "08001"))
+            .thenAnswer(invocation -> newXAConnection());
+        pool = newPool(1, 0, 60_000);
+
+        assertThrows(SQLException.class, () -> pool.borrowSession());
+        XABackendSession session = pool.borrowSession();
+
+        SQLException thrown = assertThrows(SQLException.class, () -> pool.borrowSession());
+        assertTrue(thrown.getMessage().contains("POOL EXHAUSTED"));
+        assertNull(thrown.getCause());
+        pool.returnSession(session);
+    }
+
+    @Test
+    @DisplayName("Only blocked borrowers are counted as waiters and closing the pool wakes them")
+    void testCloseWakesWaiters() throws Exception {
+        pool = newPool(1, 0, 60_000, 30_000);
+        XABackendSession session = pool.borrowSession();
+        assertEquals(0, pool.getNumWaiters());
+
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> {
+            try {
+                pool.borrowSession();
+                fail("The pool was closed");
+            } catch (SQLException e) {
+                assertEquals("08003", e.getSQLState());
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (pool.getNumWaiters() == 0) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, pool.getNumWaiters());
+
+        pool.close();
+        waiter.get(5, TimeUnit.SECONDS);
+        assertEquals(0, pool.getNumWaiters());
+        pool.returnSession(session);
+    }
+
+    @Test
+    @DisplayName("Minimum idle sessions are opened in the background")
+    void testMinIdleIsReplenished() throws Exception {
+        pool = newPool(5, 2, 60_000);
+        awaitIdle(2);
+
+        XABackendSession session = pool.borrowSession();
+        pool.invalidateSession(session);
+        awaitIdle(2);
+        assertEquals(0, pool.getNumActive());
+    }
+
+    @Test
+    @DisplayName("The provider is discovered with a lower priority than Commons Pool 2")
+    void testProviderDiscovery() {
+        Map<String, Integer> priorities = new HashMap<>();
+        for (XAConnectionPoolProvider provider : ServiceLoader.load(XAConnectionPoolProvider.class)) {
+            priorities.put(provider.id(), provider.getPriority());
+        }
+
+        assertTrue(priorities.containsKey("concurrent-bag"), "ConcurrentBag provider should be registered");
+        assertTrue(priorities.get("concurrent-bag") < priorities.get("commons-pool2"),
+            "Commons Pool 2 should remain the default provider");
+    }
+
+    private void awaitIdle(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pool.getNumIdle() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, pool.getNumIdle());
+    }
+}
@@ -10,8 +10,11 @@ import org.openjproxy.xa.pool.XABackendSession;
 import javax.sql.XAConnection;
 import javax.sql.XADataSource;
 import java.sql.Connection;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -192,4 +195,61 @@ class LeakDetectionTest {
         assertEquals(currentThread, info.getThread(), "Thread should match");
         assertNull(info.getStackTrace(), "Stack trace should be null");
     }
+    
+    @Test
+    @DisplayName("Borrow site capture is limited to the configured number of frames")
+    void testBorrowInfoCaptureIsLimited() {
+        BorrowInfo info = BorrowInfo.capture(System.nanoTime(), 2);
+        
+        StackTraceElement[] stackTrace = info.getStackTrace();
+        assertEquals(2, stackTrace.length, "Only the top frames should be captured");
+        assertEquals("testBorrowInfoCaptureIsLimited", stackTrace[0].getMethodName(),
+            "The first frame should be the caller of capture()");
+        assertSame(stackTrace, info.getStackTrace(), "Frames should be resolved once");
+        assertNull(BorrowInfo.capture(System.nanoTime(), 0).getStackTrace(),
+            "No frames should be captured when disabled");
+    }
+    
+    @Test
+    @DisplayName("Borrow site sampling and depth can be configured")
+    void testBorrowSiteCaptureConfiguration() {
+        Map<String, String> config = new HashMap<>();
+        config.put("xa.leakDetection.enhanced.maxFrames", "8");
+        config.put("xa.leakDetection.enhanced.sampleEvery", "100");
+        
+        HousekeepingConfig housekeepingConfig = HousekeepingConfig.parseFromProperties(config);
+        assertEquals(8, housekeepingConfig.getLeakStackMaxFrames());
+        assertEquals(100, housekeepingConfig.getLeakStackSampleEvery());
+        
+        HousekeepingConfig defaults = HousekeepingConfig.parseFromProperties(new HashMap<>());
+        assertEquals(8, defaults.getLeakStackMaxFrames());
+        assertEquals(1, defaults.getLeakStackSampleEvery(), "Every borrow should be captured by default");
+    }
+    
+    @Test
+    @DisplayName("Leak scan only visits expired borrows, oldest first")
+    void testLeakScanVisitsOnlyExpiredBorrows() {
+        long now = System.nanoTime();
+        long timeoutNanos = TimeUnit.MINUTES.toNanos(5);
+        XABackendSession oldest = mock(XABackendSession.class);
+        XABackendSession expired = mock(XABackendSession.class);
+        XABackendSession returned = mock(XABackendSession.class);
+        XABackendSession recent = mock(XABackendSession.class);
+        
+        BorrowTracker tracker = new BorrowTracker();
+        tracker.track(recent, new BorrowInfo(now, Thread.currentThread(), null));
+        tracker.track(expired, new BorrowInfo(now - timeoutNanos - 1_000, Thread.currentThread(), null));
+        tracker.track(returned, new BorrowInfo(now - timeoutNanos - 2_000, Thread.currentThread(), null));
+        tracker.track(oldest, new BorrowInfo(now - timeoutNanos - 3_000, Thread.currentThread(), null));
+        tracker.untrack(returned);
+        assertEquals(3, tracker.size());
+        
+        List<Object> leaked = new ArrayList<>();
+        HousekeepingListener listener = mock(HousekeepingListener.class);
+        doAnswer(invocation -> leaked.add(invocation.getArgument(0)))
+            .when(listener).onLeakDetected(any(), any(), any());
+        new LeakDetectionTask(tracker, timeoutNanos, listener).run();
+        
+        assertEquals(List.of(oldest, expired), leaked, "Only expired borrows should be reported, oldest first");
+    }
 }